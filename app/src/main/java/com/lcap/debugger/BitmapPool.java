@@ -0,0 +1,88 @@
+package com.lcap.debugger;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * 截图用的 Bitmap 和像素数组池：同一页面每个节点的截图尺寸相同，复用后连续截图不再分配大块内存，
+ * 避免频繁 GC。超过容量时丢弃最久未用的。线程安全，主线程取出绘制后交给后台线程归还。
+ */
+public class BitmapPool {
+
+    private final long maxBytes;
+    private final ArrayDeque<Bitmap> bitmaps = new ArrayDeque<>();
+    private final ArrayDeque<int[]> pixels = new ArrayDeque<>();
+    private long bytes;
+
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // 取出一个 ARGB_8888 的可写 Bitmap，内容未清空
+    public synchronized Bitmap acquire(int width, int height) {
+        for (Iterator<Bitmap> it = bitmaps.iterator(); it.hasNext(); ) {
+            Bitmap bitmap = it.next();
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                it.remove();
+                bytes -= bitmap.getAllocationByteCount();
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        bitmaps.addFirst(bitmap);
+        bytes += bitmap.getAllocationByteCount();
+        trim();
+    }
+
+    // 取出长度至少为 size 的像素数组
+    public synchronized int[] acquirePixels(int size) {
+        for (Iterator<int[]> it = pixels.iterator(); it.hasNext(); ) {
+            int[] array = it.next();
+            if (array.length >= size) {
+                it.remove();
+                bytes -= array.length * 4L;
+                return array;
+            }
+        }
+        return new int[size];
+    }
+
+    public synchronized void releasePixels(int[] array) {
+        if (array == null) {
+            return;
+        }
+        pixels.addFirst(array);
+        bytes += array.length * 4L;
+        trim();
+    }
+
+    public synchronized void clear() {
+        for (Bitmap bitmap : bitmaps) {
+            bitmap.recycle();
+        }
+        bitmaps.clear();
+        pixels.clear();
+        bytes = 0;
+    }
+
+    private void trim() {
+        while (bytes > maxBytes && !(bitmaps.isEmpty() && pixels.isEmpty())) {
+            // 先丢像素数组，再丢 Bitmap，都从最久未用的开始
+            if (!pixels.isEmpty()) {
+                bytes -= pixels.removeLast().length * 4L;
+            } else {
+                Bitmap bitmap = bitmaps.removeLast();
+                bytes -= bitmap.getAllocationByteCount();
+                bitmap.recycle();
+            }
+        }
+    }
+}
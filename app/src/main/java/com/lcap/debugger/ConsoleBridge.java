@@ -0,0 +1,128 @@
+package com.lcap.debugger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * 页面内未捕获的异常和未处理的 Promise 拒绝，经 {@link MessageBridge} 的 {@link #CHANNEL} 频道上报到 {@link ConsoleBuffer}。
+ *
+ * onConsoleMessage 只给出一行错误信息，这里补充调用栈；通过 addEventListener 监听，
+ * 不覆盖页面自己设置的 window.onerror。每个条目为 [级别, 消息, 来源, 行号, 墙钟毫秒, 控制台文本]。
+ *
+ * 同一个错误内核还会以 "Uncaught ..." 经 onConsoleMessage 报一次，两边到达的先后不固定，
+ * 所以 onConsoleMessage 的输出也经过这里：按控制台文本在 {@link #PAIR_WINDOW_MS} 内配对，
+ * 只留一条，消息用带调用栈的那份。iframe 和不注入脚本的页面只有 onConsoleMessage 一边，照常记录。
+ */
+public class ConsoleBridge implements MessageBridge.Subscriber {
+
+    public static final String CHANNEL = "console";
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcapConsoleInstalled || !window.__lcap) return;" +
+            "  window.__lcapConsoleInstalled = true;" +
+            "  function post(message, source, line, consoleText) {" +
+            "    __lcap.post('" + CHANNEL + "', [" + ConsoleBuffer.LEVEL_ERROR + ", message, source || '', line || 0, Date.now(), consoleText]);" +
+            "  }" +
+            // 资源加载失败也会触发 error 事件，但不是 ErrorEvent，交给网络记录处理
+            "  window.addEventListener('error', function(e) {" +
+            "    if (!(e instanceof ErrorEvent)) return;" +
+            "    var stack = e.error && e.error.stack ? '\\n' + e.error.stack : '';" +
+            "    post('[onerror] ' + e.message + stack, e.filename, e.lineno, e.message);" +
+            "  }, true);" +
+            "  window.addEventListener('unhandledrejection', function(e) {" +
+            "    var r = e.reason;" +
+            "    var text = r && r.stack ? r.stack : String(r);" +
+            "    post('[unhandledrejection] ' + text, location.href, 0, 'Uncaught (in promise) ' + String(r));" +
+            "  });" +
+            "})();";
+
+    static final long PAIR_WINDOW_MS = 2000;
+    private static final int MAX_PENDING = 32;
+
+    // 一边已经记录、还在等另一边的错误
+    private static final class Pending {
+        final String key;
+        final long seq;
+        final boolean fromPage;
+        final long timeMs;
+
+        Pending(String key, long seq, boolean fromPage, long timeMs) {
+            this.key = key;
+            this.seq = seq;
+            this.fromPage = fromPage;
+            this.timeMs = timeMs;
+        }
+    }
+
+    private final ConsoleBuffer buffer;
+    // 只在 synchronized (pending) 中访问
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+    public ConsoleBridge(ConsoleBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // 在 MessageBridge 的分发线程上调用
+    @Override
+    public void onMessage(String[] fields) {
+        int level = Integer.parseInt(fields[0]);
+        int line = Integer.parseInt(fields[3]);
+        long timeMs = (long) Double.parseDouble(fields[4]);
+        String key = fields.length > 5 ? firstLine(fields[5]) : "";
+        if (key.isEmpty()) {
+            buffer.add(level, fields[1], fields[2], line, timeMs);
+            return;
+        }
+        synchronized (pending) {
+            Pending match = take(key, false, timeMs);
+            if (match != null) {
+                buffer.replaceMessage(match.seq, fields[1]);
+            } else {
+                remember(key, buffer.add(level, fields[1], fields[2], line, timeMs), true, timeMs);
+            }
+        }
+    }
+
+    // WebChromeClient.onConsoleMessage 的输出，在主线程上调用
+    public void onConsoleMessage(int level, String message, String source, int line, long timeMs) {
+        if (level != ConsoleBuffer.LEVEL_ERROR || message == null || !message.startsWith("Uncaught")) {
+            buffer.add(level, message, source, line, timeMs);
+            return;
+        }
+        String key = firstLine(message);
+        synchronized (pending) {
+            // 页面脚本已经带调用栈记过
+            if (take(key, true, timeMs) == null) {
+                remember(key, buffer.add(level, message, source, line, timeMs), false, timeMs);
+            }
+        }
+    }
+
+    // 取出另一边时间相近的同一错误，顺便丢掉过期的记录
+    private Pending take(String key, boolean fromPage, long timeMs) {
+        Pending found = null;
+        for (Iterator<Pending> it = pending.iterator(); it.hasNext(); ) {
+            Pending candidate = it.next();
+            if (Math.abs(timeMs - candidate.timeMs) > PAIR_WINDOW_MS) {
+                it.remove();
+            } else if (found == null && candidate.fromPage == fromPage && candidate.key.equals(key)) {
+                found = candidate;
+                it.remove();
+            }
+        }
+        return found;
+    }
+
+    private void remember(String key, long seq, boolean fromPage, long timeMs) {
+        if (pending.size() >= MAX_PENDING) {
+            pending.removeFirst();
+        }
+        pending.addLast(new Pending(key, seq, fromPage, timeMs));
+    }
+
+    private static String firstLine(String text) {
+        int newline = text.indexOf('\n');
+        return (newline >= 0 ? text.substring(0, newline) : text).trim();
+    }
+}
@@ -0,0 +1,154 @@
+package com.lcap.debugger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 页面控制台输出的环形缓冲区。
+ *
+ * 写入来自主线程（onConsoleMessage）和 MessageBridge 的分发线程（页面内的错误钩子），
+ * 写入方只做一次 getAndIncrement 领取序号和一次数组写入，不加锁；容量固定，写满后覆盖最旧的条目，
+ * 单条消息超过 {@link #MAX_MESSAGE_CHARS} 时截断，内存占用有上限。
+ * 读取方按序号校验槽位，被覆盖或尚未写完的槽位直接跳过。
+ */
+public class ConsoleBuffer {
+
+    public static final int LEVEL_DEBUG = 0;
+    public static final int LEVEL_LOG = 1;
+    public static final int LEVEL_WARN = 2;
+    public static final int LEVEL_ERROR = 3;
+
+    private static final String[] LEVEL_NAMES = {"debug", "log", "warn", "error"};
+    static final int MAX_MESSAGE_CHARS = 4000;
+
+    public static final class Entry {
+        public final long seq;
+        public final long timeMs;
+        public final int level;
+        public final String message;
+        public final String source;
+        public final int line;
+
+        Entry(long seq, long timeMs, int level, String message, String source, int line) {
+            this.seq = seq;
+            this.timeMs = timeMs;
+            this.level = level;
+            this.message = message;
+            this.source = source;
+            this.line = line;
+        }
+    }
+
+    public interface Listener {
+        // 在写入方的线程上调用，不能阻塞
+        void onEntry(Entry entry);
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    // 下一条的序号，同时作为缓冲区的版本号
+    private final AtomicLong next = new AtomicLong();
+    // 序号小于它的条目视为已清空
+    private volatile long clearedBefore;
+    private volatile Listener listener;
+
+    // 容量向上取整为 2 的幂
+    public ConsoleBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public static String levelName(int level) {
+        return level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : "log";
+    }
+
+    // 返回条目的序号
+    public long add(int level, String message, String source, int line, long timeMs) {
+        long seq = next.getAndIncrement();
+        Entry entry = new Entry(seq, timeMs, level, truncate(message), source, line);
+        slots.set((int) (seq & mask), entry);
+        Listener current = listener;
+        if (current != null) {
+            current.onEntry(entry);
+        }
+        return seq;
+    }
+
+    // 换掉已写入条目的消息（例如补上调用栈），条目已被覆盖时什么也不做；不再通知监听者
+    public void replaceMessage(long seq, String message) {
+        int index = (int) (seq & mask);
+        Entry old = slots.get(index);
+        if (old != null && old.seq == seq) {
+            slots.compareAndSet(index, old, new Entry(seq, old.timeMs, old.level, truncate(message), old.source, old.line));
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "";
+        }
+        return message.length() > MAX_MESSAGE_CHARS ? message.substring(0, MAX_MESSAGE_CHARS) + "…" : message;
+    }
+
+    // 新条目的监听者（例如远程控制的事件流），传 null 取消
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void clear() {
+        clearedBefore = next.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // 累计写入条数，界面用它判断是否有新输出
+    public long getWrittenCount() {
+        return next.get();
+    }
+
+    public long getDroppedCount() {
+        return Math.max(0, next.get() - clearedBefore - capacity());
+    }
+
+    /**
+     * 从序号 beforeSeq（不含）往前取最多 limit 条不低于 minLevel、消息或来源包含 query（忽略大小写）的条目，
+     * 最新的在前。翻页时传入上一页最后一条的序号。
+     */
+    public List<Entry> page(int minLevel, String query, long beforeSeq, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, capacity()));
+        long end = Math.min(beforeSeq, next.get());
+        long start = Math.max(clearedBefore, end - capacity());
+        boolean filterText = query != null && !query.isEmpty();
+        for (long seq = end - 1; seq >= start && result.size() < limit; seq--) {
+            Entry entry = slots.get((int) (seq & mask));
+            if (entry == null || entry.seq != seq || entry.level < minLevel) {
+                continue;
+            }
+            if (filterText && !containsIgnoreCase(entry.message, query)
+                    && !containsIgnoreCase(entry.source, query)) {
+                continue;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    // 不分配新字符串的忽略大小写查找
+    static boolean containsIgnoreCase(String text, String query) {
+        if (text == null) {
+            return false;
+        }
+        int max = text.length() - query.length();
+        for (int i = 0; i <= max; i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,229 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.lcap.debugger.databinding.DialogConsoleBinding;
+import com.lcap.debugger.databinding.ItemConsoleBinding;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 控制台日志查看器：按级别和关键字过滤，分页浏览 {@link ConsoleBuffer}，最新的在最上面。
+ *
+ * 打开期间定时检查缓冲区的写入计数，有新输出时只取比当前首条更新的条目；滚动到底部时再往前取一页。
+ * 列表使用 ListAdapter，差异在后台线程计算，页面大量输出时界面只做增量更新。
+ */
+public class ConsoleViewer {
+
+    private static final int PAGE_SIZE = 200;
+    private static final long REFRESH_INTERVAL_MS = 500;
+    private static final String[] LEVEL_LABELS = {"全部", "日志", "警告", "错误"};
+    private static final int[] LEVEL_FILTERS = {
+            ConsoleBuffer.LEVEL_DEBUG, ConsoleBuffer.LEVEL_LOG, ConsoleBuffer.LEVEL_WARN, ConsoleBuffer.LEVEL_ERROR
+    };
+    private static final int[] LEVEL_COLORS = {Color.GRAY, Color.BLACK, 0xFFE65100, 0xFFD32F2F};
+
+    private final Context context;
+    private final ConsoleBuffer buffer;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final EntryAdapter adapter = new EntryAdapter();
+    private final Runnable refreshTask = this::refreshIfChanged;
+    private DialogConsoleBinding binding;
+    private List<ConsoleBuffer.Entry> shown = new ArrayList<>();
+    private int minLevel = ConsoleBuffer.LEVEL_DEBUG;
+    private String query = "";
+    private long lastVersion = -1;
+    // 已经翻到最旧的一页
+    private boolean reachedEnd;
+
+    public ConsoleViewer(Context context, ConsoleBuffer buffer) {
+        this.context = context;
+        this.buffer = buffer;
+    }
+
+    public void show() {
+        binding = DialogConsoleBinding.inflate(LayoutInflater.from(context));
+        binding.consoleList.setLayoutManager(new LinearLayoutManager(context));
+        binding.consoleList.setAdapter(adapter);
+        binding.consoleList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && !recyclerView.canScrollVertically(1)) {
+                    loadOlder();
+                }
+            }
+        });
+
+        ArrayAdapter<String> levels = new ArrayAdapter<>(context,
+                android.R.layout.simple_spinner_item, LEVEL_LABELS);
+        levels.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        binding.consoleLevel.setAdapter(levels);
+        binding.consoleLevel.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (minLevel != LEVEL_FILTERS[position]) {
+                    minLevel = LEVEL_FILTERS[position];
+                    reload();
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        binding.consoleSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                query = s.toString().trim();
+                reload();
+            }
+        });
+
+        new MaterialAlertDialogBuilder(context)
+                .setTitle("控制台")
+                .setView(binding.getRoot())
+                .setPositiveButton("确定", null)
+                .setNeutralButton("清空", (dialog, which) -> buffer.clear())
+                .setOnDismissListener(dialog -> {
+                    handler.removeCallbacks(refreshTask);
+                    binding = null;
+                })
+                .show();
+        reload();
+        handler.postDelayed(refreshTask, REFRESH_INTERVAL_MS);
+    }
+
+    // 条件变化后从最新的一页重新开始
+    private void reload() {
+        lastVersion = buffer.getWrittenCount();
+        shown = buffer.page(minLevel, query, Long.MAX_VALUE, PAGE_SIZE);
+        reachedEnd = shown.size() < PAGE_SIZE;
+        submit();
+    }
+
+    private void refreshIfChanged() {
+        if (binding == null) {
+            return;
+        }
+        long version = buffer.getWrittenCount();
+        if (version != lastVersion) {
+            lastVersion = version;
+            List<ConsoleBuffer.Entry> newer = buffer.page(minLevel, query, Long.MAX_VALUE, PAGE_SIZE);
+            long head = shown.isEmpty() ? -1 : shown.get(0).seq;
+            int count = 0;
+            while (count < newer.size() && newer.get(count).seq > head) {
+                count++;
+            }
+            if (count == newer.size() && count == PAGE_SIZE) {
+                // 新输出超过一页，和已显示的内容之间有断档，直接换成最新一页
+                shown = newer;
+                reachedEnd = false;
+            } else if (count > 0) {
+                List<ConsoleBuffer.Entry> merged = new ArrayList<>(newer.subList(0, count));
+                merged.addAll(shown);
+                // 显示的条数不超过缓冲区容量
+                shown = merged.size() > buffer.capacity() ? merged.subList(0, buffer.capacity()) : merged;
+            }
+            submit();
+        }
+        handler.postDelayed(refreshTask, REFRESH_INTERVAL_MS);
+    }
+
+    private void loadOlder() {
+        if (reachedEnd || shown.isEmpty()) {
+            return;
+        }
+        List<ConsoleBuffer.Entry> older = buffer.page(minLevel, query, shown.get(shown.size() - 1).seq, PAGE_SIZE);
+        reachedEnd = older.size() < PAGE_SIZE;
+        if (!older.isEmpty()) {
+            List<ConsoleBuffer.Entry> merged = new ArrayList<>(shown);
+            merged.addAll(older);
+            shown = merged;
+            submit();
+        }
+    }
+
+    private void submit() {
+        adapter.submitList(shown);
+        binding.consoleStatus.setText(String.format(Locale.getDefault(), "显示 %d 条，累计 %d 条，已覆盖 %d 条",
+                shown.size(), buffer.getWrittenCount(), buffer.getDroppedCount()));
+    }
+
+    private static final DiffUtil.ItemCallback<ConsoleBuffer.Entry> DIFF = new DiffUtil.ItemCallback<ConsoleBuffer.Entry>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ConsoleBuffer.Entry oldItem, @NonNull ConsoleBuffer.Entry newItem) {
+            return oldItem.seq == newItem.seq;
+        }
+
+        // 条目创建后不再修改，序号相同即内容相同
+        @Override
+        public boolean areContentsTheSame(@NonNull ConsoleBuffer.Entry oldItem, @NonNull ConsoleBuffer.Entry newItem) {
+            return oldItem == newItem;
+        }
+    };
+
+    private static class EntryAdapter extends ListAdapter<ConsoleBuffer.Entry, EntryAdapter.ViewHolder> {
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        private final Date date = new Date();
+
+        EntryAdapter() {
+            super(DIFF);
+        }
+
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new ViewHolder(ItemConsoleBinding.inflate(LayoutInflater.from(parent.getContext()), parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+            ConsoleBuffer.Entry entry = getItem(position);
+            date.setTime(entry.timeMs);
+            String source = entry.source == null || entry.source.isEmpty() ? "" : "  " + entry.source + ":" + entry.line;
+            holder.binding.consoleMeta.setText(timeFormat.format(date) + "  "
+                    + ConsoleBuffer.levelName(entry.level) + source);
+            holder.binding.consoleMessage.setText(entry.message);
+            holder.binding.consoleMessage.setTextColor(entry.level >= 0 && entry.level < LEVEL_COLORS.length
+                    ? LEVEL_COLORS[entry.level] : Color.BLACK);
+        }
+
+        static class ViewHolder extends RecyclerView.ViewHolder {
+            final ItemConsoleBinding binding;
+
+            ViewHolder(ItemConsoleBinding binding) {
+                super(binding.getRoot());
+                this.binding = binding;
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.activity.result.contract.ActivityResultContract;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.ResultPoint;
+import com.journeyapps.barcodescanner.BarcodeCallback;
+import com.journeyapps.barcodescanner.BarcodeResult;
+import com.journeyapps.barcodescanner.DefaultDecoderFactory;
+import com.lcap.debugger.databinding.ActivityContinuousScanBinding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 连续扫码：相机保持打开，逐个扫描一张表上的多个二维码，结束时统一处理。
+ *
+ * 使用 DecoratedBarcodeView 的连续解码模式，解码在它的后台线程上进行，上一帧解码完成后
+ * 才请求下一帧预览，负载高时中间的帧自然被丢弃。结果按内容去重，结束时可以依次加载或只保存到历史记录。
+ */
+public class ContinuousScanActivity extends AppCompatActivity {
+
+    private static final String TAG = "ContinuousScan";
+    private static final String EXTRA_URLS = "urls";
+    // 状态栏刷新间隔，避免每帧都更新界面
+    private static final long STATUS_INTERVAL_MS = 500;
+
+    // 结果为需要依次加载的URL，取消或只保存到历史记录时为空列表
+    public static class Contract extends ActivityResultContract<Void, List<String>> {
+        @NonNull
+        @Override
+        public Intent createIntent(@NonNull Context context, Void input) {
+            return new Intent(context, ContinuousScanActivity.class);
+        }
+
+        @Override
+        public List<String> parseResult(int resultCode, Intent intent) {
+            ArrayList<String> urls = intent == null ? null : intent.getStringArrayListExtra(EXTRA_URLS);
+            return resultCode == RESULT_OK && urls != null ? urls : Collections.emptyList();
+        }
+    }
+
+    // 界面允许随传感器旋转，会话放在 ViewModel 中，旋转重建 Activity 时不丢失已扫描的结果
+    public static class SessionModel extends ViewModel {
+        final ScanSession session = new ScanSession(System.currentTimeMillis());
+    }
+
+    private ActivityContinuousScanBinding binding;
+    private ScanSession session;
+    private long lastStatusUpdate;
+
+    private final BarcodeCallback callback = new BarcodeCallback() {
+        @Override
+        public void barcodeResult(BarcodeResult result) {
+            long now = System.currentTimeMillis();
+            if (session.onResult(result.getText(), result.getTimestamp(), now)) {
+                binding.scanCodes.append((binding.scanCodes.length() == 0 ? "" : "\n") + session.size() + ". " + result.getText().trim());
+                binding.barcodeView.setStatusText("已扫描 " + session.size() + " 个，继续对准下一个二维码");
+                updateStatus(true);
+            }
+        }
+
+        // 每解码完一帧都会回调，无论是否识别到二维码
+        @Override
+        public void possibleResultPoints(List<ResultPoint> resultPoints) {
+            session.onFrame();
+            updateStatus(false);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        binding = ActivityContinuousScanBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+
+        session = new ViewModelProvider(this).get(SessionModel.class).session;
+        binding.barcodeView.getBarcodeView().setDecoderFactory(
+                new DefaultDecoderFactory(Collections.singletonList(BarcodeFormat.QR_CODE)));
+        List<String> codes = session.codes();
+        for (int i = 0; i < codes.size(); i++) {
+            binding.scanCodes.append((i == 0 ? "" : "\n") + (i + 1) + ". " + codes.get(i));
+        }
+        binding.barcodeView.setStatusText(codes.isEmpty() ? "将二维码逐个对准扫描框"
+                : "已扫描 " + codes.size() + " 个，继续对准下一个二维码");
+        updateStatus(true);
+        binding.barcodeView.decodeContinuous(callback);
+
+        binding.scanLoadButton.setOnClickListener(v -> finishWithCodes(true));
+        binding.scanSaveButton.setOnClickListener(v -> finishWithCodes(false));
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        binding.barcodeView.resume();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        binding.barcodeView.pause();
+    }
+
+    private void updateStatus(boolean force) {
+        long now = SystemClock.elapsedRealtime();
+        if (!force && now - lastStatusUpdate < STATUS_INTERVAL_MS) {
+            return;
+        }
+        lastStatusUpdate = now;
+        binding.scanStatus.setText(session.summary(System.currentTimeMillis()));
+    }
+
+    // load 为 true 时交给调用方依次加载，否则直接保存到历史记录
+    private void finishWithCodes(boolean load) {
+        List<String> urls = new ArrayList<>();
+        for (String code : session.codes()) {
+            String url = UrlNormalizer.normalize(code);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        Log.d(TAG, session.summary(System.currentTimeMillis())
+                + String.format(Locale.US, " · 解码到接收平均 %.1f ms", session.averageHandoffMs()));
+        if (urls.isEmpty()) {
+            setResult(RESULT_CANCELED);
+        } else if (load) {
+            setResult(RESULT_OK, new Intent().putStringArrayListExtra(EXTRA_URLS, new ArrayList<>(urls)));
+        } else {
+            HistoryStore store = HistoryStore.get(this);
+            for (String url : urls) {
+                store.add(url);
+            }
+            Toast.makeText(this, "已保存 " + urls.size() + " 个网址到历史记录", Toast.LENGTH_SHORT).show();
+            setResult(RESULT_CANCELED);
+        }
+        finish();
+    }
+}
@@ -0,0 +1,601 @@
+package com.lcap.debugger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 只监听 127.0.0.1 的本地控制服务，通过 adb forward tcp:8765 tcp:8765 从电脑或 CI 访问。
+ *
+ * 单线程 NIO 事件循环，同时处理 HTTP 和 WebSocket：
+ * <ul>
+ * <li>POST /load、/profile、/eval 等：路径为命令名，请求体为参数，回复 JSON 后关闭连接；</li>
+ * <li>GET /events 升级为 WebSocket 订阅事件流，连接上也可以发送 "命令 参数" 形式的文本帧；</li>
+ * <li>GET /status 返回当前订阅者数量。</li>
+ * </ul>
+ * 设备上的其他应用和浏览器里的网页同样能访问 127.0.0.1，所以每个请求（包括 WebSocket 握手）都要带上
+ * "Authorization: Bearer 令牌"，Host 必须是 127.0.0.1 或 localhost 加本服务端口（挡住 DNS 重绑定），
+ * 带 Origin 头的请求一律拒绝（浏览器发出的跨源请求和 WebSocket 都会带）；命令只接受 POST，
+ * 网页里的 img、link 等发出的 GET 无法触发命令。
+ * 命令交给 {@link CommandHandler}，结果可以在任意线程回复；广播的事件只编码一次，
+ * 各订阅者共享同一份帧数据。订阅者积压超过 {@link #MAX_PENDING_BYTES} 时丢弃发给它的事件，慢客户端不会拖住其他人。
+ * 纯 Java 实现，不依赖 Android。
+ */
+public class ControlServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8765;
+    static final int MAX_REQUEST_BYTES = 1 << 20;
+    static final int MAX_PENDING_BYTES = 1 << 20;
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    public interface CommandHandler {
+        // 在服务线程上调用，不能阻塞；处理完后调用一次 reply
+        void onCommand(String command, String argument, Reply reply);
+    }
+
+    public interface Reply {
+        // 可以在任意线程调用，只有第一次调用有效
+        void send(boolean ok, String result);
+    }
+
+    private static final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        int pendingBytes;
+        boolean webSocket;
+        // HTTP 请求已读完，等待回复；之后的输入忽略
+        boolean requestDone;
+        boolean closeAfterWrite;
+        long droppedEvents;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final byte[] token;
+    private final CommandHandler handler;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final List<Connection> subscribers = new ArrayList<>();
+    private volatile int subscriberCount;
+    private volatile boolean running;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+
+    // token 为每个请求都必须携带的访问令牌
+    public ControlServer(String token, CommandHandler handler) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("令牌不能为空");
+        }
+        this.token = ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        this.handler = handler;
+    }
+
+    /**
+     * 在 127.0.0.1 上监听并启动服务线程，返回实际端口（port 为 0 时由系统分配）。
+     */
+    public synchronized int start(int port) throws IOException {
+        if (running) {
+            return getPort();
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::loop, "control-server");
+        thread.setDaemon(true);
+        thread.start();
+        return getPort();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 有订阅者时才值得组装事件
+    public boolean hasSubscribers() {
+        return subscriberCount > 0;
+    }
+
+    // 向所有 WebSocket 订阅者发送一条文本事件，可以在任意线程调用
+    public void broadcast(String text) {
+        if (!running || subscriberCount == 0) {
+            return;
+        }
+        post(() -> {
+            byte[] frame = frame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+            for (Connection connection : subscribers) {
+                enqueue(connection, ByteBuffer.wrap(frame), true);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        Thread loopThread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            selector.wakeup();
+            loopThread = thread;
+        }
+        try {
+            loopThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void post(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void loop() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                read(connection);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(connection);
+                            }
+                        }
+                    } catch (IOException e) {
+                        Object attachment = key.attachment();
+                        if (attachment instanceof Connection) {
+                            closeConnection((Connection) attachment);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            running = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            subscribers.clear();
+            subscriberCount = 0;
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private void read(Connection connection) throws IOException {
+        int n = connection.channel.read(connection.in);
+        if (n < 0) {
+            closeConnection(connection);
+            return;
+        }
+        ByteBuffer in = connection.in;
+        in.flip();
+        if (connection.webSocket) {
+            readFrames(connection);
+        } else if (!connection.requestDone) {
+            readHttp(connection);
+        } else {
+            in.position(in.limit());
+        }
+        in.compact();
+        if (!in.hasRemaining() && connection.channel.isOpen()) {
+            // 一个请求或一帧放不下时扩容，超过上限直接断开
+            if (in.capacity() >= MAX_REQUEST_BYTES) {
+                closeConnection(connection);
+                return;
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            bigger.put(in);
+            connection.in = bigger;
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        while (!connection.out.isEmpty()) {
+            ByteBuffer buffer = connection.out.peek();
+            int written = connection.channel.write(buffer);
+            connection.pendingBytes -= written;
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            connection.out.poll();
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+        if (connection.closeAfterWrite) {
+            closeConnection(connection);
+        }
+    }
+
+    // dropIfBacklogged 为 true 时（事件推送）积压过多直接丢弃
+    private void enqueue(Connection connection, ByteBuffer buffer, boolean dropIfBacklogged) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        if (dropIfBacklogged && connection.pendingBytes + buffer.remaining() > MAX_PENDING_BYTES) {
+            connection.droppedEvents++;
+            return;
+        }
+        connection.out.add(buffer);
+        connection.pendingBytes += buffer.remaining();
+        connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void closeConnection(Connection connection) {
+        if (connection.webSocket && subscribers.remove(connection)) {
+            subscriberCount = subscribers.size();
+        }
+        connection.key.cancel();
+        closeQuietly(connection.channel);
+    }
+
+    // ---- HTTP ----
+
+    private void readHttp(Connection connection) {
+        ByteBuffer in = connection.in;
+        int headerEnd = indexOf(in, "\r\n\r\n");
+        if (headerEnd < 0) {
+            return;
+        }
+        int start = in.position();
+        String head = new String(in.array(), start, headerEnd - start, StandardCharsets.ISO_8859_1);
+        String[] lines = head.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.US), lines[i].substring(colon + 1).trim());
+            }
+        }
+        int contentLength = 0;
+        try {
+            contentLength = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+        } catch (NumberFormatException e) {
+            // 按没有请求体处理
+        }
+        int bodyStart = headerEnd + 4;
+        if (contentLength < 0 || contentLength > MAX_REQUEST_BYTES) {
+            in.position(in.limit());
+            connection.requestDone = true;
+            respond(connection, 413, result(false, "请求体过大"));
+            return;
+        }
+        if (in.limit() - bodyStart < contentLength) {
+            // 请求体还没收完
+            return;
+        }
+        String body = new String(in.array(), bodyStart, contentLength, StandardCharsets.UTF_8);
+        in.position(bodyStart + contentLength);
+        connection.requestDone = true;
+        if (requestLine.length < 2) {
+            respond(connection, 400, result(false, "无法解析请求"));
+            return;
+        }
+        handleHttp(connection, requestLine[0], requestLine[1], headers, body);
+    }
+
+    private void handleHttp(Connection connection, String method, String target, Map<String, String> headers,
+                            String body) {
+        if (headers.containsKey("origin")) {
+            respond(connection, 403, result(false, "不接受来自网页的请求"));
+            return;
+        }
+        if (!isLocalHost(headers.get("host"))) {
+            respond(connection, 403, result(false, "Host 不是本机地址"));
+            return;
+        }
+        String authorization = headers.get("authorization");
+        if (authorization == null
+                || !MessageDigest.isEqual(token, authorization.getBytes(StandardCharsets.UTF_8))) {
+            respond(connection, 401, result(false, "令牌无效"));
+            return;
+        }
+        int question = target.indexOf('?');
+        String path = question >= 0 ? target.substring(0, question) : target;
+
+        if (path.equals("/events") || path.equals("/status")) {
+            if (!method.equals("GET")) {
+                respond(connection, 405, result(false, "只支持 GET"));
+                return;
+            }
+        } else if (!method.equals("POST")) {
+            respond(connection, 405, result(false, "命令只支持 POST"));
+            return;
+        }
+        if (path.equals("/events")) {
+            String key = headers.get("sec-websocket-key");
+            if (!"websocket".equalsIgnoreCase(headers.get("upgrade")) || key == null) {
+                respond(connection, 400, result(false, "需要 WebSocket 升级"));
+                return;
+            }
+            String handshake = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+            connection.webSocket = true;
+            subscribers.add(connection);
+            subscriberCount = subscribers.size();
+            enqueue(connection, ByteBuffer.wrap(handshake.getBytes(StandardCharsets.ISO_8859_1)), false);
+            return;
+        }
+        if (path.equals("/status")) {
+            respond(connection, 200, "{\"ok\":true,\"subscribers\":" + subscribers.size() + "}");
+            return;
+        }
+        String command = path.startsWith("/") ? path.substring(1) : path;
+        if (command.isEmpty()) {
+            respond(connection, 404, result(false, "未指定命令"));
+            return;
+        }
+        handler.onCommand(command, body, reply((ok, text) -> respond(connection, ok ? 200 : 400, result(ok, text))));
+    }
+
+    private void respond(Connection connection, int status, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + " " + reason(status) + "\r\n"
+                + "Content-Type: application/json; charset=utf-8\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        enqueue(connection, ByteBuffer.wrap(head.getBytes(StandardCharsets.ISO_8859_1)), false);
+        enqueue(connection, ByteBuffer.wrap(body), false);
+        connection.closeAfterWrite = true;
+    }
+
+    // 把回复转回服务线程执行，保证只回复一次
+    private Reply reply(Reply target) {
+        AtomicBoolean sent = new AtomicBoolean();
+        return (ok, text) -> {
+            if (sent.compareAndSet(false, true)) {
+                post(() -> target.send(ok, text));
+            }
+        };
+    }
+
+    // ---- WebSocket ----
+
+    private void readFrames(Connection connection) {
+        ByteBuffer in = connection.in;
+        while (in.remaining() >= 2) {
+            int start = in.position();
+            int b0 = in.get() & 0xff;
+            int b1 = in.get() & 0xff;
+            int opcode = b0 & 0x0f;
+            boolean masked = (b1 & 0x80) != 0;
+            long length = b1 & 0x7f;
+            if (length == 126) {
+                if (in.remaining() < 2) {
+                    in.position(start);
+                    return;
+                }
+                length = in.getShort() & 0xffff;
+            } else if (length == 127) {
+                if (in.remaining() < 8) {
+                    in.position(start);
+                    return;
+                }
+                length = in.getLong();
+            }
+            if (length < 0 || length > MAX_REQUEST_BYTES) {
+                in.position(in.limit());
+                closeConnection(connection);
+                return;
+            }
+            int maskLength = masked ? 4 : 0;
+            if (in.remaining() < maskLength + length) {
+                in.position(start);
+                return;
+            }
+            byte[] mask = new byte[4];
+            if (masked) {
+                in.get(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.get(payload);
+            for (int i = 0; masked && i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+            onFrame(connection, opcode, payload);
+        }
+    }
+
+    private void onFrame(Connection connection, int opcode, byte[] payload) {
+        if (opcode == OP_TEXT) {
+            String text = new String(payload, StandardCharsets.UTF_8).trim();
+            int space = text.indexOf(' ');
+            String command = space >= 0 ? text.substring(0, space) : text;
+            String argument = space >= 0 ? text.substring(space + 1) : "";
+            handler.onCommand(command, argument, reply((ok, result) -> {
+                String json = "{\"type\":\"reply\",\"command\":" + quote(command)
+                        + ",\"ok\":" + ok + ",\"result\":" + quote(result) + "}";
+                enqueue(connection, ByteBuffer.wrap(frame(OP_TEXT, json.getBytes(StandardCharsets.UTF_8))), false);
+            }));
+        } else if (opcode == OP_PING) {
+            enqueue(connection, ByteBuffer.wrap(frame(OP_PONG, payload)), false);
+        } else if (opcode == OP_CLOSE) {
+            if (subscribers.remove(connection)) {
+                subscriberCount = subscribers.size();
+            }
+            enqueue(connection, ByteBuffer.wrap(frame(OP_CLOSE, new byte[0])), false);
+            connection.closeAfterWrite = true;
+        }
+        // 分片消息和二进制帧不支持，直接忽略
+    }
+
+    // 服务端发出的帧不加掩码
+    static byte[] frame(int opcode, byte[] payload) {
+        int length = payload.length;
+        int header = length < 126 ? 2 : length <= 0xffff ? 4 : 10;
+        ByteBuffer frame = ByteBuffer.allocate(header + length);
+        frame.put((byte) (0x80 | opcode));
+        if (length < 126) {
+            frame.put((byte) length);
+        } else if (length <= 0xffff) {
+            frame.put((byte) 126).putShort((short) length);
+        } else {
+            frame.put((byte) 127).putLong(length);
+        }
+        frame.put(payload);
+        return frame.array();
+    }
+
+    static String acceptKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return base64(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // java.util.Base64 需要 API 26，这里只用于握手，自己实现
+    static String base64(byte[] data) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        StringBuilder out = new StringBuilder((data.length + 2) / 3 * 4);
+        for (int i = 0; i < data.length; i += 3) {
+            int b = (data[i] & 0xff) << 16;
+            if (i + 1 < data.length) {
+                b |= (data[i + 1] & 0xff) << 8;
+            }
+            if (i + 2 < data.length) {
+                b |= data[i + 2] & 0xff;
+            }
+            out.append(alphabet.charAt((b >> 18) & 63));
+            out.append(alphabet.charAt((b >> 12) & 63));
+            out.append(i + 1 < data.length ? alphabet.charAt((b >> 6) & 63) : '=');
+            out.append(i + 2 < data.length ? alphabet.charAt(b & 63) : '=');
+        }
+        return out.toString();
+    }
+
+    // ---- 工具方法 ----
+
+    static String result(boolean ok, String result) {
+        return "{\"ok\":" + ok + ",\"result\":" + quote(result) + "}";
+    }
+
+    private static String quote(String value) {
+        StringWriter out = new StringWriter();
+        try {
+            new JsonStreamWriter(out).value(value).flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    // Host 必须带上本服务的端口，DNS 重绑定过来的请求 Host 是攻击者的域名
+    private boolean isLocalHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String value = host.toLowerCase(Locale.US);
+        String port = ":" + getPort();
+        return value.equals("127.0.0.1" + port) || value.equals("localhost" + port);
+    }
+
+    private static int indexOf(ByteBuffer buffer, String pattern) {
+        byte[] array = buffer.array();
+        outer:
+        for (int i = buffer.position(); i <= buffer.limit() - pattern.length(); i++) {
+            for (int j = 0; j < pattern.length(); j++) {
+                if (array[i + j] != pattern.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 400:
+                return "Bad Request";
+            case 401:
+                return "Unauthorized";
+            case 403:
+                return "Forbidden";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 413:
+                return "Payload Too Large";
+            default:
+                return "Error";
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+// 调试器各项开关统一保存在同一个 SharedPreferences 文件中
+public final class DebuggerSettings {
+
+    private static final String PREFS_NAME = "debugger_settings";
+
+    private DebuggerSettings() {
+    }
+
+    public static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
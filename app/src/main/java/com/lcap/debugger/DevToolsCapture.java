@@ -0,0 +1,200 @@
+package com.lcap.debugger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 通过 DevTools 协议采集一次性能数据：Tracing 追踪、Profiler 的 CPU 剖析和代码覆盖率、HeapProfiler 的堆采样。
+ *
+ * 追踪使用 ReturnAsStream 模式，结束后按 {@link #CHUNK_SIZE} 分块 IO.read 并直接写入文件，
+ * 整个追踪不会同时出现在内存中；生成的 JSON 可以在 Perfetto UI 或 DevTools 性能面板中打开。
+ * 剖析结果由协议一次返回，按收到的字节原样写入 .cpuprofile / .heapprofile 文件，同样可以在 DevTools 中打开。
+ */
+public class DevToolsCapture {
+
+    public enum Kind {
+        TRACE("trace", "性能追踪", "json"),
+        CPU_PROFILE("cpu", "CPU 剖析", "cpuprofile"),
+        COVERAGE("coverage", "代码覆盖率", "json"),
+        HEAP_SAMPLING("heap", "堆采样", "heapprofile");
+
+        public final String keyword;
+        public final String label;
+        final String extension;
+
+        Kind(String keyword, String label, String extension) {
+            this.keyword = keyword;
+            this.label = label;
+            this.extension = extension;
+        }
+
+        // 解析 "trace,cpu,coverage,heap"，未知的名字抛出 IllegalArgumentException
+        public static Set<Kind> parse(String text) {
+            Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+            for (String part : text.split("[,\\s]+")) {
+                if (part.isEmpty()) {
+                    continue;
+                }
+                Kind found = null;
+                for (Kind kind : values()) {
+                    if (kind.keyword.equals(part.toLowerCase(Locale.US))) {
+                        found = kind;
+                    }
+                }
+                if (found == null) {
+                    throw new IllegalArgumentException("未知的采集类型: " + part);
+                }
+                kinds.add(found);
+            }
+            if (kinds.isEmpty()) {
+                throw new IllegalArgumentException("没有选择采集类型");
+            }
+            return kinds;
+        }
+    }
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final String TRACE_CATEGORIES = "\"devtools.timeline\",\"disabled-by-default-devtools.timeline\","
+            + "\"disabled-by-default-devtools.timeline.frame\",\"disabled-by-default-devtools.screenshot\","
+            + "\"v8.execute\",\"disabled-by-default-v8.cpu_profiler\",\"blink.user_timing\",\"loading\","
+            + "\"latencyInfo\",\"toplevel\"";
+    // 与 DevTools 性能面板的默认值相同
+    private static final int CPU_SAMPLING_INTERVAL_US = 100;
+    private static final int HEAP_SAMPLING_INTERVAL_BYTES = 32 * 1024;
+
+    private final DevToolsClient client;
+    private final Set<Kind> kinds;
+
+    public DevToolsCapture(DevToolsClient client, Set<Kind> kinds) {
+        this.client = client;
+        this.kinds = Collections.unmodifiableSet(EnumSet.copyOf(kinds));
+    }
+
+    public Set<Kind> getKinds() {
+        return kinds;
+    }
+
+    public void start() throws IOException {
+        if (kinds.contains(Kind.CPU_PROFILE) || kinds.contains(Kind.COVERAGE)) {
+            client.call("Profiler.enable", null);
+        }
+        if (kinds.contains(Kind.COVERAGE)) {
+            client.call("Profiler.startPreciseCoverage", "{\"callCount\":true,\"detailed\":true}");
+        }
+        if (kinds.contains(Kind.CPU_PROFILE)) {
+            client.call("Profiler.setSamplingInterval", "{\"interval\":" + CPU_SAMPLING_INTERVAL_US + "}");
+            client.call("Profiler.start", null);
+        }
+        if (kinds.contains(Kind.HEAP_SAMPLING)) {
+            client.call("HeapProfiler.enable", null);
+            client.call("HeapProfiler.startSampling", "{\"samplingInterval\":" + HEAP_SAMPLING_INTERVAL_BYTES + "}");
+        }
+        if (kinds.contains(Kind.TRACE)) {
+            client.call("Tracing.start", "{\"transferMode\":\"ReturnAsStream\",\"streamFormat\":\"json\","
+                    + "\"streamCompression\":\"none\",\"traceConfig\":{\"recordMode\":\"recordAsMuchAsPossible\","
+                    + "\"includedCategories\":[" + TRACE_CATEGORIES + "]}}");
+        }
+    }
+
+    /**
+     * 停止采集并写入 dir，文件名为 name-类型.扩展名。先停追踪，避免停止剖析本身出现在追踪里。
+     * 返回写入的文件，顺序与 {@link Kind} 相同。某种剖析没有返回数据时不留下空文件，
+     * 其余类型照常停止和保存，最后抛出 IOException 说明缺少哪些结果。
+     */
+    public List<File> stop(File dir, String name) throws IOException {
+        List<File> files = new ArrayList<>();
+        List<Kind> missing = new ArrayList<>();
+        if (kinds.contains(Kind.TRACE)) {
+            File file = fileFor(dir, name, Kind.TRACE);
+            client.call("Tracing.end", null);
+            String stream = JsonScanner.string(JsonScanner.field(client.awaitEvent("Tracing.tracingComplete"), "stream"));
+            if (stream == null) {
+                throw new IOException("WebView 内核不支持以流的方式返回追踪数据");
+            }
+            try (Writer writer = open(file)) {
+                streamTo(stream, writer);
+            }
+            files.add(file);
+        }
+        if (kinds.contains(Kind.CPU_PROFILE)) {
+            saveField("Profiler.stop", "profile", dir, name, Kind.CPU_PROFILE, files, missing);
+        }
+        if (kinds.contains(Kind.COVERAGE)) {
+            saveField("Profiler.takePreciseCoverage", "result", dir, name, Kind.COVERAGE, files, missing);
+            client.call("Profiler.stopPreciseCoverage", null);
+        }
+        if (kinds.contains(Kind.CPU_PROFILE) || kinds.contains(Kind.COVERAGE)) {
+            client.call("Profiler.disable", null);
+        }
+        if (kinds.contains(Kind.HEAP_SAMPLING)) {
+            saveField("HeapProfiler.stopSampling", "profile", dir, name, Kind.HEAP_SAMPLING, files, missing);
+            client.call("HeapProfiler.disable", null);
+        }
+        if (!missing.isEmpty()) {
+            StringBuilder labels = new StringBuilder();
+            for (Kind kind : missing) {
+                labels.append(labels.length() > 0 ? "、" : "").append(kind.label);
+            }
+            throw new IOException(labels + "没有返回数据" + (files.isEmpty() ? "" : "，其余结果已保存到 " + dir));
+        }
+        return files;
+    }
+
+    // 把命令结果中的 field 写入文件；没有这个字段时删除文件，记入 missing
+    private void saveField(String method, String field, File dir, String name, Kind kind,
+                           List<File> files, List<Kind> missing) throws IOException {
+        File file = fileFor(dir, name, kind);
+        boolean found;
+        try (OutputStream out = new FileOutputStream(file)) {
+            found = client.callInto(method, null, field, out);
+        }
+        if (found) {
+            files.add(file);
+        } else {
+            file.delete();
+            missing.add(kind);
+        }
+    }
+
+    // 逐块读取协议中的流并写出，读完后关闭流
+    private void streamTo(String handle, Writer writer) throws IOException {
+        String params = "{\"handle\":\"" + handle + "\",\"size\":" + CHUNK_SIZE + "}";
+        try {
+            while (true) {
+                String result = client.call("IO.read", params);
+                if (JsonScanner.bool(JsonScanner.field(result, "base64Encoded"))) {
+                    throw new IOException("不支持压缩的追踪流");
+                }
+                String data = JsonScanner.string(JsonScanner.field(result, "data"));
+                if (data != null) {
+                    writer.write(data);
+                }
+                if (JsonScanner.bool(JsonScanner.field(result, "eof"))) {
+                    return;
+                }
+            }
+        } finally {
+            client.call("IO.close", "{\"handle\":\"" + handle + "\"}");
+        }
+    }
+
+    private static File fileFor(File dir, String name, Kind kind) {
+        return new File(dir, name + "-" + kind.keyword + "." + kind.extension);
+    }
+
+    private static Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,445 @@
+package com.lcap.debugger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * WebView 本地 DevTools 端口的最小协议客户端：HTTP 的 /json/list 列出页面，WebSocket 上收发 CDP 命令。
+ *
+ * 连接方式由 {@link Connector} 提供：设备上是 webview_devtools_remote_<pid> 抽象命名空间的 LocalSocket，
+ * 单元测试中是本机 TCP 端口上的替身服务器。同步阻塞实现，只能在一个后台线程上使用；
+ * 等待命令结果时收到的事件放进队列，由 {@link #awaitEvent} 取出。
+ */
+public class DevToolsClient implements Closeable {
+
+    // 整条消息只放在一个 byte[] 中，更大的剖析结果在大多数设备上也已经无法分配
+    static final int MAX_MESSAGE_BYTES = 128 * 1024 * 1024;
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+    private static final int MAX_QUEUED_EVENTS = 1000;
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    // 一条到 DevTools 端口的双向连接
+    public interface Channel extends Closeable {
+        InputStream input() throws IOException;
+
+        OutputStream output() throws IOException;
+    }
+
+    public interface Connector {
+        Channel open() throws IOException;
+    }
+
+    // 协议返回的错误
+    public static class ProtocolException extends IOException {
+        ProtocolException(String message) {
+            super(message);
+        }
+    }
+
+    public static final class Target {
+        public final String id;
+        public final String type;
+        public final String title;
+        public final String url;
+        // WebSocket 路径，例如 /devtools/page/ABC
+        public final String path;
+        // description 中 attached 和 visible 都为 true，即挂在窗口上并且正在显示的 WebView
+        public final boolean visible;
+
+        Target(String id, String type, String title, String url, String path, boolean visible) {
+            this.id = id;
+            this.type = type;
+            this.title = title;
+            this.url = url;
+            this.path = path;
+            this.visible = visible;
+        }
+    }
+
+    /**
+     * 收到的一条文本消息的原始 UTF-8 字节，按字节实现 CharSequence，JsonScanner 可以直接扫描而不必先解码。
+     * 结构字符都是 ASCII，charAt 按字节返回即可；subSequence 和 toString 按 UTF-8 解码，
+     * 因此 subSequence 的长度是字符数而不是字节数，只用于取出字段的值。
+     */
+    static final class RawMessage implements CharSequence {
+        private byte[] bytes = new byte[0];
+        private int length;
+
+        // 第一帧就是完整消息时按实际长度分配，分片的消息按倍数增长
+        private void reserve(int extra, boolean last) {
+            int needed = length + extra;
+            if (needed > bytes.length) {
+                byte[] grown = new byte[last ? needed : Math.max(needed, Math.min(MAX_MESSAGE_BYTES, bytes.length * 2))];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+        }
+
+        void writeTo(OutputStream out, int start, int end) throws IOException {
+            out.write(bytes, start, end - start);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final Channel channel;
+    private final InputStream in;
+    private final OutputStream out;
+    private final SecureRandom random = new SecureRandom();
+    private final ArrayDeque<String> events = new ArrayDeque<>();
+    private int nextId = 1;
+
+    private DevToolsClient(Channel channel) throws IOException {
+        this.channel = channel;
+        this.in = channel.input();
+        this.out = channel.output();
+    }
+
+    // GET /json/list，只返回可以连接的目标
+    public static List<Target> listTargets(Connector connector) throws IOException {
+        try (Channel channel = connector.open()) {
+            OutputStream out = channel.output();
+            out.write("GET /json/list HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            InputStream in = channel.input();
+            String headers = readHeaders(in);
+            if (!headers.startsWith("HTTP/1.1 200")) {
+                throw new IOException("列出目标失败: " + firstLine(headers));
+            }
+            long length = contentLength(headers);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((length < 0 || body.size() < length) && (n = in.read(buffer)) > 0) {
+                body.write(buffer, 0, n);
+            }
+            List<Target> targets = new ArrayList<>();
+            for (String element : JsonScanner.elements(new String(body.toByteArray(), StandardCharsets.UTF_8))) {
+                // WebView 的 description 是一段 JSON 文本，例如 {"attached":true,"visible":true,...}
+                String description = JsonScanner.string(JsonScanner.field(element, "description"));
+                boolean visible = description != null && description.startsWith("{")
+                        && JsonScanner.bool(JsonScanner.field(description, "attached"))
+                        && JsonScanner.bool(JsonScanner.field(description, "visible"));
+                String socketUrl = JsonScanner.string(JsonScanner.field(element, "webSocketDebuggerUrl"));
+                if (socketUrl == null) {
+                    // 已经有别的客户端独占连接时没有这个字段
+                    continue;
+                }
+                int path = socketUrl.indexOf("/devtools/");
+                targets.add(new Target(JsonScanner.string(JsonScanner.field(element, "id")),
+                        JsonScanner.string(JsonScanner.field(element, "type")),
+                        JsonScanner.string(JsonScanner.field(element, "title")),
+                        JsonScanner.string(JsonScanner.field(element, "url")),
+                        path >= 0 ? socketUrl.substring(path) : socketUrl, visible));
+            }
+            return targets;
+        }
+    }
+
+    // 与目标建立 WebSocket 连接
+    public static DevToolsClient connect(Connector connector, Target target) throws IOException {
+        Channel channel = connector.open();
+        try {
+            DevToolsClient client = new DevToolsClient(channel);
+            client.handshake(target.path);
+            return client;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void handshake(String path) throws IOException {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String key = ControlServer.base64(nonce);
+        out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + key + "\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        String headers = readHeaders(in);
+        if (!headers.startsWith("HTTP/1.1 101")) {
+            throw new IOException("WebSocket 握手失败: " + firstLine(headers));
+        }
+        String accept = header(headers, "Sec-WebSocket-Accept");
+        if (!ControlServer.acceptKey(key).equals(accept)) {
+            throw new IOException("WebSocket 握手校验失败");
+        }
+    }
+
+    /**
+     * 发送命令并等待结果，返回 result 的原始 JSON 文本。params 为 JSON 对象文本，没有参数时传 null。
+     * 协议返回 error 时抛出 {@link ProtocolException}。
+     */
+    public String call(String method, String params) throws IOException {
+        String result = JsonScanner.field(request(method, params), "result");
+        return result != null ? result : "{}";
+    }
+
+    /**
+     * 调用并把 result 中的 field 原样写出（UTF-8），适合几十 MB 的剖析结果：消息只在接收时读入一个 byte[]，
+     * 找到字段的范围后直接写出这段字节，不解码成字符串。字段不存在时返回 false。
+     */
+    public boolean callInto(String method, String params, String field, OutputStream target) throws IOException {
+        RawMessage message = request(method, params);
+        int[] range = JsonScanner.range(message, "result", field);
+        if (range == null) {
+            return false;
+        }
+        message.writeTo(target, range[0], range[1]);
+        return true;
+    }
+
+    // 发送命令，返回对应的响应消息；期间收到的事件放进队列
+    private RawMessage request(String method, String params) throws IOException {
+        int id = nextId++;
+        send("{\"id\":" + id + ",\"method\":\"" + method + "\"" + (params != null ? ",\"params\":" + params : "") + "}");
+        while (true) {
+            RawMessage message = receiveRaw();
+            String idRaw = JsonScanner.field(message, "id");
+            if (idRaw == null) {
+                queueEvent(message.toString());
+                continue;
+            }
+            if (JsonScanner.number(idRaw, -1) != id) {
+                continue;
+            }
+            String error = JsonScanner.field(message, "error");
+            if (error != null) {
+                throw new ProtocolException(method + ": " + JsonScanner.string(JsonScanner.field(error, "message")));
+            }
+            return message;
+        }
+    }
+
+    // 等待指定的事件，返回 params 的原始 JSON 文本；连接的读超时由 Connector 设置
+    public String awaitEvent(String method) throws IOException {
+        for (Iterator<String> it = events.iterator(); it.hasNext(); ) {
+            String event = it.next();
+            if (method.equals(JsonScanner.string(JsonScanner.field(event, "method")))) {
+                it.remove();
+                return params(event);
+            }
+        }
+        while (true) {
+            String message = receive();
+            if (JsonScanner.field(message, "id") == null
+                    && method.equals(JsonScanner.string(JsonScanner.field(message, "method")))) {
+                return params(message);
+            }
+            queueEvent(message);
+        }
+    }
+
+    private static String params(String event) {
+        String params = JsonScanner.field(event, "params");
+        return params != null ? params : "{}";
+    }
+
+    // 不关心的事件（例如 Profiler.consoleProfileStarted）只保留最近的一部分
+    private void queueEvent(String message) {
+        if (events.size() >= MAX_QUEUED_EVENTS) {
+            events.pollFirst();
+        }
+        events.addLast(message);
+    }
+
+    private void send(String text) throws IOException {
+        writeFrame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 客户端发出的帧必须加掩码
+    private void writeFrame(int opcode, byte[] payload) throws IOException {
+        int length = payload.length;
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(length + 14);
+        frame.write(0x80 | opcode);
+        if (length < 126) {
+            frame.write(0x80 | length);
+        } else if (length <= 0xffff) {
+            frame.write(0x80 | 126);
+            frame.write(length >>> 8);
+            frame.write(length);
+        } else {
+            frame.write(0x80 | 127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                frame.write((int) ((long) length >>> shift));
+            }
+        }
+        byte[] mask = new byte[4];
+        random.nextBytes(mask);
+        frame.write(mask, 0, 4);
+        for (int i = 0; i < length; i++) {
+            frame.write(payload[i] ^ mask[i & 3]);
+        }
+        frame.writeTo(out);
+        out.flush();
+    }
+
+    private String receive() throws IOException {
+        return receiveRaw().toString();
+    }
+
+    // 读取一条完整的文本消息，处理分片、ping 和 close；文本帧直接读进消息的缓冲区并就地去掉掩码
+    private RawMessage receiveRaw() throws IOException {
+        RawMessage message = new RawMessage();
+        while (true) {
+            int first = readByte();
+            int second = readByte();
+            int opcode = first & 0x0f;
+            boolean fin = (first & 0x80) != 0;
+            long length = second & 0x7f;
+            if (length == 126) {
+                length = (readByte() << 8) | readByte();
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | readByte();
+                }
+            }
+            byte[] mask = null;
+            if ((second & 0x80) != 0) {
+                mask = new byte[4];
+                readFully(mask, 0, mask.length);
+            }
+            if (length < 0 || message.length + length > MAX_MESSAGE_BYTES) {
+                throw new IOException("消息过大: " + length);
+            }
+            if (opcode == OP_TEXT || opcode == OP_CONTINUATION) {
+                int offset = message.length;
+                message.reserve((int) length, fin);
+                readFully(message.bytes, offset, (int) length);
+                unmask(message.bytes, offset, (int) length, mask);
+                message.length += (int) length;
+                if (fin) {
+                    return message;
+                }
+                continue;
+            }
+            byte[] payload = new byte[(int) length];
+            readFully(payload, 0, payload.length);
+            unmask(payload, 0, payload.length, mask);
+            if (opcode == OP_PING) {
+                writeFrame(OP_PONG, payload);
+                continue;
+            }
+            if (opcode == OP_CLOSE) {
+                throw new EOFException("DevTools 连接已关闭");
+            }
+        }
+    }
+
+    private static void unmask(byte[] buffer, int offset, int length, byte[] mask) {
+        if (mask == null) {
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] ^= mask[i & 3];
+        }
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("DevTools 连接已断开");
+        }
+        return b;
+    }
+
+    private void readFully(byte[] buffer, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, offset + read, length - read);
+            if (n < 0) {
+                throw new EOFException("DevTools 连接已断开");
+            }
+            read += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeFrame(OP_CLOSE, new byte[0]);
+        } catch (IOException e) {
+            // 连接可能已经断开
+        }
+        channel.close();
+    }
+
+    // 读到空行为止，返回响应头（含状态行）
+    private static String readHeaders(InputStream in) throws IOException {
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("响应头不完整");
+            }
+            headers.write(b);
+            if (headers.size() > MAX_HEADER_BYTES) {
+                throw new IOException("响应头过长");
+            }
+            matched = (b == '\r' && (matched == 0 || matched == 2)) || (b == '\n' && (matched == 1 || matched == 3))
+                    ? matched + 1 : b == '\r' ? 1 : 0;
+        }
+        return new String(headers.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String firstLine(String headers) {
+        int end = headers.indexOf("\r\n");
+        return end >= 0 ? headers.substring(0, end) : headers;
+    }
+
+    private static String header(String headers, String name) {
+        String prefix = name.toLowerCase(Locale.US) + ":";
+        for (String line : headers.split("\r\n")) {
+            if (line.toLowerCase(Locale.US).startsWith(prefix)) {
+                return line.substring(prefix.length()).trim();
+            }
+        }
+        return null;
+    }
+
+    private static long contentLength(String headers) {
+        String value = header(headers, "Content-Length");
+        try {
+            return value != null ? Long.parseLong(value) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.net.LocalSocket;
+import android.net.LocalSocketAddress;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * 在设备上连接本进程 WebView 的 DevTools 端口进行采集，不需要电脑和 chrome://inspect。
+ *
+ * 开启 WebView 调试后，Chromium 在抽象命名空间监听 webview_devtools_remote_<pid>，
+ * 这里用 LocalSocket 连接，选中当前显示的页面（见 {@link #pickTarget}）。所有协议交互都在一个后台线程上进行，
+ * 结果写入 files/devtools/，回调在主线程。
+ */
+public class DevToolsRecorder {
+
+    public interface Callback {
+        // 开始时 files 为空列表；失败时 error 不为 null
+        void onComplete(List<File> files, String error);
+    }
+
+    private static final String TAG = "DevToolsRecorder";
+    private static final String SOCKET_PREFIX = "webview_devtools_remote_";
+    // 结束追踪后 Chromium 需要时间汇总各进程的数据，读超时放宽一些
+    private static final int READ_TIMEOUT_MS = 60_000;
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "devtools");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Context context;
+    private final Executor mainExecutor;
+    // 只在 EXECUTOR 上访问
+    private DevToolsClient client;
+    private DevToolsCapture capture;
+    private volatile boolean recording;
+
+    public DevToolsRecorder(Context context) {
+        this.context = context.getApplicationContext();
+        this.mainExecutor = ContextCompat.getMainExecutor(this.context);
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    // 连接当前页面并开始采集
+    public void start(Set<DevToolsCapture.Kind> kinds, String pageUrl, Callback callback) {
+        if (recording) {
+            callback.onComplete(Collections.emptyList(), "已经在采集中");
+            return;
+        }
+        recording = true;
+        EXECUTOR.execute(() -> {
+            String error = null;
+            try {
+                DevToolsClient.Connector connector = DevToolsRecorder::openSocket;
+                client = DevToolsClient.connect(connector, pickTarget(DevToolsClient.listTargets(connector), pageUrl));
+                capture = new DevToolsCapture(client, kinds);
+                capture.start();
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "开始采集失败", e);
+                error = message(e);
+                closeClient();
+                recording = false;
+            }
+            String result = error;
+            mainExecutor.execute(() -> callback.onComplete(Collections.emptyList(), result));
+        });
+    }
+
+    // 停止采集并保存，之后断开连接
+    public void stop(Callback callback) {
+        EXECUTOR.execute(() -> {
+            List<File> files = Collections.emptyList();
+            String error = null;
+            if (capture == null) {
+                error = "没有正在进行的采集";
+            } else {
+                try {
+                    files = capture.stop(Exports.directory(context, "devtools"), "devtools-" + Exports.timestamp());
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "保存采集结果失败", e);
+                    error = message(e);
+                }
+            }
+            closeClient();
+            recording = false;
+            List<File> written = files;
+            String result = error;
+            mainExecutor.execute(() -> callback.onComplete(written, result));
+        });
+    }
+
+    private void closeClient() {
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+        client = null;
+        capture = null;
+    }
+
+    /**
+     * 选出当前标签页对应的目标。多标签时后台 WebView 也是 page 目标，冷启动重置后网址又可能都是
+     * about:blank，所以优先看 description 中挂在窗口上且可见的那一个；没有这个信息时只剩一个页面，
+     * 或者网址唯一匹配，才能确定。仍然无法区分时报错，不猜测，避免采集到别的标签页。
+     */
+    static DevToolsClient.Target pickTarget(List<DevToolsClient.Target> targets, String pageUrl) throws IOException {
+        List<DevToolsClient.Target> pages = new ArrayList<>();
+        List<DevToolsClient.Target> visible = new ArrayList<>();
+        for (DevToolsClient.Target target : targets) {
+            if ("page".equals(target.type)) {
+                pages.add(target);
+                if (target.visible) {
+                    visible.add(target);
+                }
+            }
+        }
+        if (pages.isEmpty()) {
+            throw new IOException("没有可以连接的页面，可能已被 chrome://inspect 占用");
+        }
+        List<DevToolsClient.Target> candidates = visible.isEmpty() ? pages : visible;
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        DevToolsClient.Target matched = null;
+        for (DevToolsClient.Target target : candidates) {
+            if (pageUrl != null && pageUrl.equals(target.url)) {
+                if (matched != null) {
+                    matched = null;
+                    break;
+                }
+                matched = target;
+            }
+        }
+        if (matched == null) {
+            throw new IOException("有 " + candidates.size() + " 个页面无法区分哪个是当前标签页，请关闭其他标签页后重试");
+        }
+        return matched;
+    }
+
+    private static DevToolsClient.Channel openSocket() throws IOException {
+        LocalSocket socket = new LocalSocket();
+        try {
+            socket.connect(new LocalSocketAddress(SOCKET_PREFIX + Process.myPid(),
+                    LocalSocketAddress.Namespace.ABSTRACT));
+            socket.setSoTimeout(READ_TIMEOUT_MS);
+        } catch (IOException e) {
+            socket.close();
+            throw new IOException("无法连接 WebView 调试端口，请确认已开启 WebView 调试", e);
+        }
+        InputStream input = socket.getInputStream();
+        OutputStream output = socket.getOutputStream();
+        return new DevToolsClient.Channel() {
+            @Override
+            public InputStream input() {
+                return input;
+            }
+
+            @Override
+            public OutputStream output() {
+                return output;
+            }
+
+            @Override
+            public void close() throws IOException {
+                socket.close();
+            }
+        };
+    }
+
+    private static String message(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,213 @@
+package com.lcap.debugger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 网址提交后立即在后台解析 DNS、建立连接并预取主文档，与 WebView 重置并行进行。
+ *
+ * 只保留最近一次提交的网址。WebView 随后请求同一个网址（忽略 fragment）的主文档时，
+ * 通过 {@link #take} 取走预取结果交给 shouldInterceptRequest。还在下载时只短暂等待 {@link #MAX_WAIT_MS}，
+ * 仍未完成就放弃预取，由 WebView 自己请求：take 运行在 WebView 的 IO 线程上，等待会推迟同一页面的其他请求。
+ * 超过 {@link #MAX_AGE_MS} 的结果视为过期。每个结果只使用一次。
+ * 预取时不写入 Cookie：响应中的 Set-Cookie 放在结果里，由调用方在交给 WebView 时写入，
+ * 这样不会被并行的重置清掉。
+ */
+public class DocumentPrefetcher {
+
+    static final long MAX_AGE_MS = 10_000;
+    static final long MAX_WAIT_MS = 300;
+    static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    // 连续提交时上一个预取可能还在进行，两个线程足够
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "prefetch-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final class Document {
+        public final String url;
+        public final int status;
+        public final String reason;
+        public final String mimeType;
+        public final String encoding;
+        public final Map<String, String> headers;
+        // 交给 WebView 时再写入 CookieManager
+        public final List<String> setCookies;
+        private final byte[] body;
+        // 以下为时间点（epoch 毫秒）和耗时
+        public final long startedAtMs;
+        public final long dnsMs;
+        public final long firstByteMs;
+        public final long completedAtMs;
+
+        Document(String url, InterceptedResponse response, List<String> setCookies, byte[] body,
+                 long startedAtMs, long dnsMs, long firstByteMs, long completedAtMs) {
+            this.url = url;
+            this.status = response.status;
+            this.reason = response.reason;
+            this.mimeType = response.mimeType;
+            this.encoding = response.encoding;
+            this.headers = response.headers;
+            this.setCookies = setCookies;
+            this.body = body;
+            this.startedAtMs = startedAtMs;
+            this.dnsMs = dnsMs;
+            this.firstByteMs = firstByteMs;
+            this.completedAtMs = completedAtMs;
+        }
+
+        public int length() {
+            return body.length;
+        }
+
+        // 每次调用返回一个新的响应，响应体共享同一份数据
+        public InterceptedResponse toResponse() {
+            return new InterceptedResponse(status, reason, mimeType, encoding, headers,
+                    new ByteArrayInputStream(body));
+        }
+    }
+
+    private static final class Pending {
+        final String key;
+        final FutureTask<Document> task;
+
+        Pending(String key, FutureTask<Document> task) {
+            this.key = key;
+            this.task = task;
+        }
+    }
+
+    private final Executor executor;
+    private Pending pending;
+
+    public DocumentPrefetcher() {
+        this(EXECUTOR);
+    }
+
+    DocumentPrefetcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 开始预取 url 的主文档，替换之前的预取。headers 为 WebView 会带上的请求头（User-Agent、Accept 等），
+     * cookies 为请求时应带上的 Cookie，没有时传 null。非 http(s) 网址直接忽略。
+     */
+    public void prefetch(String url, Map<String, String> headers, String cookies) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            cancel();
+            return;
+        }
+        FutureTask<Document> task = new FutureTask<>(() -> fetch(url, headers, cookies));
+        synchronized (this) {
+            if (pending != null) {
+                pending.task.cancel(false);
+            }
+            pending = new Pending(key(url), task);
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * 取走与请求匹配的预取结果，没有、失败、已过期或等待 {@link #MAX_WAIT_MS} 后仍未完成时返回 null。
+     * 只匹配 GET；预取还在进行时会短暂阻塞，因此只能在 WebView 的 IO 线程上调用。
+     */
+    public Document take(String method, String url, long nowMs) {
+        FutureTask<Document> task;
+        synchronized (this) {
+            if (pending == null || !"GET".equalsIgnoreCase(method) || !pending.key.equals(key(url))) {
+                return null;
+            }
+            task = pending.task;
+            pending = null;
+        }
+        Document document;
+        try {
+            document = task.get(MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            task.cancel(false);
+            return null;
+        }
+        if (document == null || nowMs - document.completedAtMs > MAX_AGE_MS) {
+            return null;
+        }
+        return document;
+    }
+
+    public synchronized void cancel() {
+        if (pending != null) {
+            pending.task.cancel(false);
+            pending = null;
+        }
+    }
+
+    // 重定向、非 2xx 和过大的响应返回 null，交给 WebView 自己加载
+    private static Document fetch(String url, Map<String, String> headers, String cookies) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        // 先单独解析一次，既记录耗时也让系统 DNS 缓存在重置期间就绪
+        InetAddress.getAllByName(new URL(url).getHost());
+        long dnsMs = System.currentTimeMillis() - startedAt;
+
+        List<String> setCookies = new ArrayList<>();
+        HttpFetcher fetcher = new HttpFetcher(new HttpFetcher.CookieJar() {
+            @Override
+            public String cookiesFor(String target) {
+                return cookies;
+            }
+
+            @Override
+            public void store(String target, List<String> setCookieHeaders) {
+                setCookies.addAll(setCookieHeaders);
+            }
+        });
+        InterceptedResponse response = fetcher.fetch("GET", url, headers);
+        long firstByteMs = System.currentTimeMillis() - startedAt;
+        if (response == null) {
+            return null;
+        }
+        try (InputStream in = response.body) {
+            if (response.status < 200 || response.status >= 300) {
+                return null;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                if (buffer.size() + n > MAX_BODY_BYTES) {
+                    return null;
+                }
+                buffer.write(chunk, 0, n);
+            }
+            return new Document(url, response, Collections.unmodifiableList(setCookies), buffer.toByteArray(),
+                    startedAt, dnsMs, firstByteMs, System.currentTimeMillis());
+        }
+    }
+
+    // WebView 请求时不会带上 fragment
+    static String key(String url) {
+        int hash = url.indexOf('#');
+        return hash >= 0 ? url.substring(0, hash) : url;
+    }
+}
@@ -0,0 +1,79 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// 导出文件的公共写入逻辑：在后台线程写入应用外部存储目录，完成后在主线程回调
+public final class Exports {
+
+    private static final String TAG = "Exports";
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(r -> new Thread(r, "export-io"));
+
+    public interface WriteTask {
+        void write(Writer writer) throws IOException;
+    }
+
+    public interface Callback {
+        // 写入失败时 file 为 null
+        void onComplete(File file);
+    }
+
+    private Exports() {
+    }
+
+    // 导出目录：/sdcard/Android/data/<包名>/files/<type>，不可用时退回内部存储
+    public static File directory(Context context, String type) {
+        File dir = context.getExternalFilesDir(type);
+        if (dir == null) {
+            dir = new File(context.getFilesDir(), type);
+        }
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    // 生成形如 prefix-20240101-120000.ext 的文件名
+    public static String timestampedName(String prefix, String extension) {
+        return prefix + "-" + timestamp() + "." + extension;
+    }
+
+    // 形如 20240101-120000，用于一次导出多个文件时共用同一个时间
+    public static String timestamp() {
+        return new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+    }
+
+    public static void writeAsync(Context context, String type, String fileName, WriteTask task, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        Executor mainExecutor = ContextCompat.getMainExecutor(appContext);
+        EXECUTOR.execute(() -> {
+            File file = new File(directory(appContext, type), fileName);
+            File result = file;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                task.write(writer);
+            } catch (IOException e) {
+                Log.w(TAG, "导出失败: " + file, e);
+                file.delete();
+                result = null;
+            }
+            File written = result;
+            mainExecutor.execute(() -> callback.onComplete(written));
+        });
+    }
+}
@@ -2,21 +2,38 @@ package com.lcap.debugger;
 
 import android.Manifest;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
-import android.text.TextUtils;
+import android.os.SystemClock;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.inputmethod.EditorInfo;
-import android.webkit.WebSettings;
+import android.webkit.ConsoleMessage;
+import android.webkit.CookieManager;
+import android.webkit.WebChromeClient;
+import android.webkit.WebResourceError;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
+import android.text.InputType;
+import android.text.TextUtils;
+import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.PopupMenu;
+import android.widget.ScrollView;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.activity.OnBackPressedCallback;
 import androidx.core.app.ActivityCompat;
@@ -25,23 +42,300 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.android.material.snackbar.Snackbar;
 import com.lcap.debugger.databinding.FragmentFirstBinding;
-import com.journeyapps.barcodescanner.ScanContract;
-import com.journeyapps.barcodescanner.ScanOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class FirstFragment extends Fragment {
 
+    private static final String TAG = "FirstFragment";
     private FragmentFirstBinding binding;
+    // 当前标签页的 WebView；WebView IO 线程上也会读取，用来只记录当前标签页的请求
+    private volatile WebView webView;
+    private boolean pendingLoad;
+    private final WebViewResetter webViewResetter = new WebViewResetter();
+    private static final int TIMELINE_CAPACITY = 256;
+    private static final int NETWORK_CAPACITY = 2048;
+    private static final int NETWORK_DISPLAY_LIMIT = 200;
+    private static final int CONSOLE_CAPACITY = 4096;
+    // 按 1 秒采样保留一小时
+    private static final int MEMORY_CAPACITY = 3600;
+    private static final long FRAME_OVERLAY_INTERVAL_MS = 500;
+    // 基准测试每轮 onPageFinished 后等待 LCP 等指标上报的时间，以及单轮的超时时间
+    private static final long BENCHMARK_SETTLE_MS = 2000;
+    private static final long BENCHMARK_TIMEOUT_MS = 60000;
+    private static final String KEY_PREFETCH_ENABLED = "prefetch_enabled";
+    private static final String KEY_REQUEST_RULES_ENABLED = "request_rules_enabled";
+    private static final String RULES_FILE_NAME = "rules.txt";
+    private static final String DOCUMENT_ACCEPT = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+    // 网络请求记录，默认常开
+    private final NetworkRecorder networkRecorder = new NetworkRecorder(NETWORK_CAPACITY);
+    // 离线录制/回放，在 onAttach 中获取，供 WebView IO 线程读取
+    private volatile ReplayInterceptor replayInterceptor;
+    // 请求拦截规则，在 onAttach 中创建并在后台加载规则文件
+    private volatile RequestBlocker requestBlocker;
+    // 弱网模拟，在 onAttach 中创建，所有标签页的请求共用同一条限速链路
+    private volatile NetworkThrottler throttler;
+    // 页面推送的 History 状态，返回键处理时同步读取
+    private final HistoryBridge historyBridge = new HistoryBridge();
+    // 最近一次页面加载的性能时间线
+    private final PerfTimeline timeline = new PerfTimeline(TIMELINE_CAPACITY);
+    private final TimelineBridge timelineBridge = new TimelineBridge(timeline);
+    private final NetworkBridge networkBridge = new NetworkBridge(networkRecorder);
+    // 页面控制台输出和未捕获的异常
+    private final ConsoleBuffer consoleBuffer = new ConsoleBuffer(CONSOLE_CAPACITY);
+    private final ConsoleBridge consoleBridge = new ConsoleBridge(consoleBuffer);
+    // 进程内存和页面 JS 堆的采样，以及同一 URL 反复加载时的泄漏检测
+    private final MemoryRecorder memoryRecorder = new MemoryRecorder(MEMORY_CAPACITY);
+    private final MemoryBridge memoryBridge = new MemoryBridge(memoryRecorder);
+    private final MemoryMonitor memoryMonitor = new MemoryMonitor(memoryRecorder);
+    private final Runnable memoryOverlayTask = this::refreshMemoryOverlay;
+    // 宿主 Choreographer 与页面 rAF 的帧间隔，开启帧率监控时才采集
+    private final FrameMonitor frameMonitor = new FrameMonitor();
+    private final FrameBridge frameBridge = new FrameBridge(frameMonitor.getPage());
+    private final Runnable frameOverlayTask = this::refreshFrameOverlay;
+    private boolean frameMonitorEnabled;
+    // 本地控制服务：通过 adb forward 推送网址、执行脚本、订阅控制台和网络事件
+    private final RemoteControl remoteControl = new RemoteControl(this::handleRemoteCommand);
+    // 正在运行的重复加载基准测试，没有时为 null；由远程命令发起时完成后通过 benchmarkReply 回复
+    private LoadBenchmark benchmark;
+    private ControlServer.Reply benchmarkReply;
+    // 切到后台时远程发起的基准测试还没回复，等回复后再停止远程控制
+    private boolean remoteStopPending;
+    private Snackbar benchmarkSnackbar;
+    // 本轮已发起加载（冷启动模式下重置完成后才算），等待 onPageStarted
+    private boolean benchmarkLoading;
+    private long benchmarkStartMs = -1;
+    private double benchmarkPageLoadMs = Double.NaN;
+    private final Runnable benchmarkIterationTask = this::finishBenchmarkIteration;
+    // 基准测试结束后追加一次带 DevTools 采集的加载（不计入统计），等待 onPageFinished 后停止采集
+    private boolean benchmarkTraced;
+    private boolean tracedLoadPending;
+    private final Runnable tracedLoadTask = this::finishTracedLoad;
+    // 网址提交后与重置并行预取主文档，在 shouldInterceptRequest 中交给 WebView
+    private final DocumentPrefetcher prefetcher = new DocumentPrefetcher();
+    private MessageBridge messageBridge;
+    // 采集脚本的注册和开关，由 WebViewPool 持有，各标签页共用
+    private ScriptRegistry scriptRegistry;
+    // 加载节点截图与基线对比，在 onViewCreated 中创建
+    private VisualCapture visualCapture;
+    // 通过本进程的 WebView 调试端口采集追踪和剖析，在 onAttach 中创建
+    private DevToolsRecorder devToolsRecorder;
+    private UrlAutocomplete urlAutocomplete;
+
+    // 在应用内打开链接，并记录页面加载的原生节点
+    private final WebViewClient webViewClient = new WebViewClient() {
+        @Override
+        public boolean shouldOverrideUrlLoading(WebView view, String url) {
+            view.loadUrl(url);
+            return true;
+        }
+
+        // 在 WebView 的 IO 线程上调用
+        @Override
+        public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+            String url = request.getUrl().toString();
+            // 只记录当前标签页的请求，后台标签页照常走回放拦截
+            boolean current = view == webView;
+            long seq = current ? networkRecorder.begin(request.getMethod(), url, System.currentTimeMillis()) : -1;
+            if (current) {
+                remoteControl.onNetwork(request.getMethod(), url, 0, null);
+            }
+            // 命中拦截规则的请求直接在本地应答，不再经过预取、回放和弱网模拟
+            RequestBlocker blocker = requestBlocker;
+            InterceptedResponse blocked = blocker != null ? blocker.intercept(url) : null;
+            if (blocked != null) {
+                if (current) {
+                    networkRecorder.setStatus(seq, blocked.status);
+                }
+                return blocked.toWebResourceResponse();
+            }
+            if (current && request.isForMainFrame()) {
+                DocumentPrefetcher.Document document = prefetcher.take(request.getMethod(), url, System.currentTimeMillis());
+                if (document != null) {
+                    CookieManager cookieManager = CookieManager.getInstance();
+                    for (String cookie : document.setCookies) {
+                        cookieManager.setCookie(url, cookie);
+                    }
+                    networkRecorder.setStatus(seq, document.status);
+                    Log.d(TAG, "使用预取的主文档: DNS " + document.dnsMs + " ms，首字节 " + document.firstByteMs
+                            + " ms，提交后 " + (System.currentTimeMillis() - document.startedAtMs) + " ms 交给 WebView");
+                    return document.toResponse().toWebResourceResponse();
+                }
+            }
+            ReplayInterceptor interceptor = replayInterceptor;
+            InterceptedResponse response = interceptor != null
+                    ? interceptor.intercept(request.getMethod(), url, request.getRequestHeaders(),
+                    request.isForMainFrame()) : null;
+            // 回放的响应同样按网络条件限速，便于离线复现弱网下的加载
+            NetworkThrottler networkThrottler = throttler;
+            if (networkThrottler != null) {
+                response = networkThrottler.shape(request.getMethod(), url, request.getRequestHeaders(),
+                        request.isForMainFrame(), response);
+            }
+            if (response == null) {
+                return null;
+            }
+            if (current) {
+                networkRecorder.setStatus(seq, response.status);
+            }
+            return response.toWebResourceResponse();
+        }
+
+        @Override
+        public void onReceivedError(WebView view, WebResourceRequest request, WebResourceError error) {
+            super.onReceivedError(view, request, error);
+            if (view != webView) {
+                return;
+            }
+            networkRecorder.onError(request.getUrl().toString(), error.getDescription().toString());
+            remoteControl.onNetwork(request.getMethod(), request.getUrl().toString(), 0, error.getDescription().toString());
+        }
+
+        @Override
+        public void onReceivedHttpError(WebView view, WebResourceRequest request, WebResourceResponse errorResponse) {
+            super.onReceivedHttpError(view, request, errorResponse);
+            if (view != webView) {
+                return;
+            }
+            networkRecorder.onHttpError(request.getUrl().toString(), errorResponse.getStatusCode());
+            remoteControl.onNetwork(request.getMethod(), request.getUrl().toString(), errorResponse.getStatusCode(), null);
+        }
+
+        @Override
+        public void onPageStarted(WebView view, String url, Bitmap favicon) {
+            super.onPageStarted(view, url, favicon);
+            updateTab(view, url);
+            // 采集脚本通常已在文档开始时注册，这里只是旧内核的退路
+            scriptRegistry.injectFallback(view, url);
+            if (view != webView) {
+                return;
+            }
+            startPageFrameSampling(view);
+            frameMonitor.beginLoad(url);
+            long now = System.currentTimeMillis();
+            timeline.beginLoad(url, now);
+            historyBridge.reset();
+            memoryRecorder.resetJsHeap();
+            timeline.add(PerfTimeline.TYPE_NATIVE, "onPageStarted", now, 0);
+            remoteControl.onPage("started", url);
+            if (visualCapture != null) {
+                visualCapture.onPageStarted();
+            }
+            if (benchmarkLoading && benchmarkStartMs < 0) {
+                benchmarkStartMs = SystemClock.elapsedRealtime();
+            }
+            StartupTrace.get().mark(StartupTrace.MILESTONE_PAGE_STARTED);
+        }
+
+        @Override
+        public void onPageCommitVisible(WebView view, String url) {
+            super.onPageCommitVisible(view, url);
+            if (view != webView) {
+                return;
+            }
+            timeline.add(PerfTimeline.TYPE_NATIVE, "onPageCommitVisible", System.currentTimeMillis(), 0);
+            if (visualCapture != null) {
+                visualCapture.onPageCommitVisible(view, url);
+            }
+            StartupTrace.get().mark(StartupTrace.MILESTONE_PAGE_VISIBLE);
+        }
+
+        @Override
+        public void onPageFinished(WebView view, String url) {
+            super.onPageFinished(view, url);
+            updateTab(view, url);
+            // 旧内核上页面可能在 onPageStarted 时还没有创建新的文档，这里再补一次
+            scriptRegistry.injectFallback(view, url);
+            if (view != webView) {
+                return;
+            }
+            startPageFrameSampling(view);
+            timeline.add(PerfTimeline.TYPE_NATIVE, "onPageFinished", System.currentTimeMillis(), 0);
+            remoteControl.onPage("finished", url);
+            if (visualCapture != null) {
+                visualCapture.onPageFinished(view, url);
+            }
+            if (benchmarkLoading && benchmarkStartMs >= 0) {
+                // 重定向时会有多次 onPageFinished，以最后一次为准
+                benchmarkPageLoadMs = SystemClock.elapsedRealtime() - benchmarkStartMs;
+                view.removeCallbacks(benchmarkIterationTask);
+                view.postDelayed(benchmarkIterationTask, BENCHMARK_SETTLE_MS);
+            }
+            if (tracedLoadPending) {
+                view.removeCallbacks(tracedLoadTask);
+                view.postDelayed(tracedLoadTask, BENCHMARK_SETTLE_MS);
+            }
+            StartupTrace trace = StartupTrace.get();
+            if (Double.isNaN(trace.milestone(StartupTrace.MILESTONE_PAGE_FINISHED))) {
+                // 首次页面加载完成，更新启动报告
+                trace.mark(StartupTrace.MILESTONE_PAGE_FINISHED);
+                trace.writeReport(view.getContext());
+            }
+            showScanQueueSnackbar();
+            memoryMonitor.checkAfterLoad(url, this::showLeakWarning);
+        }
+    };
+
+    // 记录页面的 console.* 输出；WebChromeClient 的回调不带 WebView，每个标签页单独创建一个以区分来源
+    private WebChromeClient chromeClientFor(WebView tabView) {
+        return new WebChromeClient() {
+            @Override
+            public boolean onConsoleMessage(ConsoleMessage message) {
+                if (tabView == webView) {
+                    consoleBridge.onConsoleMessage(consoleLevel(message.messageLevel()), message.message(),
+                            message.sourceId(), message.lineNumber(), System.currentTimeMillis());
+                }
+                return true;
+            }
+
+            @Override
+            public void onReceivedTitle(WebView view, String title) {
+                super.onReceivedTitle(view, title);
+                updateTab(view, view.getUrl());
+            }
+        };
+    }
+
+    // 标签页列表展示用的网址和标题
+    private void updateTab(WebView view, String url) {
+        if (isAdded()) {
+            ((MainActivity) requireActivity()).getWebViewPool().onPageUpdated(view, url, view.getTitle());
+        }
+    }
+
+    private static int consoleLevel(ConsoleMessage.MessageLevel level) {
+        switch (level) {
+            case ERROR:
+                return ConsoleBuffer.LEVEL_ERROR;
+            case WARNING:
+                return ConsoleBuffer.LEVEL_WARN;
+            case LOG:
+                return ConsoleBuffer.LEVEL_LOG;
+            default:
+                return ConsoleBuffer.LEVEL_DEBUG;
+        }
+    }
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 100;
-    private static final String PREFS_NAME = "webview_history";
-    private static final String HISTORY_KEY = "url_history";
     
-    // 扫码结果回调
-    private final ActivityResultLauncher<ScanOptions> scanLauncher = registerForActivityResult(
-            new ScanContract(),
-            result -> {
-                if (result.getContents() != null) {
-                    String scannedText = result.getContents();
+    // 扫码结果回调；ZXing 在第一次扫码时才加载
+    private final ActivityResultLauncher<Void> scanLauncher = registerForActivityResult(
+            new LazyScanContract(),
+            scannedText -> {
+                if (scannedText != null) {
                 
                         binding.urlInput.setText(scannedText);
                         loadWebPageFromInput();
@@ -51,22 +345,69 @@ public class FirstFragment extends Fragment {
             }
     );
 
+    private final ActivityResultLauncher<String> imagePickLauncher = registerForActivityResult(
+            new ActivityResultContracts.GetContent(),
+            uri -> {
+                if (uri != null) {
+                    decodeQrImage(uri);
+                }
+            }
+    );
+
+    // 连续扫码后等待依次加载的网址
+    private final Deque<String> scanQueue = new ArrayDeque<>();
+    private Snackbar scanQueueSnackbar;
+    // 等待相机权限期间记录要启动哪种扫码
+    private boolean continuousScanRequested;
+
+    private final ActivityResultLauncher<Void> continuousScanLauncher = registerForActivityResult(
+            new ContinuousScanActivity.Contract(),
+            urls -> {
+                // 只保存到历史记录时也需要刷新自动补全
+                if (urlAutocomplete != null) {
+                    urlAutocomplete.invalidate();
+                }
+                if (!urls.isEmpty()) {
+                    scanQueue.clear();
+                    scanQueue.addAll(urls);
+                    loadNextScanned();
+                }
+            }
+    );
+
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        replayInterceptor = ReplayInterceptor.get(context);
+        File rulesDir = context.getExternalFilesDir(null);
+        RequestBlocker blocker = new RequestBlocker(
+                new File(rulesDir != null ? rulesDir : context.getFilesDir(), RULES_FILE_NAME));
+        blocker.setEnabled(DebuggerSettings.prefs(context).getBoolean(KEY_REQUEST_RULES_ENABLED, true));
+        blocker.reload(null);
+        requestBlocker = blocker;
+        NetworkThrottler networkThrottler = new NetworkThrottler(new HttpFetcher(new WebViewCookieJar()));
+        networkThrottler.setConditions(NetworkProfile.load(context).conditions(context));
+        throttler = networkThrottler;
+        devToolsRecorder = new DevToolsRecorder(context);
+    }
+
     @Override
     public View onCreateView(
             @NonNull LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState
     ) {
 
+        StartupTrace.get().begin("FirstFragment.inflate");
         binding = FragmentFirstBinding.inflate(inflater, container, false);
+        StartupTrace.get().end("FirstFragment.inflate");
         return binding.getRoot();
 
     }
 
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        StartupTrace.get().begin("FirstFragment.onViewCreated");
 
-        // 配置WebView
-        WebView webView = binding.webview;
         EditText urlInput = binding.urlInput;
         
         // 检查是否从历史记录页面传递了URL（通过SavedStateHandle）
@@ -94,60 +435,19 @@ public class FirstFragment extends Fragment {
             }
         }
         
-        // 启用WebView调试（用于Chrome DevTools）
-        WebView.setWebContentsDebuggingEnabled(true);
-        
-        WebSettings webSettings = webView.getSettings();
-        webSettings.setJavaScriptEnabled(true);
-        webSettings.setDomStorageEnabled(true);
-        webSettings.setLoadWithOverviewMode(true);
-        webSettings.setUseWideViewPort(true);
-        webSettings.setBuiltInZoomControls(true);
-        webSettings.setDisplayZoomControls(false);
-
-        // 设置WebViewClient以在应用内打开链接
-        webView.setWebViewClient(new WebViewClient() {
-            @Override
-            public boolean shouldOverrideUrlLoading(WebView view, String url) {
-                view.loadUrl(url);
-                return true;
-            }
-            
-            @Override
-            public void onPageFinished(WebView view, String url) {
-                super.onPageFinished(view, url);
-                // 注入JavaScript来支持HTML5 History API检测
-                injectHistoryDetectionScript(view);
-            }
-        });
-
         // 创建加载网页的方法
-        Runnable loadUrl = () -> {
-            String url = urlInput.getText().toString().trim();
-            if (TextUtils.isEmpty(url)) {
-                Toast.makeText(getContext(), "请输入网址", Toast.LENGTH_SHORT).show();
-                return;
-            }
-            
-            // 如果URL不包含协议，自动添加https://
-            if (!url.startsWith("http://") && !url.startsWith("https://")) {
-                url = "https://" + url;
-            }
-            
-            // 保存到历史记录
-            saveToHistory(url);
-            
-            // 重置WebView
-            resetWebView();
-            
-            webView.loadUrl(url);
-        };
+        Runnable loadUrl = this::loadWebPageFromInput;
 
         // 加载按钮点击事件
         binding.loadButton.setOnClickListener(v -> loadUrl.run());
 
         // 扫码按钮点击事件
-        binding.scanButton.setOnClickListener(v -> startQRCodeScan());
+        binding.scanButton.setOnClickListener(v -> startQRCodeScan(false));
+        // 长按进入连续扫码
+        binding.scanButton.setOnLongClickListener(v -> {
+            startQRCodeScan(true);
+            return true;
+        });
 
         // 历史记录按钮点击事件
         binding.historyButton.setOnClickListener(v -> {
@@ -155,6 +455,22 @@ public class FirstFragment extends Fragment {
                     .navigate(R.id.action_FirstFragment_to_SecondFragment);
         });
 
+        // 标签页：点击打开列表，长按直接新建
+        binding.tabsButton.setOnClickListener(v -> showTabSwitcher());
+        binding.tabsButton.setOnLongClickListener(v -> {
+            if (webView != null) {
+                switchTab(() -> ((MainActivity) requireActivity()).getWebViewPool().newTab().getWebView());
+            }
+            return true;
+        });
+
+        // 工具菜单
+        binding.moreButton.setOnClickListener(this::showToolsMenu);
+
+        // 地址栏自动补全，选中候选后直接加载
+        urlAutocomplete = new UrlAutocomplete(binding.urlInput);
+        binding.urlInput.setOnItemClickListener((parent, v, position, id) -> loadUrl.run());
+
         // 输入框回车键事件
         urlInput.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == EditorInfo.IME_ACTION_GO || actionId == EditorInfo.IME_ACTION_DONE) {
@@ -164,168 +480,1224 @@ public class FirstFragment extends Fragment {
             return false;
         });
 
-        // 确保WebView获得初始焦点，避免输入框自动聚焦
-        webView.requestFocus();
-        
-        // 设置返回键劫持：如果WebView有历史记录则调用WebView返回
-        setupBackPressedCallback(webView);
+        // WebView 由 MainActivity 的 WebViewPool 持有：空闲时预创建，返回本页面时复用同一实例
+        WebViewPool pool = ((MainActivity) requireActivity()).getWebViewPool();
+        scriptRegistry = pool.getScriptRegistry();
+        visualCapture = new VisualCapture(requireContext(), this::onVisualCaptured);
+        pool.whenReady(webView -> {
+            // 视图可能在等待期间已被销毁或重建
+            if (binding == null || getView() != view) {
+                return;
+            }
+            attachWebView(webView);
+        });
         
         // 不再自动加载，等待用户输入或扫码
+        StartupTrace.get().end("FirstFragment.onViewCreated");
     }
-    
+
+    private void attachWebView(WebView webView) {
+        StartupTrace.get().begin("FirstFragment.attachWebView");
+        bindWebView(webView);
+
+        // 设置返回键劫持：如果WebView有历史记录则调用WebView返回
+        setupBackPressedCallback();
+
+        StartupTrace.get().end("FirstFragment.attachWebView");
+
+        // WebView 就绪前发起的加载
+        if (pendingLoad) {
+            pendingLoad = false;
+            loadWebPageFromInput();
+        }
+    }
+
+    // 把当前标签页的 WebView 放到界面上，并让各采集器跟随它
+    private void bindWebView(WebView webView) {
+        this.webView = webView;
+        binding.webviewContainer.addView(webView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
+        // 设置WebViewClient以在应用内打开链接
+        webView.setWebViewClient(webViewClient);
+        webView.setWebChromeClient(chromeClientFor(webView));
+        // 订阅页面内采集脚本的消息，通道本身由 WebViewPool 在创建 WebView 时注册
+        messageBridge = ((MainActivity) requireActivity()).getWebViewPool().getMessageBridge();
+        messageBridge.subscribe(TimelineBridge.CHANNEL, timelineBridge);
+        messageBridge.subscribe(NetworkBridge.CHANNEL, networkBridge);
+        messageBridge.subscribe(HistoryBridge.CHANNEL, historyBridge);
+        messageBridge.subscribe(ConsoleBridge.CHANNEL, consoleBridge);
+        messageBridge.subscribe(MemoryBridge.CHANNEL, memoryBridge);
+        messageBridge.subscribe(FrameBridge.CHANNEL, frameBridge);
+
+        // 确保WebView获得初始焦点，避免输入框自动聚焦
+        webView.requestFocus();
+        updateTabsButton();
+    }
+
+    // 从界面上移除当前 WebView；实例仍由 WebViewPool 持有
+    private void unbindWebView() {
+        webViewResetter.cancel();
+        if (webView != null && frameMonitorEnabled) {
+            webView.evaluateJavascript(FrameBridge.STOP_SCRIPT, null);
+        }
+        if (messageBridge != null) {
+            messageBridge.unsubscribe(TimelineBridge.CHANNEL, timelineBridge);
+            messageBridge.unsubscribe(NetworkBridge.CHANNEL, networkBridge);
+            messageBridge.unsubscribe(HistoryBridge.CHANNEL, historyBridge);
+            messageBridge.unsubscribe(ConsoleBridge.CHANNEL, consoleBridge);
+            messageBridge.unsubscribe(MemoryBridge.CHANNEL, memoryBridge);
+            messageBridge.unsubscribe(FrameBridge.CHANNEL, frameBridge);
+            messageBridge = null;
+        }
+        if (webView != null) {
+            ((MainActivity) requireActivity()).getWebViewPool().detach(webView);
+            webView = null;
+        }
+    }
+
+    private void showTabSwitcher() {
+        WebViewPool pool = ((MainActivity) requireActivity()).getWebViewPool();
+        if (webView == null) {
+            // 第一个标签页还在预创建中
+            return;
+        }
+        new TabSwitcher(requireContext(), pool, new TabSwitcher.Listener() {
+            @Override
+            public void onSelect(WebViewPool.Tab tab) {
+                if (tab != pool.getCurrentTab()) {
+                    switchTab(() -> pool.select(tab));
+                }
+            }
+
+            @Override
+            public void onClose(WebViewPool.Tab tab) {
+                if (binding == null) {
+                    return;
+                }
+                if (tab == pool.getCurrentTab()) {
+                    switchTab(() -> {
+                        pool.closeTab(tab);
+                        return pool.getCurrentTab().getWebView();
+                    });
+                } else {
+                    pool.closeTab(tab);
+                    updateTabsButton();
+                }
+            }
+
+            @Override
+            public void onNewTab() {
+                switchTab(() -> pool.newTab().getWebView());
+            }
+        }).show();
+    }
+
+    // 换下当前 WebView，换上 next 返回的 WebView；两个都是活动标签页时只是替换视图，没有重建
+    private void switchTab(Supplier<WebView> next) {
+        if (binding == null) {
+            return;
+        }
+        long start = SystemClock.elapsedRealtime();
+        unbindWebView();
+        bindWebView(next.get());
+        WebViewPool.Tab tab = ((MainActivity) requireActivity()).getWebViewPool().getCurrentTab();
+        // 页面推送的 History 状态、网络请求、时间线、控制台、JS 堆和帧率统计都属于上一个标签页，
+        // 不清掉的话网络列表、瀑布图和 HAR 会把两个标签页的请求混在新标签页的网址下
+        historyBridge.reset();
+        networkRecorder.clear();
+        timeline.beginLoad(tab.getUrl(), System.currentTimeMillis());
+        consoleBuffer.clear();
+        memoryRecorder.resetJsHeap();
+        frameMonitor.beginLoad(tab.getUrl());
+        startPageFrameSampling(webView);
+        binding.urlInput.setText(tab.getUrl() != null ? tab.getUrl() : "");
+        binding.urlInput.dismissDropDown();
+        Log.d(TAG, "切换到标签页 " + tab.getId() + " 耗时 " + (SystemClock.elapsedRealtime() - start) + " ms");
+    }
+
+    private void updateTabsButton() {
+        if (binding != null) {
+            binding.tabsButton.setText(String.valueOf(
+                    ((MainActivity) requireActivity()).getWebViewPool().getTabs().size()));
+        }
+    }
+
     private OnBackPressedCallback backPressedCallback;
     
-    private void setupBackPressedCallback(WebView webView) {
+    private void setupBackPressedCallback() {
         backPressedCallback = new OnBackPressedCallback(true) {
             @Override
             public void handleOnBackPressed() {
+                long start = SystemClock.elapsedRealtime();
+                if (webView == null) {
+                    dispatchBackToActivity();
+                    return;
+                }
                 // 首先检查WebView原生历史记录
                 if (webView.canGoBack()) {
                     webView.goBack();
-                    return;
+                } else if (historyBridge.shouldHandleBack()) {
+                    // 页面推送过来的 History 状态表明可以后退，直接执行，不再等待往返确认
+                    historyBridge.markBackRequested();
+                    webView.evaluateJavascript("history.back();", null);
+                } else {
+                    // 没有任何历史记录，交给MainActivity处理
+                    dispatchBackToActivity();
                 }
-                
-                // 检查HTML5 History API状态
-                checkHtml5HistoryAndGoBack(webView);
+                Log.d(TAG, "返回键决策耗时 " + (SystemClock.elapsedRealtime() - start) + " ms");
             }
         };
         requireActivity().getOnBackPressedDispatcher().addCallback(getViewLifecycleOwner(), backPressedCallback);
     }
-    
-    // 注入JavaScript来检测HTML5 History状态
-    private void injectHistoryDetectionScript(WebView webView) {
-        String script = 
-            "window.androidHistoryLength = history.length;" +
-            "window.androidCanGoBack = function() {" +
-            "    return history.length > 1;" +
-            "};" +
-            "window.androidGoBack = function() {" +
-            "    if (history.length > 1) {" +
-            "        history.back();" +
-            "        return true;" +
-            "    }" +
-            "    return false;" +
-            "};" +
-            // 监听popstate事件，当history.back()执行时触发
-            "window.androidHistoryBackExecuted = false;" +
-            "window.addEventListener('popstate', function() {" +
-            "    window.androidHistoryBackExecuted = true;" +
-            "});";
-        
-        webView.evaluateJavascript(script, null);
-    }
-    
-    // 检查HTML5 History并执行返回操作
-    private void checkHtml5HistoryAndGoBack(WebView webView) {
-        webView.evaluateJavascript("window.androidCanGoBack ? window.androidCanGoBack() : false", 
-            result -> {
-                boolean canGoBack = "true".equals(result);
-                if (canGoBack) {
-                    // HTML5 History中有记录，执行JavaScript返回
-                    webView.evaluateJavascript(
-                        "window.androidHistoryBackExecuted = false; window.androidGoBack();", 
-                        null
-                    );
-                    // 等待一小段时间确认返回操作是否成功
-                    webView.postDelayed(() -> {
-                        webView.evaluateJavascript("window.androidHistoryBackExecuted", successResult -> {
-                            if (!"true".equals(successResult)) {
-                                // 如果JavaScript返回失败，则执行正常的Fragment返回
-                                requireActivity().runOnUiThread(() -> {
-                                    backPressedCallback.setEnabled(false);
-                                    requireActivity().getOnBackPressedDispatcher().onBackPressed();
-                                    webView.postDelayed(() -> {
-                                        if (backPressedCallback != null) {
-                                            backPressedCallback.setEnabled(true);
-                                        }
-                                    }, 100);
-                                });
-                            }
-                        });
-                    }, 50);
-                } else {
-                    // 没有任何历史记录，暂时禁用当前回调并触发MainActivity的处理
-                    requireActivity().runOnUiThread(() -> {
-                        backPressedCallback.setEnabled(false);
-                        requireActivity().getOnBackPressedDispatcher().onBackPressed();
-                        // 延迟重新启用回调，避免立即重新触发
-                        webView.postDelayed(() -> {
-                            if (backPressedCallback != null) {
-                                backPressedCallback.setEnabled(true);
-                            }
-                        }, 100);
-                    });
-                }
-            });
+
+    // 暂时禁用当前回调并触发MainActivity的处理
+    private void dispatchBackToActivity() {
+        backPressedCallback.setEnabled(false);
+        requireActivity().getOnBackPressedDispatcher().onBackPressed();
+        // 延迟重新启用回调，避免立即重新触发
+        binding.getRoot().postDelayed(() -> {
+            if (backPressedCallback != null) {
+                backPressedCallback.setEnabled(true);
+            }
+        }, 100);
     }
 
     // 从输入框加载网页（用于扫码后调用）
     private void loadWebPageFromInput() {
-        String url = binding.urlInput.getText().toString().trim();
-        if (TextUtils.isEmpty(url)) {
+        // 如果URL不包含协议，自动添加https://
+        String url = UrlNormalizer.normalize(binding.urlInput.getText().toString());
+        binding.urlInput.dismissDropDown();
+        if (url == null) {
             Toast.makeText(getContext(), "请输入网址", Toast.LENGTH_SHORT).show();
             return;
         }
         
-        // 如果URL不包含协议，自动添加https://
-        if (!url.startsWith("http://") && !url.startsWith("https://")) {
-            url = "https://" + url;
+        // WebView 还在预创建中，就绪后再加载
+        if (webView == null) {
+            pendingLoad = true;
+            return;
         }
         
+        StartupTrace.get().mark(StartupTrace.MILESTONE_LOAD_REQUESTED);
+        // 网络请求先行，与下面的重置并行
+        prefetchDocument(url);
         // 保存到历史记录
         saveToHistory(url);
         
-        // 重置WebView
-        resetWebView();
-        
-        binding.webview.loadUrl(url);
+        // 按当前重置策略异步重置WebView，全部完成后再加载
+        resetWebView(url, () -> {
+            // 每次从输入框发起的加载重新开始记录网络请求
+            networkRecorder.clear();
+            webView.loadUrl(url);
+        });
     }
 
-    // 重置WebView状态
-    private void resetWebView() {
-        WebView webView = binding.webview;
-        
-        // 停止当前加载
-        webView.stopLoading();
-        
-        // 清除历史记录
-        webView.clearHistory();
-        
-        // 清除缓存
-        webView.clearCache(true);
-        
-        // 清除表单数据
-        webView.clearFormData();
-        
-        // 清除SSL错误
-        webView.clearSslPreferences();
-        
-        // 移除所有Cookie
-        android.webkit.CookieManager.getInstance().removeAllCookies(null);
-        android.webkit.CookieManager.getInstance().flush();
-        
-        // 清除WebView的所有视图状态
-        webView.clearView();
-        
-        // 重新配置WebViewClient（确保设置不会丢失）
-        webView.setWebViewClient(new WebViewClient() {
-            @Override
-            public boolean shouldOverrideUrlLoading(WebView view, String url) {
-                view.loadUrl(url);
+    // 后台解析 DNS、建立连接并预取主文档；回放/录制模式下由 ReplayInterceptor 接管，弱网模拟时预取会绕过限速，
+    // 保留 HTTP 缓存时预取会绕过 WebView 的缓存，都不预取
+    private void prefetchDocument(String url) {
+        Context context = requireContext();
+        ResetProfile profile = ResetProfile.load(context);
+        if (!DebuggerSettings.prefs(context).getBoolean(KEY_PREFETCH_ENABLED, true)
+                || ReplayInterceptor.get(context).getMode() != ReplayMode.OFF
+                || NetworkProfile.load(context) != NetworkProfile.OFF
+                || !profile.clearsHttpCache) {
+            prefetcher.cancel();
+            return;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("User-Agent", webView.getSettings().getUserAgentString());
+        headers.put("Accept", DOCUMENT_ACCEPT);
+        headers.put("Accept-Language", Locale.getDefault().toLanguageTag());
+        // 重置后仍保留目标网址 Cookie 的策略，预取时带上，与 WebView 自己请求时一致
+        String cookies = profile.clearsTargetCookies ? null : CookieManager.getInstance().getCookie(url);
+        prefetcher.prefetch(url, headers, cookies);
+    }
+
+    private void togglePrefetch() {
+        boolean enabled = !DebuggerSettings.prefs(requireContext()).getBoolean(KEY_PREFETCH_ENABLED, true);
+        DebuggerSettings.prefs(requireContext()).edit().putBoolean(KEY_PREFETCH_ENABLED, enabled).apply();
+        if (!enabled) {
+            prefetcher.cancel();
+        }
+        Toast.makeText(getContext(), enabled ? "已开启主文档预取" : "已关闭主文档预取", Toast.LENGTH_SHORT).show();
+    }
+
+    // 重置WebView状态，完成后在主线程回调 onReady
+    private void resetWebView(String url, Runnable onReady) {
+        webViewResetter.reset(webView, url, ResetProfile.load(requireContext()), report -> {
+            // 重置期间页面可能已被销毁
+            if (webView != null) {
+                onReady.run();
+            }
+        });
+    }
+
+    private void showToolsMenu(View anchor) {
+        PopupMenu popup = new PopupMenu(requireContext(), anchor);
+        popup.getMenuInflater().inflate(R.menu.menu_tools, popup.getMenu());
+        popup.setOnMenuItemClickListener(item -> {
+            int id = item.getItemId();
+            if (id == R.id.action_reset_profile) {
+                showResetProfileDialog();
+                return true;
+            } else if (id == R.id.action_last_reset_report) {
+                showLastResetReport();
+                return true;
+            } else if (id == R.id.action_timeline) {
+                showTimeline();
+                return true;
+            } else if (id == R.id.action_export_timeline) {
+                exportTimeline();
+                return true;
+            } else if (id == R.id.action_network) {
+                showNetworkLog();
+                return true;
+            } else if (id == R.id.action_export_har) {
+                exportHar();
+                return true;
+            } else if (id == R.id.action_continuous_scan) {
+                startQRCodeScan(true);
+                return true;
+            } else if (id == R.id.action_scan_image) {
+                imagePickLauncher.launch("image/*");
+                return true;
+            } else if (id == R.id.action_scan_clipboard) {
+                Uri uri = ImageQrImporter.clipboardImage(requireContext());
+                if (uri == null) {
+                    Toast.makeText(getContext(), "剪贴板中没有图片", Toast.LENGTH_SHORT).show();
+                } else {
+                    decodeQrImage(uri);
+                }
+                return true;
+            } else if (id == R.id.action_memory_overlay) {
+                toggleMemoryOverlay();
+                return true;
+            } else if (id == R.id.action_export_memory) {
+                exportMemoryCsv();
+                return true;
+            } else if (id == R.id.action_frame_monitor) {
+                toggleFrameMonitor();
+                return true;
+            } else if (id == R.id.action_export_frames) {
+                exportFrameReport();
+                return true;
+            } else if (id == R.id.action_scripts) {
+                showScriptsDialog();
+                return true;
+            } else if (id == R.id.action_prefetch) {
+                togglePrefetch();
+                return true;
+            } else if (id == R.id.action_benchmark) {
+                showBenchmarkDialog();
+                return true;
+            } else if (id == R.id.action_remote_control) {
+                toggleRemoteControl();
+                return true;
+            } else if (id == R.id.action_console) {
+                new ConsoleViewer(requireContext(), consoleBuffer).show();
+                return true;
+            } else if (id == R.id.action_visual_capture) {
+                showVisualCaptureDialog();
+                return true;
+            } else if (id == R.id.action_request_rules) {
+                showRequestRulesDialog();
+                return true;
+            } else if (id == R.id.action_network_profile) {
+                showNetworkProfileDialog();
+                return true;
+            } else if (id == R.id.action_replay_mode) {
+                showReplayModeDialog();
+                return true;
+            } else if (id == R.id.action_devtools) {
+                showDevToolsDialog();
                 return true;
             }
-            
-            @Override
-            public void onPageFinished(WebView view, String url) {
-                super.onPageFinished(view, url);
-                // 注入JavaScript来支持HTML5 History API检测
-                injectHistoryDetectionScript(view);
+            return false;
+        });
+        popup.show();
+    }
+
+    // 未开启时开启并显示连接方式和令牌；已开启时再次显示，可以在对话框中关闭
+    private void toggleRemoteControl() {
+        if (!RemoteControl.isEnabled(requireContext())) {
+            RemoteControl.setEnabled(requireContext(), true);
+        }
+        int port = startRemoteControl();
+        if (port < 0) {
+            RemoteControl.setEnabled(requireContext(), false);
+            Toast.makeText(getContext(), "远程控制启动失败，端口可能被占用", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String token = RemoteControl.token();
+        TextView message = new TextView(requireContext());
+        int padding = (int) (24 * getResources().getDisplayMetrics().density);
+        message.setPadding(padding, padding / 2, padding, 0);
+        message.setTextIsSelectable(true);
+        message.setText("在电脑上执行：\nadb forward tcp:" + port + " tcp:" + port
+                + "\n\n令牌（本次启动有效）：\n" + token
+                + "\n\n命令：curl -H 'Authorization: Bearer " + token + "' -d 参数 localhost:" + port + "/load"
+                + "\n事件流：ws://localhost:" + port + "/events，同样需要 Authorization 头");
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("远程控制已开启")
+                .setView(message)
+                .setPositiveButton("确定", null)
+                .setNegativeButton("关闭远程控制", (dialog, which) -> {
+                    RemoteControl.setEnabled(requireContext(), false);
+                    stopRemoteControl();
+                    Toast.makeText(getContext(), "远程控制已关闭", Toast.LENGTH_SHORT).show();
+                })
+                .show();
+    }
+
+    private int startRemoteControl() {
+        consoleBuffer.setListener(remoteControl::onConsole);
+        return remoteControl.start();
+    }
+
+    private void stopRemoteControl() {
+        consoleBuffer.setListener(null);
+        remoteControl.stop();
+    }
+
+    // 远程命令，在主线程上执行
+    private void handleRemoteCommand(String command, String argument, ControlServer.Reply reply) {
+        if (binding == null) {
+            reply.send(false, "界面未就绪");
+            return;
+        }
+        switch (command) {
+            case "load": {
+                // 与输入框走同一条路径：规范化、写历史、按重置策略重置后加载
+                String url = UrlNormalizer.normalize(argument);
+                if (url == null) {
+                    reply.send(false, "网址为空");
+                    return;
+                }
+                binding.urlInput.setText(url);
+                loadWebPageFromInput();
+                reply.send(true, url);
+                return;
+            }
+            case "profile":
+                try {
+                    ResetProfile profile = ResetProfile.valueOf(argument.trim());
+                    ResetProfile.save(requireContext(), profile);
+                    reply.send(true, profile.name());
+                } catch (IllegalArgumentException e) {
+                    reply.send(false, "未知的重置策略: " + argument);
+                }
+                return;
+            case "rules":
+                // reload 重新加载规则文件，on/off 开关，其他参数返回命中统计
+                switch (argument.trim()) {
+                    case "reload":
+                        reloadRequestRules(reply);
+                        return;
+                    case "on":
+                    case "off":
+                        setRequestRulesEnabled(argument.trim().equals("on"));
+                        break;
+                    default:
+                        break;
+                }
+                reply.send(true, (requestBlocker.isEnabled() ? "" : "（已关闭）") + requestBlocker.getRules().describe(20));
+                return;
+            case "network":
+                // 预设名，或者 "kbps,rtt[,丢包[,错误]]" 形式的自定义条件
+                try {
+                    String value = argument.trim();
+                    if (value.indexOf(',') >= 0) {
+                        NetworkProfile.saveCustom(requireContext(), NetworkThrottler.Conditions.parse(value));
+                        applyNetworkProfile(NetworkProfile.CUSTOM);
+                    } else {
+                        applyNetworkProfile(NetworkProfile.valueOf(value));
+                    }
+                    NetworkThrottler.Conditions conditions = throttler.getConditions();
+                    reply.send(true, conditions != null ? conditions.format() : NetworkProfile.OFF.name());
+                } catch (IllegalArgumentException e) {
+                    reply.send(false, "无效的网络条件: " + argument);
+                }
+                return;
+            case "devtools": {
+                // start trace,cpu,coverage,heap 开始；stop 停止并回复文件路径；其他参数返回状态
+                String[] parts = argument.trim().split("\\s+", 2);
+                if (parts[0].equals("start")) {
+                    try {
+                        startDevTools(DevToolsCapture.Kind.parse(parts.length > 1 ? parts[1] : "trace"), reply);
+                    } catch (IllegalArgumentException e) {
+                        reply.send(false, e.getMessage());
+                    }
+                } else if (parts[0].equals("stop")) {
+                    stopDevTools(reply);
+                } else {
+                    reply.send(true, devToolsRecorder.isRecording() ? "采集中" : "未采集");
+                }
+                return;
             }
+            case "eval":
+                if (webView == null) {
+                    reply.send(false, "WebView 未就绪");
+                    return;
+                }
+                webView.evaluateJavascript(argument, value -> reply.send(true, value));
+                return;
+            case "bench":
+                // 完成后才回复报告路径
+                try {
+                    startBenchmark(LoadBenchmark.parse(argument), false, reply);
+                } catch (IllegalArgumentException e) {
+                    reply.send(false, e.getMessage());
+                }
+                return;
+            default:
+                reply.send(false, "未知命令: " + command);
+        }
+    }
+
+    // 对输入框中的网址做重复加载基准测试
+    private void showBenchmarkDialog() {
+        String url = UrlNormalizer.normalize(binding.urlInput.getText().toString());
+        if (url == null) {
+            Toast.makeText(getContext(), "请输入网址", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        EditText iterationsInput = new EditText(requireContext());
+        iterationsInput.setInputType(InputType.TYPE_CLASS_NUMBER);
+        iterationsInput.setHint("加载次数");
+        iterationsInput.setText("10");
+        EditText warmupInput = new EditText(requireContext());
+        warmupInput.setInputType(InputType.TYPE_CLASS_NUMBER);
+        warmupInput.setHint("预热次数（不计入统计）");
+        warmupInput.setText("2");
+        CheckBox coldCheck = new CheckBox(requireContext());
+        coldCheck.setText("冷启动：每轮按当前重置策略重置");
+        coldCheck.setChecked(true);
+        CheckBox traceCheck = new CheckBox(requireContext());
+        traceCheck.setText("结束后追加一次 DevTools 追踪（不计入统计）");
+
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        LinearLayout content = new LinearLayout(requireContext());
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setPadding(padding, padding, padding, 0);
+        content.addView(iterationsInput);
+        content.addView(warmupInput);
+        content.addView(coldCheck);
+        content.addView(traceCheck);
+
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("重复加载基准")
+                .setMessage(url)
+                .setView(content)
+                .setPositiveButton("开始", (dialog, which) -> {
+                    try {
+                        startBenchmark(new LoadBenchmark(url,
+                                Integer.parseInt(iterationsInput.getText().toString()),
+                                Integer.parseInt(warmupInput.getText().toString()),
+                                coldCheck.isChecked()), traceCheck.isChecked(), null);
+                    } catch (IllegalArgumentException e) {
+                        // NumberFormatException 也是 IllegalArgumentException
+                        Toast.makeText(getContext(), "参数无效：" + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    // traced 时结束后追加一次带 DevTools 采集的加载
+    private void startBenchmark(LoadBenchmark run, boolean traced, ControlServer.Reply reply) {
+        if (benchmark != null) {
+            if (reply != null) {
+                reply.send(false, "已有基准测试在运行");
+            } else {
+                Toast.makeText(getContext(), "已有基准测试在运行", Toast.LENGTH_SHORT).show();
+            }
+            return;
+        }
+        run.setEnvironment(StartupTrace.versionName(requireContext()),
+                Build.MANUFACTURER + " " + Build.MODEL + " (API " + Build.VERSION.SDK_INT + ")",
+                run.isCold() ? ResetProfile.load(requireContext()).name() : null);
+        NetworkThrottler.Conditions network = throttler.getConditions();
+        run.setNetwork(network != null ? network.format() : null);
+        benchmark = run;
+        // 回复之后才能停掉在后台期间为它保留的远程控制服务
+        benchmarkReply = reply == null ? null : (ok, result) -> {
+            reply.send(ok, result);
+            if (remoteStopPending) {
+                remoteStopPending = false;
+                stopRemoteControl();
+            }
+        };
+        benchmarkTraced = traced;
+        runBenchmarkIteration();
+    }
+
+    private void runBenchmarkIteration() {
+        if (binding == null || webView == null) {
+            cancelBenchmark("页面已关闭");
+            return;
+        }
+        benchmarkLoading = false;
+        benchmarkStartMs = -1;
+        benchmarkPageLoadMs = Double.NaN;
+        updateBenchmarkSnackbar();
+        View root = binding.getRoot();
+        root.removeCallbacks(benchmarkIterationTask);
+        root.postDelayed(benchmarkIterationTask, BENCHMARK_TIMEOUT_MS);
+        String url = benchmark.getUrl();
+        if (benchmark.isCold()) {
+            prefetchDocument(url);
+            resetWebView(url, () -> {
+                benchmarkLoading = true;
+                webView.loadUrl(url);
+            });
+        } else {
+            benchmarkLoading = true;
+            webView.loadUrl(url);
+        }
+    }
+
+    // 本轮结束（指标稳定或超时），记录后开始下一轮
+    private void finishBenchmarkIteration() {
+        if (benchmark == null) {
+            return;
+        }
+        // 延迟任务可能在 Fragment 离开 Activity 后才执行
+        Context context = getContext();
+        if (context == null) {
+            cancelBenchmark("页面已关闭");
+            return;
+        }
+        if (binding != null) {
+            binding.getRoot().removeCallbacks(benchmarkIterationTask);
+        }
+        if (webView != null) {
+            webView.removeCallbacks(benchmarkIterationTask);
+        }
+        benchmarkLoading = false;
+        boolean finished;
+        if (Double.isNaN(benchmarkPageLoadMs)) {
+            // 超时：时间线还是上一轮的，不能用
+            finished = benchmark.record(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        } else {
+            PerfTimeline.Summary summary = timeline.summary();
+            finished = benchmark.record(benchmarkPageLoadMs, summary.ttfb, summary.fcp, summary.lcp);
+        }
+        if (!finished) {
+            runBenchmarkIteration();
+            return;
+        }
+        LoadBenchmark run = benchmark;
+        ControlServer.Reply reply = benchmarkReply;
+        boolean traced = benchmarkTraced;
+        endBenchmark();
+        if (traced) {
+            startTracedLoad(run.getUrl(), run.isCold());
+        }
+        Exports.writeAsync(context, "benchmark", Exports.timestampedName("benchmark", "json"),
+                writer -> run.writeJson(new JsonStreamWriter(writer)),
+                file -> {
+                    if (reply != null) {
+                        reply.send(file != null, file != null ? file.getAbsolutePath() : "导出失败");
+                    }
+                    if (getContext() == null) {
+                        return;
+                    }
+                    Toast.makeText(getContext(), run.describe()
+                            + (file != null ? "\n已导出到 " + file.getAbsolutePath() : "\n导出失败"),
+                            Toast.LENGTH_LONG).show();
+                });
+    }
+
+    private void cancelBenchmark(String reason) {
+        if (benchmark == null) {
+            return;
+        }
+        ControlServer.Reply reply = benchmarkReply;
+        endBenchmark();
+        webViewResetter.cancel();
+        if (reply != null) {
+            reply.send(false, reason);
+        }
+    }
+
+    private void endBenchmark() {
+        benchmark = null;
+        benchmarkReply = null;
+        benchmarkLoading = false;
+        benchmarkTraced = false;
+        if (binding != null) {
+            binding.getRoot().removeCallbacks(benchmarkIterationTask);
+        }
+        if (webView != null) {
+            webView.removeCallbacks(benchmarkIterationTask);
+        }
+        if (benchmarkSnackbar != null) {
+            benchmarkSnackbar.dismiss();
+            benchmarkSnackbar = null;
+        }
+    }
+
+    private void updateBenchmarkSnackbar() {
+        int completed = benchmark.getCompleted();
+        String text = "基准测试 " + (completed + 1) + "/" + benchmark.getIterations()
+                + (completed < benchmark.getWarmup() ? "（预热）" : "");
+        if (benchmarkSnackbar == null) {
+            benchmarkSnackbar = Snackbar.make(binding.getRoot(), text, Snackbar.LENGTH_INDEFINITE)
+                    .setAction("停止", v -> cancelBenchmark("已手动停止"));
+            benchmarkSnackbar.show();
+        } else {
+            benchmarkSnackbar.setText(text);
+        }
+    }
+
+    // 与基准测试相同的加载方式（冷启动时先重置），重置完成后才开始采集，追踪里只有这次加载
+    private void startTracedLoad(String url, boolean cold) {
+        if (webView == null || devToolsRecorder.isRecording()) {
+            return;
+        }
+        Runnable traceAndLoad = () -> devToolsRecorder.start(
+                EnumSet.of(DevToolsCapture.Kind.TRACE, DevToolsCapture.Kind.CPU_PROFILE), webView.getUrl(),
+                (files, error) -> {
+                    if (error != null) {
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "DevTools 采集失败：" + error, Toast.LENGTH_LONG).show();
+                        }
+                        return;
+                    }
+                    if (webView == null) {
+                        devToolsRecorder.stop(this::onDevToolsSaved);
+                        return;
+                    }
+                    tracedLoadPending = true;
+                    webView.removeCallbacks(tracedLoadTask);
+                    webView.postDelayed(tracedLoadTask, BENCHMARK_TIMEOUT_MS);
+                    webView.loadUrl(url);
+                });
+        if (cold) {
+            prefetchDocument(url);
+            resetWebView(url, traceAndLoad);
+        } else {
+            traceAndLoad.run();
+        }
+    }
+
+    // 追踪加载稳定或超时
+    private void finishTracedLoad() {
+        if (!tracedLoadPending) {
+            return;
+        }
+        tracedLoadPending = false;
+        if (webView != null) {
+            webView.removeCallbacks(tracedLoadTask);
+        }
+        devToolsRecorder.stop(this::onDevToolsSaved);
+    }
+
+    // 开始时勾选采集类型，采集中则停止并保存
+    private void showDevToolsDialog() {
+        if (devToolsRecorder.isRecording()) {
+            new MaterialAlertDialogBuilder(requireContext())
+                    .setTitle("DevTools 采集")
+                    .setMessage("正在采集当前页面")
+                    .setPositiveButton("停止并保存", (dialog, which) -> stopDevTools(null))
+                    .setNegativeButton("取消", null)
+                    .show();
+            return;
+        }
+        DevToolsCapture.Kind[] kinds = DevToolsCapture.Kind.values();
+        String[] labels = new String[kinds.length];
+        boolean[] checked = new boolean[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            labels[i] = kinds[i].label;
+            checked[i] = kinds[i] == DevToolsCapture.Kind.TRACE;
+        }
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("DevTools 采集")
+                .setMultiChoiceItems(labels, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("开始", (dialog, which) -> {
+                    Set<DevToolsCapture.Kind> selected = EnumSet.noneOf(DevToolsCapture.Kind.class);
+                    for (int i = 0; i < kinds.length; i++) {
+                        if (checked[i]) {
+                            selected.add(kinds[i]);
+                        }
+                    }
+                    if (selected.isEmpty()) {
+                        Toast.makeText(getContext(), "没有选择采集类型", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    startDevTools(selected, null);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void startDevTools(Set<DevToolsCapture.Kind> kinds, ControlServer.Reply reply) {
+        String url = webView != null ? webView.getUrl() : null;
+        devToolsRecorder.start(kinds, url, (files, error) -> {
+            if (reply != null) {
+                reply.send(error == null, error == null ? "开始采集" : error);
+            } else if (getContext() != null) {
+                Toast.makeText(getContext(), error == null ? "开始 DevTools 采集，完成后在工具菜单中停止"
+                        : "DevTools 采集失败：" + error, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void stopDevTools(ControlServer.Reply reply) {
+        devToolsRecorder.stop((files, error) -> {
+            if (reply != null) {
+                List<String> paths = new ArrayList<>();
+                for (File file : files) {
+                    paths.add(file.getAbsolutePath());
+                }
+                reply.send(error == null, error == null ? TextUtils.join("\n", paths) : error);
+            }
+            onDevToolsSaved(files, error);
+        });
+    }
+
+    private void onDevToolsSaved(List<File> files, String error) {
+        if (getContext() == null) {
+            return;
+        }
+        if (error != null) {
+            Toast.makeText(getContext(), "保存 DevTools 采集失败：" + error, Toast.LENGTH_LONG).show();
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        for (File file : files) {
+            names.add(file.getName());
+        }
+        File dir = files.isEmpty() ? null : files.get(0).getParentFile();
+        Toast.makeText(getContext(), "已保存到 " + (dir != null ? dir.getAbsolutePath() : "") + "\n"
+                + TextUtils.join("\n", names) + "\n追踪可在 ui.perfetto.dev 打开", Toast.LENGTH_LONG).show();
+    }
+
+    // 选择每次加载前的重置策略
+    private void showResetProfileDialog() {
+        ResetProfile current = ResetProfile.load(requireContext());
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("重置策略")
+                .setSingleChoiceItems(ResetProfile.labels(), current.ordinal(), (dialog, which) -> {
+                    ResetProfile.save(requireContext(), ResetProfile.values()[which]);
+                    dialog.dismiss();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showLastResetReport() {
+        WebViewResetter.Report report = webViewResetter.getLastReport();
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("上次重置耗时")
+                .setMessage(report != null ? report.toString() : "还没有加载过网页")
+                .setPositiveButton("确定", null)
+                .show();
+    }
+
+    // 以瀑布图展示最近一次加载的性能时间线
+    private void showTimeline() {
+        List<PerfTimeline.Entry> entries = timeline.entries();
+        if (entries.isEmpty()) {
+            Toast.makeText(getContext(), "还没有性能数据", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        PerfTimeline.Summary summary = timeline.summary();
+
+        TextView summaryText = new TextView(requireContext());
+        summaryText.setText(String.format(Locale.US, "TTFB %.0f ms    FCP %.0f ms    LCP %.0f ms\nonPageFinished %.0f ms",
+                summary.ttfb, summary.fcp, summary.lcp, summary.pageFinished));
+        WaterfallView waterfall = new WaterfallView(requireContext());
+        waterfall.setEntries(entries);
+
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        LinearLayout content = new LinearLayout(requireContext());
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setPadding(padding, padding, padding, padding);
+        content.addView(summaryText);
+        content.addView(waterfall);
+        ScrollView scrollView = new ScrollView(requireContext());
+        scrollView.addView(content);
+
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle(timeline.getUrl())
+                .setView(scrollView)
+                .setPositiveButton("确定", null)
+                .setNeutralButton("导出JSON", (dialog, which) -> exportTimeline())
+                .show();
+    }
+
+    // 在后台线程把时间线流式写入JSON文件
+    private void exportTimeline() {
+        Exports.writeAsync(requireContext(), "timeline", Exports.timestampedName("timeline", "json"),
+                timeline::writeJson,
+                this::showExportResult);
+    }
+
+    // 后台导出完成时 Fragment 可能已经离开 Activity（例如切到了历史记录页），这时不再提示
+    private void showExportResult(File file) {
+        Context context = getContext();
+        if (context == null) {
+            return;
+        }
+        Toast.makeText(context, file != null ? "已导出到 " + file.getAbsolutePath() : "导出失败",
+                Toast.LENGTH_LONG).show();
+    }
+
+    // 最近的网络请求列表
+    private void showNetworkLog() {
+        String[] lines = networkRecorder.describeRecent(NETWORK_DISPLAY_LIMIT);
+        if (lines.length == 0) {
+            Toast.makeText(getContext(), "还没有网络请求", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("网络请求（" + networkRecorder.size() + "）")
+                .setItems(lines, null)
+                .setPositiveButton("确定", null)
+                .setNeutralButton("导出HAR", (dialog, which) -> exportHar())
+                .show();
+    }
+
+    // 启用或停用各个采集脚本，当前页面立即生效；中性按钮修改注入范围
+    private void showScriptsDialog() {
+        List<InstrumentationScripts.Script> scripts = scriptRegistry.getScripts().getScripts();
+        String[] labels = new String[scripts.size()];
+        boolean[] checked = new boolean[scripts.size()];
+        for (int i = 0; i < scripts.size(); i++) {
+            labels[i] = scripts.get(i).label;
+            checked[i] = scripts.get(i).isEnabled();
+        }
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle(scriptRegistry.isDocumentStartSupported() ? "采集脚本（文档开始时注入）" : "采集脚本（页面加载时注入）")
+                .setMultiChoiceItems(labels, checked, (dialog, which, isChecked) ->
+                        scriptRegistry.setEnabled(scripts.get(which).id, isChecked))
+                .setNeutralButton("注入范围", (dialog, which) -> showOriginRulesDialog())
+                .setPositiveButton("确定", null)
+                .show();
+    }
+
+    private void showOriginRulesDialog() {
+        EditText input = new EditText(requireContext());
+        input.setText(TextUtils.join(", ", scriptRegistry.getScripts().getOriginRules()));
+        input.setHint("* 或 https://*.example.com");
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        FrameLayout container = new FrameLayout(requireContext());
+        container.setPadding(padding, padding / 2, padding, 0);
+        container.addView(input);
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("注入范围（逗号分隔的来源规则）")
+                .setView(container)
+                .setPositiveButton("保存", (dialog, which) -> {
+                    try {
+                        scriptRegistry.setOriginRules(input.getText().toString());
+                        Toast.makeText(getContext(), "下一次加载页面时生效", Toast.LENGTH_SHORT).show();
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(getContext(), e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void toggleMemoryOverlay() {
+        boolean show = binding.memoryOverlay.getVisibility() != View.VISIBLE;
+        binding.memoryOverlay.setVisibility(show ? View.VISIBLE : View.GONE);
+        binding.getRoot().removeCallbacks(memoryOverlayTask);
+        if (show) {
+            refreshMemoryOverlay();
+        }
+    }
+
+    // 悬浮层可见时每个采样周期刷新一次
+    private void refreshMemoryOverlay() {
+        if (binding == null || binding.memoryOverlay.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        binding.memoryText.setText(String.format(Locale.US, "PSS %s · Java %s · Native %s · JS %s",
+                megabytes(memoryRecorder.latest(MemoryRecorder.SERIES_PSS)),
+                megabytes(memoryRecorder.latest(MemoryRecorder.SERIES_JAVA)),
+                megabytes(memoryRecorder.latest(MemoryRecorder.SERIES_NATIVE)),
+                megabytes(memoryRecorder.latest(MemoryRecorder.SERIES_JS))));
+        binding.memorySparkline.update(memoryRecorder);
+        binding.getRoot().postDelayed(memoryOverlayTask, MemoryMonitor.INTERVAL_MS);
+    }
+
+    private static String megabytes(long bytes) {
+        return bytes == MemoryRecorder.UNKNOWN ? "-" : String.format(Locale.US, "%.1fM", bytes / 1048576.0);
+    }
+
+    // 视觉截图完成：有差异时提示占比，热力图与截图在同一目录
+    private void onVisualCaptured(String url, String milestone, File file, double score, File heatmap) {
+        remoteControl.onCapture(milestone, url, score, file, heatmap);
+        if (binding == null) {
+            return;
+        }
+        if (file == null) {
+            Toast.makeText(getContext(), "截图保存失败（" + milestone + "）", Toast.LENGTH_SHORT).show();
+        } else if (Double.isNaN(score)) {
+            Log.d(TAG, "已保存基线截图 " + file.getAbsolutePath());
+        } else if (heatmap != null) {
+            Snackbar.make(binding.getRoot(), String.format(Locale.getDefault(),
+                            "视觉差异 %s：%.2f%% 的像素与基线不同，热力图已保存到 %s",
+                            milestone, score * 100, heatmap.getParent()),
+                    Snackbar.LENGTH_LONG)
+                    .setAction("重设基线", v -> resetVisualBaseline(url))
+                    .show();
+        }
+    }
+
+    // 开关、截图节点、格式和基线
+    private void showVisualCaptureDialog() {
+        VisualCapture capture = visualCapture;
+        String[] items = {
+                capture.isEnabled() ? "关闭视觉截图" : "开启视觉截图",
+                "截图节点：" + capture.getMilestones(),
+                "保存格式：" + (capture.isWebp() ? "WebP" : "PNG"),
+                "重设当前网址的基线",
+        };
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("视觉截图对比")
+                .setItems(items, (dialog, which) -> {
+                    if (which == 0) {
+                        capture.setEnabled(!capture.isEnabled());
+                        Toast.makeText(getContext(), capture.isEnabled() ? "已开启视觉截图" : "已关闭视觉截图",
+                                Toast.LENGTH_SHORT).show();
+                    } else if (which == 1) {
+                        showCaptureMilestonesDialog(capture);
+                    } else if (which == 2) {
+                        capture.setWebp(!capture.isWebp());
+                    } else if (webView != null && webView.getUrl() != null) {
+                        resetVisualBaseline(webView.getUrl());
+                    }
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showCaptureMilestonesDialog(VisualCapture capture) {
+        EditText input = new EditText(requireContext());
+        input.setSingleLine(true);
+        input.setText(capture.getMilestones());
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("截图节点")
+                .setMessage("逗号分隔：commit（首次绘制）、finished（onPageFinished）、onPageFinished 之后的毫秒数")
+                .setView(input)
+                .setPositiveButton("确定", (dialog, which) -> {
+                    try {
+                        capture.setMilestones(input.getText().toString());
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(getContext(), e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void resetVisualBaseline(String url) {
+        if (visualCapture == null) {
+            return;
+        }
+        visualCapture.resetBaseline(url);
+        Toast.makeText(getContext(), "下一次截图将作为新的基线", Toast.LENGTH_SHORT).show();
+    }
+
+    private void showLeakWarning(LeakDetector.Suspect suspect) {
+        if (binding == null) {
+            return;
+        }
+        Snackbar.make(binding.getRoot(), String.format(Locale.getDefault(),
+                        "疑似内存泄漏：连续 %d 次加载 %s 从 %s 增长到 %s",
+                        suspect.loads, suspect.metric, megabytes(suspect.firstBytes), megabytes(suspect.lastBytes)),
+                Snackbar.LENGTH_LONG)
+                .setAction("导出CSV", v -> exportMemoryCsv())
+                .show();
+    }
+
+    // 在后台线程把内存采样写成 CSV
+    private void exportMemoryCsv() {
+        Exports.writeAsync(requireContext(), "memory", Exports.timestampedName("memory", "csv"),
+                memoryRecorder::writeCsv,
+                this::showExportResult);
+    }
+
+    private void toggleFrameMonitor() {
+        frameMonitorEnabled = !frameMonitorEnabled;
+        binding.frameOverlay.setVisibility(frameMonitorEnabled ? View.VISIBLE : View.GONE);
+        binding.getRoot().removeCallbacks(frameOverlayTask);
+        if (frameMonitorEnabled) {
+            frameMonitor.start(requireContext());
+            startPageFrameSampling(webView);
+            refreshFrameOverlay();
+        } else {
+            frameMonitor.stop();
+            if (webView != null) {
+                webView.evaluateJavascript(FrameBridge.STOP_SCRIPT, null);
+            }
+        }
+    }
+
+    // 开启帧率监控时让页面开始上报 rAF 帧间隔；脚本本身在每次加载时注入
+    private void startPageFrameSampling(WebView view) {
+        if (frameMonitorEnabled && view != null) {
+            view.evaluateJavascript(FrameBridge.START_SCRIPT, null);
+        }
+    }
+
+    private void refreshFrameOverlay() {
+        if (binding == null || !frameMonitorEnabled) {
+            return;
+        }
+        binding.frameOverlay.setText(describeFrames("原生", frameMonitor.getHost())
+                + "\n" + describeFrames("页面", frameMonitor.getPage()));
+        binding.getRoot().postDelayed(frameOverlayTask, FRAME_OVERLAY_INTERVAL_MS);
+    }
+
+    private static String describeFrames(String label, FrameHistogram histogram) {
+        if (histogram.count() == 0) {
+            return label + " 暂无数据";
+        }
+        return String.format(Locale.US, "%s %.0ffps p50 %.1f p90 %.1f p99 %.1f ms 掉帧 %d",
+                label, histogram.averageFps(), histogram.percentile(0.5), histogram.percentile(0.9),
+                histogram.percentile(0.99), histogram.droppedFrames());
+    }
+
+    // 导出本次加载的帧率统计，包含 URL 和设备信息
+    private void exportFrameReport() {
+        Context appContext = requireContext().getApplicationContext();
+        Exports.writeAsync(appContext, "frames", Exports.timestampedName("frames", "json"),
+                writer -> frameMonitor.writeJson(appContext, writer),
+                this::showExportResult);
+    }
+
+    // 在后台线程把网络请求以 HAR 1.2 格式流式写入文件
+    private void exportHar() {
+        Exports.writeAsync(requireContext(), "har", Exports.timestampedName("network", "har"),
+                networkRecorder::writeHar,
+                this::showExportResult);
+    }
+
+    // 选择离线录制/回放模式，切换后从下一个请求开始生效
+    private void showReplayModeDialog() {
+        ReplayInterceptor interceptor = ReplayInterceptor.get(requireContext());
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("离线录制/回放")
+                .setSingleChoiceItems(ReplayMode.labels(), interceptor.getMode().ordinal(), (dialog, which) -> {
+                    ReplayMode mode = ReplayMode.values()[which];
+                    interceptor.setMode(mode);
+                    ReplayMode.save(requireContext(), mode);
+                    dialog.dismiss();
+                })
+                .setNeutralButton("清空录制数据", (dialog, which) -> clearReplayData(interceptor))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    // 拦截规则的状态和命中统计；规则文件通过 adb push 更新后在这里重新加载
+    private void showRequestRulesDialog() {
+        RequestBlocker blocker = requestBlocker;
+        boolean enabled = blocker.isEnabled();
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle(enabled ? "请求拦截规则（已开启）" : "请求拦截规则（已关闭）")
+                .setMessage("规则文件：" + blocker.getFile().getAbsolutePath()
+                        + "\n每行一条：[block|stub|file] 模式 [参数]\n\n" + blocker.getRules().describe(10))
+                .setPositiveButton(enabled ? "关闭拦截" : "开启拦截", (dialog, which) -> setRequestRulesEnabled(!enabled))
+                .setNeutralButton("重新加载", (dialog, which) -> reloadRequestRules(null))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void setRequestRulesEnabled(boolean enabled) {
+        requestBlocker.setEnabled(enabled);
+        DebuggerSettings.prefs(requireContext()).edit().putBoolean(KEY_REQUEST_RULES_ENABLED, enabled).apply();
+        Toast.makeText(getContext(), enabled ? "已开启请求拦截" : "已关闭请求拦截", Toast.LENGTH_SHORT).show();
+    }
+
+    // 后台重新加载规则文件，完成后在主线程提示；reply 不为 null 时同时回复远程命令
+    private void reloadRequestRules(ControlServer.Reply reply) {
+        Context context = requireContext().getApplicationContext();
+        requestBlocker.reload((rules, error) -> {
+            String summary = error != null ? "加载失败: " + error.getMessage() : rules.describe(0);
+            if (reply != null) {
+                reply.send(error == null, summary);
+            }
+            ContextCompat.getMainExecutor(context).execute(
+                    () -> Toast.makeText(context, summary, Toast.LENGTH_SHORT).show());
         });
     }
 
+    // 选择弱网模拟的网络条件，从下一个请求开始生效
+    private void showNetworkProfileDialog() {
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("弱网模拟")
+                .setSingleChoiceItems(NetworkProfile.labels(), NetworkProfile.load(requireContext()).ordinal(),
+                        (dialog, which) -> {
+                            dialog.dismiss();
+                            NetworkProfile profile = NetworkProfile.values()[which];
+                            if (profile == NetworkProfile.CUSTOM) {
+                                showCustomNetworkDialog();
+                            } else {
+                                applyNetworkProfile(profile);
+                            }
+                        })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showCustomNetworkDialog() {
+        EditText input = new EditText(requireContext());
+        input.setSingleLine(true);
+        input.setHint("1000,200,1,0");
+        input.setText(NetworkProfile.loadCustom(requireContext()).format());
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("自定义网络条件")
+                .setMessage("下行带宽 kbps,往返延迟 ms[,丢包 %[,错误 %]]\n丢包按重传延迟模拟，错误返回 503；同一网址每次结果相同")
+                .setView(input)
+                .setPositiveButton("确定", (dialog, which) -> {
+                    NetworkThrottler.Conditions conditions;
+                    try {
+                        conditions = NetworkThrottler.Conditions.parse(input.getText().toString());
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(getContext(), e.getMessage(), Toast.LENGTH_LONG).show();
+                        return;
+                    }
+                    NetworkProfile.saveCustom(requireContext(), conditions);
+                    applyNetworkProfile(NetworkProfile.CUSTOM);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void applyNetworkProfile(NetworkProfile profile) {
+        NetworkProfile.save(requireContext(), profile);
+        throttler.setConditions(profile.conditions(requireContext()));
+        if (profile != NetworkProfile.OFF) {
+            prefetcher.cancel();
+        }
+        Toast.makeText(getContext(), profile == NetworkProfile.OFF ? "已关闭弱网模拟" : "弱网模拟: " + profile.label,
+                Toast.LENGTH_SHORT).show();
+    }
+
+    private void clearReplayData(ReplayInterceptor interceptor) {
+        Context context = requireContext().getApplicationContext();
+        new Thread(() -> {
+            String message;
+            try {
+                interceptor.clear();
+                message = "已清空录制数据";
+            } catch (IOException e) {
+                message = "清空失败: " + e.getMessage();
+            }
+            String result = message;
+            ContextCompat.getMainExecutor(context).execute(
+                    () -> Toast.makeText(context, result, Toast.LENGTH_SHORT).show());
+        }, "replay-clear").start();
+    }
+
     // 启动二维码扫描
-    private void startQRCodeScan() {
+    private void startQRCodeScan(boolean continuous) {
+        continuousScanRequested = continuous;
         // 检查相机权限
         if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA) 
                 != PackageManager.PERMISSION_GRANTED) {
@@ -341,15 +1713,81 @@ public class FirstFragment extends Fragment {
 
     // 启动二维码扫描器
     private void launchQRCodeScanner() {
-        ScanOptions options = new ScanOptions();
-        options.setDesiredBarcodeFormats(ScanOptions.QR_CODE);
-        options.setPrompt("将二维码对准扫描框");
-        options.setCameraId(0);
-        options.setBeepEnabled(true);
-        options.setBarcodeImageEnabled(false);
-        options.setOrientationLocked(false);
-        
-        scanLauncher.launch(options);
+        if (continuousScanRequested) {
+            continuousScanLauncher.launch(null);
+        } else {
+            scanLauncher.launch(null);
+        }
+    }
+
+    private void decodeQrImage(Uri uri) {
+        Toast.makeText(getContext(), "正在识别图片中的二维码...", Toast.LENGTH_SHORT).show();
+        ImageQrImporter.decodeAsync(requireContext(), uri, result -> {
+            if (binding == null) {
+                return;
+            }
+            if (result == null) {
+                Toast.makeText(getContext(), "无法读取图片", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            List<String> urls = new ArrayList<>();
+            for (String code : result.codes) {
+                String url = UrlNormalizer.normalize(code);
+                if (url != null) {
+                    urls.add(url);
+                }
+            }
+            if (urls.isEmpty()) {
+                Toast.makeText(getContext(), "图片中没有识别到二维码", Toast.LENGTH_SHORT).show();
+            } else if (urls.size() == 1) {
+                binding.urlInput.setText(urls.get(0));
+                loadWebPageFromInput();
+            } else {
+                // 一张图中有多个二维码：选择其中一个，或全部放入队列依次加载
+                new MaterialAlertDialogBuilder(requireContext())
+                        .setTitle("识别到 " + urls.size() + " 个二维码")
+                        .setItems(urls.toArray(new String[0]), (dialog, which) -> {
+                            binding.urlInput.setText(urls.get(which));
+                            loadWebPageFromInput();
+                        })
+                        .setPositiveButton("依次加载全部", (dialog, which) -> {
+                            scanQueue.clear();
+                            scanQueue.addAll(urls);
+                            loadNextScanned();
+                        })
+                        .setNegativeButton("取消", null)
+                        .show();
+            }
+        });
+    }
+
+    // 加载连续扫码队列中的下一个网址
+    private void loadNextScanned() {
+        if (scanQueueSnackbar != null) {
+            scanQueueSnackbar.dismiss();
+            scanQueueSnackbar = null;
+        }
+        String url = scanQueue.poll();
+        if (url == null || binding == null) {
+            return;
+        }
+        binding.urlInput.setText(url);
+        loadWebPageFromInput();
+    }
+
+    private void showScanQueueSnackbar() {
+        if (binding == null || scanQueue.isEmpty()) {
+            return;
+        }
+        String text = "扫码队列还剩 " + scanQueue.size() + " 个";
+        // 每次页面加载完成都会走到这里，复用已显示的那条，不叠加
+        if (scanQueueSnackbar != null && scanQueueSnackbar.isShownOrQueued()) {
+            scanQueueSnackbar.setText(text);
+            return;
+        }
+        scanQueueSnackbar = Snackbar.make(binding.getRoot(), text, Snackbar.LENGTH_INDEFINITE)
+                .setAction("下一个", v -> loadNextScanned());
+        scanQueueSnackbar.show();
     }
 
 
@@ -368,34 +1806,77 @@ public class FirstFragment extends Fragment {
         }
     }
 
-    // 保存URL到历史记录
+    // 保存URL到历史记录（后台追加写入，不阻塞主线程）
     private void saveToHistory(String url) {
-        SharedPreferences prefs = requireContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String existingHistory = prefs.getString(HISTORY_KEY, "");
-        
-        // 如果URL已存在，先移除它（避免重复）
-        String[] urls = existingHistory.split("\n");
-        StringBuilder newHistory = new StringBuilder();
-        
-        // 添加新URL到最前面
-        newHistory.append(url).append("\n");
-        
-        // 添加其他URL（除了重复的）
-        int count = 0;
-        for (String existingUrl : urls) {
-            if (!existingUrl.trim().isEmpty() && !existingUrl.equals(url) && count < 49) {
-                newHistory.append(existingUrl).append("\n");
-                count++;
-            }
+        HistoryStore.get(requireContext()).add(url);
+        if (urlAutocomplete != null) {
+            urlAutocomplete.invalidate();
+        }
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        memoryMonitor.start();
+        refreshMemoryOverlay();
+        remoteStopPending = false;
+        if (RemoteControl.isEnabled(requireContext())) {
+            startRemoteControl();
+        }
+        if (frameMonitorEnabled) {
+            frameMonitor.start(requireContext());
+            refreshFrameOverlay();
+        }
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        memoryMonitor.stop();
+        frameMonitor.stop();
+        if (benchmarkReply != null) {
+            remoteStopPending = true;
+        } else {
+            stopRemoteControl();
+        }
+        if (binding != null) {
+            binding.getRoot().removeCallbacks(memoryOverlayTask);
+            binding.getRoot().removeCallbacks(frameOverlayTask);
         }
-        
-        // 保存更新后的历史记录（最多50条）
-        prefs.edit().putString(HISTORY_KEY, newHistory.toString()).apply();
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        binding.getRoot().removeCallbacks(memoryOverlayTask);
+        binding.getRoot().removeCallbacks(frameOverlayTask);
+        cancelBenchmark("页面已关闭");
+        if (tracedLoadPending) {
+            // 页面关闭时仍保存已经采集到的部分
+            tracedLoadPending = false;
+            if (webView != null) {
+                webView.removeCallbacks(tracedLoadTask);
+            }
+        }
+        if (devToolsRecorder.isRecording()) {
+            devToolsRecorder.stop(this::onDevToolsSaved);
+        }
+        prefetcher.cancel();
+        if (visualCapture != null) {
+            visualCapture.release();
+            visualCapture = null;
+        }
+        if (scanQueueSnackbar != null) {
+            scanQueueSnackbar.dismiss();
+            scanQueueSnackbar = null;
+        }
+        if (urlAutocomplete != null) {
+            urlAutocomplete.release();
+            urlAutocomplete = null;
+        }
+        // 只从界面上移除，实例留在 WebViewPool 中供返回时复用
+        unbindWebView();
+        pendingLoad = false;
         binding = null;
     }
 
@@ -0,0 +1,80 @@
+package com.lcap.debugger;
+
+/**
+ * 页面内 requestAnimationFrame 的帧间隔，经 {@link MessageBridge} 的 {@link #CHANNEL} 频道上报到 {@link FrameHistogram}。
+ *
+ * 采集会让页面每一帧都执行回调，默认不开启：注入的脚本只定义 __lcapFrames，原生侧开启监控后
+ * 执行 {@link #START_SCRIPT}。帧间隔在页面内攒够 500ms 再合并成一条消息：[逗号分隔的毫秒数]。
+ * 页面隐藏期间 rAF 暂停，visibilitychange 时丢弃上一帧的时间，恢复后的第一段间隔不计入；
+ * 页面可见时的长时间卡顿（例如主线程被长任务阻塞数秒）如实上报，落在直方图的最后一个桶。
+ */
+public class FrameBridge implements MessageBridge.Subscriber {
+
+    public static final String CHANNEL = "frames";
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcapFrames || !window.__lcap || !window.requestAnimationFrame) return;" +
+            "  var running = false, last = 0, pending = [], timer = 0;" +
+            "  function tick(t) {" +
+            "    if (!running) return;" +
+            "    if (last && t > last) pending.push((t - last).toFixed(2));" +
+            "    last = t;" +
+            "    requestAnimationFrame(tick);" +
+            "  }" +
+            "  document.addEventListener('visibilitychange', function() { last = 0; });" +
+            "  function send() {" +
+            "    if (!pending.length) return;" +
+            "    __lcap.post('" + CHANNEL + "', [pending.join(',')]);" +
+            "    pending = [];" +
+            "  }" +
+            "  window.__lcapFrames = {" +
+            "    start: function() {" +
+            "      if (running) return;" +
+            "      running = true; last = 0;" +
+            "      requestAnimationFrame(tick);" +
+            "      timer = setInterval(send, 500);" +
+            "    }," +
+            "    stop: function() { running = false; clearInterval(timer); send(); }" +
+            "  };" +
+            "})();";
+
+    public static final String START_SCRIPT = "window.__lcapFrames && __lcapFrames.start();";
+    public static final String STOP_SCRIPT = "window.__lcapFrames && __lcapFrames.stop();";
+
+    private final FrameHistogram histogram;
+
+    public FrameBridge(FrameHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    // 在 MessageBridge 的分发线程上调用；逐字符解析，不拆分字符串
+    @Override
+    public void onMessage(String[] fields) {
+        String values = fields[0];
+        double value = 0;
+        double scale = 0;
+        boolean any = false;
+        for (int i = 0; i <= values.length(); i++) {
+            char c = i < values.length() ? values.charAt(i) : ',';
+            if (c >= '0' && c <= '9') {
+                if (scale == 0) {
+                    value = value * 10 + (c - '0');
+                } else {
+                    value += (c - '0') * scale;
+                    scale /= 10;
+                }
+                any = true;
+            } else if (c == '.') {
+                scale = 0.1;
+            } else if (c == ',') {
+                if (any) {
+                    histogram.record(value);
+                }
+                value = 0;
+                scale = 0;
+                any = false;
+            }
+        }
+    }
+}
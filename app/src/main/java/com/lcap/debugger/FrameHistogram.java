@@ -0,0 +1,126 @@
+package com.lcap.debugger;
+
+import java.io.IOException;
+
+/**
+ * 帧间隔直方图：0.5ms 一个桶，覆盖 0~250ms，更长的帧计入最后一个桶。
+ *
+ * 所有桶在构造时分配，记录一帧只是计数加一，不产生对象。掉帧按错过的刷新周期数累计：
+ * 帧间隔约为 n 个刷新周期时记为掉了 n-1 帧，n ≥ 2 的帧记为一次卡顿。
+ */
+public class FrameHistogram {
+
+    static final double BUCKET_MS = 0.5;
+    static final int BUCKETS = 500;
+
+    private final int[] counts = new int[BUCKETS];
+    private double frameIntervalMs = 1000.0 / 60;
+    private long count;
+    private long dropped;
+    private long janky;
+    private double totalMs;
+    private double maxMs;
+
+    // 显示器的刷新周期，用于计算掉帧
+    public synchronized void setFrameIntervalMs(double intervalMs) {
+        if (intervalMs > 0) {
+            frameIntervalMs = intervalMs;
+        }
+    }
+
+    public synchronized double getFrameIntervalMs() {
+        return frameIntervalMs;
+    }
+
+    public synchronized void record(double frameMs) {
+        if (!(frameMs > 0)) {
+            return;
+        }
+        int bucket = (int) (frameMs / BUCKET_MS);
+        counts[bucket < BUCKETS ? bucket : BUCKETS - 1]++;
+        count++;
+        totalMs += frameMs;
+        maxMs = Math.max(maxMs, frameMs);
+        long missed = Math.round(frameMs / frameIntervalMs) - 1;
+        if (missed > 0) {
+            dropped += missed;
+            janky++;
+        }
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        dropped = 0;
+        janky = 0;
+        totalMs = 0;
+        maxMs = 0;
+    }
+
+    public synchronized long count() {
+        return count;
+    }
+
+    public synchronized long droppedFrames() {
+        return dropped;
+    }
+
+    public synchronized long jankyFrames() {
+        return janky;
+    }
+
+    public synchronized double maxMs() {
+        return count == 0 ? Double.NaN : maxMs;
+    }
+
+    public synchronized double averageFps() {
+        return totalMs <= 0 ? Double.NaN : count * 1000.0 / totalMs;
+    }
+
+    // p 取 0~1，返回所在桶的中点（不超过实际最大值）；落在最后一个桶时返回实际最大值；没有数据时为 NaN
+    public synchronized double percentile(double p) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long target = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min((i + 0.5) * BUCKET_MS, maxMs);
+            }
+        }
+        return maxMs;
+    }
+
+    // 写出为一个 JSON 对象，buckets 只包含非空的桶：[桶下沿毫秒, 帧数]
+    public synchronized void writeJson(JsonStreamWriter json) throws IOException {
+        json.beginObject();
+        json.name("frames").value(count);
+        json.name("frameIntervalMs").value(round(frameIntervalMs));
+        json.name("averageFps").value(round(averageFps()));
+        json.name("p50").value(round(percentile(0.5)));
+        json.name("p90").value(round(percentile(0.9)));
+        json.name("p99").value(round(percentile(0.99)));
+        json.name("max").value(round(maxMs()));
+        json.name("droppedFrames").value(dropped);
+        json.name("jankyFrames").value(janky);
+        json.name("buckets").beginArray();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                json.beginArray().value(i * BUCKET_MS).value(counts[i]).endArray();
+            }
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static double round(double value) {
+        if (Double.isNaN(value)) {
+            return value;
+        }
+        return Math.round(value * 100) / 100.0;
+    }
+}
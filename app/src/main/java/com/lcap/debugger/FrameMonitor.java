@@ -0,0 +1,116 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+import android.webkit.WebView;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 帧率与卡顿监控：原生侧用 Choreographer.FrameCallback 记录宿主的帧间隔，页面侧由 {@link FrameBridge}
+ * 上报 requestAnimationFrame 的帧间隔，分别写入两个 {@link FrameHistogram}。每次页面加载重新统计。
+ * 只在主线程上调用；监控期间每一帧都会回调，不用时需要 stop。
+ */
+public class FrameMonitor implements Choreographer.FrameCallback {
+
+    private final FrameHistogram host = new FrameHistogram();
+    private final FrameHistogram page = new FrameHistogram();
+    private boolean running;
+    private long lastFrameNanos;
+    private volatile String url;
+
+    public FrameHistogram getHost() {
+        return host;
+    }
+
+    public FrameHistogram getPage() {
+        return page;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void start(Context context) {
+        if (running) {
+            return;
+        }
+        double interval = 1000.0 / refreshRate(context);
+        host.setFrameIntervalMs(interval);
+        page.setFrameIntervalMs(interval);
+        running = true;
+        lastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void stop() {
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    // 新的一次页面加载
+    public void beginLoad(String url) {
+        this.url = url;
+        host.reset();
+        page.reset();
+        lastFrameNanos = 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            host.record((frameTimeNanos - lastFrameNanos) / 1_000_000.0);
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    // 带上 URL 和设备信息写出两个直方图，便于对比不同构建
+    public void writeJson(Context context, Writer writer) throws IOException {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        JsonStreamWriter json = new JsonStreamWriter(writer);
+        json.beginObject();
+        json.name("url").value(url);
+        json.name("timestamp").value(System.currentTimeMillis());
+        json.name("appVersion").value(StartupTrace.versionName(context));
+        json.name("device").beginObject()
+                .name("manufacturer").value(Build.MANUFACTURER)
+                .name("model").value(Build.MODEL)
+                .name("sdkInt").value(Build.VERSION.SDK_INT)
+                .name("refreshRate").value(refreshRate(context))
+                .name("widthPx").value(metrics.widthPixels)
+                .name("heightPx").value(metrics.heightPixels)
+                .name("webViewVersion").value(webViewVersion())
+                .endObject();
+        json.name("host");
+        host.writeJson(json);
+        json.name("page");
+        page.writeJson(json);
+        json.endObject();
+        json.flush();
+    }
+
+    private static float refreshRate(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        Display display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        float rate = display != null ? display.getRefreshRate() : 60;
+        return rate >= 1 ? rate : 60;
+    }
+
+    private static String webViewVersion() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return null;
+        }
+        PackageInfo info = WebView.getCurrentWebViewPackage();
+        return info != null ? info.packageName + " " + info.versionName : null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.lcap.debugger;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * 页面 History 状态，经 {@link MessageBridge} 的 {@link #CHANNEL} 频道推送，同一批内只保留最新状态。
+ * 状态未变化时不重复上报，但 popstate 总会上报，否则网址和 canGoBack 都不变的后退（例如同一网址的
+ * pushState 记录）会让原生侧一直认为后退未完成。
+ *
+ * 注入的脚本在 pushState/replaceState、popstate、hashchange 以及 Navigation API 的
+ * currententrychange 发生时主动上报，原生侧缓存最新状态，返回键处理时直接读取缓存同步决策，
+ * 不再通过多次 evaluateJavascript 往返和固定延时去轮询。
+ */
+public class HistoryBridge implements MessageBridge.Subscriber {
+
+    private static final String TAG = "HistoryBridge";
+    public static final String CHANNEL = "history";
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcapHistoryInstalled || !window.__lcap) return;" +
+            "  window.__lcapHistoryInstalled = true;" +
+            // 优先使用 Navigation API，它能区分后退与前进记录；旧内核退回 history.length 判断
+            "  function canGoBack() {" +
+            "    if (window.navigation && typeof navigation.canGoBack === 'boolean') return navigation.canGoBack;" +
+            "    return history.length > 1;" +
+            "  }" +
+            "  var lastHref = null, lastCanGoBack = null;" +
+            // force 为 true 时即使状态没变也上报：popstate 说明一次后退已经完成，原生侧要据此结束等待
+            "  function report(force) {" +
+            "    var href = location.href, value = canGoBack();" +
+            "    if (force !== true && href === lastHref && value === lastCanGoBack) return;" +
+            "    lastHref = href; lastCanGoBack = value;" +
+            "    __lcap.post('" + CHANNEL + "', [value ? 1 : 0, history.length], 'state');" +
+            "  }" +
+            "  ['pushState', 'replaceState'].forEach(function(name) {" +
+            "    var original = history[name];" +
+            "    history[name] = function() {" +
+            "      var result = original.apply(this, arguments);" +
+            "      report();" +
+            "      return result;" +
+            "    };" +
+            "  });" +
+            "  window.addEventListener('popstate', function() { report(true); });" +
+            "  window.addEventListener('hashchange', function() { report(); });" +
+            "  if (window.navigation && navigation.addEventListener) navigation.addEventListener('currententrychange', function() { report(); });" +
+            "  report();" +
+            "})();";
+
+    private volatile boolean canGoBack;
+    private volatile int length;
+    // 已经发出 history.back()，但页面还没有上报新的状态
+    private volatile boolean backPending;
+    private volatile long backRequestedAt;
+    private volatile long lastBackLatencyMs = -1;
+
+    // 在 MessageBridge 的分发线程上调用
+    @Override
+    public void onMessage(String[] fields) {
+        onStateChanged("1".equals(fields[0]), Integer.parseInt(fields[1]));
+    }
+
+    void onStateChanged(boolean canGoBack, int length) {
+        this.canGoBack = canGoBack;
+        this.length = length;
+        if (backPending) {
+            backPending = false;
+            lastBackLatencyMs = SystemClock.elapsedRealtime() - backRequestedAt;
+            Log.d(TAG, "页面内返回完成，耗时 " + lastBackLatencyMs + " ms");
+        }
+    }
+
+    // 新页面开始加载时清空，等待新文档上报
+    public void reset() {
+        canGoBack = false;
+        length = 0;
+        backPending = false;
+    }
+
+    /**
+     * 是否应该由页面处理这次返回。上一次 history.back() 之后页面一直没有上报新状态，
+     * 说明页面内已经无法再后退（例如 history.length 中只剩前进记录），此时交给宿主处理。
+     */
+    public boolean shouldHandleBack() {
+        return canGoBack && !backPending;
+    }
+
+    public void markBackRequested() {
+        backPending = true;
+        backRequestedAt = SystemClock.elapsedRealtime();
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // 最近一次页面内返回从按键到页面上报新状态的耗时，尚未发生时为 -1
+    public long getLastBackLatencyMs() {
+        return lastBackLatencyMs;
+    }
+}
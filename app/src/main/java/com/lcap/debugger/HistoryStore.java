@@ -0,0 +1,301 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * 浏览历史存储：追加写日志 + 内存去重索引。
+ *
+ * 每次访问只在日志末尾追加一行，内存中用按访问顺序排列的 LinkedHashMap 去重，
+ * 插入为 O(1)；日志中的过期记录超过阈值时整体重写压缩。所有磁盘读写都在单线程
+ * 后台执行器上完成，查询结果通过回调执行器（Android 上为主线程）返回。
+ */
+public final class HistoryStore {
+
+    private static final String TAG = "HistoryStore";
+    private static final String LOG_FILE_NAME = "url_history.log";
+
+    // 旧版本保存在 SharedPreferences 中的历史记录，首次启动时迁移
+    private static final String LEGACY_PREFS_NAME = "webview_history";
+    private static final String LEGACY_HISTORY_KEY = "url_history";
+
+    static final int DEFAULT_CAPACITY = 10000;
+    // 日志中的无效记录至少达到这个数量才压缩，避免频繁重写
+    static final int COMPACT_MIN_GARBAGE = 1024;
+
+    private static volatile HistoryStore instance;
+
+    // 单条历史记录
+    public static final class Entry {
+        public final String url;
+        public final long lastVisited;
+        public final int visitCount;
+
+        Entry(String url, long lastVisited, int visitCount) {
+            this.url = url;
+            this.lastVisited = lastVisited;
+            this.visitCount = visitCount;
+        }
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private final File logFile;
+    private final int capacity;
+    private final Executor ioExecutor;
+    private final Executor callbackExecutor;
+
+    // 以下字段只在 ioExecutor 上访问；迭代顺序即访问先后顺序（最旧在前）
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>();
+    private Writer writer;
+    private boolean loaded;
+    private int logRecords;
+
+    public static HistoryStore get(Context context) {
+        if (instance == null) {
+            synchronized (HistoryStore.class) {
+                if (instance == null) {
+                    Context appContext = context.getApplicationContext();
+                    HistoryStore store = new HistoryStore(
+                            new File(appContext.getFilesDir(), LOG_FILE_NAME),
+                            DEFAULT_CAPACITY,
+                            Executors.newSingleThreadExecutor(r -> new Thread(r, "history-io")),
+                            // benchmark 模块为这里用到的 Android 类提供了桩，可以在 JVM 上直接编译本文件
+                            new Handler(Looper.getMainLooper())::post);
+                    store.migrateLegacyPreferences(appContext);
+                    instance = store;
+                }
+            }
+        }
+        return instance;
+    }
+
+    HistoryStore(File logFile, int capacity, Executor ioExecutor, Executor callbackExecutor) {
+        this.logFile = logFile;
+        this.capacity = capacity;
+        this.ioExecutor = ioExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // 记录一次访问；已存在的URL移动到最前面并累加访问次数
+    public void add(String url) {
+        // URL中不应出现换行，这里防御性地替换掉以免破坏日志格式
+        String key = url.replace('\n', ' ').replace('\r', ' ');
+        long now = System.currentTimeMillis();
+        ioExecutor.execute(() -> {
+            ensureLoaded();
+            append(put(key, now, 0));
+            compactIfNeeded();
+        });
+    }
+
+    // 按最近访问倒序返回最多 limit 条记录
+    public void loadRecent(int limit, Callback<List<Entry>> callback) {
+        ioExecutor.execute(() -> {
+            ensureLoaded();
+            List<Entry> result = snapshot(limit);
+            callbackExecutor.execute(() -> callback.onResult(result));
+        });
+    }
+
+    public void clear() {
+        ioExecutor.execute(() -> {
+            closeWriter();
+            index.clear();
+            logRecords = 0;
+            if (logFile.exists() && !logFile.delete()) {
+                Log.w(TAG, "无法删除历史记录文件: " + logFile);
+            }
+            loaded = true;
+        });
+    }
+
+    private void migrateLegacyPreferences(Context context) {
+        ioExecutor.execute(() -> {
+            SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+            String legacy = prefs.getString(LEGACY_HISTORY_KEY, null);
+            if (legacy == null) {
+                return;
+            }
+            List<String> urls = new ArrayList<>();
+            for (String url : legacy.split("\n")) {
+                if (!url.trim().isEmpty()) {
+                    urls.add(url.trim());
+                }
+            }
+            importLegacy(urls);
+            prefs.edit().remove(LEGACY_HISTORY_KEY).apply();
+        });
+    }
+
+    // 旧格式是最新的在前，按从旧到新的顺序导入以保持原有排序
+    void importLegacy(List<String> newestFirst) {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            String url = newestFirst.get(i);
+            if (index.containsKey(url)) {
+                continue;
+            }
+            append(put(url, now, 0));
+        }
+        compactIfNeeded();
+    }
+
+    List<Entry> snapshot(int limit) {
+        int skip = Math.max(0, index.size() - limit);
+        List<Entry> result = new ArrayList<>(index.size() - skip);
+        for (Entry entry : index.values()) {
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(entry);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    int logRecordCount() {
+        return logRecords;
+    }
+
+    // visitCount 为 0 表示在已有计数上加一，否则直接使用日志中记录的计数
+    private Entry put(String url, long time, int visitCount) {
+        Entry previous = index.remove(url);
+        if (visitCount == 0) {
+            visitCount = previous == null ? 1 : previous.visitCount + 1;
+        }
+        Entry entry = new Entry(url, time, visitCount);
+        index.put(url, entry);
+        if (index.size() > capacity) {
+            Iterator<String> eldest = index.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return entry;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!logFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logRecords++;
+                // 格式：时间戳 \t 访问次数 \t URL；写了一半的行直接跳过
+                int first = line.indexOf('\t');
+                int second = first < 0 ? -1 : line.indexOf('\t', first + 1);
+                if (second < 0 || second == line.length() - 1) {
+                    continue;
+                }
+                try {
+                    long time = Long.parseLong(line.substring(0, first));
+                    int count = Integer.parseInt(line.substring(first + 1, second));
+                    put(line.substring(second + 1), time, Math.max(count, 1));
+                } catch (NumberFormatException e) {
+                    // 忽略损坏的记录
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "读取历史记录失败", e);
+        }
+    }
+
+    private void append(Entry entry) {
+        try {
+            if (writer == null) {
+                writer = openWriter(true);
+            }
+            writeRecord(writer, entry);
+            writer.flush();
+            logRecords++;
+        } catch (IOException e) {
+            Log.w(TAG, "写入历史记录失败", e);
+            closeWriter();
+        }
+    }
+
+    private void compactIfNeeded() {
+        int garbage = logRecords - index.size();
+        if (garbage < COMPACT_MIN_GARBAGE || garbage < index.size()) {
+            return;
+        }
+        closeWriter();
+        File tmp = new File(logFile.getPath() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tmp, false), StandardCharsets.UTF_8))) {
+            for (Entry entry : index.values()) {
+                writeRecord(out, entry);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "压缩历史记录失败", e);
+            tmp.delete();
+            return;
+        }
+        if (tmp.renameTo(logFile)) {
+            logRecords = index.size();
+        } else {
+            tmp.delete();
+        }
+    }
+
+    private Writer openWriter(boolean append) throws IOException {
+        File parent = logFile.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(logFile, append), StandardCharsets.UTF_8));
+    }
+
+    private static void writeRecord(Writer out, Entry entry) throws IOException {
+        out.write(Long.toString(entry.lastVisited));
+        out.write('\t');
+        out.write(Integer.toString(entry.visitCount));
+        out.write('\t');
+        out.write(entry.url);
+        out.write('\n');
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+        writer = null;
+    }
+}
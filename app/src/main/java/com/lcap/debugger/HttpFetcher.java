@@ -0,0 +1,124 @@
+package com.lcap.debugger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在 shouldInterceptRequest 中代替 WebView 发起请求。
+ *
+ * 不跟随重定向：3xx 连同 Location 原样返回，响应体为空。WebResourceResponse 不接受 3xx，
+ * 由调用方决定跟随、改写为跳转页还是交还给 WebView（见 {@link InterceptedResponse#redirectLocation}）。
+ * 同名的多个响应头按 RFC 7230 用逗号合并为一个值，Set-Cookie 除外（交给 CookieJar）。
+ * 压缩由 HttpURLConnection 透明处理，因此不转发 Accept-Encoding，也不回传 Content-Encoding。
+ */
+public class HttpFetcher {
+
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    // WebView 的 Cookie 不会自动带给 HttpURLConnection，由调用方桥接到 CookieManager
+    public interface CookieJar {
+        String cookiesFor(String url);
+
+        void store(String url, List<String> setCookieHeaders);
+    }
+
+    private final CookieJar cookieJar;
+
+    public HttpFetcher(CookieJar cookieJar) {
+        this.cookieJar = cookieJar;
+    }
+
+    public InterceptedResponse fetch(String method, String url, Map<String, String> requestHeaders) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestMethod(method);
+        if (requestHeaders != null) {
+            for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                if (!isHopByHopRequestHeader(header.getKey())) {
+                    connection.setRequestProperty(header.getKey(), header.getValue());
+                }
+            }
+        }
+        if (cookieJar != null) {
+            String cookies = cookieJar.cookiesFor(url);
+            if (cookies != null && !cookies.isEmpty()) {
+                connection.setRequestProperty("Cookie", cookies);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        if (cookieJar != null) {
+            // 头部名称的大小写取决于服务器和 HttpURLConnection 的实现，逐个比较
+            for (Map.Entry<String, List<String>> field : connection.getHeaderFields().entrySet()) {
+                if ("Set-Cookie".equalsIgnoreCase(field.getKey())) {
+                    cookieJar.store(url, field.getValue());
+                }
+            }
+        }
+        if (status < 100) {
+            connection.disconnect();
+            return null;
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> field : connection.getHeaderFields().entrySet()) {
+            String name = field.getKey();
+            if (name == null || field.getValue().isEmpty() || isHopByHopResponseHeader(name)) {
+                continue;
+            }
+            headers.put(name, joinValues(field.getValue()));
+        }
+        String contentType = connection.getContentType();
+        String reason = connection.getResponseMessage();
+        InputStream body;
+        if (status >= 300 && status < 400) {
+            // 只需要 Location，重定向页面的内容直接丢弃
+            connection.disconnect();
+            body = null;
+        } else {
+            body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        }
+        if (body == null) {
+            body = new ByteArrayInputStream(new byte[0]);
+        }
+        return new InterceptedResponse(status, reason,
+                InterceptedResponse.mimeTypeOf(contentType), InterceptedResponse.encodingOf(contentType),
+                headers, body);
+    }
+
+    // 不用 TextUtils.join，保持这个类在 JVM 单元测试中可用
+    private static String joinValues(List<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) {
+                joined.append(", ");
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    private static boolean isHopByHopRequestHeader(String name) {
+        return name.equalsIgnoreCase("Accept-Encoding")
+                || name.equalsIgnoreCase("Host")
+                || name.equalsIgnoreCase("Connection")
+                || name.equalsIgnoreCase("Content-Length");
+    }
+
+    private static boolean isHopByHopResponseHeader(String name) {
+        return name.equalsIgnoreCase("Content-Encoding")
+                || name.equalsIgnoreCase("Content-Length")
+                || name.equalsIgnoreCase("Transfer-Encoding")
+                || name.equalsIgnoreCase("Connection")
+                || name.equalsIgnoreCase("Set-Cookie");
+    }
+}
@@ -0,0 +1,219 @@
+package com.lcap.debugger;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从静态图片（截图、聊天图片、剪贴板图片）中识别二维码，纯 Java 实现，不依赖 Android。
+ *
+ * 大图先按整数倍做盒式平均缩小到 {@link #MAX_DIMENSION} 以内并转换为灰度，再把
+ * HybridBinarizer / GlobalHistogramBinarizer 与 0/90/180/270 度旋转组合成多个解码尝试并行执行，
+ * 取最先成功的一个，其余尝试取消。每个尝试都用 GenericMultipleBarcodeReader，一张图中有多个码时全部返回。
+ */
+public class ImageQrDecoder {
+
+    // 缩小后的最长边；手机截图上的二维码缩到这个尺寸仍然足够清晰
+    public static final int MAX_DIMENSION = 1600;
+
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+    private static final String[] BINARIZERS = {"hybrid", "histogram"};
+
+    private static final Map<DecodeHintType, Object> HINTS = new EnumMap<>(DecodeHintType.class);
+
+    static {
+        HINTS.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        HINTS.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    }
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService SHARED_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), r -> {
+                Thread thread = new Thread(r, "qr-decode-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public static final class Result {
+        // 识别到的内容，按出现顺序去重；未识别到时为空列表
+        public final List<String> codes;
+        // 成功的尝试，例如 "hybrid@90"；未识别到时为 null
+        public final String pass;
+        // 实际参与解码的灰度图尺寸
+        public final int width;
+        public final int height;
+        public final long elapsedMs;
+
+        Result(List<String> codes, String pass, int width, int height, long elapsedMs) {
+            this.codes = codes;
+            this.pass = pass;
+            this.width = width;
+            this.height = height;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+
+    // 缩小后的灰度图
+    static final class Luminance {
+        final byte[] pixels;
+        final int width;
+        final int height;
+
+        Luminance(byte[] pixels, int width, int height) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final Executor executor;
+
+    public ImageQrDecoder() {
+        this(SHARED_EXECUTOR);
+    }
+
+    ImageQrDecoder(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 识别 ARGB 像素（与 Bitmap.getPixels 的格式一致）中的二维码，会阻塞到有结果为止，不要在主线程调用。
+     */
+    public Result decode(int[] argb, int width, int height) throws InterruptedException {
+        long start = System.nanoTime();
+        Luminance luminance = downsample(argb, width, height, MAX_DIMENSION);
+
+        CompletionService<Attempt> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Attempt>> futures = new ArrayList<>(ROTATIONS.length * BINARIZERS.length);
+        for (int rotation : ROTATIONS) {
+            for (String binarizer : BINARIZERS) {
+                futures.add(completion.submit(() -> attempt(luminance, rotation, binarizer)));
+            }
+        }
+
+        Attempt found = null;
+        try {
+            for (int i = 0; i < futures.size() && found == null; i++) {
+                try {
+                    Attempt attempt = completion.take().get();
+                    if (!attempt.codes.isEmpty()) {
+                        found = attempt;
+                    }
+                } catch (ExecutionException e) {
+                    // 单个尝试失败不影响其他尝试
+                }
+            }
+        } finally {
+            // 已经在执行的尝试无法中断，取消只是让排队中的尝试不再开始
+            for (Future<Attempt> future : futures) {
+                future.cancel(false);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return found == null
+                ? new Result(Collections.emptyList(), null, luminance.width, luminance.height, elapsedMs)
+                : new Result(found.codes, found.pass, luminance.width, luminance.height, elapsedMs);
+    }
+
+    private static final class Attempt {
+        final List<String> codes;
+        final String pass;
+
+        Attempt(List<String> codes, String pass) {
+            this.codes = codes;
+            this.pass = pass;
+        }
+    }
+
+    private static Attempt attempt(Luminance luminance, int rotation, String binarizerName) {
+        Luminance rotated = rotate(luminance, rotation);
+        PlanarYUVLuminanceSource source = new PlanarYUVLuminanceSource(rotated.pixels,
+                rotated.width, rotated.height, 0, 0, rotated.width, rotated.height, false);
+        Binarizer binarizer = "hybrid".equals(binarizerName)
+                ? new HybridBinarizer(source)
+                : new GlobalHistogramBinarizer(source);
+        // 读取器有内部状态，每个尝试单独创建
+        GenericMultipleBarcodeReader reader = new GenericMultipleBarcodeReader(new QRCodeReader());
+        LinkedHashSet<String> codes = new LinkedHashSet<>();
+        try {
+            for (com.google.zxing.Result result : reader.decodeMultiple(new BinaryBitmap(binarizer), HINTS)) {
+                if (result.getText() != null && !result.getText().isEmpty()) {
+                    codes.add(result.getText());
+                }
+            }
+        } catch (NotFoundException e) {
+            // 本次尝试没有找到二维码
+        }
+        return new Attempt(new ArrayList<>(codes), binarizerName + "@" + rotation);
+    }
+
+    // 按整数倍盒式平均缩小并转为灰度，灰度公式与 RGBLuminanceSource 相同：(R + 2G + B) / 4
+    static Luminance downsample(int[] argb, int width, int height, int maxDimension) {
+        int factor = Math.max(1, (Math.max(width, height) + maxDimension - 1) / maxDimension);
+        int outWidth = width / factor;
+        int outHeight = height / factor;
+        byte[] out = new byte[outWidth * outHeight];
+        int area = factor * factor;
+        for (int y = 0; y < outHeight; y++) {
+            for (int x = 0; x < outWidth; x++) {
+                int sum = 0;
+                for (int dy = 0; dy < factor; dy++) {
+                    int row = (y * factor + dy) * width + x * factor;
+                    for (int dx = 0; dx < factor; dx++) {
+                        int pixel = argb[row + dx];
+                        sum += (((pixel >> 16) & 0xff) + ((pixel >> 7) & 0x1fe) + (pixel & 0xff)) >> 2;
+                    }
+                }
+                out[y * outWidth + x] = (byte) (sum / area);
+            }
+        }
+        return new Luminance(out, outWidth, outHeight);
+    }
+
+    // 顺时针旋转
+    static Luminance rotate(Luminance in, int degrees) {
+        int w = in.width;
+        int h = in.height;
+        byte[] src = in.pixels;
+        if (degrees == 0) {
+            return in;
+        }
+        byte[] dst = new byte[src.length];
+        if (degrees == 180) {
+            for (int i = 0; i < src.length; i++) {
+                dst[src.length - 1 - i] = src[i];
+            }
+            return new Luminance(dst, w, h);
+        }
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int target = degrees == 90 ? x * h + (h - 1 - y) : (w - 1 - x) * h + y;
+                dst[target] = src[y * w + x];
+            }
+        }
+        return new Luminance(dst, h, w);
+    }
+}
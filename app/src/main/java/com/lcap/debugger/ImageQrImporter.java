@@ -0,0 +1,114 @@
+package com.lcap.debugger;
+
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 把相册、截图或剪贴板中的图片交给 {@link ImageQrDecoder} 识别。
+ * 先只读取尺寸，用 inSampleSize 在解码阶段就缩小到接近 {@link ImageQrDecoder#MAX_DIMENSION}，避免整张大图进内存。
+ */
+public final class ImageQrImporter {
+
+    private static final String TAG = "ImageQrImporter";
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "qr-image");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface Callback {
+        // 图片无法读取时 result 为 null
+        void onResult(ImageQrDecoder.Result result);
+    }
+
+    private ImageQrImporter() {
+    }
+
+    // 剪贴板中第一张图片的 Uri，没有图片时返回 null
+    public static Uri clipboardImage(Context context) {
+        ClipboardManager clipboard = (ClipboardManager) context.getSystemService(Context.CLIPBOARD_SERVICE);
+        if (clipboard == null || !clipboard.hasPrimaryClip()) {
+            return null;
+        }
+        ClipData clip = clipboard.getPrimaryClip();
+        if (clip == null) {
+            return null;
+        }
+        ContentResolver resolver = context.getContentResolver();
+        for (int i = 0; i < clip.getItemCount(); i++) {
+            Uri uri = clip.getItemAt(i).getUri();
+            if (uri == null) {
+                continue;
+            }
+            String type = resolver.getType(uri);
+            if (type != null && type.startsWith("image/")) {
+                return uri;
+            }
+        }
+        return null;
+    }
+
+    public static void decodeAsync(Context context, Uri uri, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        Executor mainExecutor = ContextCompat.getMainExecutor(appContext);
+        EXECUTOR.execute(() -> {
+            ImageQrDecoder.Result result = null;
+            try {
+                Bitmap bitmap = loadBitmap(appContext.getContentResolver(), uri);
+                if (bitmap != null) {
+                    int width = bitmap.getWidth();
+                    int height = bitmap.getHeight();
+                    int[] pixels = new int[width * height];
+                    bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+                    bitmap.recycle();
+                    result = new ImageQrDecoder().decode(pixels, width, height);
+                    Log.d(TAG, "识别 " + uri + " 用时 " + result.elapsedMs + "ms, 尝试 " + result.pass
+                            + ", 尺寸 " + result.width + "x" + result.height + ", 结果 " + result.codes.size() + " 个");
+                }
+            } catch (IOException | SecurityException e) {
+                Log.w(TAG, "读取图片失败: " + uri, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ImageQrDecoder.Result decoded = result;
+            mainExecutor.execute(() -> callback.onResult(decoded));
+        });
+    }
+
+    private static Bitmap loadBitmap(ContentResolver resolver, Uri uri) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            return null;
+        }
+        // inSampleSize 只能取 2 的幂；保留到最长边不小于 MAX_DIMENSION，剩下的交给 ImageQrDecoder 精确缩小
+        int sample = 1;
+        while (Math.max(bounds.outWidth, bounds.outHeight) / (sample * 2) >= ImageQrDecoder.MAX_DIMENSION) {
+            sample *= 2;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            return BitmapFactory.decodeStream(in, null, options);
+        }
+    }
+}
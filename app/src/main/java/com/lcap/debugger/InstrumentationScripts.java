@@ -0,0 +1,223 @@
+package com.lcap.debugger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 注入页面的采集脚本集合：每个脚本可以单独启用或停用，并按来源规则限定注入范围。
+ *
+ * {@link #compose()} 把消息通道运行时和已启用的脚本合并成一段，在文档开始时注册或在旧内核上按导航注入；
+ * 合并后的脚本只在顶层文档执行：文档开始脚本和 JavaScript 接口对所有 frame 都生效，
+ * 广告、嵌入内容等 iframe 的时间线、网络、内存和 History 数据不能混进主页面的指标。
+ * 停用的脚本不再注入，对应频道在页面内被丢弃。已经加载的页面通过 {@link #toggleScript} 生成的脚本即时生效。
+ * 来源规则的格式与 WebViewCompat.addDocumentStartJavaScript 相同："*"、"https://example.com"、
+ * "https://*.example.com"、"http://127.0.0.1:8080"。纯 Java 实现，便于单元测试。
+ */
+public class InstrumentationScripts {
+
+    public static final class Script {
+        public final String id;
+        public final String label;
+        // 脚本上报数据所用的 MessageBridge 频道
+        public final String channel;
+        final String source;
+        volatile boolean enabled = true;
+
+        Script(String id, String label, String channel, String source) {
+            this.id = id;
+            this.label = label;
+            this.channel = channel;
+            this.source = source;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+    }
+
+    public static final String ALL_ORIGINS = "*";
+    // 包在合并后的脚本外层，各脚本都是自执行函数，放在块中不影响它们的作用域
+    static final String TOP_FRAME_GUARD = "if (window.top === window) {";
+
+    private final List<Script> scripts = new ArrayList<>();
+    private Set<String> originRules = Collections.singleton(ALL_ORIGINS);
+    // 合并后的脚本，启用状态变化时重新生成
+    private String composed;
+
+    // 调试器自带的全部采集脚本，顺序与注入顺序一致
+    public static InstrumentationScripts createDefault() {
+        InstrumentationScripts scripts = new InstrumentationScripts();
+        scripts.add(new Script("timeline", "性能时间线", TimelineBridge.CHANNEL, TimelineBridge.SCRIPT));
+        scripts.add(new Script("network", "资源耗时", NetworkBridge.CHANNEL, NetworkBridge.SCRIPT));
+        scripts.add(new Script("history", "History 状态（返回键）", HistoryBridge.CHANNEL, HistoryBridge.SCRIPT));
+        scripts.add(new Script("console", "未捕获异常", ConsoleBridge.CHANNEL, ConsoleBridge.SCRIPT));
+        scripts.add(new Script("memory", "JS 堆", MemoryBridge.CHANNEL, MemoryBridge.SCRIPT));
+        scripts.add(new Script("frames", "rAF 帧间隔", FrameBridge.CHANNEL, FrameBridge.SCRIPT));
+        return scripts;
+    }
+
+    synchronized void add(Script script) {
+        scripts.add(script);
+        composed = null;
+    }
+
+    public synchronized List<Script> getScripts() {
+        return Collections.unmodifiableList(new ArrayList<>(scripts));
+    }
+
+    public synchronized Script find(String id) {
+        for (Script script : scripts) {
+            if (script.id.equals(id)) {
+                return script;
+            }
+        }
+        return null;
+    }
+
+    // 返回状态是否有变化
+    public synchronized boolean setEnabled(String id, boolean enabled) {
+        Script script = find(id);
+        if (script == null || script.enabled == enabled) {
+            return false;
+        }
+        script.enabled = enabled;
+        composed = null;
+        return true;
+    }
+
+    public synchronized Set<String> getOriginRules() {
+        return originRules;
+    }
+
+    // 规则格式不对时抛出 IllegalArgumentException；空集合等同于 "*"
+    public synchronized void setOriginRules(Set<String> rules) {
+        Set<String> copy = new LinkedHashSet<>();
+        for (String rule : rules) {
+            String trimmed = rule.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.equals(ALL_ORIGINS) && parseRule(trimmed) == null) {
+                throw new IllegalArgumentException("无效的来源规则: " + trimmed);
+            }
+            copy.add(trimmed);
+        }
+        originRules = copy.isEmpty() ? Collections.singleton(ALL_ORIGINS)
+                : Collections.unmodifiableSet(copy);
+    }
+
+    public synchronized String compose() {
+        if (composed == null) {
+            StringBuilder disabled = new StringBuilder();
+            StringBuilder sources = new StringBuilder();
+            for (Script script : scripts) {
+                if (script.enabled) {
+                    sources.append(script.source);
+                } else {
+                    disabled.append(disabled.length() == 0 ? "" : ",").append('\'').append(script.channel).append("':true");
+                }
+            }
+            composed = TOP_FRAME_GUARD
+                    + (disabled.length() > 0 ? "window.__lcapDisabled={" + disabled + "};" : "")
+                    + MessageBridge.SCRIPT + sources + "}";
+        }
+        return composed;
+    }
+
+    /**
+     * 在已经加载的页面中切换某个脚本：启用时补注入（脚本自身防重复）并恢复频道，停用时丢弃该频道的消息。
+     * 脚本已经挂上的钩子不会撤销，但不再产生跨边界的调用。id 不存在时返回 null。
+     */
+    public synchronized String toggleScript(String id, boolean enabled) {
+        Script script = find(id);
+        if (script == null) {
+            return null;
+        }
+        String toggle = "window.__lcap && __lcap.setDisabled('" + script.channel + "', " + !enabled + ");";
+        return enabled ? MessageBridge.SCRIPT + toggle + script.source : toggle;
+    }
+
+    public boolean matchesOrigin(String url) {
+        for (String rule : getOriginRules()) {
+            if (matchesRule(rule, url)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean matchesRule(String rule, String url) {
+        if (rule.equals(ALL_ORIGINS)) {
+            return true;
+        }
+        String[] parsed = parseRule(rule);
+        if (parsed == null || url == null) {
+            return false;
+        }
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if (scheme == null || host == null || !scheme.equalsIgnoreCase(parsed[0])) {
+            return false;
+        }
+        host = host.toLowerCase(Locale.US);
+        String ruleHost = parsed[1];
+        if (ruleHost.startsWith("*.")) {
+            // 通配符只匹配子域名，不匹配域名本身
+            if (!host.endsWith(ruleHost.substring(1))) {
+                return false;
+            }
+        } else if (!host.equals(ruleHost)) {
+            return false;
+        }
+        return effectivePort(scheme, uri.getPort()) == Integer.parseInt(parsed[2]);
+    }
+
+    // 解析为 [scheme, host, port]，格式不对时返回 null
+    private static String[] parseRule(String rule) {
+        int separator = rule.indexOf("://");
+        if (separator <= 0) {
+            return null;
+        }
+        String scheme = rule.substring(0, separator).toLowerCase(Locale.US);
+        String authority = rule.substring(separator + 3);
+        if (authority.isEmpty() || authority.contains("/")) {
+            return null;
+        }
+        int port = effectivePort(scheme, -1);
+        int colon = authority.lastIndexOf(':');
+        if (colon >= 0 && !authority.endsWith("]")) {
+            try {
+                port = Integer.parseInt(authority.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            authority = authority.substring(0, colon);
+        }
+        if (port <= 0 || authority.isEmpty() || authority.indexOf('*', authority.startsWith("*.") ? 1 : 0) >= 0) {
+            return null;
+        }
+        return new String[]{scheme, authority.toLowerCase(Locale.US), Integer.toString(port)};
+    }
+
+    private static int effectivePort(String scheme, int port) {
+        if (port > 0) {
+            return port;
+        }
+        if ("https".equalsIgnoreCase(scheme)) {
+            return 443;
+        }
+        return "http".equalsIgnoreCase(scheme) ? 80 : -1;
+    }
+}
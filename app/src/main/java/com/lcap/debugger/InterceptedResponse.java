@@ -0,0 +1,118 @@
+package com.lcap.debugger;
+
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * shouldInterceptRequest 各个拦截环节之间传递的响应。
+ *
+ * 与 WebResourceResponse 字段一致但不依赖 Android，方便在 JVM 单元测试中构造和检查；
+ * 交给 WebView 前通过 {@link #toWebResourceResponse()} 转换。
+ */
+public class InterceptedResponse {
+
+    // 在拦截环节里代为跟随重定向时的最大次数
+    public static final int MAX_REDIRECTS = 10;
+
+    public final int status;
+    public final String reason;
+    public final String mimeType;
+    public final String encoding;
+    public final Map<String, String> headers;
+    public final InputStream body;
+
+    public InterceptedResponse(int status, String reason, String mimeType, String encoding,
+                               Map<String, String> headers, InputStream body) {
+        this.status = status;
+        this.reason = reason == null || reason.isEmpty() ? "OK" : reason;
+        this.mimeType = mimeType;
+        this.encoding = encoding;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    // 调试器自己生成的纯文本响应（回放未命中、拦截等）
+    public static InterceptedResponse text(int status, String reason, String message) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "text/plain; charset=utf-8");
+        headers.put("Cache-Control", "no-store");
+        return new InterceptedResponse(status, reason, "text/plain", "utf-8", headers,
+                new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 主文档重定向的替代响应。WebResourceResponse 不接受 3xx，直接返回目标内容又会让页面的网址
+     * 和相对路径停留在重定向前，所以返回一个立即跳转的页面；location.replace 不会留下多余的历史记录。
+     */
+    public static InterceptedResponse redirectPage(String location) {
+        String js = location.replace("\\", "\\\\").replace("\"", "\\\"").replace("<", "\\u003c");
+        String attr = location.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;");
+        String html = "<!DOCTYPE html><meta http-equiv=\"refresh\" content=\"0;url=" + attr + "\">"
+                + "<script>location.replace(\"" + js + "\");</script>";
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "text/html; charset=utf-8");
+        headers.put("Cache-Control", "no-store");
+        return new InterceptedResponse(200, "OK", "text/html", "utf-8", headers,
+                new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // 3xx 响应的跳转目标，相对地址按 baseUrl 解析；不是重定向或没有合法的 Location 时返回 null
+    public static String redirectLocation(String baseUrl, InterceptedResponse response) {
+        if (response.status < 300 || response.status >= 400) {
+            return null;
+        }
+        String location = header(response.headers, "Location");
+        if (location == null || location.isEmpty()) {
+            return null;
+        }
+        try {
+            return new URL(new URL(baseUrl), location).toString();
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    // 从 Content-Type 中取出 MIME 类型，例如 "text/html; charset=utf-8" -> "text/html"
+    public static String mimeTypeOf(String contentType) {
+        if (contentType == null) {
+            return "application/octet-stream";
+        }
+        int semicolon = contentType.indexOf(';');
+        return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+    }
+
+    // 从 Content-Type 中取出 charset，没有时返回 null
+    public static String encodingOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String part : contentType.split(";")) {
+            String trimmed = part.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                return trimmed.substring(8).replace("\"", "").trim();
+            }
+        }
+        return null;
+    }
+
+    // 按名称查找响应头（不区分大小写）
+    public static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    public WebResourceResponse toWebResourceResponse() {
+        return new WebResourceResponse(mimeType, encoding, status, reason, headers, body);
+    }
+}
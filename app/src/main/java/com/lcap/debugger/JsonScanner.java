@@ -0,0 +1,215 @@
+package com.lcap.debugger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按路径取出 JSON 文本中某个值的原始文本，不建立对象树。
+ *
+ * 输入是 CharSequence：除了 String，DevToolsClient 还会传入按字节访问的原始 UTF-8 消息，
+ * 结构字符都是 ASCII，多字节字符的每个字节都不小于 0x80，不会被误认。这样几十 MB 的剖析结果
+ * 不必先解码成字符串，用 {@link #range} 找到字段的位置后直接把那段字节写入文件。
+ * 也用于读取协议消息中的 id、method 等小字段。输入不是合法 JSON 时抛出 IllegalArgumentException。
+ */
+final class JsonScanner {
+
+    private JsonScanner() {
+    }
+
+    // 沿对象字段名逐层查找，返回值的原始 JSON 文本；任一层不存在或不是对象时返回 null
+    static String field(CharSequence json, String... path) {
+        if (json == null) {
+            return null;
+        }
+        int[] range = range(json, path);
+        return range != null ? json.subSequence(range[0], range[1]).toString() : null;
+    }
+
+    // 与 field 相同，但只返回值在 json 中的范围 [start, end)
+    static int[] range(CharSequence json, String... path) {
+        int start = skipWhitespace(json, 0);
+        int end = skipValue(json, start);
+        for (String name : path) {
+            int[] range = findField(json, start, end, name);
+            if (range == null) {
+                return null;
+            }
+            start = range[0];
+            end = range[1];
+        }
+        return new int[]{start, end};
+    }
+
+    // 数组中每个元素的原始 JSON 文本
+    static List<String> elements(String array) {
+        List<String> elements = new ArrayList<>();
+        int i = skipWhitespace(array, 0);
+        if (i >= array.length() || array.charAt(i) != '[') {
+            throw new IllegalArgumentException("不是数组");
+        }
+        i = skipWhitespace(array, i + 1);
+        if (i < array.length() && array.charAt(i) == ']') {
+            return elements;
+        }
+        while (true) {
+            int end = skipValue(array, i);
+            elements.add(array.substring(i, end));
+            i = skipWhitespace(array, end);
+            if (i >= array.length()) {
+                throw new IllegalArgumentException("数组没有结束");
+            }
+            if (array.charAt(i) == ']') {
+                return elements;
+            }
+            if (array.charAt(i) != ',') {
+                throw new IllegalArgumentException("缺少逗号: " + i);
+            }
+            i = skipWhitespace(array, i + 1);
+        }
+    }
+
+    // 解码字符串字面量；raw 为 null 或 JSON null 时返回 null
+    static String string(String raw) {
+        if (raw == null || raw.equals("null")) {
+            return null;
+        }
+        if (raw.length() < 2 || raw.charAt(0) != '"') {
+            throw new IllegalArgumentException("不是字符串: " + raw);
+        }
+        StringBuilder out = new StringBuilder(raw.length());
+        for (int i = 1; i < raw.length() - 1; i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'u':
+                    out.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    out.append(escaped);
+            }
+        }
+        return out.toString();
+    }
+
+    static long number(String raw, long fallback) {
+        if (raw == null) {
+            return fallback;
+        }
+        try {
+            return (long) Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    static boolean bool(String raw) {
+        return "true".equals(raw);
+    }
+
+    // 在 [start, end) 的对象中查找字段，返回值的范围
+    private static int[] findField(CharSequence json, int start, int end, String name) {
+        if (start >= end || json.charAt(start) != '{') {
+            return null;
+        }
+        int i = skipWhitespace(json, start + 1);
+        while (i < end && json.charAt(i) != '}') {
+            int keyEnd = skipValue(json, i);
+            boolean match = keyEnd - i == name.length() + 2 && regionMatches(json, i + 1, name);
+            i = skipWhitespace(json, keyEnd);
+            if (i >= end || json.charAt(i) != ':') {
+                throw new IllegalArgumentException("缺少冒号: " + i);
+            }
+            int valueStart = skipWhitespace(json, i + 1);
+            int valueEnd = skipValue(json, valueStart);
+            if (match) {
+                return new int[]{valueStart, valueEnd};
+            }
+            i = skipWhitespace(json, valueEnd);
+            if (i < end && json.charAt(i) == ',') {
+                i = skipWhitespace(json, i + 1);
+            }
+        }
+        return null;
+    }
+
+    // 返回从 i 开始的一个值之后的位置
+    private static int skipValue(CharSequence json, int i) {
+        if (i >= json.length()) {
+            throw new IllegalArgumentException("意外的结尾");
+        }
+        char c = json.charAt(i);
+        if (c == '"') {
+            for (int j = i + 1; j < json.length(); j++) {
+                char d = json.charAt(j);
+                if (d == '\\') {
+                    j++;
+                } else if (d == '"') {
+                    return j + 1;
+                }
+            }
+            throw new IllegalArgumentException("字符串没有结束");
+        }
+        if (c == '{' || c == '[') {
+            // 只需要配对括号，字符串里的括号要跳过
+            int depth = 0;
+            for (int j = i; j < json.length(); j++) {
+                char d = json.charAt(j);
+                if (d == '"') {
+                    j = skipValue(json, j) - 1;
+                } else if (d == '{' || d == '[') {
+                    depth++;
+                } else if (d == '}' || d == ']') {
+                    if (--depth == 0) {
+                        return j + 1;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("括号没有配对");
+        }
+        int j = i;
+        while (j < json.length() && ",}] \t\r\n".indexOf(json.charAt(j)) < 0) {
+            j++;
+        }
+        if (j == i) {
+            throw new IllegalArgumentException("缺少值: " + i);
+        }
+        return j;
+    }
+
+    private static int skipWhitespace(CharSequence json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean regionMatches(CharSequence json, int offset, String name) {
+        for (int k = 0; k < name.length(); k++) {
+            if (json.charAt(offset + k) != name.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
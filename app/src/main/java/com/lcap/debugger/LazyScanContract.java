@@ -0,0 +1,47 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.activity.result.contract.ActivityResultContract;
+import androidx.annotation.NonNull;
+
+import com.journeyapps.barcodescanner.ScanContract;
+import com.journeyapps.barcodescanner.ScanIntentResult;
+import com.journeyapps.barcodescanner.ScanOptions;
+
+/**
+ * 二维码扫描的 ActivityResultContract，结果为扫描到的文本，取消时为 null。
+ *
+ * registerForActivityResult 必须在 Fragment 创建时调用，但 ZXing 的类只在这里的方法体中引用，
+ * 第一次点击扫码时才会加载和初始化，不占用启动关键路径。
+ */
+public class LazyScanContract extends ActivityResultContract<Void, String> {
+
+    // 首次创建扫码 Intent 的阶段名，用于确认启动期间没有初始化扫码
+    public static final String PHASE = "Scanner.init";
+
+    @NonNull
+    @Override
+    public Intent createIntent(@NonNull Context context, Void input) {
+        StartupTrace trace = StartupTrace.get();
+        trace.begin(PHASE);
+        try {
+            ScanOptions options = new ScanOptions();
+            options.setDesiredBarcodeFormats(ScanOptions.QR_CODE);
+            options.setPrompt("将二维码对准扫描框");
+            options.setCameraId(0);
+            options.setBeepEnabled(true);
+            options.setBarcodeImageEnabled(false);
+            options.setOrientationLocked(false);
+            return new ScanContract().createIntent(context, options);
+        } finally {
+            trace.end(PHASE);
+        }
+    }
+
+    @Override
+    public String parseResult(int resultCode, Intent intent) {
+        return ScanIntentResult.parseActivityResult(resultCode, intent).getContents();
+    }
+}
@@ -0,0 +1,75 @@
+package com.lcap.debugger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按 URL 记录每次页面加载完成后稳定下来的内存占用，同一 URL 在第一次加载之后连续多次增长时判定为疑似泄漏。
+ *
+ * 每次加载只记一个值；相邻两次的增长小于 {@link #MIN_STEP_BYTES} 视为噪声，会打断连续增长。
+ * 只保留最近使用的 {@link #MAX_URLS} 个 URL。
+ */
+public class LeakDetector {
+
+    // 第一次加载作为基准，之后连续增长的次数达到该值时报告（即至少 MIN_INCREASES + 1 次加载）
+    static final int MIN_INCREASES = 3;
+    static final long MIN_STEP_BYTES = 256 * 1024;
+    static final int MAX_URLS = 32;
+
+    public static final class Suspect {
+        public final String url;
+        public final String metric;
+        // 连续增长的加载次数（含第一次）
+        public final int loads;
+        public final long firstBytes;
+        public final long lastBytes;
+
+        Suspect(String url, String metric, int loads, long firstBytes, long lastBytes) {
+            this.url = url;
+            this.metric = metric;
+            this.loads = loads;
+            this.firstBytes = firstBytes;
+            this.lastBytes = lastBytes;
+        }
+    }
+
+    // 某个 URL 当前的连续增长情况
+    private static final class Run {
+        String metric;
+        int loads;
+        long firstBytes;
+        long lastBytes;
+    }
+
+    private final Map<String, Run> runs = new LinkedHashMap<String, Run>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Run> eldest) {
+            return size() > MAX_URLS;
+        }
+    };
+
+    /**
+     * 记录一次加载完成后的内存占用。metric 为指标名（例如 jsHeap、pss），换了指标时重新开始计数。
+     * 相对基准连续增长达到 {@link #MIN_INCREASES} 次及以后的每次加载都会返回 Suspect，否则返回 null。
+     */
+    public synchronized Suspect onLoad(String url, String metric, long bytes) {
+        Run run = runs.get(url);
+        if (run == null) {
+            run = new Run();
+            runs.put(url, run);
+        }
+        if (run.loads > 0 && metric.equals(run.metric) && bytes - run.lastBytes >= MIN_STEP_BYTES) {
+            run.loads++;
+        } else {
+            run.metric = metric;
+            run.loads = 1;
+            run.firstBytes = bytes;
+        }
+        run.lastBytes = bytes;
+        return run.loads - 1 >= MIN_INCREASES ? new Suspect(url, metric, run.loads, run.firstBytes, bytes) : null;
+    }
+
+    public synchronized void clear() {
+        runs.clear();
+    }
+}
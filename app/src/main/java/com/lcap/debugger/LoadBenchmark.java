@@ -0,0 +1,235 @@
+package com.lcap.debugger;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 重复加载同一个网址的基准测试：记录每次加载的耗时和页面绘制指标，去掉预热轮次后计算分布。
+ *
+ * 每轮记录 {@link #METRICS} 中的各项，单位毫秒，拿不到的指标记为 NaN，统计时跳过。
+ * 分位数在排序后的样本间线性插值。结果写成 JSON，方便对比两个版本。
+ */
+public class LoadBenchmark {
+
+    public static final int METRIC_PAGE_LOAD = 0;
+    public static final int METRIC_TTFB = 1;
+    public static final int METRIC_FCP = 2;
+    public static final int METRIC_LCP = 3;
+    // pageLoad 为 onPageStarted 到 onPageFinished，其余来自页面的性能条目
+    static final String[] METRICS = {"pageLoad", "ttfb", "fcp", "lcp"};
+
+    static final int MAX_ITERATIONS = 500;
+
+    public static final class Stats {
+        // 有效样本数
+        public final int count;
+        public final double min;
+        public final double median;
+        public final double p90;
+        public final double p99;
+        public final double mean;
+        public final double stdDev;
+
+        Stats(int count, double min, double median, double p90, double p99, double mean, double stdDev) {
+            this.count = count;
+            this.min = min;
+            this.median = median;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.mean = mean;
+            this.stdDev = stdDev;
+        }
+    }
+
+    private final String url;
+    private final int iterations;
+    private final int warmup;
+    // true 时每轮加载前按重置策略重置 WebView
+    private final boolean cold;
+    private final double[][] samples;
+    private int completed;
+    private String appVersion;
+    private String device;
+    private String resetProfile;
+    // 弱网模拟条件（"kbps,rtt,丢包,错误"），未模拟时为 null
+    private String network;
+
+    public LoadBenchmark(String url, int iterations, int warmup, boolean cold) {
+        if (iterations < 1 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("次数需要在 1~" + MAX_ITERATIONS + " 之间");
+        }
+        if (warmup < 0 || warmup >= iterations) {
+            throw new IllegalArgumentException("预热次数需要小于总次数");
+        }
+        this.url = url;
+        this.iterations = iterations;
+        this.warmup = warmup;
+        this.cold = cold;
+        samples = new double[METRICS.length][iterations];
+    }
+
+    /**
+     * 解析 "次数 预热次数 cold|warm 网址"，例如 "20 3 cold https://example.com"，供远程命令使用。
+     * 网址按地址栏的规则规范化；格式不对时抛出 IllegalArgumentException。
+     */
+    public static LoadBenchmark parse(String argument) {
+        String[] parts = argument.trim().split("\\s+", 4);
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("格式：次数 预热次数 cold|warm 网址");
+        }
+        int iterations;
+        int warmup;
+        try {
+            iterations = Integer.parseInt(parts[0]);
+            warmup = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("次数不是数字: " + argument);
+        }
+        String mode = parts[2].toLowerCase(Locale.US);
+        if (!mode.equals("cold") && !mode.equals("warm")) {
+            throw new IllegalArgumentException("模式只能是 cold 或 warm: " + parts[2]);
+        }
+        return new LoadBenchmark(UrlNormalizer.normalize(parts[3]), iterations, warmup, mode.equals("cold"));
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public boolean isCold() {
+        return cold;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getWarmup() {
+        return warmup;
+    }
+
+    public synchronized int getCompleted() {
+        return completed;
+    }
+
+    public synchronized boolean isFinished() {
+        return completed >= iterations;
+    }
+
+    // 导出时附带的环境信息，任一项可以为 null
+    public synchronized void setEnvironment(String appVersion, String device, String resetProfile) {
+        this.appVersion = appVersion;
+        this.device = device;
+        this.resetProfile = resetProfile;
+    }
+
+    public synchronized void setNetwork(String network) {
+        this.network = network;
+    }
+
+    // 记录一轮的结果，values 按 METRICS 的顺序；全部轮次完成后返回 true
+    public synchronized boolean record(double... values) {
+        if (completed >= iterations) {
+            throw new IllegalStateException("基准测试已完成");
+        }
+        for (int m = 0; m < METRICS.length; m++) {
+            samples[m][completed] = m < values.length ? values[m] : Double.NaN;
+        }
+        completed++;
+        return completed >= iterations;
+    }
+
+    // 去掉预热轮次后的统计；没有有效样本时 count 为 0，其余为 NaN
+    public synchronized Stats stats(int metric) {
+        double[] values = new double[Math.max(0, completed - warmup)];
+        int count = 0;
+        for (int i = warmup; i < completed; i++) {
+            double value = samples[metric][i];
+            if (!Double.isNaN(value)) {
+                values[count++] = value;
+            }
+        }
+        if (count == 0) {
+            return new Stats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        Arrays.sort(values, 0, count);
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        double mean = sum / count;
+        double squares = 0;
+        for (int i = 0; i < count; i++) {
+            squares += (values[i] - mean) * (values[i] - mean);
+        }
+        // 样本标准差
+        double stdDev = count > 1 ? Math.sqrt(squares / (count - 1)) : 0;
+        return new Stats(count, values[0], percentile(values, count, 0.5), percentile(values, count, 0.9),
+                percentile(values, count, 0.99), mean, stdDev);
+    }
+
+    // sorted 的前 count 个元素已排序，p 取 0~1
+    static double percentile(double[] sorted, int count, double p) {
+        double rank = p * (count - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, count - 1);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+    }
+
+    // 界面和远程命令回复用的一行摘要
+    public String describe() {
+        Stats load = stats(METRIC_PAGE_LOAD);
+        Stats lcp = stats(METRIC_LCP);
+        return String.format(Locale.US, "加载 中位数 %.0f ms  p90 %.0f ms  σ %.1f ms；LCP 中位数 %.0f ms（%d 轮有效）",
+                load.median, load.p90, load.stdDev, lcp.median, load.count);
+    }
+
+    public synchronized void writeJson(JsonStreamWriter json) throws IOException {
+        json.beginObject();
+        json.name("url").value(url);
+        json.name("timestamp").value(System.currentTimeMillis());
+        json.name("appVersion").value(appVersion);
+        json.name("device").value(device);
+        json.name("mode").value(cold ? "cold" : "warm");
+        json.name("resetProfile").value(resetProfile);
+        json.name("network").value(network);
+        json.name("iterations").value(iterations);
+        json.name("warmup").value(warmup);
+        json.name("completed").value(completed);
+        json.name("stats").beginObject();
+        for (int m = 0; m < METRICS.length; m++) {
+            Stats stats = stats(m);
+            json.name(METRICS[m]).beginObject()
+                    .name("count").value(stats.count)
+                    .name("min").value(round(stats.min))
+                    .name("median").value(round(stats.median))
+                    .name("p90").value(round(stats.p90))
+                    .name("p99").value(round(stats.p99))
+                    .name("mean").value(round(stats.mean))
+                    .name("stdDev").value(round(stats.stdDev))
+                    .endObject();
+        }
+        json.endObject();
+        // 每轮的原始数据，包括预热轮次
+        json.name("runs").beginArray();
+        for (int i = 0; i < completed; i++) {
+            json.beginObject();
+            json.name("warmup").value(i < warmup);
+            for (int m = 0; m < METRICS.length; m++) {
+                json.name(METRICS[m]).value(round(samples[m][i]));
+            }
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static double round(double value) {
+        if (Double.isNaN(value)) {
+            return value;
+        }
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -24,19 +24,61 @@ public class MainActivity extends AppCompatActivity {
 
     private AppBarConfiguration appBarConfiguration;
     private ActivityMainBinding binding;
+    private WebViewPool webViewPool;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace trace = StartupTrace.get();
+        trace.begin("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
 
+        // WebView 在首帧之后的空闲时间预创建，FirstFragment 重建视图时复用
+        webViewPool = new WebViewPool(this);
+        webViewPool.prewarm();
+
+        trace.begin("MainActivity.inflate");
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
+        trace.end("MainActivity.inflate");
 
+        trace.begin("MainActivity.navigation");
         NavController navController = Navigation.findNavController(this, R.id.nav_host_fragment_content_main);
         appBarConfiguration = new AppBarConfiguration.Builder(navController.getGraph()).build();
+        trace.end("MainActivity.navigation");
         
         // 设置退出确认回调
         setupExitConfirmation(navController);
+        trace.end("MainActivity.onCreate");
+
+        // 首帧绘制后记录冷启动耗时并写出启动报告
+        if (Double.isNaN(trace.milestone(StartupTrace.MILESTONE_FIRST_FRAME))) {
+            binding.getRoot().post(() -> {
+                trace.mark(StartupTrace.MILESTONE_FIRST_FRAME);
+                trace.writeReport(this);
+            });
+        }
+    }
+    
+    public WebViewPool getWebViewPool() {
+        return webViewPool;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        webViewPool.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        webViewPool.onLowMemory();
+    }
+
+    @Override
+    protected void onDestroy() {
+        webViewPool.destroy();
+        super.onDestroy();
     }
     
     private void setupExitConfirmation(NavController navController) {
@@ -0,0 +1,42 @@
+package com.lcap.debugger;
+
+/**
+ * 页面 JS 堆大小，经 {@link MessageBridge} 的 {@link #CHANNEL} 频道上报到 {@link MemoryRecorder}。
+ *
+ * 跨源隔离的页面使用 performance.measureUserAgentSpecificMemory（包含 iframe 和 worker，测量本身可能要几秒），
+ * 否则每秒读取一次 Chromium 提供的 performance.memory.usedJSHeapSize（按桶取整并缓存，只用于展示）。
+ * 每条消息为 [字节数, 是否精确]，同一批内只保留最新的。
+ */
+public class MemoryBridge implements MessageBridge.Subscriber {
+
+    public static final String CHANNEL = "memory";
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcapMemoryInstalled || !window.__lcap) return;" +
+            "  window.__lcapMemoryInstalled = true;" +
+            "  function post(bytes, precise) { __lcap.post('" + CHANNEL + "', [bytes, precise ? 1 : 0], 'heap'); }" +
+            "  if (window.crossOriginIsolated && performance.measureUserAgentSpecificMemory) {" +
+            "    (function measure() {" +
+            "      performance.measureUserAgentSpecificMemory()" +
+            "        .then(function(r) { post(r.bytes, true); setTimeout(measure, 5000); })" +
+            "        .catch(function() {});" +
+            "    })();" +
+            "  } else if (performance.memory) {" +
+            "    post(performance.memory.usedJSHeapSize);" +
+            "    setInterval(function() { post(performance.memory.usedJSHeapSize); }, 1000);" +
+            "  }" +
+            "})();";
+
+    private final MemoryRecorder recorder;
+
+    public MemoryBridge(MemoryRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    // 在 MessageBridge 的分发线程上调用
+    @Override
+    public void onMessage(String[] fields) {
+        recorder.onJsHeap((long) Double.parseDouble(fields[0]), fields.length > 1 && "1".equals(fields[1]));
+    }
+}
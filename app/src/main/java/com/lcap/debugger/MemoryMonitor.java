@@ -0,0 +1,94 @@
+package com.lcap.debugger;
+
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按固定间隔在后台线程采样本进程的内存，写入 {@link MemoryRecorder}；页面 JS 堆由 {@link MemoryBridge} 上报。
+ *
+ * Debug.MemoryInfo 只创建一次，每次采样原地填充。PSS 只包含本进程，WebView 的渲染进程是独立的沙箱进程，
+ * 每次页面加载完成后等待一段时间，把稳定下来的值交给 {@link LeakDetector}：页面提供精确的 JS 堆
+ * （跨源隔离页面的 measureUserAgentSpecificMemory）时用 JS 堆，否则用本进程 PSS。
+ */
+public class MemoryMonitor {
+
+    public static final long INTERVAL_MS = 1000;
+    // 页面加载完成到读取稳定内存的等待时间，给页面初始化和 GC 留出时间
+    private static final long SETTLE_MS = 3000;
+
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "memory-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface LeakCallback {
+        void onSuspect(LeakDetector.Suspect suspect);
+    }
+
+    private final MemoryRecorder recorder;
+    private final LeakDetector leakDetector = new LeakDetector();
+    private final Debug.MemoryInfo memoryInfo = new Debug.MemoryInfo();
+    private final Runtime runtime = Runtime.getRuntime();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ScheduledFuture<?> samplingTask;
+    private ScheduledFuture<?> leakCheck;
+
+    public MemoryMonitor(MemoryRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public void start() {
+        if (samplingTask == null) {
+            samplingTask = SAMPLER.scheduleAtFixedRate(this::sample, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        if (samplingTask != null) {
+            samplingTask.cancel(false);
+            samplingTask = null;
+        }
+        if (leakCheck != null) {
+            leakCheck.cancel(false);
+            leakCheck = null;
+        }
+    }
+
+    /**
+     * 页面加载完成后调用；等待 {@link #SETTLE_MS} 后读取精确的 JS 堆（没有时退回本进程 PSS），
+     * 同一 URL 连续增长时在主线程回调。新的加载完成会取消上一次还没执行的检查。
+     */
+    public void checkAfterLoad(String url, LeakCallback callback) {
+        if (leakCheck != null) {
+            leakCheck.cancel(false);
+        }
+        leakCheck = SAMPLER.schedule(() -> {
+            // performance.memory 的值被取整缓存，用它判断增长永远不会报告
+            int series = recorder.isJsHeapPrecise() ? MemoryRecorder.SERIES_JS : MemoryRecorder.SERIES_PSS;
+            long bytes = recorder.latest(series);
+            if (bytes == MemoryRecorder.UNKNOWN) {
+                return;
+            }
+            LeakDetector.Suspect suspect = leakDetector.onLoad(url, MemoryRecorder.seriesName(series), bytes);
+            if (suspect != null) {
+                mainHandler.post(() -> callback.onSuspect(suspect));
+            }
+        }, SETTLE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // 在采样线程上执行
+    private void sample() {
+        Debug.getMemoryInfo(memoryInfo);
+        recorder.record(System.currentTimeMillis(),
+                runtime.totalMemory() - runtime.freeMemory(),
+                Debug.getNativeHeapAllocatedSize(),
+                memoryInfo.getTotalPss() * 1024L);
+    }
+}
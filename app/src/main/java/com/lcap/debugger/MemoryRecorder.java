@@ -0,0 +1,136 @@
+package com.lcap.debugger;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 内存采样记录：Java 堆、Native 堆、进程 PSS 和页面 JS 堆，单位均为字节。
+ *
+ * 每个指标一列，存放在预分配的 long 数组中组成环形缓冲区，采样时不产生对象，容量满后覆盖最旧的样本。
+ * 页面 JS 堆由注入脚本异步上报，只保存最新值，下一次采样时一并写入。
+ */
+public class MemoryRecorder {
+
+    public static final long UNKNOWN = -1;
+
+    public static final int SERIES_JAVA = 0;
+    public static final int SERIES_NATIVE = 1;
+    public static final int SERIES_PSS = 2;
+    public static final int SERIES_JS = 3;
+    static final int SERIES_COUNT = 4;
+    private static final String[] SERIES_NAMES = {"javaHeap", "nativeHeap", "pss", "jsHeap"};
+
+    private final int capacity;
+    private final long[] times;
+    private final long[][] values;
+    // 下一个样本的序号；序号 n 存放在 n % capacity
+    private long nextSeq;
+    private volatile long latestJsHeap = UNKNOWN;
+    private volatile boolean latestJsHeapPrecise;
+
+    public MemoryRecorder(int capacity) {
+        this.capacity = capacity;
+        times = new long[capacity];
+        values = new long[SERIES_COUNT][capacity];
+    }
+
+    public static String seriesName(int series) {
+        return SERIES_NAMES[series];
+    }
+
+    // 页面上报的 JS 堆大小，在 MessageBridge 的分发线程上调用；precise 表示来自 measureUserAgentSpecificMemory
+    public void onJsHeap(long bytes, boolean precise) {
+        latestJsHeapPrecise = precise;
+        latestJsHeap = bytes;
+    }
+
+    /**
+     * 当前页面的 JS 堆是否是精确值。performance.memory 在 WebView 中按桶取整并缓存（最长约 20 分钟），
+     * 多次加载之间几乎不变，只能用于展示，不能用来判断增长。
+     */
+    public boolean isJsHeapPrecise() {
+        return latestJsHeap != UNKNOWN && latestJsHeapPrecise;
+    }
+
+    // 切换页面后旧页面的 JS 堆不再有意义
+    public void resetJsHeap() {
+        latestJsHeap = UNKNOWN;
+        latestJsHeapPrecise = false;
+    }
+
+    public synchronized void record(long timeMs, long javaBytes, long nativeBytes, long pssBytes) {
+        int slot = (int) (nextSeq++ % capacity);
+        times[slot] = timeMs;
+        values[SERIES_JAVA][slot] = javaBytes;
+        values[SERIES_NATIVE][slot] = nativeBytes;
+        values[SERIES_PSS][slot] = pssBytes;
+        values[SERIES_JS][slot] = latestJsHeap;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(nextSeq, capacity);
+    }
+
+    public synchronized void clear() {
+        nextSeq = 0;
+    }
+
+    // 最新样本中的值，没有样本时为 UNKNOWN
+    public synchronized long latest(int series) {
+        return nextSeq == 0 ? UNKNOWN : values[series][(int) ((nextSeq - 1) % capacity)];
+    }
+
+    /**
+     * 把某个指标最近的样本按时间顺序复制到 out 中，返回复制的个数。
+     * 由调用方复用 out，界面定时刷新时不产生对象。
+     */
+    public synchronized int copySeries(int series, long[] out) {
+        int count = Math.min(size(), out.length);
+        long first = nextSeq - count;
+        for (int i = 0; i < count; i++) {
+            out[i] = values[series][(int) ((first + i) % capacity)];
+        }
+        return count;
+    }
+
+    // 以 CSV 写出全部样本；先在锁内复制，写文件时不阻塞采样
+    public void writeCsv(Writer writer) throws IOException {
+        int count;
+        long[] timeCopy;
+        long[][] valueCopy = new long[SERIES_COUNT][];
+        synchronized (this) {
+            count = size();
+            timeCopy = new long[count];
+            for (int s = 0; s < SERIES_COUNT; s++) {
+                valueCopy[s] = new long[count];
+            }
+            long first = nextSeq - count;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((first + i) % capacity);
+                timeCopy[i] = times[slot];
+                for (int s = 0; s < SERIES_COUNT; s++) {
+                    valueCopy[s][i] = values[s][slot];
+                }
+            }
+        }
+
+        writer.write("timeMs");
+        for (String name : SERIES_NAMES) {
+            writer.write(',');
+            writer.write(name);
+        }
+        writer.write('\n');
+        for (int i = 0; i < count; i++) {
+            writer.write(Long.toString(timeCopy[i]));
+            for (int s = 0; s < SERIES_COUNT; s++) {
+                writer.write(',');
+                // 未知的值留空，方便表格软件处理
+                if (valueCopy[s][i] != UNKNOWN) {
+                    writer.write(Long.toString(valueCopy[s][i]));
+                }
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,180 @@
+package com.lcap.debugger;
+
+import android.util.Log;
+import android.webkit.JavascriptInterface;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 页面与原生之间唯一的消息通道，由 WebViewPool 在创建 WebView 时以 {@link #NAME} 注册一次。
+ *
+ * 页面内的各个采集脚本通过 {@link #SCRIPT} 提供的 {@code __lcap.post(channel, fields, key)} 发消息，
+ * 消息先进入页面内的队列，在下一帧或队列超过阈值时合并成一批通过一次调用送到原生；
+ * 带 key 的消息在同一批内只保留最后一条。帧格式为纯文本：字段之间用 US (0x1F) 分隔，
+ * 消息之间用 RS (0x1E) 分隔，第一个字段是频道名，原生侧不需要解析 JSON。
+ * 收到的批次在后台线程上按频道分发给订阅者，不占用 JavaBridge 线程。
+ * 被停用的频道（注入前的 {@code window.__lcapDisabled} 或运行时的 {@code __lcap.setDisabled}）在页面内直接丢弃，
+ * 不跨越 JS 边界。
+ */
+public class MessageBridge {
+
+    private static final String TAG = "MessageBridge";
+    public static final String NAME = "LcapBridge";
+
+    static final char FIELD_SEPARATOR = '\u001f';
+    static final char MESSAGE_SEPARATOR = '\u001e';
+    // 队列中的消息条数或字符数超过阈值时不等下一帧，立即发送
+    private static final int MAX_QUEUED_MESSAGES = 256;
+    private static final int MAX_QUEUED_CHARS = 64 * 1024;
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcap || !window." + NAME + ") return;" +
+            "  var US = '\\u001f', RS = '\\u001e';" +
+            "  var queue = [], keyed = {}, chars = 0, scheduled = false, disabled = window.__lcapDisabled || {};" +
+            "  function clean(v) {" +
+            "    v = v == null ? '' : String(v);" +
+            "    return /[\\u001e\\u001f]/.test(v) ? v.replace(/[\\u001e\\u001f]/g, ' ') : v;" +
+            "  }" +
+            "  function flush() {" +
+            "    scheduled = false;" +
+            "    if (!queue.length) return;" +
+            "    var batch = queue.join(RS);" +
+            "    queue = []; keyed = {}; chars = 0;" +
+            "    " + NAME + ".deliver(batch);" +
+            "  }" +
+            // 后台页面不会执行 requestAnimationFrame，改用定时器
+            "  function schedule() {" +
+            "    if (scheduled) return;" +
+            "    scheduled = true;" +
+            "    if (window.requestAnimationFrame && document.visibilityState !== 'hidden') requestAnimationFrame(flush);" +
+            "    else setTimeout(flush, 16);" +
+            "  }" +
+            "  function post(channel, fields, key) {" +
+            "    if (disabled[channel]) return;" +
+            "    var frame = channel;" +
+            "    for (var i = 0; i < fields.length; i++) frame += US + clean(fields[i]);" +
+            "    if (key != null) {" +
+            "      var k = channel + US + key, index = keyed[k];" +
+            "      if (index !== undefined) { chars += frame.length - queue[index].length; queue[index] = frame; return; }" +
+            "      keyed[k] = queue.length;" +
+            "    }" +
+            "    queue.push(frame);" +
+            "    chars += frame.length;" +
+            "    if (queue.length >= " + MAX_QUEUED_MESSAGES + " || chars >= " + MAX_QUEUED_CHARS + ") flush();" +
+            "    else schedule();" +
+            "  }" +
+            "  function setDisabled(channel, value) { if (value) disabled[channel] = true; else delete disabled[channel]; }" +
+            "  window.__lcap = {post: post, flush: flush, setDisabled: setDisabled};" +
+            "  window.addEventListener('pagehide', flush);" +
+            "  document.addEventListener('visibilitychange', function() { if (document.visibilityState === 'hidden') flush(); });" +
+            "})();";
+
+    // 订阅者在分发线程上被调用，fields 不含频道名
+    public interface Subscriber {
+        void onMessage(String[] fields);
+    }
+
+    private static final ExecutorService DISPATCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "lcap-bridge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor executor;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public MessageBridge() {
+        this(DISPATCHER);
+    }
+
+    MessageBridge(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void subscribe(String channel, Subscriber subscriber) {
+        List<Subscriber> list = subscribers.get(channel);
+        if (list == null) {
+            subscribers.putIfAbsent(channel, new CopyOnWriteArrayList<>());
+            list = subscribers.get(channel);
+        }
+        list.add(subscriber);
+    }
+
+    public void unsubscribe(String channel, Subscriber subscriber) {
+        List<Subscriber> list = subscribers.get(channel);
+        if (list != null) {
+            list.remove(subscriber);
+        }
+    }
+
+    // 在 JavaBridge 线程上调用，只做转交
+    @JavascriptInterface
+    public void deliver(String batch) {
+        if (batch != null && !batch.isEmpty()) {
+            executor.execute(() -> dispatch(batch));
+        }
+    }
+
+    void dispatch(String batch) {
+        int start = 0;
+        int length = batch.length();
+        while (start <= length) {
+            int end = batch.indexOf(MESSAGE_SEPARATOR, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                dispatchMessage(batch, start, end);
+            }
+            start = end + 1;
+        }
+    }
+
+    private void dispatchMessage(String batch, int start, int end) {
+        int channelEnd = batch.indexOf(FIELD_SEPARATOR, start);
+        if (channelEnd < 0 || channelEnd > end) {
+            channelEnd = end;
+        }
+        List<Subscriber> list = subscribers.get(batch.substring(start, channelEnd));
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        String[] fields = split(batch, channelEnd, end);
+        for (Subscriber subscriber : list) {
+            try {
+                subscriber.onMessage(fields);
+            } catch (RuntimeException e) {
+                // 单条格式错误的消息不影响同一批的其它消息
+                Log.w(TAG, "消息处理失败: " + batch.substring(start, end), e);
+            }
+        }
+    }
+
+    // from 指向频道名之后的分隔符（或消息结尾）
+    private static String[] split(String batch, int from, int end) {
+        int count = 0;
+        for (int i = from; i < end; i++) {
+            if (batch.charAt(i) == FIELD_SEPARATOR) {
+                count++;
+            }
+        }
+        String[] fields = new String[count];
+        int fieldStart = from + 1;
+        for (int n = 0; n < count; n++) {
+            int fieldEnd = batch.indexOf(FIELD_SEPARATOR, fieldStart);
+            if (fieldEnd < 0 || fieldEnd > end) {
+                fieldEnd = end;
+            }
+            fields[n] = batch.substring(fieldStart, fieldEnd);
+            fieldStart = fieldEnd + 1;
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lcap.debugger;
+
+/**
+ * 页面内 Resource Timing，经 {@link MessageBridge} 的 {@link #CHANNEL} 频道上报，数据合并进 {@link NetworkRecorder}。
+ *
+ * 每个条目为一条消息：[url, 开始墙钟毫秒, dns, connect, ttfb, transfer, transferSize, status]；
+ * 跨域且没有 Timing-Allow-Origin 的资源拿不到分阶段耗时，对应字段为 -1，transfer 为总耗时。
+ */
+public class NetworkBridge implements MessageBridge.Subscriber {
+
+    public static final String CHANNEL = "network";
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcapNetworkInstalled || !window.PerformanceObserver || !window.__lcap) return;" +
+            "  window.__lcapNetworkInstalled = true;" +
+            "  var origin = performance.timeOrigin || performance.timing.navigationStart;" +
+            "  function convert(e) {" +
+            "    var detailed = e.requestStart > 0;" +
+            "    return [e.name, origin + e.startTime," +
+            "      detailed ? e.domainLookupEnd - e.domainLookupStart : -1," +
+            "      detailed ? e.connectEnd - e.connectStart : -1," +
+            "      detailed ? e.responseStart - e.requestStart : -1," +
+            "      detailed ? e.responseEnd - e.responseStart : e.duration," +
+            "      e.transferSize > 0 ? e.transferSize : -1," +
+            "      e.responseStatus || 0];" +
+            "  }" +
+            "  ['navigation', 'resource'].forEach(function(type) {" +
+            "    try {" +
+            "      new PerformanceObserver(function(list) {" +
+            "        list.getEntries().forEach(function(e) { __lcap.post('" + CHANNEL + "', convert(e)); });" +
+            "      }).observe({type: type, buffered: true});" +
+            "    } catch (err) {}" +
+            "  });" +
+            "})();";
+
+    private final NetworkRecorder recorder;
+
+    public NetworkBridge(NetworkRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    // 在 MessageBridge 的分发线程上调用
+    @Override
+    public void onMessage(String[] fields) {
+        recorder.onResourceTiming(fields[0], Double.parseDouble(fields[1]),
+                Float.parseFloat(fields[2]), Float.parseFloat(fields[3]),
+                Float.parseFloat(fields[4]), Float.parseFloat(fields[5]),
+                (long) Double.parseDouble(fields[6]), Integer.parseInt(fields[7]));
+    }
+}
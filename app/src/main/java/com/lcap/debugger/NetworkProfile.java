@@ -0,0 +1,83 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+
+/**
+ * 弱网模拟的预设网络条件，与 Chrome DevTools 网络面板的同名预设一致。
+ *
+ * DevTools 在标称值上乘了修正系数（例如 Slow 3G 为 500kbps × 0.8、400ms × 5），这里直接写最终的
+ * 下行带宽和每个请求的延迟；DevTools 还会限制上行，这里不模拟上行。
+ */
+public enum NetworkProfile {
+    // 不模拟
+    OFF("关闭", null),
+    SLOW_3G("Slow 3G（400kbps，2000ms）", new NetworkThrottler.Conditions(400, 2000, 0, 0)),
+    // 1.6Mbps × 0.9，150ms × 3.75；DevTools 早先称为 Fast 3G
+    SLOW_4G("Slow 4G（1.44Mbps，563ms）", new NetworkThrottler.Conditions(1440, 563, 0, 0)),
+    // 9Mbps × 0.9，60ms × 2.75
+    FAST_4G("Fast 4G（8.1Mbps，165ms）", new NetworkThrottler.Conditions(8100, 165, 0, 0)),
+    // 使用保存的自定义条件
+    CUSTOM("自定义", null);
+
+    private static final String KEY_NETWORK_PROFILE = "network_profile";
+    private static final String KEY_CUSTOM_CONDITIONS = "network_custom_conditions";
+    private static final NetworkThrottler.Conditions DEFAULT_CUSTOM =
+            new NetworkThrottler.Conditions(1000, 200, 1, 0);
+
+    public final String label;
+    private final NetworkThrottler.Conditions conditions;
+
+    NetworkProfile(String label, NetworkThrottler.Conditions conditions) {
+        this.label = label;
+        this.conditions = conditions;
+    }
+
+    // OFF 返回 null
+    public NetworkThrottler.Conditions conditions(Context context) {
+        return this == CUSTOM ? loadCustom(context) : conditions;
+    }
+
+    public static NetworkProfile load(Context context) {
+        String name = DebuggerSettings.prefs(context).getString(KEY_NETWORK_PROFILE, OFF.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return OFF;
+        }
+    }
+
+    public static void save(Context context, NetworkProfile profile) {
+        DebuggerSettings.prefs(context)
+                .edit()
+                .putString(KEY_NETWORK_PROFILE, profile.name())
+                .apply();
+    }
+
+    public static NetworkThrottler.Conditions loadCustom(Context context) {
+        String text = DebuggerSettings.prefs(context).getString(KEY_CUSTOM_CONDITIONS, null);
+        if (text == null) {
+            return DEFAULT_CUSTOM;
+        }
+        try {
+            return NetworkThrottler.Conditions.parse(text);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_CUSTOM;
+        }
+    }
+
+    public static void saveCustom(Context context, NetworkThrottler.Conditions conditions) {
+        DebuggerSettings.prefs(context)
+                .edit()
+                .putString(KEY_CUSTOM_CONDITIONS, conditions.format())
+                .apply();
+    }
+
+    public static String[] labels() {
+        NetworkProfile[] values = values();
+        String[] labels = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            labels[i] = values[i].label;
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,265 @@
+package com.lcap.debugger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 网络请求记录器。
+ *
+ * 请求在 shouldInterceptRequest 中登记，状态码和错误来自 onReceivedHttpError / onReceivedError，
+ * DNS、连接、TTFB、传输耗时和传输大小来自页面内的 Resource Timing，按 URL 合并到最近一条请求上。
+ * 所有字段按列存放在预分配的基本类型数组中组成环形缓冲区，记录时不产生额外对象，容量满后覆盖最旧的请求。
+ */
+public class NetworkRecorder {
+
+    // 未知的数值
+    public static final int UNKNOWN = -1;
+    // 合并 Resource Timing 时向前查找的最大条数
+    private static final int MATCH_WINDOW = 512;
+
+    private final int capacity;
+    private final long[] seqs;
+    private final String[] methods;
+    private final String[] urls;
+    private final String[] errors;
+    private final double[] startEpochMs;
+    private final int[] statuses;
+    private final long[] responseBytes;
+    private final float[] dnsMs;
+    private final float[] connectMs;
+    private final float[] ttfbMs;
+    private final float[] transferMs;
+    private final boolean[] timed;
+    // 下一条请求的序号；序号 n 存放在 n % capacity
+    private long nextSeq;
+    // clear() 时的 nextSeq；序号不回退，清空前登记的请求的迟到更新按序号丢弃，不会写到新请求上
+    private long clearedBefore;
+
+    public NetworkRecorder(int capacity) {
+        this.capacity = capacity;
+        seqs = new long[capacity];
+        methods = new String[capacity];
+        urls = new String[capacity];
+        errors = new String[capacity];
+        startEpochMs = new double[capacity];
+        statuses = new int[capacity];
+        responseBytes = new long[capacity];
+        dnsMs = new float[capacity];
+        connectMs = new float[capacity];
+        ttfbMs = new float[capacity];
+        transferMs = new float[capacity];
+        timed = new boolean[capacity];
+    }
+
+    // 登记一个请求，返回序号
+    public synchronized long begin(String method, String url, double epochMs) {
+        long seq = nextSeq++;
+        int slot = (int) (seq % capacity);
+        seqs[slot] = seq;
+        methods[slot] = method;
+        urls[slot] = url;
+        errors[slot] = null;
+        startEpochMs[slot] = epochMs;
+        statuses[slot] = 0;
+        responseBytes[slot] = UNKNOWN;
+        dnsMs[slot] = UNKNOWN;
+        connectMs[slot] = UNKNOWN;
+        ttfbMs[slot] = UNKNOWN;
+        transferMs[slot] = UNKNOWN;
+        timed[slot] = false;
+        return seq;
+    }
+
+    // 由拦截器直接返回响应时记录状态码
+    public synchronized void setStatus(long seq, int status) {
+        int slot = (int) (seq % capacity);
+        if (seqs[slot] == seq && seq >= clearedBefore && seq < nextSeq) {
+            statuses[slot] = status;
+        }
+    }
+
+    // onReceivedHttpError
+    public synchronized void onHttpError(String url, int status) {
+        int slot = findLatest(url, false);
+        if (slot >= 0) {
+            statuses[slot] = status;
+        }
+    }
+
+    // onReceivedError，例如 DNS 失败、连接超时
+    public synchronized void onError(String url, String description) {
+        int slot = findLatest(url, false);
+        if (slot >= 0) {
+            errors[slot] = description;
+        }
+    }
+
+    /**
+     * 合并页面内的 Resource Timing 条目，时间单位为毫秒，status 为 0 表示浏览器未提供。
+     * 找不到对应请求时（例如内存缓存命中不经过 shouldInterceptRequest）作为新请求登记。
+     */
+    public synchronized void onResourceTiming(String url, double startEpoch, float dns, float connect,
+                                              float ttfb, float transfer, long transferSize, int status) {
+        int slot = findLatest(url, true);
+        if (slot < 0) {
+            slot = (int) (begin("GET", url, startEpoch) % capacity);
+        }
+        dnsMs[slot] = dns;
+        connectMs[slot] = connect;
+        ttfbMs[slot] = ttfb;
+        transferMs[slot] = transfer;
+        responseBytes[slot] = transferSize;
+        if (status > 0 && statuses[slot] == 0) {
+            statuses[slot] = status;
+        }
+        timed[slot] = true;
+    }
+
+    public synchronized void clear() {
+        long first = Math.max(clearedBefore, nextSeq - capacity);
+        for (long seq = first; seq < nextSeq; seq++) {
+            int slot = (int) (seq % capacity);
+            methods[slot] = null;
+            urls[slot] = null;
+            errors[slot] = null;
+        }
+        clearedBefore = nextSeq;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(nextSeq - clearedBefore, capacity);
+    }
+
+    // 最近的 limit 条请求摘要，最新的在前，用于界面展示
+    public synchronized String[] describeRecent(int limit) {
+        int count = Math.min(limit, size());
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((nextSeq - 1 - i) % capacity);
+            String status = errors[slot] != null ? "ERR" : statuses[slot] > 0 ? String.valueOf(statuses[slot]) : "-";
+            String time = timed[slot] ? String.format(Locale.US, "%.0fms", totalTime(slot)) : "";
+            lines[i] = status + " " + methods[slot] + " " + time + "\n" + urls[slot];
+        }
+        return lines;
+    }
+
+    /**
+     * 以 HAR 1.2 格式流式写出。先在锁内复制出列数据，写文件时不阻塞记录。
+     */
+    public void writeHar(Writer writer) throws IOException {
+        int count;
+        String[] methodCopy;
+        String[] urlCopy;
+        String[] errorCopy;
+        double[] startCopy;
+        int[] statusCopy;
+        long[] sizeCopy;
+        float[][] timingCopy;
+        synchronized (this) {
+            count = size();
+            methodCopy = new String[count];
+            urlCopy = new String[count];
+            errorCopy = new String[count];
+            startCopy = new double[count];
+            statusCopy = new int[count];
+            sizeCopy = new long[count];
+            timingCopy = new float[count][];
+            long first = nextSeq - count;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((first + i) % capacity);
+                methodCopy[i] = methods[slot];
+                urlCopy[i] = urls[slot];
+                errorCopy[i] = errors[slot];
+                startCopy[i] = startEpochMs[slot];
+                statusCopy[i] = statuses[slot];
+                sizeCopy[i] = responseBytes[slot];
+                timingCopy[i] = timed[slot]
+                        ? new float[]{dnsMs[slot], connectMs[slot], ttfbMs[slot], transferMs[slot]}
+                        : null;
+            }
+        }
+
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+        JsonStreamWriter json = new JsonStreamWriter(writer);
+        json.beginObject().name("log").beginObject();
+        json.name("version").value("1.2");
+        json.name("creator").beginObject()
+                .name("name").value("lcap-debugger")
+                .name("version").value("1.0")
+                .endObject();
+        json.name("entries").beginArray();
+        for (int i = 0; i < count; i++) {
+            float[] t = timingCopy[i];
+            float dns = t != null ? t[0] : UNKNOWN;
+            float connect = t != null ? t[1] : UNKNOWN;
+            float wait = t != null ? t[2] : 0;
+            float receive = t != null ? t[3] : 0;
+            double total = Math.max(0, dns) + Math.max(0, connect) + Math.max(0, wait) + Math.max(0, receive);
+
+            json.beginObject();
+            json.name("startedDateTime").value(iso.format(new Date((long) startCopy[i])));
+            json.name("time").value(total);
+            json.name("request").beginObject()
+                    .name("method").value(methodCopy[i])
+                    .name("url").value(urlCopy[i])
+                    .name("httpVersion").value("")
+                    .name("cookies").beginArray().endArray()
+                    .name("headers").beginArray().endArray()
+                    .name("queryString").beginArray().endArray()
+                    .name("headersSize").value(UNKNOWN)
+                    .name("bodySize").value(UNKNOWN)
+                    .endObject();
+            json.name("response").beginObject()
+                    .name("status").value(statusCopy[i])
+                    .name("statusText").value(errorCopy[i] != null ? errorCopy[i] : "")
+                    .name("httpVersion").value("")
+                    .name("cookies").beginArray().endArray()
+                    .name("headers").beginArray().endArray()
+                    .name("content").beginObject()
+                    .name("size").value(Math.max(0, sizeCopy[i]))
+                    .name("mimeType").value("")
+                    .endObject()
+                    .name("redirectURL").value("")
+                    .name("headersSize").value(UNKNOWN)
+                    .name("bodySize").value(sizeCopy[i])
+                    .endObject();
+            json.name("cache").beginObject().endObject();
+            json.name("timings").beginObject()
+                    .name("blocked").value(UNKNOWN)
+                    .name("dns").value(dns)
+                    .name("connect").value(connect)
+                    .name("send").value(0)
+                    .name("wait").value(wait)
+                    .name("receive").value(receive)
+                    .name("ssl").value(UNKNOWN)
+                    .endObject();
+            if (errorCopy[i] != null) {
+                json.name("_error").value(errorCopy[i]);
+            }
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject().endObject();
+        json.flush();
+    }
+
+    private double totalTime(int slot) {
+        return Math.max(0, dnsMs[slot]) + Math.max(0, connectMs[slot])
+                + Math.max(0, ttfbMs[slot]) + Math.max(0, transferMs[slot]);
+    }
+
+    // 从最新的请求往前找同一 URL；untimedOnly 时跳过已合并过 Resource Timing 的条目
+    private int findLatest(String url, boolean untimedOnly) {
+        long stop = Math.max(clearedBefore, Math.max(nextSeq - capacity, nextSeq - MATCH_WINDOW));
+        for (long seq = nextSeq - 1; seq >= stop; seq--) {
+            int slot = (int) (seq % capacity);
+            if ((!untimedOnly || !timed[slot]) && url.equals(urls[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
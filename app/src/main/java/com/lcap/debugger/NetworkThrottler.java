@@ -0,0 +1,247 @@
+package com.lcap.debugger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 弱网模拟：在 shouldInterceptRequest 中给 WebView 的 GET 请求加上往返延迟、带宽限制以及丢包和错误注入。
+ *
+ * 带宽是所有请求共用的一条下行链路，用预约式令牌桶实现：响应体每读出一块就按到达顺序预约发送时间，
+ * 空闲时最多积累 {@link #BURST_BYTES} 的额度。响应体边读边限速，不在内存中缓存。
+ * 丢包按块模拟为额外的一个往返（重传），错误注入返回 503；两者的随机数以 URL 为种子，
+ * 同一个网址每次加载的结果相同，重复的基准测试可以复现。
+ * 上传和非 GET 请求无法拦截，只加延迟后交还给 WebView。
+ * 代为请求时遇到的重定向每一跳都算一个往返：WebResourceResponse 不接受 3xx，主文档返回跳转页，
+ * WebView 随后请求新地址时再次限速；子资源在这里跟随，以原网址返回最终的响应。
+ */
+public class NetworkThrottler {
+
+    static final int CHUNK_BYTES = 4096;
+    static final int BURST_BYTES = 16 * 1024;
+
+    // 网络条件，kbps 为每秒千比特
+    public static final class Conditions {
+        public final int downloadKbps;
+        public final int rttMs;
+        public final double lossPercent;
+        public final double errorPercent;
+
+        public Conditions(int downloadKbps, int rttMs, double lossPercent, double errorPercent) {
+            if (downloadKbps <= 0 || rttMs < 0 || lossPercent < 0 || lossPercent >= 100
+                    || errorPercent < 0 || errorPercent > 100) {
+                throw new IllegalArgumentException("无效的网络条件");
+            }
+            this.downloadKbps = downloadKbps;
+            this.rttMs = rttMs;
+            this.lossPercent = lossPercent;
+            this.errorPercent = errorPercent;
+        }
+
+        // 解析 "下行kbps,RTT毫秒[,丢包%[,错误%]]"，格式不对时抛出 IllegalArgumentException
+        public static Conditions parse(String text) {
+            String[] parts = text.trim().split("\\s*,\\s*");
+            if (parts.length < 2 || parts.length > 4) {
+                throw new IllegalArgumentException("格式：下行kbps,RTT毫秒[,丢包%[,错误%]]");
+            }
+            try {
+                return new Conditions(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        parts.length > 2 ? Double.parseDouble(parts[2]) : 0,
+                        parts.length > 3 ? Double.parseDouble(parts[3]) : 0);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("不是数字: " + text);
+            }
+        }
+
+        public String format() {
+            return String.format(Locale.US, "%d,%d,%s,%s", downloadKbps, rttMs,
+                    trim(lossPercent), trim(errorPercent));
+        }
+
+        double bytesPerSecond() {
+            return downloadKbps * 1000 / 8.0;
+        }
+
+        private static String trim(double value) {
+            return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+        }
+    }
+
+    // 测试中替换为虚拟时钟
+    interface Clock {
+        long nanoTime();
+
+        void sleepNanos(long nanos) throws InterruptedException;
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleepNanos(long nanos) throws InterruptedException {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    };
+
+    private final HttpFetcher fetcher;
+    private final Clock clock;
+    private volatile Conditions conditions;
+    // 令牌桶：链路下一次空闲的时间，初始时视为早已空闲
+    private long nextFreeNanos = Long.MIN_VALUE / 2;
+
+    public NetworkThrottler(HttpFetcher fetcher) {
+        this(fetcher, SYSTEM_CLOCK);
+    }
+
+    NetworkThrottler(HttpFetcher fetcher, Clock clock) {
+        this.fetcher = fetcher;
+        this.clock = clock;
+    }
+
+    // null 表示关闭
+    public void setConditions(Conditions conditions) {
+        this.conditions = conditions;
+    }
+
+    public Conditions getConditions() {
+        return conditions;
+    }
+
+    /**
+     * 对一个请求施加网络条件。upstream 为其他拦截环节（例如回放）给出的响应，为 null 时由这里代为请求网络。
+     * 返回 null 表示交还给 WebView 自己加载。在 WebView 的 IO 线程上调用，会阻塞。
+     */
+    public InterceptedResponse shape(String method, String url, Map<String, String> headers, boolean mainFrame,
+                                     InterceptedResponse upstream) {
+        Conditions current = conditions;
+        if (current == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return upstream;
+        }
+        // 相近的种子在 Random 的第一个输出上高度相关，先打散
+        Random random = new Random(url.hashCode() * 0x9E3779B97F4A7C15L);
+        try {
+            // 请求发出到响应开始返回的一个往返
+            clock.sleepNanos(current.rttMs * 1_000_000L);
+            if (random.nextDouble() * 100 < current.errorPercent) {
+                if (upstream != null) {
+                    closeQuietly(upstream.body);
+                }
+                return InterceptedResponse.text(503, "Simulated Error", "[debugger] 弱网模拟注入的错误: " + url);
+            }
+            InterceptedResponse response = upstream;
+            if (response == null) {
+                if (!"GET".equalsIgnoreCase(method)) {
+                    return null;
+                }
+                response = fetcher.fetch(method, url, headers);
+                String target = url;
+                for (int redirects = 0; response != null; redirects++) {
+                    String location = InterceptedResponse.redirectLocation(target, response);
+                    if (location == null) {
+                        break;
+                    }
+                    closeQuietly(response.body);
+                    if (mainFrame) {
+                        return InterceptedResponse.redirectPage(location);
+                    }
+                    if (redirects >= InterceptedResponse.MAX_REDIRECTS
+                            || !(location.startsWith("http://") || location.startsWith("https://"))) {
+                        return null;
+                    }
+                    clock.sleepNanos(current.rttMs * 1_000_000L);
+                    target = location;
+                    response = fetcher.fetch(method, target, headers);
+                }
+                // 没有 Location 的 3xx（例如 304）交还给 WebView
+                if (response == null || response.status >= 300 && response.status < 400) {
+                    if (response != null) {
+                        closeQuietly(response.body);
+                    }
+                    return null;
+                }
+            }
+            return new InterceptedResponse(response.status, response.reason, response.mimeType, response.encoding,
+                    response.headers, new ThrottledInputStream(response.body, current, random));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return upstream;
+        } catch (IOException e) {
+            // 请求失败时交还给 WebView，由它给出真实的错误
+            return null;
+        }
+    }
+
+    // 预约 bytes 字节的发送时间，返回需要等待的纳秒数
+    synchronized long reserve(int bytes, double bytesPerSecond) {
+        long now = clock.nanoTime();
+        long burstNanos = (long) (BURST_BYTES / bytesPerSecond * 1e9);
+        nextFreeNanos = Math.max(nextFreeNanos, now - burstNanos) + (long) (bytes / bytesPerSecond * 1e9);
+        return Math.max(0, nextFreeNanos - now);
+    }
+
+    private final class ThrottledInputStream extends FilterInputStream {
+        private final Conditions conditions;
+        private final Random random;
+
+        ThrottledInputStream(InputStream in, Conditions conditions, Random random) {
+            super(in);
+            this.conditions = conditions;
+            this.random = random;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, Math.min(len, CHUNK_BYTES));
+            if (n > 0) {
+                long wait = reserve(n, conditions.bytesPerSecond());
+                if (random.nextDouble() * 100 < conditions.lossPercent) {
+                    // 丢包后等一个往返重传
+                    wait += conditions.rttMs * 1_000_000L;
+                }
+                try {
+                    clock.sleepNanos(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的数据同样占用带宽
+            byte[] buffer = new byte[CHUNK_BYTES];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+    }
+}
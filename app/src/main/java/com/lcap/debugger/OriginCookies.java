@@ -0,0 +1,100 @@
+package com.lcap.debugger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 生成让目标网址可见的 Cookie 立即过期的 Set-Cookie 值，供 ORIGIN_COOKIES 重置策略使用。
+ *
+ * CookieManager.getCookie 只给出名字和值，不知道每个 Cookie 写入时的 Domain 和 Path；
+ * 覆盖必须与原 Cookie 的 Domain、Path 完全相同才生效，所以对每个名字枚举所有可能的组合：
+ * 不带 Domain（仅主机）以及主机名的每一级父域名（至少两段，公共后缀会被内核拒绝，写了也不影响），
+ * 路径为网址路径的每一级前缀（带或不带结尾斜杠）。https 网址加上 Secure，覆盖 __Secure- / __Host- Cookie。
+ * 纯 Java 实现，便于单元测试。
+ */
+final class OriginCookies {
+
+    private static final String EXPIRED = "=; Max-Age=0; Expires=Thu, 01 Jan 1970 00:00:00 GMT";
+
+    private OriginCookies() {
+    }
+
+    // cookieHeader 为 getCookie(url) 的结果；网址无法解析或没有 Cookie 时返回空列表
+    static List<String> expiryHeaders(String url, String cookieHeader) {
+        List<String> headers = new ArrayList<>();
+        if (cookieHeader == null || cookieHeader.isEmpty()) {
+            return headers;
+        }
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return headers;
+        }
+        String host = uri.getHost();
+        if (host == null || host.isEmpty()) {
+            return headers;
+        }
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        List<String> domains = domains(host.toLowerCase(Locale.US));
+        List<String> paths = paths(uri.getRawPath());
+        Set<String> names = new LinkedHashSet<>();
+        for (String pair : cookieHeader.split(";")) {
+            int eq = pair.indexOf('=');
+            String name = (eq >= 0 ? pair.substring(0, eq) : pair).trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        for (String name : names) {
+            for (String path : paths) {
+                String base = name + EXPIRED + "; Path=" + path + (secure ? "; Secure" : "");
+                // 仅主机的 Cookie 不能带 Domain
+                headers.add(base);
+                for (String domain : domains) {
+                    headers.add(base + "; Domain=" + domain);
+                }
+            }
+        }
+        return headers;
+    }
+
+    // 主机名本身和各级父域名，至少两段；IP 地址只有自身
+    static List<String> domains(String host) {
+        List<String> domains = new ArrayList<>();
+        if (host.indexOf(':') >= 0 || host.matches("[0-9.]+")) {
+            domains.add(host);
+            return domains;
+        }
+        String domain = host;
+        while (domain.indexOf('.') > 0) {
+            domains.add(domain);
+            domain = domain.substring(domain.indexOf('.') + 1);
+        }
+        if (domains.isEmpty()) {
+            // 例如 localhost
+            domains.add(host);
+        }
+        return domains;
+    }
+
+    // "/"、各级目录（带与不带结尾斜杠）和完整路径
+    static List<String> paths(String path) {
+        Set<String> paths = new LinkedHashSet<>();
+        paths.add("/");
+        if (path == null || path.isEmpty()) {
+            return new ArrayList<>(paths);
+        }
+        for (int slash = path.indexOf('/', 1); slash > 0; slash = path.indexOf('/', slash + 1)) {
+            paths.add(path.substring(0, slash));
+            paths.add(path.substring(0, slash + 1));
+        }
+        paths.add(path);
+        return new ArrayList<>(paths);
+    }
+}
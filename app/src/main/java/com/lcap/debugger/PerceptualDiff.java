@@ -0,0 +1,124 @@
+package com.lcap.debugger;
+
+/**
+ * 两张截图的感知差异：按 YIQ 色彩空间计算每个像素的色差（与 pixelmatch 相同的加权），
+ * 超过阈值的像素计为不同，并生成热力图。
+ *
+ * 热力图以基线的灰度为底，不同的像素按色差从黄到红着色，尺寸不一致时多出的区域整块计为不同。
+ * 输入输出都是 ARGB 的 int 数组，不依赖 Android，可以在 JVM 上测试和测量；
+ * 调用方可以传入复用的热力图数组，避免每次分配。
+ */
+public final class PerceptualDiff {
+
+    // YIQ 色差的最大值（黑与白之间）
+    private static final double MAX_DELTA = 35215;
+    // 热力图底图的透明度，越小越淡
+    private static final double BASE_ALPHA = 0.1;
+
+    public static final class Result {
+        public final int width;
+        public final int height;
+        public final int diffPixels;
+        // 不同像素占比，0~1
+        public final double score;
+        // 所有像素的平均色差，0~1，对大面积的轻微变化更敏感
+        public final double meanDelta;
+        // ARGB，宽高与 width/height 相同；不需要时为 null
+        public final int[] heatmap;
+
+        Result(int width, int height, int diffPixels, double meanDelta, int[] heatmap) {
+            this.width = width;
+            this.height = height;
+            this.diffPixels = diffPixels;
+            this.score = width * height == 0 ? 0 : diffPixels / (double) (width * height);
+            this.meanDelta = meanDelta;
+            this.heatmap = heatmap;
+        }
+    }
+
+    private PerceptualDiff() {
+    }
+
+    /**
+     * 比较 baseline 和 current。threshold 为 0~1 的色差阈值，0.1 左右可以忽略压缩和抗锯齿带来的细微差别。
+     * heatmap 为复用的输出数组，长度不足时重新分配；传入 null 且 wantHeatmap 为 false 时不生成热力图。
+     */
+    public static Result compare(int[] baseline, int baselineWidth, int baselineHeight,
+                                 int[] current, int currentWidth, int currentHeight,
+                                 double threshold, int[] heatmap, boolean wantHeatmap) {
+        if (threshold < 0 || threshold > 1) {
+            throw new IllegalArgumentException("threshold 需要在 0~1 之间");
+        }
+        int width = Math.max(baselineWidth, currentWidth);
+        int height = Math.max(baselineHeight, currentHeight);
+        int[] out = null;
+        if (wantHeatmap) {
+            out = heatmap != null && heatmap.length >= width * height ? heatmap : new int[width * height];
+        }
+        double maxDelta = MAX_DELTA * threshold * threshold;
+        int diffPixels = 0;
+        double totalDelta = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean inBaseline = x < baselineWidth && y < baselineHeight;
+                boolean inCurrent = x < currentWidth && y < currentHeight;
+                double delta;
+                int base;
+                if (inBaseline && inCurrent) {
+                    base = baseline[y * baselineWidth + x];
+                    int other = current[y * currentWidth + x];
+                    delta = base == other ? 0 : colorDelta(base, other);
+                } else {
+                    base = inBaseline ? baseline[y * baselineWidth + x] : 0xffffffff;
+                    delta = MAX_DELTA;
+                }
+                totalDelta += delta;
+                boolean different = delta > maxDelta;
+                if (different) {
+                    diffPixels++;
+                }
+                if (out != null) {
+                    out[y * width + x] = different ? heat(delta / MAX_DELTA) : gray(base);
+                }
+            }
+        }
+        double meanDelta = width * height == 0 ? 0 : totalDelta / MAX_DELTA / (width * height);
+        return new Result(width, height, diffPixels, meanDelta, out);
+    }
+
+    // 两个 ARGB 颜色在白底上混合后的 YIQ 加权色差平方，范围 0~MAX_DELTA
+    static double colorDelta(int a, int b) {
+        double r1 = blend(a >>> 16 & 0xff, a >>> 24);
+        double g1 = blend(a >>> 8 & 0xff, a >>> 24);
+        double b1 = blend(a & 0xff, a >>> 24);
+        double r2 = blend(b >>> 16 & 0xff, b >>> 24);
+        double g2 = blend(b >>> 8 & 0xff, b >>> 24);
+        double b2 = blend(b & 0xff, b >>> 24);
+        double y = luma(r1, g1, b1) - luma(r2, g2, b2);
+        double i = 0.59597799 * (r1 - r2) - 0.27417610 * (g1 - g2) - 0.32180189 * (b1 - b2);
+        double q = 0.21147017 * (r1 - r2) - 0.52261711 * (g1 - g2) + 0.31114694 * (b1 - b2);
+        return 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+    }
+
+    private static double blend(int channel, int alpha) {
+        return 255 + (channel - 255) * alpha / 255.0;
+    }
+
+    private static double luma(double r, double g, double b) {
+        return 0.29889531 * r + 0.58662247 * g + 0.11448223 * b;
+    }
+
+    // 底图：基线的灰度，淡化到接近白色
+    private static int gray(int color) {
+        double y = luma(blend(color >>> 16 & 0xff, color >>> 24), blend(color >>> 8 & 0xff, color >>> 24),
+                blend(color & 0xff, color >>> 24));
+        int v = (int) Math.round(255 + (y - 255) * BASE_ALPHA);
+        return 0xff000000 | v << 16 | v << 8 | v;
+    }
+
+    // 色差越大越红：黄 (255,255,0) -> 红 (255,0,0)
+    private static int heat(double intensity) {
+        int green = (int) Math.round(255 * (1 - Math.min(1, Math.sqrt(intensity))));
+        return 0xffff0000 | green << 8;
+    }
+}
@@ -0,0 +1,195 @@
+package com.lcap.debugger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单次页面加载的性能时间线。
+ *
+ * 原生回调（onPageStarted 等）和页面内 PerformanceObserver 上报的条目都以
+ * 墙钟毫秒记录在同一条时间轴上，存放在固定容量的环形缓冲区中，超出容量时覆盖最旧的条目。
+ * 每次 onPageStarted 开始新的一次加载并清空缓冲区。
+ */
+public class PerfTimeline {
+
+    public static final int TYPE_NATIVE = 0;
+    public static final int TYPE_NAVIGATION = 1;
+    public static final int TYPE_PAINT = 2;
+    public static final int TYPE_LCP = 3;
+    public static final int TYPE_LONG_TASK = 4;
+
+    private static final String[] TYPE_NAMES = {"native", "navigation", "paint", "lcp", "longtask"};
+
+    public static final class Entry {
+        public final int type;
+        public final String name;
+        // 相对本次加载起点的毫秒数
+        public final double start;
+        public final double duration;
+
+        Entry(int type, String name, double start, double duration) {
+            this.type = type;
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+
+    // 本次加载的汇总指标，未采集到时为 NaN
+    public static final class Summary {
+        public double ttfb = Double.NaN;
+        public double fcp = Double.NaN;
+        public double lcp = Double.NaN;
+        public double pageFinished = Double.NaN;
+    }
+
+    private final int capacity;
+    private final int[] types;
+    private final String[] names;
+    private final double[] starts;
+    private final double[] durations;
+    private int head;
+    private int size;
+    private int dropped;
+    private String url;
+    private double loadStart;
+
+    public PerfTimeline(int capacity) {
+        this.capacity = capacity;
+        types = new int[capacity];
+        names = new String[capacity];
+        starts = new double[capacity];
+        durations = new double[capacity];
+    }
+
+    public static String typeName(int type) {
+        return type >= 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : "unknown";
+    }
+
+    public synchronized void beginLoad(String url, double epochMs) {
+        this.url = url;
+        loadStart = epochMs;
+        head = 0;
+        size = 0;
+        dropped = 0;
+        for (int i = 0; i < capacity; i++) {
+            names[i] = null;
+        }
+    }
+
+    // startEpochMs 为墙钟时间，页面内条目由脚本换算为 timeOrigin + startTime
+    public synchronized void add(int type, String name, double startEpochMs, double durationMs) {
+        int index = (head + size) % capacity;
+        if (size == capacity) {
+            head = (head + 1) % capacity;
+            dropped++;
+        } else {
+            size++;
+        }
+        types[index] = type;
+        names[index] = name;
+        starts[index] = startEpochMs;
+        durations[index] = durationMs;
+    }
+
+    public synchronized String getUrl() {
+        return url;
+    }
+
+    public synchronized int getDroppedCount() {
+        return dropped;
+    }
+
+    // 按记录顺序返回条目，时间换算为相对加载起点
+    public synchronized List<Entry> entries() {
+        List<Entry> result = new ArrayList<>(size);
+        double origin = origin();
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % capacity;
+            result.add(new Entry(types[index], names[index], starts[index] - origin, durations[index]));
+        }
+        return result;
+    }
+
+    public synchronized Summary summary() {
+        Summary summary = new Summary();
+        double origin = origin();
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % capacity;
+            double end = starts[index] - origin + durations[index];
+            String name = names[index];
+            if (types[index] == TYPE_NAVIGATION && "ttfb".equals(name)) {
+                summary.ttfb = end;
+            } else if (types[index] == TYPE_PAINT && "first-contentful-paint".equals(name)) {
+                summary.fcp = end;
+            } else if (types[index] == TYPE_LCP) {
+                // LCP 会多次上报，以最后一次为准
+                summary.lcp = end;
+            } else if (types[index] == TYPE_NATIVE && "onPageFinished".equals(name)) {
+                summary.pageFinished = end;
+            }
+        }
+        return summary;
+    }
+
+    // 以流的方式写出JSON；先在锁内复制一份条目，写文件时不阻塞记录
+    public void writeJson(Writer writer) throws IOException {
+        String loadUrl;
+        double origin;
+        int droppedCount;
+        List<Entry> entries;
+        Summary summary;
+        synchronized (this) {
+            loadUrl = url;
+            origin = origin();
+            droppedCount = dropped;
+            entries = entries();
+            summary = summary();
+        }
+
+        JsonStreamWriter json = new JsonStreamWriter(writer);
+        json.beginObject();
+        json.name("url").value(loadUrl);
+        json.name("loadStartEpochMs").value(origin);
+        json.name("dropped").value(droppedCount);
+        json.name("summary").beginObject();
+        json.name("ttfb").value(round(summary.ttfb));
+        json.name("fcp").value(round(summary.fcp));
+        json.name("lcp").value(round(summary.lcp));
+        json.name("pageFinished").value(round(summary.pageFinished));
+        json.endObject();
+        json.name("entries").beginArray();
+        for (Entry entry : entries) {
+            json.beginObject();
+            json.name("type").value(typeName(entry.type));
+            json.name("name").value(entry.name);
+            json.name("start").value(round(entry.start));
+            json.name("duration").value(round(entry.duration));
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    // 时间轴起点：onPageStarted 与页面 timeOrigin 中较早的一个
+    private double origin() {
+        double origin = loadStart;
+        for (int i = 0; i < size; i++) {
+            double start = starts[(head + i) % capacity];
+            if (origin == 0 || start < origin) {
+                origin = start;
+            }
+        }
+        return origin;
+    }
+
+    private static double round(double value) {
+        if (Double.isNaN(value)) {
+            return value;
+        }
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,175 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.security.SecureRandom;
+
+/**
+ * 远程控制开关和事件推送，底层是 {@link ControlServer}。
+ *
+ * 命令在服务线程上收到后转到主线程交给 {@link ControlServer.CommandHandler} 执行；
+ * 事件方法可以在任意线程调用，没有订阅者时直接返回，不组装 JSON。
+ * 开关保存在 DebuggerSettings 中，界面可见时才监听端口。访问令牌每次启动应用时随机生成，
+ * 在开启远程控制的对话框和 logcat 中显示，不写入存储。
+ */
+public class RemoteControl {
+
+    private static final String TAG = "RemoteControl";
+    private static final String KEY_ENABLED = "remote_control_enabled";
+    private static String sessionToken;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ControlServer.CommandHandler handler;
+    // 事件方法在 IO 线程和分发线程上读取
+    private volatile ControlServer server;
+
+    // handler 在主线程上调用
+    public RemoteControl(ControlServer.CommandHandler handler) {
+        this.handler = handler;
+    }
+
+    public static boolean isEnabled(Context context) {
+        return DebuggerSettings.prefs(context).getBoolean(KEY_ENABLED, false);
+    }
+
+    public static void setEnabled(Context context, boolean enabled) {
+        DebuggerSettings.prefs(context).edit().putBoolean(KEY_ENABLED, enabled).apply();
+    }
+
+    // 本进程内不变的访问令牌，32 位十六进制
+    public static synchronized String token() {
+        if (sessionToken == null) {
+            byte[] bytes = new byte[16];
+            new SecureRandom().nextBytes(bytes);
+            StringBuilder hex = new StringBuilder(32);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            sessionToken = hex.toString();
+        }
+        return sessionToken;
+    }
+
+    // 启动服务，返回端口；失败（例如端口被占用）时返回 -1
+    public int start() {
+        if (server != null) {
+            return server.getPort();
+        }
+        ControlServer candidate = new ControlServer(token(), (command, argument, reply) ->
+                mainHandler.post(() -> handler.onCommand(command, argument, reply)));
+        try {
+            int port = candidate.start(ControlServer.DEFAULT_PORT);
+            server = candidate;
+            Log.d(TAG, "远程控制已启动: adb forward tcp:" + port + " tcp:" + port + "，令牌 " + token());
+            return port;
+        } catch (IOException e) {
+            Log.w(TAG, "远程控制启动失败", e);
+            return -1;
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    public void onConsole(ConsoleBuffer.Entry entry) {
+        ControlServer current = server;
+        if (current == null || !current.hasSubscribers()) {
+            return;
+        }
+        StringWriter out = new StringWriter();
+        try {
+            JsonStreamWriter json = new JsonStreamWriter(out).beginObject();
+            json.name("type").value("console");
+            json.name("time").value(entry.timeMs);
+            json.name("level").value(ConsoleBuffer.levelName(entry.level));
+            json.name("message").value(entry.message);
+            json.name("source").value(entry.source != null ? entry.source : "");
+            json.name("line").value(entry.line);
+            json.endObject().flush();
+        } catch (IOException e) {
+            return;
+        }
+        current.broadcast(out.toString());
+    }
+
+    // status 未知时传 0，error 没有错误时传 null
+    public void onNetwork(String method, String url, int status, String error) {
+        ControlServer current = server;
+        if (current == null || !current.hasSubscribers()) {
+            return;
+        }
+        StringWriter out = new StringWriter();
+        try {
+            JsonStreamWriter json = new JsonStreamWriter(out).beginObject();
+            json.name("type").value("network");
+            json.name("time").value(System.currentTimeMillis());
+            json.name("method").value(method);
+            json.name("url").value(url);
+            json.name("status").value(status);
+            if (error != null) {
+                json.name("error").value(error);
+            }
+            json.endObject().flush();
+        } catch (IOException e) {
+            return;
+        }
+        current.broadcast(out.toString());
+    }
+
+    // 页面加载节点，event 为 started 或 finished
+    public void onPage(String event, String url) {
+        ControlServer current = server;
+        if (current == null || !current.hasSubscribers()) {
+            return;
+        }
+        StringWriter out = new StringWriter();
+        try {
+            JsonStreamWriter json = new JsonStreamWriter(out).beginObject();
+            json.name("type").value("page");
+            json.name("time").value(System.currentTimeMillis());
+            json.name("event").value(event);
+            json.name("url").value(url != null ? url : "");
+            json.endObject().flush();
+        } catch (IOException e) {
+            return;
+        }
+        current.broadcast(out.toString());
+    }
+
+    // 视觉截图完成，score 为与基线相比不同像素的占比，保存为基线时为 NaN
+    public void onCapture(String milestone, String url, double score, File file, File heatmap) {
+        ControlServer current = server;
+        if (current == null || !current.hasSubscribers()) {
+            return;
+        }
+        StringWriter out = new StringWriter();
+        try {
+            JsonStreamWriter json = new JsonStreamWriter(out).beginObject();
+            json.name("type").value("capture");
+            json.name("time").value(System.currentTimeMillis());
+            json.name("milestone").value(milestone);
+            json.name("url").value(url);
+            json.name("score").value(score);
+            json.name("file").value(file != null ? file.getAbsolutePath() : null);
+            json.name("heatmap").value(heatmap != null ? heatmap.getAbsolutePath() : null);
+            json.endObject().flush();
+        } catch (IOException e) {
+            return;
+        }
+        current.broadcast(out.toString());
+    }
+}
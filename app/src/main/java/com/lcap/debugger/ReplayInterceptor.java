@@ -0,0 +1,304 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 在 shouldInterceptRequest 中实现离线录制与回放。
+ *
+ * 录制模式下由 {@link HttpFetcher} 代替 WebView 请求网络，响应体在 WebView 读取的同时
+ * 复制一份（超过 {@link #SPILL_BYTES} 转存到临时文件），读到结尾后写入 {@link ReplayStore}；
+ * 回放模式下只从存储中读取，未录制的请求直接返回 404，不会访问网络。只处理 http(s) 的 GET 请求。
+ *
+ * 3xx 连同 Location 一起录制。WebResourceResponse 不接受 3xx，录制和回放时同样处理：
+ * 主文档返回跳转页，子资源在这里跟随重定向，以原网址返回最终的响应。
+ */
+public class ReplayInterceptor {
+
+    private static final String TAG = "ReplayInterceptor";
+    // 录制时在内存中缓存的响应体上限，更大的响应体转存到临时文件
+    static final int SPILL_BYTES = 256 * 1024;
+    private static final String SPILL_PREFIX = "body-";
+    private static final String SPILL_SUFFIX = ".tmp";
+
+    private static volatile ReplayInterceptor instance;
+
+    private final File dir;
+    private final HttpFetcher fetcher;
+    private volatile ReplayMode mode = ReplayMode.OFF;
+    private ReplayStore store;
+
+    public static ReplayInterceptor get(Context context) {
+        if (instance == null) {
+            synchronized (ReplayInterceptor.class) {
+                if (instance == null) {
+                    Context appContext = context.getApplicationContext();
+                    ReplayInterceptor interceptor = new ReplayInterceptor(
+                            new File(appContext.getFilesDir(), "replay"),
+                            new HttpFetcher(new WebViewCookieJar()));
+                    interceptor.setMode(ReplayMode.load(appContext));
+                    instance = interceptor;
+                }
+            }
+        }
+        return instance;
+    }
+
+    ReplayInterceptor(File dir, HttpFetcher fetcher) {
+        this.dir = dir;
+        this.fetcher = fetcher;
+    }
+
+    public ReplayMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ReplayMode mode) {
+        this.mode = mode;
+    }
+
+    // 返回 null 表示不拦截，由 WebView 自己加载；在 WebView 的 IO 线程上调用
+    public InterceptedResponse intercept(String method, String url, Map<String, String> headers, boolean mainFrame) {
+        ReplayMode current = mode;
+        if (current == ReplayMode.OFF || !"GET".equalsIgnoreCase(method) || !isHttp(url)) {
+            return null;
+        }
+        String target = url;
+        try {
+            for (int redirects = 0; redirects <= InterceptedResponse.MAX_REDIRECTS; redirects++) {
+                String key = key(method, target);
+                InterceptedResponse response = current == ReplayMode.REPLAY
+                        ? replay(key, target) : record(key, method, target, headers);
+                String location = response != null ? InterceptedResponse.redirectLocation(target, response) : null;
+                if (location == null) {
+                    return response;
+                }
+                response.body.close();
+                if (mainFrame) {
+                    return InterceptedResponse.redirectPage(location);
+                }
+                if (!isHttp(location)) {
+                    return null;
+                }
+                target = location;
+            }
+            return InterceptedResponse.text(508, "Too Many Redirects", "[debugger] 重定向次数过多: " + url);
+        } catch (IOException e) {
+            Log.w(TAG, "录制/回放失败: " + target, e);
+            return null;
+        }
+    }
+
+    public int recordedCount() throws IOException {
+        return store().size();
+    }
+
+    public void clear() throws IOException {
+        store().clear();
+    }
+
+    private InterceptedResponse replay(String key, String url) throws IOException {
+        ReplayStore.Entry entry = store().get(key);
+        if (entry == null) {
+            return InterceptedResponse.text(404, "Not Recorded", "[debugger] 回放未命中: " + url);
+        }
+        String contentType = InterceptedResponse.header(entry.headers, "Content-Type");
+        return new InterceptedResponse(entry.status, entry.reason,
+                InterceptedResponse.mimeTypeOf(contentType), InterceptedResponse.encodingOf(contentType),
+                entry.headers, entry.openBody());
+    }
+
+    private InterceptedResponse record(String key, String method, String url, Map<String, String> headers)
+            throws IOException {
+        InterceptedResponse response = fetcher.fetch(method, url, headers);
+        if (response == null) {
+            return null;
+        }
+        ReplayStore target = store();
+        if (response.status >= 300 && response.status < 400) {
+            response.body.close();
+            // 没有 Location 的 3xx（例如条件请求得到的 304）无法回放，交给 WebView
+            if (InterceptedResponse.redirectLocation(url, response) == null) {
+                return null;
+            }
+            target.put(key, response.status, response.reason, response.headers, new byte[0], 0);
+            return response;
+        }
+        InputStream tee = new RecordingInputStream(response.body, dir, (buffer, file) -> {
+            try {
+                if (file != null) {
+                    target.put(key, response.status, response.reason, response.headers, file);
+                } else {
+                    target.put(key, response.status, response.reason, response.headers, buffer.buf(), buffer.size());
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "保存录制结果失败: " + url, e);
+            }
+        });
+        return new InterceptedResponse(response.status, response.reason, response.mimeType,
+                response.encoding, response.headers, tee);
+    }
+
+    private synchronized ReplayStore store() throws IOException {
+        if (store == null) {
+            store = new ReplayStore(dir);
+            // 上次进程退出时没来得及写入的临时文件
+            File[] stale = dir.listFiles((parent, name) -> name.startsWith(SPILL_PREFIX) && name.endsWith(SPILL_SUFFIX));
+            if (stale != null) {
+                for (File file : stale) {
+                    file.delete();
+                }
+            }
+        }
+        return store;
+    }
+
+    private static boolean isHttp(String url) {
+        return url.startsWith("http://") || url.startsWith("https://");
+    }
+
+    // 忽略 URL 中的 fragment，WebView 请求时本来也不会带上
+    static String key(String method, String url) {
+        int hash = url.indexOf('#');
+        return method.toUpperCase(Locale.ROOT) + " " + (hash >= 0 ? url.substring(0, hash) : url);
+    }
+
+    // 可以直接访问内部数组的 ByteArrayOutputStream，避免 toByteArray 再复制一次
+    static final class ExposedBuffer extends ByteArrayOutputStream {
+        byte[] buf() {
+            return buf;
+        }
+    }
+
+    interface OnComplete {
+        // 响应体在 buffer 中，或者已转存到 file（此时 buffer 为 null）；回调返回后 file 会被删除
+        void onComplete(ExposedBuffer buffer, File file);
+    }
+
+    // 把读到的内容复制一份，完整读到结尾时回调；中途关闭、跳过或写临时文件失败则放弃
+    static final class RecordingInputStream extends FilterInputStream {
+        private final File spillDir;
+        private final OnComplete onComplete;
+        private ExposedBuffer buffer = new ExposedBuffer();
+        private File file;
+        private OutputStream fileOut;
+        private boolean recording = true;
+        private boolean done;
+
+        RecordingInputStream(InputStream in, File spillDir, OnComplete onComplete) {
+            super(in);
+            this.spillDir = spillDir;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                finish();
+            } else {
+                copy(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                finish();
+            } else {
+                copy(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的内容无法录制
+            abandon();
+            return super.skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!done) {
+                    abandon();
+                }
+            }
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (!recording) {
+                return;
+            }
+            try {
+                if (fileOut == null && buffer.size() + len > SPILL_BYTES) {
+                    file = File.createTempFile(SPILL_PREFIX, SPILL_SUFFIX, spillDir);
+                    fileOut = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+                    fileOut.write(buffer.buf(), 0, buffer.size());
+                    buffer = null;
+                }
+                if (fileOut != null) {
+                    fileOut.write(b, off, len);
+                } else {
+                    buffer.write(b, off, len);
+                }
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        private void finish() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (!recording) {
+                return;
+            }
+            try {
+                if (fileOut != null) {
+                    fileOut.close();
+                    fileOut = null;
+                }
+                onComplete.onComplete(buffer, file);
+            } catch (IOException e) {
+                // 临时文件写入失败，放弃这次录制
+            } finally {
+                abandon();
+            }
+        }
+
+        private void abandon() {
+            recording = false;
+            buffer = null;
+            if (fileOut != null) {
+                try {
+                    fileOut.close();
+                } catch (IOException e) {
+                    // 忽略
+                }
+                fileOut = null;
+            }
+            if (file != null) {
+                file.delete();
+                file = null;
+            }
+        }
+    }
+}
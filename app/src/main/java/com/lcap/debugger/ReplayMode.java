@@ -0,0 +1,46 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+
+// H5 资源的离线录制/回放模式
+public enum ReplayMode {
+    // 正常走网络
+    OFF("关闭"),
+    // 正常走网络，同时把响应保存到本地
+    RECORD("录制"),
+    // 只从本地回放，不访问网络
+    REPLAY("回放");
+
+    private static final String KEY_REPLAY_MODE = "replay_mode";
+
+    public final String label;
+
+    ReplayMode(String label) {
+        this.label = label;
+    }
+
+    public static ReplayMode load(Context context) {
+        String name = DebuggerSettings.prefs(context).getString(KEY_REPLAY_MODE, OFF.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return OFF;
+        }
+    }
+
+    public static void save(Context context, ReplayMode mode) {
+        DebuggerSettings.prefs(context)
+                .edit()
+                .putString(KEY_REPLAY_MODE, mode.name())
+                .apply();
+    }
+
+    public static String[] labels() {
+        ReplayMode[] values = values();
+        String[] labels = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            labels[i] = values[i].label;
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,393 @@
+package com.lcap.debugger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 录制回放用的响应存储：单个数据文件 + 内存映射的偏移索引。
+ *
+ * 数据文件 responses.dat 顺序追加记录：
+ * [魔数][key][状态码][原因短语][响应头...][body长度][body]，字符串均为 int 长度 + UTF-8。
+ * 索引文件 responses.idx 通过 mmap 映射，是一张开放寻址哈希表，每个槽位为
+ * (key 的 64 位哈希, 记录偏移)，查找只需一次探测加一次定位读取。索引损坏或丢失时扫描数据文件重建。
+ * 同一 key 再次写入时追加新记录并把槽位指向它，旧记录留在文件中直到 clear。
+ */
+public class ReplayStore implements Closeable {
+
+    private static final int RECORD_MAGIC = 0x4C435250;
+    private static final int INDEX_MAGIC = 0x4C435249;
+    private static final int INDEX_HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+    static final int INITIAL_SLOTS = 1024;
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    public static final class Entry {
+        public final int status;
+        public final String reason;
+        public final Map<String, String> headers;
+        public final long bodyLength;
+        private final FileChannel channel;
+        private final long bodyOffset;
+
+        Entry(int status, String reason, Map<String, String> headers,
+              FileChannel channel, long bodyOffset, long bodyLength) {
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+            this.channel = channel;
+            this.bodyOffset = bodyOffset;
+            this.bodyLength = bodyLength;
+        }
+
+        // 每次调用返回独立的流，使用定位读取，多个线程可以同时读
+        public InputStream openBody() {
+            return new RegionInputStream(channel, bodyOffset, bodyLength);
+        }
+    }
+
+    // 读取记录时解析出的头部信息
+    private static final class Header {
+        String key;
+        int status;
+        String reason;
+        Map<String, String> headers;
+        long bodyOffset;
+        long bodyLength;
+    }
+
+    private final File indexFile;
+    private final RandomAccessFile dataRaf;
+    private final FileChannel data;
+    private RandomAccessFile indexRaf;
+    private MappedByteBuffer index;
+    private int slots;
+    private int used;
+
+    public ReplayStore(File dir) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir);
+        }
+        indexFile = new File(dir, "responses.idx");
+        dataRaf = new RandomAccessFile(new File(dir, "responses.dat"), "rw");
+        data = dataRaf.getChannel();
+        openIndex();
+    }
+
+    public synchronized Entry get(String key) throws IOException {
+        long hash = hash(key);
+        int mask = slots - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            long slotHash = index.getLong(slotPosition(i));
+            if (slotHash == 0) {
+                return null;
+            }
+            if (slotHash == hash) {
+                Header header = readHeader(index.getLong(slotPosition(i) + 8));
+                if (header != null && key.equals(header.key)) {
+                    return new Entry(header.status, header.reason, header.headers, data,
+                            header.bodyOffset, header.bodyLength);
+                }
+            }
+        }
+    }
+
+    public synchronized void put(String key, int status, String reason, Map<String, String> headers,
+                                 byte[] body, int bodyLength) throws IOException {
+        byte[] header = encodeHeader(key, status, reason, headers, bodyLength);
+        long offset = data.size();
+        try {
+            writeFully(ByteBuffer.wrap(header), offset);
+            writeFully(ByteBuffer.wrap(body, 0, bodyLength), offset + header.length);
+        } catch (IOException e) {
+            // 去掉写了一半的记录，否则重建索引时会在这里截断后面的记录
+            data.truncate(offset);
+            throw e;
+        }
+        insert(key, hash(key), offset);
+    }
+
+    // 响应体已经在文件中（较大的响应录制时转存的临时文件），在通道之间直接复制，不经过 Java 堆
+    public synchronized void put(String key, int status, String reason, Map<String, String> headers,
+                                 File body) throws IOException {
+        try (FileInputStream in = new FileInputStream(body)) {
+            FileChannel source = in.getChannel();
+            long length = source.size();
+            byte[] header = encodeHeader(key, status, reason, headers, length);
+            long offset = data.size();
+            try {
+                writeFully(ByteBuffer.wrap(header), offset);
+                long position = offset + header.length;
+                long end = position + length;
+                while (position < end) {
+                    long n = data.transferFrom(source, position, end - position);
+                    if (n <= 0) {
+                        throw new EOFException("响应体文件被截断: " + body);
+                    }
+                    position += n;
+                }
+            } catch (IOException e) {
+                data.truncate(offset);
+                throw e;
+            }
+            insert(key, hash(key), offset);
+        }
+    }
+
+    private static byte[] encodeHeader(String key, int status, String reason, Map<String, String> headers,
+                                       long bodyLength) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(headerBytes);
+        out.writeInt(RECORD_MAGIC);
+        writeString(out, key);
+        out.writeInt(status);
+        writeString(out, reason == null ? "" : reason);
+        out.writeInt(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue());
+        }
+        out.writeLong(bodyLength);
+        out.flush();
+        return headerBytes.toByteArray();
+    }
+
+    public synchronized int size() {
+        return used;
+    }
+
+    public synchronized void clear() throws IOException {
+        data.truncate(0);
+        resetIndex(INITIAL_SLOTS);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        index.force();
+        indexRaf.close();
+        dataRaf.close();
+    }
+
+    private void insert(String key, long hash, long offset) throws IOException {
+        int mask = slots - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            int position = slotPosition(i);
+            long slotHash = index.getLong(position);
+            if (slotHash == 0) {
+                index.putLong(position, hash);
+                index.putLong(position + 8, offset);
+                used++;
+                index.putInt(8, used);
+                break;
+            }
+            if (slotHash == hash) {
+                Header existing = readHeader(index.getLong(position + 8));
+                if (existing == null || key.equals(existing.key)) {
+                    index.putLong(position + 8, offset);
+                    break;
+                }
+            }
+        }
+        // 负载因子超过 0.5 时扩容
+        if (used * 2 > slots) {
+            grow();
+        }
+    }
+
+    private void grow() throws IOException {
+        int oldSlots = slots;
+        long[] hashes = new long[used];
+        long[] offsets = new long[used];
+        int n = 0;
+        for (int i = 0; i < oldSlots; i++) {
+            long slotHash = index.getLong(slotPosition(i));
+            if (slotHash != 0) {
+                hashes[n] = slotHash;
+                offsets[n] = index.getLong(slotPosition(i) + 8);
+                n++;
+            }
+        }
+        resetIndex(oldSlots * 2);
+        int mask = slots - 1;
+        for (int j = 0; j < n; j++) {
+            int i = (int) hashes[j] & mask;
+            while (index.getLong(slotPosition(i)) != 0) {
+                i = (i + 1) & mask;
+            }
+            index.putLong(slotPosition(i), hashes[j]);
+            index.putLong(slotPosition(i) + 8, offsets[j]);
+        }
+        used = n;
+        index.putInt(8, used);
+    }
+
+    private void openIndex() throws IOException {
+        indexRaf = new RandomAccessFile(indexFile, "rw");
+        if (indexRaf.length() >= INDEX_HEADER_BYTES) {
+            int magic = indexRaf.readInt();
+            int storedSlots = indexRaf.readInt();
+            int storedUsed = indexRaf.readInt();
+            boolean valid = magic == INDEX_MAGIC
+                    && storedSlots >= INITIAL_SLOTS
+                    && Integer.bitCount(storedSlots) == 1
+                    && indexRaf.length() == INDEX_HEADER_BYTES + (long) storedSlots * SLOT_BYTES;
+            if (valid) {
+                slots = storedSlots;
+                used = storedUsed;
+                index = indexRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, indexRaf.length());
+                return;
+            }
+        }
+        rebuildIndex();
+    }
+
+    // 索引不可用时顺序扫描数据文件重建；遇到写了一半的记录则截断
+    private void rebuildIndex() throws IOException {
+        resetIndex(INITIAL_SLOTS);
+        long offset = 0;
+        long end = data.size();
+        while (offset < end) {
+            Header header = readHeader(offset);
+            if (header == null || header.bodyOffset + header.bodyLength > end) {
+                data.truncate(offset);
+                break;
+            }
+            insert(header.key, hash(header.key), offset);
+            offset = header.bodyOffset + header.bodyLength;
+        }
+    }
+
+    private void resetIndex(int slotCount) throws IOException {
+        slots = slotCount;
+        used = 0;
+        long length = INDEX_HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+        indexRaf.setLength(0);
+        indexRaf.setLength(length);
+        index = indexRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, slots);
+        index.putInt(8, used);
+    }
+
+    private Header readHeader(long offset) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new RegionInputStream(data, offset, data.size() - offset), 4096));
+        try {
+            if (in.readInt() != RECORD_MAGIC) {
+                return null;
+            }
+            long consumed = 4;
+            Header header = new Header();
+            byte[] key = readBytes(in);
+            header.key = new String(key, StandardCharsets.UTF_8);
+            header.status = in.readInt();
+            byte[] reason = readBytes(in);
+            header.reason = new String(reason, StandardCharsets.UTF_8);
+            consumed += 4 + key.length + 4 + 4 + reason.length;
+            int count = in.readInt();
+            consumed += 4;
+            header.headers = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = readBytes(in);
+                byte[] value = readBytes(in);
+                header.headers.put(new String(name, StandardCharsets.UTF_8), new String(value, StandardCharsets.UTF_8));
+                consumed += 8 + name.length + value.length;
+            }
+            header.bodyLength = in.readLong();
+            consumed += 8;
+            header.bodyOffset = offset + consumed;
+            return header;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += data.write(buffer, position);
+        }
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        // 损坏的记录可能读出离谱的长度，当作截断处理
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new EOFException("字段长度异常: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    // 64 位 FNV-1a；0 用来表示空槽位，因此映射为 1
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    // 文件中一段区域的输入流，使用 FileChannel 定位读取，不改变通道位置
+    private static final class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RegionInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - position);
+            int n = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (n <= 0) {
+                return -1;
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+}
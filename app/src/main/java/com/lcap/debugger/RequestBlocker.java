@@ -0,0 +1,97 @@
+package com.lcap.debugger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * shouldInterceptRequest 中的请求拦截环节，持有当前生效的 {@link RequestRules}。
+ *
+ * 规则文件在后台线程读取和编译，完成前不拦截任何请求，不拖慢启动；编译好的规则整体替换，
+ * WebView 的 IO 线程读到的总是完整的一份。规则文件不存在时等同于没有规则。
+ */
+public class RequestBlocker {
+
+    public interface Callback {
+        // 在加载线程上回调；失败时 error 不为 null，仍沿用之前的规则
+        void onLoaded(RequestRules rules, IOException error);
+    }
+
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "request-rules");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File file;
+    private final Executor executor;
+    private volatile RequestRules rules = RequestRules.empty();
+    private volatile boolean enabled = true;
+
+    public RequestBlocker(File file) {
+        this(file, EXECUTOR);
+    }
+
+    RequestBlocker(File file, Executor executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public RequestRules getRules() {
+        return rules;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // 在后台重新读取规则文件，callback 可以为 null
+    public void reload(Callback callback) {
+        executor.execute(() -> {
+            IOException error = null;
+            try {
+                rules = read(file);
+            } catch (IOException e) {
+                error = e;
+            }
+            if (callback != null) {
+                callback.onLoaded(rules, error);
+            }
+        });
+    }
+
+    /**
+     * 命中规则时返回拦截后的响应，否则返回 null 交给后续环节。在 WebView 的 IO 线程上调用。
+     */
+    public InterceptedResponse intercept(String url) {
+        if (!enabled) {
+            return null;
+        }
+        RequestRules current = rules;
+        RequestRules.Rule rule = current.match(url);
+        return rule != null ? current.respond(rule, url) : null;
+    }
+
+    static RequestRules read(File file) throws IOException {
+        if (!file.exists()) {
+            return RequestRules.empty();
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            return RequestRules.parse(reader, file.getParentFile());
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package com.lcap.debugger;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 编译后的请求拦截规则，用来在设备上屏蔽或替换第三方 SDK、统计脚本等资源。
+ *
+ * 规则文件每行一条：[动作] 模式 [参数]，# 或 ! 开头为注释。
+ * 动作为 block（默认，可省略）、stub（返回空内容，参数为 MIME 类型）或 file（返回本地文件，参数为相对规则文件的路径）。
+ * 模式有三种：
+ *   "||example.com" 或 "||example.com/sdk/" 匹配该域名及其子域名，可选路径前缀；
+ *   "/collect" 匹配任意域名下以此开头的路径；
+ *   其他文本按子串匹配整个网址。
+ * 另外兼容 hosts 文件的 "0.0.0.0 a.com b.com" 写法（跳过 localhost 等本机名称）。匹配不区分大小写，多条规则命中时以文件中靠前的为准。
+ *
+ * 域名规则编译为按标签倒序的字符 trie，沿主机名从后往前走一遍；路径前缀规则是一棵从路径起点走的 trie；
+ * 子串规则编译为 Aho-Corasick 自动机，沿 fail 边扫描一遍整个网址。
+ * 查询不分配对象，耗时只与网址长度有关，与规则条数无关。编译后只读，可以在多个线程上同时查询。
+ */
+public class RequestRules {
+
+    public enum Action {
+        BLOCK("block"),
+        STUB("stub"),
+        FILE("file");
+
+        public final String keyword;
+
+        Action(String keyword) {
+            this.keyword = keyword;
+        }
+
+        static Action of(String keyword) {
+            for (Action action : values()) {
+                if (action.keyword.equals(keyword)) {
+                    return action;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final class Rule {
+        // 在规则文件中的顺序，越小优先级越高
+        public final int index;
+        public final int line;
+        public final Action action;
+        // 规则文件中的模式原文
+        public final String pattern;
+        // stub 的 MIME 类型或 file 的本地文件，没有时为 null
+        public final String argument;
+        private final AtomicLong hits = new AtomicLong();
+
+        Rule(int index, int line, Action action, String pattern, String argument) {
+            this.index = index;
+            this.line = line;
+            this.action = action;
+            this.pattern = pattern;
+            this.argument = argument;
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        @Override
+        public String toString() {
+            return action.keyword + " " + pattern + (argument != null ? " " + argument : "");
+        }
+    }
+
+    // 1x1 透明 GIF，图片类资源的占位内容
+    private static final byte[] EMPTY_GIF = {
+            'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0, 0,
+            '!', (byte) 0xf9, 4, 1, 0, 0, 0, 0, ',', 0, 0, 0, 0, 1, 0, 1, 0, 0, 2, 2, 'D', 1, 0, ';',
+    };
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // 按字符排序，二分查找
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        Node fail;
+        // 以本节点结尾的规则中优先级最高的；子串规则的值在编译时并入 fail 链上的结果
+        int substringRule = Integer.MAX_VALUE;
+        int prefixRule = Integer.MAX_VALUE;
+        // 域名 trie：到这里为一个完整域名时的规则，带路径前缀的放在 paths 里
+        int domainRule = Integer.MAX_VALUE;
+        String[] paths;
+        int[] pathRules;
+
+        Node child(char c) {
+            char[] k = keys;
+            int low = 0;
+            int high = k.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char key = k[mid];
+                if (key < c) {
+                    low = mid + 1;
+                } else if (key > c) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            if (position >= 0) {
+                return children[position];
+            }
+            position = -position - 1;
+            Node node = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newKeys[position] = c;
+            newChildren[position] = node;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, keys.length - position);
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    private final List<Rule> rules;
+    private final List<String> errors;
+    private final File baseDir;
+    private final Node domainRoot = new Node();
+    private final Node prefixRoot = new Node();
+    private final Node substringRoot = new Node();
+    // 子串自动机根节点的 ASCII 转移，扫描时大部分字符停在根节点，省去二分查找
+    private final Node[] substringStart = new Node[128];
+    private boolean hasSubstringRules;
+
+    private RequestRules(List<Rule> rules, List<String> errors, File baseDir) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.errors = Collections.unmodifiableList(errors);
+        this.baseDir = baseDir;
+    }
+
+    public static RequestRules empty() {
+        return new RequestRules(new ArrayList<>(), new ArrayList<>(), null);
+    }
+
+    // 读取并编译规则文件，file 动作的路径相对 baseDir；无法解析的行跳过并记在 getErrors() 中
+    public static RequestRules parse(BufferedReader reader, File baseDir) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        RequestRules compiled = new RequestRules(rules, errors, baseDir);
+        String text;
+        int line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            String trimmed = text.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith("!")) {
+                continue;
+            }
+            String[] tokens = trimmed.split("\\s+");
+            if (isHostsLine(tokens)) {
+                compiled.addHosts(line, trimmed, tokens, rules, errors);
+                continue;
+            }
+            Rule rule = parseLine(rules.size(), line, tokens);
+            if (rule == null || !compiled.add(rule)) {
+                errors.add(line + ": " + trimmed);
+                continue;
+            }
+            rules.add(rule);
+        }
+        compiled.buildFailLinks();
+        return compiled;
+    }
+
+    // hosts 文件写法："0.0.0.0 a.com b.com # 注释"；系统 hosts 里的 255.255.255.255、::1、ff02::1 等行也按此解析
+    private static boolean isHostsLine(String[] tokens) {
+        return tokens.length >= 2 && (tokens[0].equals("0.0.0.0") || tokens[0].equals("127.0.0.1")
+                || tokens[0].equals("255.255.255.255") || tokens[0].matches("[0-9a-fA-F]*:[0-9a-fA-F:]*(%\\S+)?"));
+    }
+
+    // hosts 行的每个主机名各是一条拦截规则；本机名称跳过，否则会拦下调试本机服务的请求
+    private void addHosts(int line, String trimmed, String[] tokens, List<Rule> rules, List<String> errors) {
+        for (int i = 1; i < tokens.length && !tokens[i].startsWith("#"); i++) {
+            String host = tokens[i].toLowerCase(Locale.US);
+            if (isLocalName(host)) {
+                continue;
+            }
+            Rule rule = new Rule(rules.size(), line, Action.BLOCK, "||" + host, null);
+            if (host.indexOf('/') >= 0 || !add(rule)) {
+                errors.add(line + ": " + trimmed);
+                return;
+            }
+            rules.add(rule);
+        }
+    }
+
+    private static boolean isLocalName(String host) {
+        return host.equals("localhost") || host.equals("localhost.localdomain") || host.equals("broadcasthost")
+                || host.startsWith("ip6-");
+    }
+
+    private static Rule parseLine(int index, int line, String[] tokens) {
+        Action action = Action.of(tokens[0].toLowerCase(Locale.US));
+        int next = action != null ? 1 : 0;
+        if (action == null) {
+            action = Action.BLOCK;
+        }
+        if (tokens.length <= next || tokens.length > next + 2) {
+            return null;
+        }
+        String argument = tokens.length > next + 1 ? tokens[next + 1] : null;
+        // file 必须带路径，block 不带参数，stub 的 MIME 类型可选
+        if (action == Action.FILE ? argument == null : action == Action.BLOCK && argument != null) {
+            return null;
+        }
+        return new Rule(index, line, action, tokens[next], argument);
+    }
+
+    // 把规则加进对应的 trie，模式无效时返回 false
+    private boolean add(Rule rule) {
+        String pattern = rule.pattern.toLowerCase(Locale.US);
+        if (pattern.startsWith("||")) {
+            int slash = pattern.indexOf('/', 2);
+            String domain = slash >= 0 ? pattern.substring(2, slash) : pattern.substring(2);
+            if (domain.startsWith("*.")) {
+                domain = domain.substring(2);
+            }
+            if (domain.isEmpty() || domain.startsWith(".") || domain.endsWith(".")) {
+                return false;
+            }
+            Node node = domainRoot;
+            for (int i = domain.length() - 1; i >= 0; i--) {
+                node = node.addChild(domain.charAt(i));
+            }
+            if (slash < 0) {
+                node.domainRule = Math.min(node.domainRule, rule.index);
+            } else {
+                int count = node.paths == null ? 0 : node.paths.length;
+                node.paths = node.paths == null ? new String[1] : Arrays.copyOf(node.paths, count + 1);
+                node.pathRules = node.pathRules == null ? new int[1] : Arrays.copyOf(node.pathRules, count + 1);
+                node.paths[count] = pattern.substring(slash);
+                node.pathRules[count] = rule.index;
+            }
+            return true;
+        }
+        if (pattern.length() < 2 && pattern.startsWith("/")) {
+            // 单独一个 "/" 会匹配所有请求
+            return false;
+        }
+        boolean prefix = pattern.startsWith("/");
+        Node node = prefix ? prefixRoot : substringRoot;
+        for (int i = 0; i < pattern.length(); i++) {
+            node = node.addChild(pattern.charAt(i));
+        }
+        if (prefix) {
+            node.prefixRule = Math.min(node.prefixRule, rule.index);
+        } else {
+            node.substringRule = Math.min(node.substringRule, rule.index);
+            hasSubstringRules = true;
+        }
+        return true;
+    }
+
+    // 按层序计算 fail 指针，同时把 fail 链上的子串规则并入各节点
+    private void buildFailLinks() {
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        substringRoot.fail = substringRoot;
+        for (int i = 0; i < substringRoot.keys.length; i++) {
+            Node child = substringRoot.children[i];
+            child.fail = substringRoot;
+            if (substringRoot.keys[i] < substringStart.length) {
+                substringStart[substringRoot.keys[i]] = child;
+            }
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.keys.length; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                Node target;
+                while ((target = fail.child(c)) == null && fail != substringRoot) {
+                    fail = fail.fail;
+                }
+                child.fail = target != null ? target : substringRoot;
+                child.substringRule = Math.min(child.substringRule, child.fail.substringRule);
+                queue.add(child);
+            }
+        }
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    // 规则条数、无法解析的行数和命中最多的 top 条规则
+    public String describe(int top) {
+        StringBuilder text = new StringBuilder();
+        text.append(rules.size()).append(" 条规则");
+        if (!errors.isEmpty()) {
+            text.append("，").append(errors.size()).append(" 行无法解析（第 ").append(errors.get(0)).append("）");
+        }
+        List<Rule> sorted = new ArrayList<>(rules);
+        Collections.sort(sorted, (a, b) -> Long.compare(b.getHits(), a.getHits()));
+        for (int i = 0; i < Math.min(top, sorted.size()) && sorted.get(i).getHits() > 0; i++) {
+            text.append(i == 0 ? "\n命中最多：" : "").append("\n").append(sorted.get(i).getHits())
+                    .append("  ").append(sorted.get(i));
+        }
+        return text.toString();
+    }
+
+    // 查找命中的规则并计数，没有命中时返回 null
+    public Rule match(String url) {
+        int index = find(url);
+        if (index == Integer.MAX_VALUE) {
+            return null;
+        }
+        Rule rule = rules.get(index);
+        rule.hits.incrementAndGet();
+        return rule;
+    }
+
+    // 返回命中规则的 index，没有命中时返回 Integer.MAX_VALUE
+    int find(String url) {
+        int length = url.length();
+        int schemeEnd = url.indexOf("://");
+        int hostStart = schemeEnd < 0 ? 0 : schemeEnd + 3;
+        int hostEnd = hostStart;
+        int pathStart = length;
+        while (hostEnd < length) {
+            char c = url.charAt(hostEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                pathStart = hostEnd;
+                break;
+            }
+            if (c == '@') {
+                hostStart = hostEnd + 1;
+            }
+            hostEnd++;
+        }
+        // 去掉端口
+        for (int i = hostEnd - 1; i > hostStart; i--) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                hostEnd = i;
+                break;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+        }
+
+        int best = Integer.MAX_VALUE;
+        Node node = domainRoot;
+        for (int i = hostEnd - 1; i >= hostStart && node != null; i--) {
+            node = node.child(lower(url.charAt(i)));
+            if (node != null && (i == hostStart || url.charAt(i - 1) == '.')) {
+                best = Math.min(best, domainMatch(node, url, pathStart));
+            }
+        }
+
+        node = prefixRoot;
+        for (int i = pathStart; i < length && node != null; i++) {
+            node = node.child(lower(url.charAt(i)));
+            if (node != null && node.prefixRule < best) {
+                best = node.prefixRule;
+            }
+        }
+
+        if (hasSubstringRules) {
+            node = substringRoot;
+            for (int i = 0; i < length; i++) {
+                char c = lower(url.charAt(i));
+                Node next;
+                while (true) {
+                    if (node == substringRoot) {
+                        next = c < substringStart.length ? substringStart[c] : substringRoot.child(c);
+                        break;
+                    }
+                    next = node.child(c);
+                    if (next != null) {
+                        break;
+                    }
+                    node = node.fail;
+                }
+                node = next != null ? next : substringRoot;
+                if (node.substringRule < best) {
+                    best = node.substringRule;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int domainMatch(Node node, String url, int pathStart) {
+        int best = node.domainRule;
+        if (node.paths != null) {
+            for (int i = 0; i < node.paths.length; i++) {
+                if (node.pathRules[i] < best && url.regionMatches(true, pathStart, node.paths[i], 0, node.paths[i].length())) {
+                    best = node.pathRules[i];
+                }
+            }
+        }
+        return best;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * 按规则的动作生成响应。block 返回 403，WebView 会按加载失败处理并触发页面的 onerror；
+     * stub 返回空内容（图片为 1x1 透明 GIF）；file 返回本地文件，不存在时返回 404。
+     */
+    public InterceptedResponse respond(Rule rule, String url) {
+        switch (rule.action) {
+            case STUB: {
+                String mimeType = rule.argument != null ? rule.argument : guessMimeType(url);
+                byte[] body = mimeType.startsWith("image/") ? EMPTY_GIF : new byte[0];
+                return new InterceptedResponse(200, "OK", mimeType.startsWith("image/") ? "image/gif" : mimeType,
+                        "utf-8", noStore(), new ByteArrayInputStream(body));
+            }
+            case FILE: {
+                File file = new File(baseDir, rule.argument);
+                try {
+                    InputStream in = new FileInputStream(file);
+                    return new InterceptedResponse(200, "OK", guessMimeType(file.getName()), "utf-8", noStore(), in);
+                } catch (FileNotFoundException e) {
+                    return InterceptedResponse.text(404, "Not Found", "[debugger] 拦截规则的本地文件不存在: " + file);
+                }
+            }
+            default:
+                return InterceptedResponse.text(403, "Blocked", "[debugger] 已被拦截规则屏蔽: " + rule);
+        }
+    }
+
+    private static Map<String, String> noStore() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Cache-Control", "no-store");
+        headers.put("Access-Control-Allow-Origin", "*");
+        return headers;
+    }
+
+    // 按扩展名猜测 MIME 类型，忽略查询参数
+    static String guessMimeType(String url) {
+        int end = url.length();
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        String path = url.substring(0, end).toLowerCase(Locale.US);
+        String extension = path.substring(path.lastIndexOf('.') + 1);
+        switch (extension) {
+            case "js":
+            case "mjs":
+                return "application/javascript";
+            case "css":
+                return "text/css";
+            case "json":
+                return "application/json";
+            case "html":
+            case "htm":
+                return "text/html";
+            case "gif":
+            case "png":
+            case "jpg":
+            case "jpeg":
+            case "webp":
+                return "image/" + (extension.equals("jpg") ? "jpeg" : extension);
+            case "ico":
+                return "image/x-icon";
+            case "svg":
+                return "image/svg+xml";
+            default:
+                return "text/plain";
+        }
+    }
+}
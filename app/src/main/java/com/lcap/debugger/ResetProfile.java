@@ -0,0 +1,54 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+
+// 每次加载前WebView的重置策略
+public enum ResetProfile {
+    // 清除缓存、Cookie、历史、表单等全部状态（原有行为）
+    FULL_COLD("完全冷启动", true, true),
+    // 保留HTTP缓存，只清除会话相关状态
+    KEEP_HTTP_CACHE("保留HTTP缓存", false, true),
+    // 只清除目标页面所在域名的Cookie
+    ORIGIN_COOKIES("仅清除当前域名Cookie", false, true),
+    // 不做任何清理
+    NONE("不重置", false, false);
+
+    private static final String KEY_RESET_PROFILE = "reset_profile";
+
+    public final String label;
+    // 重置后主文档不会命中 WebView 的 HTTP 缓存
+    public final boolean clearsHttpCache;
+    // 重置后目标网址的 Cookie 已被清除
+    public final boolean clearsTargetCookies;
+
+    ResetProfile(String label, boolean clearsHttpCache, boolean clearsTargetCookies) {
+        this.label = label;
+        this.clearsHttpCache = clearsHttpCache;
+        this.clearsTargetCookies = clearsTargetCookies;
+    }
+
+    public static ResetProfile load(Context context) {
+        String name = DebuggerSettings.prefs(context).getString(KEY_RESET_PROFILE, FULL_COLD.name());
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return FULL_COLD;
+        }
+    }
+
+    public static void save(Context context, ResetProfile profile) {
+        DebuggerSettings.prefs(context)
+                .edit()
+                .putString(KEY_RESET_PROFILE, profile.name())
+                .apply();
+    }
+
+    public static String[] labels() {
+        ResetProfile[] values = values();
+        String[] labels = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            labels[i] = values[i].label;
+        }
+        return labels;
+    }
+}
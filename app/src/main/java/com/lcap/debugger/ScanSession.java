@@ -0,0 +1,81 @@
+package com.lcap.debugger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 一次连续扫码的状态：去重后的扫码结果（按扫到的先后排列）和性能统计。
+ *
+ * 解码线程每处理完一帧调用 {@link #onFrame}，用来计算每秒解码帧数；
+ * 扫到内容时调用 {@link #onResult}，统计解码完成到结果在主线程被接收的耗时，
+ * 以及相邻两个新二维码之间的间隔（沿着一张二维码表逐个扫描时每个码的实际耗时）。
+ */
+public class ScanSession {
+
+    private final long startMs;
+    private final LinkedHashSet<String> codes = new LinkedHashSet<>();
+    private int frames;
+    private int duplicates;
+    private long lastAcceptedMs;
+    private double totalHandoffMs;
+    private double totalIntervalMs;
+
+    public ScanSession(long startMs) {
+        this.startMs = startMs;
+        this.lastAcceptedMs = startMs;
+    }
+
+    public synchronized void onFrame() {
+        frames++;
+    }
+
+    // 返回 true 表示是本次会话中新扫到的内容
+    public synchronized boolean onResult(String text, long decodedAtMs, long nowMs) {
+        if (text == null || text.trim().isEmpty()) {
+            return false;
+        }
+        if (!codes.add(text.trim())) {
+            duplicates++;
+            return false;
+        }
+        totalHandoffMs += Math.max(0, nowMs - decodedAtMs);
+        totalIntervalMs += nowMs - lastAcceptedMs;
+        lastAcceptedMs = nowMs;
+        return true;
+    }
+
+    public synchronized List<String> codes() {
+        return new ArrayList<>(codes);
+    }
+
+    public synchronized int size() {
+        return codes.size();
+    }
+
+    public synchronized int duplicates() {
+        return duplicates;
+    }
+
+    public synchronized double framesPerSecond(long nowMs) {
+        long elapsed = nowMs - startMs;
+        return elapsed <= 0 ? 0 : frames * 1000.0 / elapsed;
+    }
+
+    // 解码完成到主线程接收结果的平均耗时，还没有结果时为 NaN
+    public synchronized double averageHandoffMs() {
+        return codes.isEmpty() ? Double.NaN : totalHandoffMs / codes.size();
+    }
+
+    // 平均每个新二维码的耗时（从会话开始或上一个新码算起），还没有结果时为 NaN
+    public synchronized double averageIntervalMs() {
+        return codes.isEmpty() ? Double.NaN : totalIntervalMs / codes.size();
+    }
+
+    public String summary(long nowMs) {
+        return String.format(Locale.getDefault(), "已扫描 %d 个（重复 %d 次） · %.1f 帧/秒 · 平均每个 %.0f ms",
+                size(), duplicates(), framesPerSecond(nowMs),
+                size() == 0 ? 0 : averageIntervalMs());
+    }
+}
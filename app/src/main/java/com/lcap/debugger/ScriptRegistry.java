@@ -0,0 +1,129 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+import android.util.Log;
+import android.webkit.WebView;
+
+import androidx.webkit.ScriptHandler;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 把 {@link InstrumentationScripts} 注册到各个 WebView，由 WebViewPool 持有，只在主线程上使用。
+ *
+ * 内核支持 DOCUMENT_START_SCRIPT 时，每个 WebView 创建后注册一次，脚本在每个匹配来源的文档开始时、
+ * 页面自己的脚本之前执行，导航时不再传输脚本；启用状态或来源规则变化时替换已注册的脚本。
+ * 旧内核上退回在 onPageStarted/onPageFinished 中 evaluateJavascript 的方式（{@link #injectFallback}）。
+ * 启用状态和来源规则保存在 DebuggerSettings 中。
+ */
+public class ScriptRegistry {
+
+    private static final String TAG = "ScriptRegistry";
+    private static final String KEY_DISABLED_SCRIPTS = "disabled_scripts";
+    private static final String KEY_ORIGIN_RULES = "script_origin_rules";
+
+    private final SharedPreferences prefs;
+    private final InstrumentationScripts scripts = InstrumentationScripts.createDefault();
+    // 查询需要加载 WebView 内核，推迟到第一次创建 WebView 时
+    private Boolean documentStartSupported;
+    // 已安装的 WebView；旧内核上值为 null
+    private final Map<WebView, ScriptHandler> installed = new WeakHashMap<>();
+
+    public ScriptRegistry(Context context) {
+        prefs = DebuggerSettings.prefs(context);
+        for (String id : prefs.getString(KEY_DISABLED_SCRIPTS, "").split(",")) {
+            scripts.setEnabled(id, false);
+        }
+        try {
+            scripts.setOriginRules(new LinkedHashSet<>(Arrays.asList(prefs.getString(KEY_ORIGIN_RULES, "").split(","))));
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "忽略无效的来源规则", e);
+        }
+    }
+
+    public boolean isDocumentStartSupported() {
+        if (documentStartSupported == null) {
+            documentStartSupported = WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT);
+            Log.d(TAG, documentStartSupported ? "使用文档开始脚本注入" : "内核不支持文档开始脚本，按导航注入");
+        }
+        return documentStartSupported;
+    }
+
+    public InstrumentationScripts getScripts() {
+        return scripts;
+    }
+
+    // WebView 创建后、加载任何页面之前调用
+    public void install(WebView view) {
+        installed.put(view, isDocumentStartSupported() ? register(view) : null);
+    }
+
+    // WebView 销毁前调用
+    public void uninstall(WebView view) {
+        ScriptHandler handler = installed.remove(view);
+        if (handler != null) {
+            handler.remove();
+        }
+    }
+
+    // 旧内核的退路：每次导航的开始和结束时注入一次（脚本自身防重复）；支持文档开始脚本时什么也不做
+    public void injectFallback(WebView view, String url) {
+        if (isDocumentStartSupported() || !scripts.matchesOrigin(url)) {
+            return;
+        }
+        view.evaluateJavascript(scripts.compose(), null);
+    }
+
+    // 运行时启用或停用某个脚本：当前页面立即生效，之后的导航按新的组合注入
+    public void setEnabled(String id, boolean enabled) {
+        if (!scripts.setEnabled(id, enabled)) {
+            return;
+        }
+        List<String> disabled = new ArrayList<>();
+        for (InstrumentationScripts.Script script : scripts.getScripts()) {
+            if (!script.isEnabled()) {
+                disabled.add(script.id);
+            }
+        }
+        prefs.edit().putString(KEY_DISABLED_SCRIPTS, TextUtils.join(",", disabled)).apply();
+        String toggle = scripts.toggleScript(id, enabled);
+        for (WebView view : new ArrayList<>(installed.keySet())) {
+            if (scripts.matchesOrigin(view.getUrl())) {
+                view.evaluateJavascript(toggle, null);
+            }
+        }
+        reregister();
+    }
+
+    // 修改注入范围，从下一次导航开始生效；规则无效时抛出 IllegalArgumentException
+    public void setOriginRules(String rules) {
+        scripts.setOriginRules(new LinkedHashSet<>(Arrays.asList(rules.split("[,\\s]+"))));
+        prefs.edit().putString(KEY_ORIGIN_RULES, TextUtils.join(",", scripts.getOriginRules())).apply();
+        reregister();
+    }
+
+    private void reregister() {
+        if (!isDocumentStartSupported()) {
+            return;
+        }
+        for (Map.Entry<WebView, ScriptHandler> entry : installed.entrySet()) {
+            if (entry.getValue() != null) {
+                entry.getValue().remove();
+            }
+            entry.setValue(register(entry.getKey()));
+        }
+    }
+
+    private ScriptHandler register(WebView view) {
+        return WebViewCompat.addDocumentStartJavaScript(view, scripts.compose(), scripts.getOriginRules());
+    }
+}
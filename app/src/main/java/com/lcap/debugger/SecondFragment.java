@@ -1,7 +1,5 @@
 package com.lcap.debugger;
 
-import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -12,21 +10,21 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.lcap.debugger.databinding.FragmentSecondBinding;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class SecondFragment extends Fragment {
 
     private FragmentSecondBinding binding;
-    private static final String PREFS_NAME = "webview_history";
-    private static final String HISTORY_KEY = "url_history";
+    // 历史页面最多展示的条数
+    private static final int HISTORY_DISPLAY_LIMIT = 1000;
     private HistoryAdapter historyAdapter;
-    private List<String> historyList;
 
     @Override
     public View onCreateView(
@@ -55,8 +53,7 @@ public class SecondFragment extends Fragment {
     }
 
     private void setupRecyclerView() {
-        historyList = new ArrayList<>();
-        historyAdapter = new HistoryAdapter(historyList, this::onHistoryItemClick);
+        historyAdapter = new HistoryAdapter(this::onHistoryItemClick);
         
         binding.historyRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.historyRecyclerView.setAdapter(historyAdapter);
@@ -78,29 +75,18 @@ public class SecondFragment extends Fragment {
     }
 
     private void loadHistory() {
-        SharedPreferences prefs = requireContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String historyString = prefs.getString(HISTORY_KEY, "");
-        
-        historyList.clear();
-        
-        if (historyString.isEmpty()) {
-            showEmptyState();
-            return;
-        }
-        
-        String[] urls = historyString.split("\n");
-        
-        for (String url : urls) {
-            if (!url.trim().isEmpty()) {
-                historyList.add(url.trim());
+        HistoryStore.get(requireContext()).loadRecent(HISTORY_DISPLAY_LIMIT, entries -> {
+            // 页面可能在后台读取期间已被销毁
+            if (binding == null) {
+                return;
             }
-        }
-        
-        if (historyList.isEmpty()) {
-            showEmptyState();
-        } else {
-            showHistoryList();
-        }
+
+            if (entries.isEmpty()) {
+                showEmptyState();
+            } else {
+                showHistoryList(entries);
+            }
+        });
     }
 
     private void showEmptyState() {
@@ -109,23 +95,35 @@ public class SecondFragment extends Fragment {
         binding.textviewSecond.setText("暂无历史记录\n\n开始浏览网页后，历史记录会显示在这里");
     }
 
-    private void showHistoryList() {
+    private void showHistoryList(List<HistoryStore.Entry> entries) {
         binding.historyRecyclerView.setVisibility(View.VISIBLE);
         binding.textviewSecond.setVisibility(View.GONE);
-        historyAdapter.notifyDataSetChanged();
+        historyAdapter.submitList(entries);
     }
 
-    // 历史记录适配器
-    private static class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHolder> {
-        private final List<String> historyList;
+    // 同一URL视为同一条目，访问时间或次数变化时才重新绑定
+    private static final DiffUtil.ItemCallback<HistoryStore.Entry> HISTORY_DIFF = new DiffUtil.ItemCallback<HistoryStore.Entry>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull HistoryStore.Entry oldItem, @NonNull HistoryStore.Entry newItem) {
+            return oldItem.url.equals(newItem.url);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull HistoryStore.Entry oldItem, @NonNull HistoryStore.Entry newItem) {
+            return oldItem.lastVisited == newItem.lastVisited && oldItem.visitCount == newItem.visitCount;
+        }
+    };
+
+    // 历史记录适配器，列表更新由 DiffUtil 在后台线程计算差异
+    private static class HistoryAdapter extends ListAdapter<HistoryStore.Entry, HistoryAdapter.ViewHolder> {
         private final OnItemClickListener onItemClickListener;
 
         public interface OnItemClickListener {
             void onItemClick(String url);
         }
 
-        public HistoryAdapter(List<String> historyList, OnItemClickListener onItemClickListener) {
-            this.historyList = historyList;
+        public HistoryAdapter(OnItemClickListener onItemClickListener) {
+            super(HISTORY_DIFF);
             this.onItemClickListener = onItemClickListener;
         }
 
@@ -139,18 +137,13 @@ public class SecondFragment extends Fragment {
 
         @Override
         public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-            String url = historyList.get(position);
+            String url = getItem(position).url;
             holder.urlNumber.setText(String.valueOf(position + 1));
             holder.urlText.setText(url);
             
             holder.itemView.setOnClickListener(v -> onItemClickListener.onItemClick(url));
         }
 
-        @Override
-        public int getItemCount() {
-            return historyList.size();
-        }
-
         static class ViewHolder extends RecyclerView.ViewHolder {
             TextView urlNumber;
             TextView urlText;
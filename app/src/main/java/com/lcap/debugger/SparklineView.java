@@ -0,0 +1,81 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+// 内存曲线：PSS 与 JS 堆各一条折线，分别按自身的最小/最大值缩放；数组和 Path 都复用，刷新时不产生对象
+public class SparklineView extends View {
+
+    // 展示最近的样本数，按 1 秒采样约两分钟
+    private static final int POINTS = 120;
+    private static final int[] SERIES = {MemoryRecorder.SERIES_PSS, MemoryRecorder.SERIES_JS};
+    private static final int[] COLORS = {0xFF4CAF50, 0xFFFF9800};
+
+    private final long[][] values = new long[SERIES.length][POINTS];
+    private final int[] counts = new int[SERIES.length];
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+
+    public SparklineView(Context context) {
+        this(context, null);
+    }
+
+    public SparklineView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(getResources().getDisplayMetrics().density * 1.5f);
+    }
+
+    public void update(MemoryRecorder recorder) {
+        for (int i = 0; i < SERIES.length; i++) {
+            counts[i] = recorder.copySeries(SERIES[i], values[i]);
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float width = getWidth();
+        float height = getHeight();
+        for (int i = 0; i < SERIES.length; i++) {
+            long[] series = values[i];
+            int count = counts[i];
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int j = 0; j < count; j++) {
+                if (series[j] != MemoryRecorder.UNKNOWN) {
+                    min = Math.min(min, series[j]);
+                    max = Math.max(max, series[j]);
+                }
+            }
+            if (min > max) {
+                continue;
+            }
+            float range = Math.max(1, max - min);
+            path.rewind();
+            boolean started = false;
+            for (int j = 0; j < count; j++) {
+                if (series[j] == MemoryRecorder.UNKNOWN) {
+                    started = false;
+                    continue;
+                }
+                // 最新的样本贴着右边
+                float x = width * (POINTS - count + j) / (POINTS - 1);
+                float y = height - 1 - (height - 2) * (series[j] - min) / range;
+                if (started) {
+                    path.lineTo(x, y);
+                } else {
+                    path.moveTo(x, y);
+                    started = true;
+                }
+            }
+            linePaint.setColor(COLORS[i]);
+            canvas.drawPath(path, linePaint);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动耗时记录：从进程创建到首次页面加载完成。
+ *
+ * 每个阶段同时写入 android.os.Trace 区段（Perfetto/systrace 中可见）和进程内的记录，同名阶段只记录第一次；
+ * 里程碑（首帧、首次页面开始/可见/完成）同样只记录第一次。首帧和首次页面加载完成时把报告写到
+ * 应用外部存储的 startup/startup_report.json，报告中带有版本号，可以按版本收集冷启动耗时。
+ * 只在主线程上调用。
+ */
+public final class StartupTrace {
+
+    private static final String TAG = "StartupTrace";
+    public static final String REPORT_FILE = "startup_report.json";
+
+    public static final String MILESTONE_FIRST_FRAME = "firstFrame";
+    public static final String MILESTONE_LOAD_REQUESTED = "firstLoadRequested";
+    public static final String MILESTONE_PAGE_STARTED = "firstPageStarted";
+    public static final String MILESTONE_PAGE_VISIBLE = "firstPageVisible";
+    public static final String MILESTONE_PAGE_FINISHED = "firstPageFinished";
+
+    // 相对进程创建的毫秒数
+    public static final class Phase {
+        public final String name;
+        public final double startMs;
+        public final double durationMs;
+
+        Phase(String name, double startMs, double durationMs) {
+            this.name = name;
+            this.startMs = startMs;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private static final StartupTrace INSTANCE = new StartupTrace();
+
+    private long originNanos;
+    private final Map<String, Long> open = new HashMap<>();
+    private final LinkedHashMap<String, Phase> phases = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Double> milestones = new LinkedHashMap<>();
+
+    private StartupTrace() {
+        reset();
+    }
+
+    public static StartupTrace get() {
+        return INSTANCE;
+    }
+
+    // 重新以进程创建时间为起点，测试中每个用例前调用
+    synchronized void reset() {
+        originNanos = Process.getStartElapsedRealtime() * 1_000_000L;
+        if (originNanos <= 0 || originNanos > SystemClock.elapsedRealtimeNanos()) {
+            originNanos = SystemClock.elapsedRealtimeNanos();
+        }
+        open.clear();
+        phases.clear();
+        milestones.clear();
+    }
+
+    public synchronized void begin(String name) {
+        Trace.beginSection(name);
+        open.put(name, SystemClock.elapsedRealtimeNanos());
+    }
+
+    public synchronized void end(String name) {
+        Trace.endSection();
+        Long start = open.remove(name);
+        if (start != null && !phases.containsKey(name)) {
+            long now = SystemClock.elapsedRealtimeNanos();
+            phases.put(name, new Phase(name, toMs(start - originNanos), toMs(now - start)));
+        }
+    }
+
+    public synchronized void mark(String milestone) {
+        if (!milestones.containsKey(milestone)) {
+            milestones.put(milestone, toMs(SystemClock.elapsedRealtimeNanos() - originNanos));
+        }
+    }
+
+    public synchronized Phase phase(String name) {
+        return phases.get(name);
+    }
+
+    public synchronized List<Phase> phases() {
+        return new ArrayList<>(phases.values());
+    }
+
+    // 未记录时返回 NaN
+    public synchronized double milestone(String name) {
+        Double value = milestones.get(name);
+        return value == null ? Double.NaN : value;
+    }
+
+    // 在后台线程写出当前的报告，覆盖上一次
+    public void writeReport(Context context) {
+        String version = versionName(context);
+        List<Phase> phaseCopy;
+        Map<String, Double> milestoneCopy;
+        synchronized (this) {
+            phaseCopy = new ArrayList<>(phases.values());
+            milestoneCopy = new LinkedHashMap<>(milestones);
+        }
+        Exports.writeAsync(context, "startup", REPORT_FILE,
+                writer -> writeJson(writer, version, phaseCopy, milestoneCopy),
+                file -> Log.d(TAG, "启动报告: " + (file != null ? file.getAbsolutePath() : "写入失败")));
+    }
+
+    static void writeJson(Writer writer, String version, List<Phase> phases, Map<String, Double> milestones)
+            throws IOException {
+        JsonStreamWriter json = new JsonStreamWriter(writer);
+        json.beginObject();
+        json.name("versionName").value(version);
+        json.name("coldStartMs").value(round(milestones.getOrDefault(MILESTONE_FIRST_FRAME, Double.NaN)));
+        json.name("milestones").beginObject();
+        for (Map.Entry<String, Double> entry : milestones.entrySet()) {
+            json.name(entry.getKey()).value(round(entry.getValue()));
+        }
+        json.endObject();
+        json.name("phases").beginArray();
+        for (Phase phase : phases) {
+            json.beginObject()
+                    .name("name").value(phase.name)
+                    .name("startMs").value(round(phase.startMs))
+                    .name("durationMs").value(round(phase.durationMs))
+                    .endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    static String versionName(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double round(double value) {
+        if (Double.isNaN(value)) {
+            return value;
+        }
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.lcap.debugger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 标签页的最近使用顺序，决定哪些标签页保留活动的 WebView。
+ *
+ * 只记录标签页 id，不持有 WebView，纯 Java 实现便于测试。
+ * 每次选中标签页时调用 {@link #touch}，超出活动上限时从最久未使用的开始淘汰，当前标签页不会被淘汰。
+ */
+public class TabLru {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    // 迭代顺序即使用先后顺序，最久未使用的在前
+    private final LinkedHashSet<Integer> order = new LinkedHashSet<>();
+
+    /**
+     * 按设备内存决定同时保留的活动 WebView 数量。
+     * 每个 WebView 渲染进程常驻内存在 100MB 以上，2~3GB 的设备只保留两个，保证两个标签页之间来回切换不用重建。
+     */
+    public static int maxLiveTabs(long totalMemBytes, boolean lowRamDevice) {
+        if (lowRamDevice || totalMemBytes < 2 * GB) {
+            return 1;
+        }
+        if (totalMemBytes < 4 * GB) {
+            return 2;
+        }
+        if (totalMemBytes < 6 * GB) {
+            return 3;
+        }
+        return 4;
+    }
+
+    public void touch(int id) {
+        order.remove(id);
+        order.add(id);
+    }
+
+    public void remove(int id) {
+        order.remove(id);
+    }
+
+    public int size() {
+        return order.size();
+    }
+
+    // 最近使用的标签页 id，没有时返回 -1
+    public int mostRecent() {
+        int last = -1;
+        for (int id : order) {
+            last = id;
+        }
+        return last;
+    }
+
+    /**
+     * 需要淘汰的活动标签页，最久未使用的在前，使剩余的活动标签页不超过 maxLive。
+     * pinnedId 为当前标签页，始终保留；maxLive 为 0 时除它以外全部淘汰。
+     */
+    public List<Integer> evictionCandidates(Set<Integer> live, int maxLive, int pinnedId) {
+        List<Integer> result = new ArrayList<>();
+        int excess = live.size() - Math.max(maxLive, live.contains(pinnedId) ? 1 : 0);
+        Iterator<Integer> iterator = order.iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            int id = iterator.next();
+            if (id != pinnedId && live.contains(id)) {
+                result.add(id);
+                excess--;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
+
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.lcap.debugger.databinding.ItemTabBinding;
+
+import java.util.ArrayList;
+
+/**
+ * 标签页列表：展示每个标签页的缩略图、标题和是否仍保留活动的 WebView，
+ * 点击切换，✕ 关闭，底部按钮新建标签页。
+ */
+public class TabSwitcher {
+
+    public interface Listener {
+        void onSelect(WebViewPool.Tab tab);
+
+        void onClose(WebViewPool.Tab tab);
+
+        void onNewTab();
+    }
+
+    private final Context context;
+    private final WebViewPool pool;
+    private final Listener listener;
+
+    public TabSwitcher(Context context, WebViewPool pool, Listener listener) {
+        this.context = context;
+        this.pool = pool;
+        this.listener = listener;
+    }
+
+    public void show() {
+        TabAdapter adapter = new TabAdapter();
+        adapter.addAll(pool.getTabs());
+        AlertDialog dialog = new MaterialAlertDialogBuilder(context)
+                .setTitle("标签页（活动 " + liveCount() + "/" + pool.getMaxLiveTabs() + "）")
+                .setAdapter(adapter, (d, which) -> listener.onSelect(adapter.getItem(which)))
+                .setPositiveButton("新建标签页", (d, which) -> listener.onNewTab())
+                .setNegativeButton("关闭", null)
+                .create();
+        adapter.dialog = dialog;
+        dialog.show();
+    }
+
+    private int liveCount() {
+        int live = 0;
+        for (WebViewPool.Tab tab : pool.getTabs()) {
+            if (tab.isLive()) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private class TabAdapter extends ArrayAdapter<WebViewPool.Tab> {
+        AlertDialog dialog;
+
+        TabAdapter() {
+            super(context, 0, new ArrayList<>());
+        }
+
+        @NonNull
+        @Override
+        public View getView(int position, View convertView, @NonNull ViewGroup parent) {
+            ItemTabBinding item = convertView != null
+                    ? ItemTabBinding.bind(convertView)
+                    : ItemTabBinding.inflate(LayoutInflater.from(context), parent, false);
+            WebViewPool.Tab tab = getItem(position);
+            String title = tab.getTitle() != null && !tab.getTitle().isEmpty() ? tab.getTitle()
+                    : tab.getUrl() != null ? tab.getUrl() : "空白标签页";
+            boolean isCurrent = tab == pool.getCurrentTab();
+            item.tabTitle.setText(isCurrent ? "● " + title : title);
+            item.tabMeta.setText((tab.isLive() ? "活动" : "已休眠") + (tab.getUrl() != null ? " · " + tab.getUrl() : ""));
+            item.tabThumbnail.setImageBitmap(tab.getThumbnail());
+            item.tabClose.setOnClickListener(v -> {
+                listener.onClose(tab);
+                remove(tab);
+                if (isEmpty() && dialog != null) {
+                    dialog.dismiss();
+                }
+            });
+            return item.getRoot();
+        }
+    }
+}
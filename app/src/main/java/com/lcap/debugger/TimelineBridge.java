@@ -0,0 +1,64 @@
+package com.lcap.debugger;
+
+/**
+ * 页面内性能指标，经 {@link MessageBridge} 的 {@link #CHANNEL} 频道上报。
+ *
+ * 注入的脚本用 PerformanceObserver（buffered 模式）收集 Navigation Timing、Paint Timing、
+ * LCP 和长任务，每个条目为一条消息：[类型, 名称, 开始墙钟毫秒, 时长]。
+ * LCP 候选在同一批内只保留最后一个。
+ */
+public class TimelineBridge implements MessageBridge.Subscriber {
+
+    public static final String CHANNEL = "timeline";
+
+    public static final String SCRIPT =
+            "(function() {" +
+            "  if (window.__lcapTimelineInstalled || !window.PerformanceObserver || !window.__lcap) return;" +
+            "  window.__lcapTimelineInstalled = true;" +
+            "  var origin = performance.timeOrigin || performance.timing.navigationStart;" +
+            "  function observe(type, handler) {" +
+            "    try {" +
+            "      new PerformanceObserver(function(list) {" +
+            "        var out = [];" +
+            "        list.getEntries().forEach(function(e) { handler(e, out); });" +
+            "        out.forEach(function(m) { __lcap.post('" + CHANNEL + "', m, m[0] === " + PerfTimeline.TYPE_LCP + " ? 'lcp' : null); });" +
+            "      }).observe({type: type, buffered: true});" +
+            "    } catch (err) {}" +
+            "  }" +
+            "  function span(out, name, start, end) {" +
+            "    if (start > 0 && end >= start) out.push([" + PerfTimeline.TYPE_NAVIGATION + ", name, origin + start, end - start]);" +
+            "  }" +
+            "  observe('navigation', function(e, out) {" +
+            "    span(out, 'redirect', e.redirectStart, e.redirectEnd);" +
+            "    span(out, 'dns', e.domainLookupStart, e.domainLookupEnd);" +
+            "    span(out, 'connect', e.connectStart, e.connectEnd);" +
+            "    span(out, 'ttfb', e.requestStart, e.responseStart);" +
+            "    span(out, 'response', e.responseStart, e.responseEnd);" +
+            "    span(out, 'domInteractive', e.responseEnd, e.domInteractive);" +
+            "    span(out, 'domContentLoaded', e.domContentLoadedEventStart, e.domContentLoadedEventEnd);" +
+            "    span(out, 'load', e.loadEventStart, e.loadEventEnd);" +
+            "  });" +
+            "  observe('paint', function(e, out) {" +
+            "    out.push([" + PerfTimeline.TYPE_PAINT + ", e.name, origin + e.startTime, 0]);" +
+            "  });" +
+            "  observe('largest-contentful-paint', function(e, out) {" +
+            "    out.push([" + PerfTimeline.TYPE_LCP + ", 'largest-contentful-paint', origin + e.startTime, 0]);" +
+            "  });" +
+            "  observe('longtask', function(e, out) {" +
+            "    out.push([" + PerfTimeline.TYPE_LONG_TASK + ", 'longtask', origin + e.startTime, e.duration]);" +
+            "  });" +
+            "})();";
+
+    private final PerfTimeline timeline;
+
+    public TimelineBridge(PerfTimeline timeline) {
+        this.timeline = timeline;
+    }
+
+    // 在 MessageBridge 的分发线程上调用
+    @Override
+    public void onMessage(String[] fields) {
+        timeline.add(Integer.parseInt(fields[0]), fields[1],
+                Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+    }
+}
@@ -0,0 +1,165 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
+import android.widget.Filter;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 地址栏自动补全，候选来自历史记录的 {@link UrlIndex}。
+ *
+ * 输入停顿 {@link #DEBOUNCE_MS} 后在后台线程查询；每次输入都会递增代号，
+ * 排队中或已经算完但过期的查询直接丢弃，只有最新一次的结果会显示。
+ * 历史记录变化后只标记索引过期，等输入框下次获得焦点时再重建。
+ */
+public class UrlAutocomplete {
+
+    private static final long DEBOUNCE_MS = 80;
+    static final int MAX_SUGGESTIONS = 8;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "url-suggest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Context context;
+    private final AutoCompleteTextView input;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final SuggestionAdapter adapter;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Runnable queryTask = this::query;
+    private volatile UrlIndex index = UrlIndex.EMPTY;
+    private boolean stale = true;
+
+    public UrlAutocomplete(AutoCompleteTextView input) {
+        this.context = input.getContext().getApplicationContext();
+        this.input = input;
+        adapter = new SuggestionAdapter(input.getContext());
+        input.setThreshold(1);
+        input.setAdapter(adapter);
+        input.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // 让正在排队或计算中的查询作废
+                generation.incrementAndGet();
+                handler.removeCallbacks(queryTask);
+                // 代码设置的文字（扫码、历史记录、选中候选）不弹出候选
+                if (input.hasFocus() && !input.isPerformingCompletion()) {
+                    handler.postDelayed(queryTask, DEBOUNCE_MS);
+                }
+            }
+        });
+        input.setOnFocusChangeListener((v, hasFocus) -> {
+            if (hasFocus && stale) {
+                rebuild();
+            }
+        });
+    }
+
+    // 历史记录有变化
+    public void invalidate() {
+        stale = true;
+        if (input.hasFocus()) {
+            rebuild();
+        }
+    }
+
+    public void release() {
+        generation.incrementAndGet();
+        handler.removeCallbacks(queryTask);
+    }
+
+    private void rebuild() {
+        stale = false;
+        HistoryStore.get(context).loadRecent(HistoryStore.DEFAULT_CAPACITY,
+                entries -> EXECUTOR.execute(() -> index = new UrlIndex(entries, System.currentTimeMillis())));
+    }
+
+    private void query() {
+        int current = generation.get();
+        String text = input.getText().toString();
+        EXECUTOR.execute(() -> {
+            if (generation.get() != current) {
+                return;
+            }
+            List<String> result = index.query(text, MAX_SUGGESTIONS);
+            handler.post(() -> {
+                if (generation.get() != current) {
+                    return;
+                }
+                adapter.setSuggestions(result);
+                if (result.isEmpty()) {
+                    input.dismissDropDown();
+                } else if (input.hasFocus() && input.getWindowToken() != null) {
+                    input.showDropDown();
+                }
+            });
+        });
+    }
+
+    // 候选已经在后台算好，Filter 只把当前列表交给 AutoCompleteTextView
+    private static class SuggestionAdapter extends ArrayAdapter<String> {
+        private List<String> suggestions = new ArrayList<>();
+        private final Filter filter = new Filter() {
+            @Override
+            protected FilterResults performFiltering(CharSequence constraint) {
+                FilterResults results = new FilterResults();
+                List<String> current = suggestions;
+                results.values = current;
+                results.count = current.size();
+                return results;
+            }
+
+            @Override
+            protected void publishResults(CharSequence constraint, FilterResults results) {
+                notifyDataSetChanged();
+            }
+        };
+
+        SuggestionAdapter(Context context) {
+            super(context, android.R.layout.simple_dropdown_item_1line);
+        }
+
+        void setSuggestions(List<String> suggestions) {
+            this.suggestions = suggestions;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getCount() {
+            return suggestions.size();
+        }
+
+        @Override
+        public String getItem(int position) {
+            return suggestions.get(position);
+        }
+
+        @NonNull
+        @Override
+        public Filter getFilter() {
+            return filter;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.lcap.debugger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 地址栏自动补全用的历史记录索引，构建后只读，可以在任意线程查询。
+ *
+ * 每条记录拆成若干词元：主机名及其各级后缀、主机名各级标签、路径段和查询参数名，
+ * 全部小写后排序存放在数组中，前缀查找只需两次二分。输入按分隔符拆成多个词，每个词都要
+ * 前缀匹配同一条记录的某个词元；命中的记录按 frecency（访问次数 × 时间衰减权重）取前 N 条。
+ */
+public class UrlIndex {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    // 与浏览器常见的 frecency 分档一致：越近访问权重越高
+    private static final long[] RECENCY_DAYS = {4, 14, 31, 90};
+    private static final int[] RECENCY_WEIGHTS = {100, 70, 50, 30};
+    private static final int OLD_WEIGHT = 10;
+
+    public static final UrlIndex EMPTY = new UrlIndex(new ArrayList<>(), 0);
+
+    private final String[] urls;
+    private final long[] scores;
+    // 排序后的词元及其所属记录
+    private final String[] tokens;
+    private final int[] tokenDocs;
+
+    public UrlIndex(List<HistoryStore.Entry> entries, long now) {
+        int count = entries.size();
+        urls = new String[count];
+        scores = new long[count];
+        List<String> tokenList = new ArrayList<>(count * 8);
+        List<Integer> docList = new ArrayList<>(count * 8);
+        Set<String> seen = new HashSet<>();
+        for (int doc = 0; doc < count; doc++) {
+            HistoryStore.Entry entry = entries.get(doc);
+            urls[doc] = entry.url;
+            scores[doc] = frecency(entry.visitCount, entry.lastVisited, now);
+            seen.clear();
+            for (String token : tokenize(entry.url)) {
+                if (seen.add(token)) {
+                    tokenList.add(token);
+                    docList.add(doc);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[tokenList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> tokenList.get(a).compareTo(tokenList.get(b)));
+        tokens = new String[order.length];
+        tokenDocs = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            tokens[i] = tokenList.get(order[i]);
+            tokenDocs[i] = docList.get(order[i]);
+        }
+    }
+
+    public int size() {
+        return urls.length;
+    }
+
+    static long frecency(int visitCount, long lastVisited, long now) {
+        long ageDays = Math.max(0, now - lastVisited) / DAY_MS;
+        int weight = OLD_WEIGHT;
+        for (int i = 0; i < RECENCY_DAYS.length; i++) {
+            if (ageDays <= RECENCY_DAYS[i]) {
+                weight = RECENCY_WEIGHTS[i];
+                break;
+            }
+        }
+        return (long) Math.max(1, visitCount) * weight;
+    }
+
+    /**
+     * 返回最多 limit 条匹配的 URL，得分高的在前，得分相同时索引中靠前（更近访问）的在前。
+     * 输入为空或没有可用的词时返回空列表。
+     */
+    public List<String> query(String input, int limit) {
+        List<String> terms = terms(input);
+        List<String> result = new ArrayList<>();
+        if (terms.isEmpty() || limit <= 0 || urls.length == 0) {
+            return result;
+        }
+
+        // matched[doc] 记录该记录已经满足的词数，只有满足全部词的记录才参与排序
+        int[] matched = new int[urls.length];
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            // 以 term 为前缀的词元在排序数组中连续分布
+            int from = lowerBound(term);
+            int to = lowerBound(term + Character.MAX_VALUE);
+            for (int i = from; i < to; i++) {
+                int doc = tokenDocs[i];
+                if (matched[doc] == t) {
+                    matched[doc] = t + 1;
+                }
+            }
+        }
+
+        // 小顶堆取前 limit 条
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int doc = 0; doc < urls.length; doc++) {
+            if (matched[doc] != terms.size()) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++);
+            } else if (better(doc, heap[0])) {
+                heap[0] = doc;
+                siftDown(heap, heapSize);
+            }
+        }
+        int[] top = Arrays.copyOf(heap, heapSize);
+        // 堆依次弹出得到从差到好的顺序
+        for (int i = heapSize - 1; i >= 0; i--) {
+            top[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+        }
+        for (int doc : top) {
+            result.add(urls[doc]);
+        }
+        return result;
+    }
+
+    private boolean better(int a, int b) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : a < b;
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(heap[parent], heap[i])) {
+                break;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = i * 2 + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left + 1 < size && better(heap[left], heap[left + 1]) ? left + 1 : left;
+            if (!better(heap[i], heap[worst])) {
+                break;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    private int lowerBound(String term) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(term) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 输入拆成小写的词；去掉协议头，这样粘贴完整网址也能匹配
+    static List<String> terms(String input) {
+        List<String> terms = new ArrayList<>();
+        if (input == null) {
+            return terms;
+        }
+        String text = stripScheme(input.trim().toLowerCase(Locale.ROOT));
+        // 主机名整体作为一个词，"github.com" 直接命中主机名词元而不是拆成两级
+        int hostEnd = indexOfAny(text, "/?#", 0);
+        String host = hostEnd < 0 ? text : text.substring(0, hostEnd);
+        if (!host.isEmpty() && host.indexOf(' ') < 0) {
+            terms.add(host.startsWith("www.") ? host.substring(4) : host);
+            text = hostEnd < 0 ? "" : text.substring(hostEnd);
+        }
+        splitInto(text, " /?#&=", terms);
+        return terms;
+    }
+
+    static List<String> tokenize(String url) {
+        List<String> tokens = new ArrayList<>();
+        String text = stripScheme(url.toLowerCase(Locale.ROOT));
+        int hostEnd = indexOfAny(text, "/?#", 0);
+        String host = hostEnd < 0 ? text : text.substring(0, hostEnd);
+        if (!host.isEmpty()) {
+            tokens.add(host);
+            // 主机名的各级后缀，"baidu.com" 也能匹配 "news.baidu.com"
+            for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+                tokens.add(host.substring(dot + 1));
+            }
+            splitInto(host, ".:", tokens);
+        }
+        if (hostEnd < 0) {
+            return tokens;
+        }
+        int fragment = text.indexOf('#', hostEnd);
+        int queryStart = text.indexOf('?', hostEnd);
+        int pathEnd = queryStart >= 0 ? queryStart : fragment >= 0 ? fragment : text.length();
+        splitInto(text.substring(hostEnd, pathEnd), "/", tokens);
+        if (queryStart >= 0) {
+            String query = text.substring(queryStart + 1, fragment > queryStart ? fragment : text.length());
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = eq >= 0 ? pair.substring(0, eq) : pair;
+                if (!key.isEmpty()) {
+                    tokens.add(key);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static String stripScheme(String text) {
+        int scheme = text.indexOf("://");
+        return scheme >= 0 && scheme < 10 ? text.substring(scheme + 3) : text;
+    }
+
+    private static int indexOfAny(String text, String chars, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (chars.indexOf(text.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void splitInto(String text, String separators, List<String> out) {
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || separators.indexOf(text.charAt(i)) >= 0) {
+                if (i > start) {
+                    out.add(text.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+    }
+}
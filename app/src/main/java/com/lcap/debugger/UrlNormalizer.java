@@ -0,0 +1,23 @@
+package com.lcap.debugger;
+
+// 地址栏输入转换为可加载的URL，纯 Java 实现，便于单元测试和基准测试
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {
+    }
+
+    // 空输入返回 null；不包含协议时自动添加 https://
+    public static String normalize(String input) {
+        if (input == null) {
+            return null;
+        }
+        String url = input.trim();
+        if (url.isEmpty()) {
+            return null;
+        }
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            url = "https://" + url;
+        }
+        return url;
+    }
+}
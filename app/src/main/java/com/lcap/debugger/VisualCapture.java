@@ -0,0 +1,369 @@
+package com.lcap.debugger;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+import android.view.PixelCopy;
+import android.view.View;
+import android.view.Window;
+import android.webkit.WebView;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 在页面加载的各个节点截取 WebView 的可见区域，与同一网址的基线做感知差异，发现 H5 版本间的视觉回归。
+ *
+ * 节点可配置：commit（onPageCommitVisible，首次绘制新页面）、finished（onPageFinished）和
+ * onPageFinished 之后若干毫秒。截图复制到池中的 Bitmap 里（宽度缩放到 {@link #MAX_WIDTH} 以内）：
+ * API 26 起用 PixelCopy 从窗口已经合成好的画面中复制，不在主线程上重新绘制整个页面；
+ * 复制失败或更早的系统上退回 view.draw。编码、解码基线和比较都在后台线程进行，
+ * Bitmap 与像素数组用完归还 {@link BitmapPool}。PixelCopy 复制的是屏幕上的样子，盖在 WebView 上的
+ * 同一窗口内的控件也会出现在截图里。
+ * 截图保存在 files/captures/<网址>/ 下；某个节点还没有基线时，第一次的截图即作为基线。
+ */
+public class VisualCapture {
+
+    public static final String MILESTONE_COMMIT = "commit";
+    public static final String MILESTONE_FINISHED = "finished";
+
+    public interface Listener {
+        // 在主线程回调；score 为不同像素的占比，这次截图保存为基线时为 NaN；保存失败时 file 为 null，
+        // 没有差异时 heatmap 为 null
+        void onCaptured(String url, String milestone, File file, double score, File heatmap);
+    }
+
+    private static final String TAG = "VisualCapture";
+    private static final String KEY_ENABLED = "visual_capture_enabled";
+    private static final String KEY_MILESTONES = "visual_capture_milestones";
+    private static final String KEY_WEBP = "visual_capture_webp";
+    private static final String DEFAULT_MILESTONES = "commit,finished,3000";
+    private static final int MAX_WIDTH = 720;
+    private static final long POOL_BYTES = 32L * 1024 * 1024;
+    // 与 pixelmatch 的默认值相同
+    private static final double THRESHOLD = 0.1;
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "visual-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final Executor mainExecutor;
+    private final Listener listener;
+    private final BitmapPool pool = new BitmapPool(POOL_BYTES);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 当前页面 onPageFinished 之后的延时截图，新的导航开始时取消
+    private final List<Runnable> delayed = new ArrayList<>();
+    private WebView delayedView;
+
+    public VisualCapture(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.prefs = DebuggerSettings.prefs(context);
+        this.mainExecutor = ContextCompat.getMainExecutor(this.context);
+        this.listener = listener;
+    }
+
+    public boolean isEnabled() {
+        return prefs.getBoolean(KEY_ENABLED, false);
+    }
+
+    public void setEnabled(boolean enabled) {
+        prefs.edit().putBoolean(KEY_ENABLED, enabled).apply();
+    }
+
+    public String getMilestones() {
+        return prefs.getString(KEY_MILESTONES, DEFAULT_MILESTONES);
+    }
+
+    // 逗号分隔的 commit、finished 和毫秒数；格式不对时抛出 IllegalArgumentException
+    public void setMilestones(String milestones) {
+        prefs.edit().putString(KEY_MILESTONES, TextUtils.join(",", parseMilestones(milestones))).apply();
+    }
+
+    public boolean isWebp() {
+        return prefs.getBoolean(KEY_WEBP, false);
+    }
+
+    public void setWebp(boolean webp) {
+        prefs.edit().putBoolean(KEY_WEBP, webp).apply();
+    }
+
+    static List<String> parseMilestones(String text) {
+        List<String> milestones = new ArrayList<>();
+        for (String part : text.split("[,\\s]+")) {
+            String milestone = part.trim().toLowerCase(Locale.US);
+            if (milestone.isEmpty()) {
+                continue;
+            }
+            if (!milestone.equals(MILESTONE_COMMIT) && !milestone.equals(MILESTONE_FINISHED)) {
+                try {
+                    if (Long.parseLong(milestone) <= 0) {
+                        throw new NumberFormatException();
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("无效的截图节点: " + part);
+                }
+            }
+            if (!milestones.contains(milestone)) {
+                milestones.add(milestone);
+            }
+        }
+        return milestones;
+    }
+
+    // onPageStarted 时调用，取消上一个页面还没执行的延时截图
+    public void onPageStarted() {
+        cancelDelayed();
+    }
+
+    // onPageCommitVisible 时调用
+    public void onPageCommitVisible(WebView view, String url) {
+        if (isEnabled() && parseMilestones(getMilestones()).contains(MILESTONE_COMMIT)) {
+            capture(view, url, MILESTONE_COMMIT);
+        }
+    }
+
+    // onPageFinished 时调用；重定向时会有多次，延时截图以最后一次为准
+    public void onPageFinished(WebView view, String url) {
+        cancelDelayed();
+        if (!isEnabled()) {
+            return;
+        }
+        for (String milestone : parseMilestones(getMilestones())) {
+            if (milestone.equals(MILESTONE_FINISHED)) {
+                capture(view, url, milestone);
+            } else if (!milestone.equals(MILESTONE_COMMIT)) {
+                Runnable task = () -> capture(view, url, milestone + "ms");
+                delayed.add(task);
+                view.postDelayed(task, Long.parseLong(milestone));
+            }
+        }
+        delayedView = view;
+    }
+
+    public void cancelDelayed() {
+        if (delayedView != null) {
+            for (Runnable task : delayed) {
+                delayedView.removeCallbacks(task);
+            }
+        }
+        delayed.clear();
+        delayedView = null;
+    }
+
+    // 删除该网址所有节点的基线，下一次截图重新成为基线
+    public void resetBaseline(String url) {
+        EXECUTOR.execute(() -> {
+            File[] files = directory(url).listFiles((d, name) -> name.startsWith("baseline-"));
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    public void release() {
+        cancelDelayed();
+        EXECUTOR.execute(pool::clear);
+    }
+
+    // 在主线程上调用，把 WebView 当前可见区域复制到池中的 Bitmap，其余交给后台线程
+    public void capture(WebView view, String url, String milestone) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (width == 0 || height == 0 || url == null) {
+            return;
+        }
+        float scale = Math.min(1f, MAX_WIDTH / (float) width);
+        int scaledWidth = Math.max(1, Math.round(width * scale));
+        int scaledHeight = Math.max(1, Math.round(height * scale));
+        Bitmap bitmap = pool.acquire(scaledWidth, scaledHeight);
+        boolean webp = isWebp();
+        Window window = view.isAttachedToWindow() ? windowOf(view) : null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && window != null) {
+            int[] location = new int[2];
+            view.getLocationInWindow(location);
+            Rect source = new Rect(location[0], location[1], location[0] + width, location[1] + height);
+            // 复制在渲染线程上完成，按 Bitmap 的大小缩放；回调回到主线程
+            PixelCopy.request(window, source, bitmap, result -> {
+                if (result != PixelCopy.SUCCESS) {
+                    Log.w(TAG, "PixelCopy 失败（" + result + "），改用 draw: " + milestone);
+                    draw(view, bitmap, scale);
+                }
+                EXECUTOR.execute(() -> process(bitmap, url, milestone, webp));
+            }, mainHandler);
+            return;
+        }
+        draw(view, bitmap, scale);
+        EXECUTOR.execute(() -> process(bitmap, url, milestone, webp));
+    }
+
+    // 在主线程上重新绘制 WebView，开销与页面复杂度成正比
+    private static void draw(WebView view, Bitmap bitmap, float scale) {
+        Canvas canvas = new Canvas(bitmap);
+        canvas.scale(scale, scale);
+        // WebView 按滚动位置绘制内容，平移回来只取可见区域
+        canvas.translate(-view.getScrollX(), -view.getScrollY());
+        bitmap.eraseColor(0xffffffff);
+        view.draw(canvas);
+    }
+
+    // WebView 所在 Activity 的窗口；池中预热的 WebView 可能不是用 Activity 创建的，此时返回 null
+    private static Window windowOf(View view) {
+        Context context = view.getContext();
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return ((Activity) context).getWindow();
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    private void process(Bitmap bitmap, String url, String milestone, boolean webp) {
+        File dir = directory(url);
+        String extension = webp ? "webp" : "png";
+        File file = new File(dir, Exports.timestampedName(milestone, extension));
+        File baseline = findBaseline(dir, milestone);
+        File heatmapFile = null;
+        double score = Double.NaN;
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("无法创建目录 " + dir);
+            }
+            encode(bitmap, file, webp);
+            if (baseline == null) {
+                encode(bitmap, new File(dir, "baseline-" + milestone + "." + extension), webp);
+            } else {
+                PerceptualDiff.Result diff = compare(baseline, bitmap);
+                if (diff != null) {
+                    score = diff.score;
+                    try {
+                        if (diff.diffPixels > 0) {
+                            heatmapFile = new File(dir, Exports.timestampedName(milestone + "-diff", "png"));
+                            writeHeatmap(diff, heatmapFile);
+                        }
+                    } finally {
+                        pool.releasePixels(diff.heatmap);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "截图保存失败: " + url, e);
+            file = null;
+        } finally {
+            pool.release(bitmap);
+        }
+        File saved = file;
+        File heatmap = heatmapFile;
+        double result = score;
+        mainExecutor.execute(() -> listener.onCaptured(url, milestone, saved, result, heatmap));
+    }
+
+    // 解码基线并与当前截图比较；基线无法解码时返回 null
+    private PerceptualDiff.Result compare(File baselineFile, Bitmap current) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(baselineFile.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        Bitmap reuse = pool.acquire(options.outWidth, options.outHeight);
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inBitmap = reuse;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap baseline = BitmapFactory.decodeFile(baselineFile.getPath(), options);
+        if (baseline != reuse) {
+            pool.release(reuse);
+        }
+        if (baseline == null) {
+            return null;
+        }
+        int baseWidth = baseline.getWidth();
+        int baseHeight = baseline.getHeight();
+        int[] basePixels = pool.acquirePixels(baseWidth * baseHeight);
+        baseline.getPixels(basePixels, 0, baseWidth, 0, 0, baseWidth, baseHeight);
+        pool.release(baseline);
+        int width = current.getWidth();
+        int height = current.getHeight();
+        int[] pixels = pool.acquirePixels(width * height);
+        current.getPixels(pixels, 0, width, 0, 0, width, height);
+        int size = Math.max(width, baseWidth) * Math.max(height, baseHeight);
+        PerceptualDiff.Result result = PerceptualDiff.compare(basePixels, baseWidth, baseHeight,
+                pixels, width, height, THRESHOLD, pool.acquirePixels(size), true);
+        pool.releasePixels(basePixels);
+        pool.releasePixels(pixels);
+        return result;
+    }
+
+    private void writeHeatmap(PerceptualDiff.Result diff, File file) throws IOException {
+        Bitmap bitmap = pool.acquire(diff.width, diff.height);
+        try {
+            bitmap.setPixels(diff.heatmap, 0, diff.width, 0, 0, diff.width, diff.height);
+            encode(bitmap, file, false);
+        } finally {
+            pool.release(bitmap);
+        }
+    }
+
+    private static void encode(Bitmap bitmap, File file, boolean webp) throws IOException {
+        Bitmap.CompressFormat format;
+        if (!webp) {
+            format = Bitmap.CompressFormat.PNG;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            format = Bitmap.CompressFormat.WEBP_LOSSLESS;
+        } else {
+            // Android 10 起质量 100 即为无损，更早的版本有轻微损失，由比较阈值吸收
+            format = Bitmap.CompressFormat.WEBP;
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (!bitmap.compress(format, 100, out)) {
+                throw new IOException("编码失败 " + file);
+            }
+        }
+    }
+
+    private static File findBaseline(File dir, String milestone) {
+        for (String extension : new String[]{"png", "webp"}) {
+            File file = new File(dir, "baseline-" + milestone + "." + extension);
+            if (file.exists()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    // 每个网址一个目录：主机名加上网址（去掉 fragment）的哈希
+    private File directory(String url) {
+        String key = DocumentPrefetcher.key(url);
+        String host = Uri.parse(key).getHost();
+        String name = (host != null ? host.replaceAll("[^A-Za-z0-9.-]", "_") : "page")
+                + "-" + Integer.toHexString(key.hashCode());
+        return new File(Exports.directory(context, "captures"), name);
+    }
+}
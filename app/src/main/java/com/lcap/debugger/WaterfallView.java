@@ -0,0 +1,94 @@
+package com.lcap.debugger;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// 性能时间线瀑布图：每个条目一行，左侧为名称，右侧按统一时间轴绘制起止区间
+public class WaterfallView extends View {
+
+    private static final int[] TYPE_COLORS = {
+            0xFF607D8B, // native
+            0xFF2196F3, // navigation
+            0xFF4CAF50, // paint
+            0xFFFF9800, // lcp
+            0xFFF44336, // longtask
+    };
+
+    private final Paint barPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final float rowHeight;
+    private final float markerWidth;
+    private List<PerfTimeline.Entry> entries = new ArrayList<>();
+    private double span;
+
+    public WaterfallView(Context context) {
+        this(context, null);
+    }
+
+    public WaterfallView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        rowHeight = dp(22);
+        markerWidth = dp(2);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11,
+                getResources().getDisplayMetrics()));
+        textPaint.setColor(Color.DKGRAY);
+        gridPaint.setColor(0xFFE0E0E0);
+    }
+
+    public void setEntries(List<PerfTimeline.Entry> entries) {
+        this.entries = entries;
+        span = 1;
+        for (PerfTimeline.Entry entry : entries) {
+            span = Math.max(span, entry.start + entry.duration);
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = (int) Math.ceil(rowHeight * (entries.size() + 1));
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float labelWidth = getWidth() * 0.4f;
+        float chartWidth = getWidth() - labelWidth - dp(8);
+
+        // 时间刻度
+        for (int i = 0; i <= 4; i++) {
+            float x = labelWidth + chartWidth * i / 4f;
+            canvas.drawLine(x, 0, x, getHeight(), gridPaint);
+        }
+        canvas.drawText(String.format(Locale.US, "0 - %.0f ms", span), labelWidth, rowHeight * 0.7f, textPaint);
+
+        for (int i = 0; i < entries.size(); i++) {
+            PerfTimeline.Entry entry = entries.get(i);
+            float top = rowHeight * (i + 1);
+            String label = entry.name + String.format(Locale.US, " %.0f", entry.start + entry.duration);
+            canvas.drawText(label, 0, label.length(), dp(4), top + rowHeight * 0.7f, textPaint);
+
+            float left = labelWidth + (float) (entry.start / span) * chartWidth;
+            float right = Math.max(left + markerWidth, labelWidth + (float) ((entry.start + entry.duration) / span) * chartWidth);
+            barPaint.setColor(entry.type >= 0 && entry.type < TYPE_COLORS.length ? TYPE_COLORS[entry.type] : Color.GRAY);
+            canvas.drawRect(left, top + rowHeight * 0.2f, right, top + rowHeight * 0.8f, barPaint);
+        }
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+}
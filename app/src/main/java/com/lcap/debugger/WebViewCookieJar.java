@@ -0,0 +1,21 @@
+package com.lcap.debugger;
+
+import android.webkit.CookieManager;
+
+import java.util.List;
+
+// 代为请求网络时与 WebView 共用 CookieManager 中的 Cookie（录制、弱网模拟）
+class WebViewCookieJar implements HttpFetcher.CookieJar {
+    @Override
+    public String cookiesFor(String url) {
+        return CookieManager.getInstance().getCookie(url);
+    }
+
+    @Override
+    public void store(String url, List<String> setCookieHeaders) {
+        CookieManager cookieManager = CookieManager.getInstance();
+        for (String cookie : setCookieHeaders) {
+            cookieManager.setCookie(url, cookie);
+        }
+    }
+}
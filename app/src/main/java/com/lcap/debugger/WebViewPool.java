@@ -0,0 +1,366 @@
+package com.lcap.debugger;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 由 MainActivity 持有的 WebView 池，按标签页管理。
+ *
+ * 第一个标签页的 WebView 在 Activity 创建后的空闲时间预先创建并完成设置，FirstFragment 每次
+ * 创建视图时复用当前标签页的实例，切换到历史页面再返回时页面状态得以保留。
+ * 只有最近使用的若干个标签页保留活动的 WebView（数量按设备内存决定，见 {@link TabLru#maxLiveTabs}），
+ * 其余的标签页用 saveState 保存导航状态并保留一张缩略图后销毁 WebView，再次选中时重新创建并恢复。
+ * 内存紧张时进一步减少活动的标签页。
+ * 采集脚本由 {@link ScriptRegistry} 在每个 WebView 创建时注册一次。
+ */
+public class WebViewPool {
+
+    private static final String TAG = "WebViewPool";
+    // 主线程迟迟没有空闲时的兜底创建时间
+    private static final long PREWARM_FALLBACK_DELAY_MS = 1000;
+    // 缩略图相对 WebView 的缩放比例
+    private static final float THUMBNAIL_SCALE = 0.25f;
+
+    public interface Callback {
+        void onReady(WebView webView);
+    }
+
+    public static final class Tab {
+        private final int id;
+        private WebView webView;
+        // 与 webView 一同创建，只注册一次
+        private MessageBridge messageBridge;
+        // WebView 被销毁后保存的导航状态，恢复后清空
+        private Bundle savedState;
+        private Bitmap thumbnail;
+        private String url;
+        private String title;
+
+        Tab(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        // 被淘汰时为 null
+        public WebView getWebView() {
+            return webView;
+        }
+
+        public boolean isLive() {
+            return webView != null;
+        }
+
+        public Bitmap getThumbnail() {
+            return thumbnail;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Callback> pending = new ArrayList<>();
+    private final Runnable createTask = this::createIfNeeded;
+    private final List<Tab> tabs = new ArrayList<>();
+    private final TabLru lru = new TabLru();
+    private final ScriptRegistry scriptRegistry;
+    private final int maxLiveTabs;
+    private Tab current;
+    private int nextTabId;
+    private boolean scheduled;
+
+    public WebViewPool(Context context) {
+        this.context = context;
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        maxLiveTabs = TabLru.maxLiveTabs(memoryInfo.totalMem, activityManager.isLowRamDevice());
+        scriptRegistry = new ScriptRegistry(context);
+        Log.d(TAG, "设备内存 " + (memoryInfo.totalMem >> 20) + " MB，最多保留 " + maxLiveTabs + " 个活动标签页");
+    }
+
+    // 在主线程空闲时预创建当前标签页的 WebView
+    public void prewarm() {
+        if ((current != null && current.isLive()) || scheduled) {
+            return;
+        }
+        scheduled = true;
+        Looper.myQueue().addIdleHandler(() -> {
+            createIfNeeded();
+            return false;
+        });
+        handler.postDelayed(createTask, PREWARM_FALLBACK_DELAY_MS);
+    }
+
+    // 当前标签页的 WebView 就绪后回调；已创建则立即回调
+    public void whenReady(Callback callback) {
+        if (current != null && current.isLive()) {
+            callback.onReady(current.webView);
+            return;
+        }
+        pending.add(callback);
+        prewarm();
+    }
+
+    // 当前 WebView 的消息通道，WebView 未创建时为 null
+    public MessageBridge getMessageBridge() {
+        return current != null ? current.messageBridge : null;
+    }
+
+    public ScriptRegistry getScriptRegistry() {
+        return scriptRegistry;
+    }
+
+    public Tab getCurrentTab() {
+        return current;
+    }
+
+    public List<Tab> getTabs() {
+        return Collections.unmodifiableList(tabs);
+    }
+
+    public int getMaxLiveTabs() {
+        return maxLiveTabs;
+    }
+
+    // 新建标签页并切换过去
+    public Tab newTab() {
+        snapshot(current);
+        Tab tab = new Tab(nextTabId++);
+        tabs.add(tab);
+        activate(tab);
+        return tab;
+    }
+
+    /**
+     * 切换到指定标签页，返回它的 WebView。活动的标签页直接复用实例；
+     * 已淘汰的标签页重新创建 WebView 并恢复导航状态，恢复失败时重新加载原来的网址。
+     */
+    public WebView select(Tab tab) {
+        if (tab != current) {
+            snapshot(current);
+        }
+        activate(tab);
+        return tab.webView;
+    }
+
+    // 关闭标签页；关闭的是当前标签页时切换到最近使用的另一个，全部关闭后新建一个空白标签页
+    public void closeTab(Tab tab) {
+        if (!tabs.remove(tab)) {
+            return;
+        }
+        lru.remove(tab.id);
+        release(tab);
+        tab.thumbnail = null;
+        if (tab != current) {
+            return;
+        }
+        current = null;
+        Tab next = null;
+        int recent = lru.mostRecent();
+        for (Tab candidate : tabs) {
+            if (candidate.id == recent) {
+                next = candidate;
+            }
+        }
+        if (next == null) {
+            newTab();
+        } else {
+            activate(next);
+        }
+    }
+
+    // 页面标题或网址变化时由 WebViewClient 调用，用于标签页列表展示
+    public void onPageUpdated(WebView view, String url, String title) {
+        for (Tab tab : tabs) {
+            if (tab.webView == view) {
+                tab.url = url;
+                tab.title = title;
+                return;
+            }
+        }
+    }
+
+    // 从界面上移除但保留实例，下次 whenReady 时复用
+    public void detach(WebView view) {
+        if (view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+    }
+
+    public void onTrimMemory(int level) {
+        int limit;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // 应用在后台：只保留当前标签页，不在界面上时它也释放；Android 14 起后台只会收到 BACKGROUND
+            limit = current != null && current.isLive() && current.webView.getParent() != null ? 1 : 0;
+        } else if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            limit = 1;
+        } else if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            limit = Math.max(1, maxLiveTabs - 1);
+        } else {
+            return;
+        }
+        Log.d(TAG, "内存紧张，活动标签页减少到 " + limit + " 个, level=" + level);
+        trimTo(limit);
+        if (limit == 0 && current != null && current.isLive()) {
+            // 正在调试的页面只有在不在界面上时才会走到这里
+            evict(current);
+        }
+    }
+
+    public void onLowMemory() {
+        onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+    }
+
+    public void destroy() {
+        handler.removeCallbacks(createTask);
+        scheduled = false;
+        pending.clear();
+        for (Tab tab : tabs) {
+            release(tab);
+        }
+        tabs.clear();
+        current = null;
+    }
+
+    private void createIfNeeded() {
+        handler.removeCallbacks(createTask);
+        scheduled = false;
+        if (current == null) {
+            Tab tab = new Tab(nextTabId++);
+            tabs.add(tab);
+            current = tab;
+        }
+        if (!current.isLive()) {
+            activate(current);
+        }
+        List<Callback> callbacks = new ArrayList<>(pending);
+        pending.clear();
+        for (Callback callback : callbacks) {
+            callback.onReady(current.webView);
+        }
+    }
+
+    private void activate(Tab tab) {
+        current = tab;
+        lru.touch(tab.id);
+        if (!tab.isLive()) {
+            long start = SystemClock.elapsedRealtime();
+            StartupTrace.get().begin("WebViewPool.create");
+            tab.messageBridge = new MessageBridge();
+            tab.webView = create(tab.messageBridge);
+            StartupTrace.get().end("WebViewPool.create");
+            if (tab.savedState != null) {
+                if (tab.webView.restoreState(tab.savedState) == null && tab.url != null) {
+                    tab.webView.loadUrl(tab.url);
+                }
+                tab.savedState = null;
+            }
+            Log.d(TAG, "标签页 " + tab.id + " 的 WebView 创建耗时 " + (SystemClock.elapsedRealtime() - start) + " ms");
+        }
+        trimTo(maxLiveTabs);
+    }
+
+    // 淘汰最久未使用的活动标签页，直到不超过 limit 个（当前标签页除外）
+    private void trimTo(int limit) {
+        Set<Integer> live = new HashSet<>();
+        for (Tab tab : tabs) {
+            if (tab.isLive()) {
+                live.add(tab.id);
+            }
+        }
+        List<Integer> victims = lru.evictionCandidates(live, limit, current != null ? current.id : -1);
+        for (Tab tab : tabs) {
+            if (victims.contains(tab.id)) {
+                evict(tab);
+            }
+        }
+    }
+
+    // 保存导航状态后销毁 WebView，保留缩略图
+    private void evict(Tab tab) {
+        Bundle state = new Bundle();
+        if (tab.webView.saveState(state) != null) {
+            tab.savedState = state;
+        }
+        Log.d(TAG, "淘汰标签页 " + tab.id + ": " + tab.url);
+        release(tab);
+    }
+
+    private void release(Tab tab) {
+        if (tab.webView != null) {
+            scriptRegistry.uninstall(tab.webView);
+            detach(tab.webView);
+            tab.webView.destroy();
+            tab.webView = null;
+            tab.messageBridge = null;
+        }
+    }
+
+    // 切换离开时在界面上的标签页截取缩略图，淘汰后在标签页列表中展示
+    private void snapshot(Tab tab) {
+        if (tab == null || !tab.isLive()) {
+            return;
+        }
+        WebView view = tab.webView;
+        int width = (int) (view.getWidth() * THUMBNAIL_SCALE);
+        int height = (int) (view.getHeight() * THUMBNAIL_SCALE);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        Bitmap bitmap = tab.thumbnail != null && tab.thumbnail.getWidth() == width && tab.thumbnail.getHeight() == height
+                ? tab.thumbnail
+                : Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.scale(THUMBNAIL_SCALE, THUMBNAIL_SCALE);
+        canvas.translate(-view.getScrollX(), -view.getScrollY());
+        view.draw(canvas);
+        tab.thumbnail = bitmap;
+    }
+
+    private WebView create(MessageBridge messageBridge) {
+        // 启用WebView调试（用于Chrome DevTools）
+        WebView.setWebContentsDebuggingEnabled(true);
+
+        WebView view = new WebView(context);
+        WebSettings webSettings = view.getSettings();
+        webSettings.setJavaScriptEnabled(true);
+        webSettings.setDomStorageEnabled(true);
+        webSettings.setLoadWithOverviewMode(true);
+        webSettings.setUseWideViewPort(true);
+        webSettings.setBuiltInZoomControls(true);
+        webSettings.setDisplayZoomControls(false);
+        // 页面内所有采集脚本共用的消息通道，下一次页面加载时生效
+        view.addJavascriptInterface(messageBridge, MessageBridge.NAME);
+        // 在恢复状态或加载任何页面之前注册，第一个文档就带上采集脚本
+        scriptRegistry.install(view);
+        return view;
+    }
+}
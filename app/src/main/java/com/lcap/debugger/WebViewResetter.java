@@ -0,0 +1,173 @@
+package com.lcap.debugger;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.CookieManager;
+import android.webkit.WebView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 {@link ResetProfile} 异步执行WebView重置。
+ *
+ * 每个步骤之间通过主线程 Handler 让出一次消息循环，避免一次性阻塞UI；
+ * Cookie 清除等异步操作在回调完成后才进入下一步，全部结束后才回调 onComplete，
+ * 调用方在回调里再发起 loadUrl，因此加载不会再和 Cookie 清除产生竞争。
+ */
+public class WebViewResetter {
+
+    private static final String TAG = "WebViewResetter";
+
+    public interface Callback {
+        void onComplete(Report report);
+    }
+
+    // 一次重置的各步骤耗时
+    public static final class Report {
+        public final ResetProfile profile;
+        public final List<String> stepNames = new ArrayList<>();
+        public final List<Long> stepDurationsMs = new ArrayList<>();
+        public long totalMs;
+
+        Report(ResetProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(profile.label).append("，总耗时 ").append(totalMs).append(" ms");
+            for (int i = 0; i < stepNames.size(); i++) {
+                sb.append('\n').append(stepNames.get(i)).append(": ").append(stepDurationsMs.get(i)).append(" ms");
+            }
+            return sb.toString();
+        }
+    }
+
+    private interface Step {
+        void run(WebView webView, String url, Runnable done);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // 每次 reset 递增，用来丢弃被新一次加载取代的旧流水线
+    private int generation;
+    private Report lastReport;
+
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    public void reset(WebView webView, String url, ResetProfile profile, Callback callback) {
+        int current = ++generation;
+        List<String> names = new ArrayList<>();
+        List<Step> steps = new ArrayList<>();
+        buildSteps(profile, names, steps);
+
+        Report report = new Report(profile);
+        long start = SystemClock.elapsedRealtime();
+        runStep(current, webView, url, names, steps, 0, report, () -> {
+            report.totalMs = SystemClock.elapsedRealtime() - start;
+            lastReport = report;
+            Log.d(TAG, report.toString());
+            callback.onComplete(report);
+        });
+    }
+
+    // 取消正在进行的重置（例如页面销毁时）
+    public void cancel() {
+        generation++;
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    private void runStep(int current, WebView webView, String url, List<String> names, List<Step> steps,
+                         int index, Report report, Runnable finished) {
+        if (current != generation) {
+            return;
+        }
+        if (index >= steps.size()) {
+            finished.run();
+            return;
+        }
+        long stepStart = SystemClock.elapsedRealtime();
+        steps.get(index).run(webView, url, () -> {
+            report.stepNames.add(names.get(index));
+            report.stepDurationsMs.add(SystemClock.elapsedRealtime() - stepStart);
+            handler.post(() -> runStep(current, webView, url, names, steps, index + 1, report, finished));
+        });
+    }
+
+    private static void buildSteps(ResetProfile profile, List<String> names, List<Step> steps) {
+        add(names, steps, "停止加载", (webView, url, done) -> {
+            webView.stopLoading();
+            done.run();
+        });
+        if (profile == ResetProfile.NONE) {
+            return;
+        }
+
+        // 只清 Cookie 的轻量重置，保留历史记录、缓存和其他站点的状态
+        if (profile == ResetProfile.ORIGIN_COOKIES) {
+            add(names, steps, "清除当前域名Cookie", WebViewResetter::clearOriginCookies);
+            return;
+        }
+
+        add(names, steps, "清除历史记录", (webView, url, done) -> {
+            webView.clearHistory();
+            done.run();
+        });
+
+        if (profile == ResetProfile.FULL_COLD) {
+            add(names, steps, "清除缓存", (webView, url, done) -> {
+                webView.clearCache(true);
+                done.run();
+            });
+        }
+        add(names, steps, "清除表单数据", (webView, url, done) -> {
+            webView.clearFormData();
+            done.run();
+        });
+        add(names, steps, "清除SSL偏好", (webView, url, done) -> {
+            webView.clearSslPreferences();
+            done.run();
+        });
+        add(names, steps, "清除全部Cookie", (webView, url, done) -> {
+            CookieManager cookieManager = CookieManager.getInstance();
+            cookieManager.removeAllCookies(removed -> {
+                cookieManager.flush();
+                done.run();
+            });
+        });
+        add(names, steps, "清除视图", (webView, url, done) -> {
+            webView.clearView();
+            done.run();
+        });
+    }
+
+    private static void add(List<String> names, List<Step> steps, String name, Step step) {
+        names.add(name);
+        steps.add(step);
+    }
+
+    // 把目标URL可见的Cookie逐个设置为立即过期，覆盖以父域名和上级路径写入的Cookie（见 OriginCookies）
+    private static void clearOriginCookies(WebView webView, String url, Runnable done) {
+        CookieManager cookieManager = CookieManager.getInstance();
+        List<String> expired = OriginCookies.expiryHeaders(url, cookieManager.getCookie(url));
+        if (expired.isEmpty()) {
+            done.run();
+            return;
+        }
+
+        int[] remaining = {expired.size()};
+        for (String cookie : expired) {
+            cookieManager.setCookie(url, cookie, set -> {
+                if (--remaining[0] == 0) {
+                    cookieManager.flush();
+                    done.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConsoleBufferTest {
+
+    private static List<String> messages(List<ConsoleBuffer.Entry> entries) {
+        List<String> result = new ArrayList<>();
+        for (ConsoleBuffer.Entry entry : entries) {
+            result.add(entry.message);
+        }
+        return result;
+    }
+
+    @Test
+    public void pagesNewestFirstWithCursor() {
+        ConsoleBuffer buffer = new ConsoleBuffer(16);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(ConsoleBuffer.LEVEL_LOG, "m" + i, "a.js", i, 1000 + i);
+        }
+
+        List<ConsoleBuffer.Entry> first = buffer.page(ConsoleBuffer.LEVEL_DEBUG, "", Long.MAX_VALUE, 2);
+        assertEquals(List.of("m4", "m3"), messages(first));
+        List<ConsoleBuffer.Entry> second = buffer.page(ConsoleBuffer.LEVEL_DEBUG, "", first.get(1).seq, 2);
+        assertEquals(List.of("m2", "m1"), messages(second));
+    }
+
+    @Test
+    public void overwritesOldestWhenFull() {
+        ConsoleBuffer buffer = new ConsoleBuffer(10);
+        assertEquals(16, buffer.capacity());
+        for (int i = 0; i < 40; i++) {
+            buffer.add(ConsoleBuffer.LEVEL_LOG, "m" + i, null, 0, i);
+        }
+
+        List<ConsoleBuffer.Entry> all = buffer.page(ConsoleBuffer.LEVEL_DEBUG, null, Long.MAX_VALUE, 100);
+        assertEquals(16, all.size());
+        assertEquals("m39", all.get(0).message);
+        assertEquals("m24", all.get(15).message);
+        assertEquals(40, buffer.getWrittenCount());
+        assertEquals(24, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void filtersByLevelAndCaseInsensitiveText() {
+        ConsoleBuffer buffer = new ConsoleBuffer(16);
+        buffer.add(ConsoleBuffer.LEVEL_LOG, "loading config", "app.js", 1, 0);
+        buffer.add(ConsoleBuffer.LEVEL_WARN, "Config missing", "app.js", 2, 0);
+        buffer.add(ConsoleBuffer.LEVEL_ERROR, "TypeError", "Vendor.js", 3, 0);
+
+        assertEquals(List.of("TypeError", "Config missing"),
+                messages(buffer.page(ConsoleBuffer.LEVEL_WARN, "", Long.MAX_VALUE, 10)));
+        assertEquals(List.of("Config missing", "loading config"),
+                messages(buffer.page(ConsoleBuffer.LEVEL_DEBUG, "CONFIG", Long.MAX_VALUE, 10)));
+        // 来源也参与搜索
+        assertEquals(List.of("TypeError"),
+                messages(buffer.page(ConsoleBuffer.LEVEL_DEBUG, "vendor", Long.MAX_VALUE, 10)));
+    }
+
+    @Test
+    public void clearHidesExistingEntriesAndTruncatesLongMessages() {
+        ConsoleBuffer buffer = new ConsoleBuffer(16);
+        buffer.add(ConsoleBuffer.LEVEL_LOG, "old", null, 0, 0);
+        buffer.clear();
+        buffer.add(ConsoleBuffer.LEVEL_LOG, new String(new char[ConsoleBuffer.MAX_MESSAGE_CHARS * 2]).replace('\0', 'x'), null, 0, 0);
+
+        List<ConsoleBuffer.Entry> all = buffer.page(ConsoleBuffer.LEVEL_DEBUG, "", Long.MAX_VALUE, 10);
+        assertEquals(1, all.size());
+        assertEquals(ConsoleBuffer.MAX_MESSAGE_CHARS + 1, all.get(0).message.length());
+    }
+
+    @Test
+    public void uncaughtErrorsReportedTwiceAreKeptOnceWithStack() {
+        ConsoleBuffer buffer = new ConsoleBuffer(16);
+        ConsoleBridge bridge = new ConsoleBridge(buffer);
+        String lvl = String.valueOf(ConsoleBuffer.LEVEL_ERROR);
+        // 控制台先到：消息换成带调用栈的那份，保留内核给出的来源和行号
+        bridge.onConsoleMessage(ConsoleBuffer.LEVEL_ERROR, "Uncaught TypeError: x is not a function", "app.js", 7, 1000);
+        bridge.onMessage(new String[]{lvl, "[onerror] Uncaught TypeError: x is not a function\n    at f (app.js:7)",
+                "app.js", "7", "1001", "Uncaught TypeError: x is not a function"});
+        // 页面脚本先到
+        bridge.onMessage(new String[]{lvl, "[unhandledrejection] Error: boom\n    at g (app.js:9)",
+                "https://example.com/", "0", "1002", "Uncaught (in promise) Error: boom"});
+        bridge.onConsoleMessage(ConsoleBuffer.LEVEL_ERROR, "Uncaught (in promise) Error: boom", "app.js", 9, 1003);
+        // 只有控制台一边（例如 iframe）照常记录，相隔太久的同名错误不配对
+        bridge.onConsoleMessage(ConsoleBuffer.LEVEL_ERROR, "Uncaught Error: frame", "frame.js", 1, 1004);
+        bridge.onConsoleMessage(ConsoleBuffer.LEVEL_ERROR, "Uncaught TypeError: x is not a function", "app.js", 7, 9000);
+
+        List<ConsoleBuffer.Entry> all = buffer.page(ConsoleBuffer.LEVEL_DEBUG, "", Long.MAX_VALUE, 10);
+        assertEquals(List.of("Uncaught TypeError: x is not a function", "Uncaught Error: frame",
+                "[unhandledrejection] Error: boom\n    at g (app.js:9)",
+                "[onerror] Uncaught TypeError: x is not a function\n    at f (app.js:7)"), messages(all));
+        assertEquals(7, all.get(3).line);
+    }
+
+    @Test
+    public void concurrentWritersNeverLoseOrDuplicateSequences() throws InterruptedException {
+        ConsoleBuffer buffer = new ConsoleBuffer(1 << 14);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int id = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    buffer.add(ConsoleBuffer.LEVEL_LOG, id + ":" + i, null, 0, 0);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<ConsoleBuffer.Entry> all = buffer.page(ConsoleBuffer.LEVEL_DEBUG, "", Long.MAX_VALUE, 1 << 14);
+        assertEquals(8000, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(7999 - i, all.get(i).seq);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.lcap.debugger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ControlServerTest {
+
+    private static final String TOKEN = "0123456789abcdef";
+
+    private ControlServer server;
+    private int port;
+    private final List<String> commands = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ControlServer(TOKEN, (command, argument, reply) -> {
+            synchronized (commands) {
+                commands.add(command + ":" + argument);
+            }
+            if (command.equals("load")) {
+                // 在其他线程回复，模拟切到主线程执行
+                new Thread(() -> reply.send(true, argument)).start();
+            } else {
+                reply.send(false, "未知命令: " + command);
+            }
+        });
+        port = server.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void httpCommandUsesBodyAsArgument() throws IOException {
+        String response = http("POST /load HTTP/1.1\r\n" + headers() + "Content-Length: 18\r\n\r\nhttps://example.cn");
+        assertTrue(response, response.startsWith("HTTP/1.1 200"));
+        assertTrue(response, response.endsWith("{\"ok\":true,\"result\":\"https://example.cn\"}"));
+        assertEquals("load:https://example.cn", commands.get(0));
+    }
+
+    @Test
+    public void httpCommandReportsFailure() throws IOException {
+        String response = http("POST /reset HTTP/1.1\r\n" + headers() + "Content-Length: 9\r\n\r\nFULL_COLD");
+        assertTrue(response, response.startsWith("HTTP/1.1 400"));
+        assertEquals("reset:FULL_COLD", commands.get(0));
+    }
+
+    @Test
+    public void requestsWithoutValidTokenAreRejected() throws IOException {
+        String missing = http("POST /eval HTTP/1.1\r\nHost: localhost:" + port + "\r\nContent-Length: 1\r\n\r\n1");
+        assertTrue(missing, missing.startsWith("HTTP/1.1 401"));
+        String wrong = http("POST /eval HTTP/1.1\r\nHost: localhost:" + port
+                + "\r\nAuthorization: Bearer 0123456789abcdeF\r\nContent-Length: 1\r\n\r\n1");
+        assertTrue(wrong, wrong.startsWith("HTTP/1.1 401"));
+        assertTrue(commands.isEmpty());
+    }
+
+    @Test
+    public void browserRequestsAreRejected() throws IOException {
+        // 网页中的 <img src=...> 只能发 GET，查询参数也不再作为参数
+        String get = http("GET /eval?1 HTTP/1.1\r\n" + headers() + "\r\n");
+        assertTrue(get, get.startsWith("HTTP/1.1 405"));
+        String origin = http("POST /eval HTTP/1.1\r\n" + headers() + "Origin: https://evil.com\r\n"
+                + "Content-Length: 1\r\n\r\n1");
+        assertTrue(origin, origin.startsWith("HTTP/1.1 403"));
+        // DNS 重绑定：Host 是攻击者的域名
+        String rebound = http("POST /eval HTTP/1.1\r\nHost: evil.com:" + port + "\r\nAuthorization: Bearer "
+                + TOKEN + "\r\nContent-Length: 1\r\n\r\n1");
+        assertTrue(rebound, rebound.startsWith("HTTP/1.1 403"));
+        String otherPort = http("POST /eval HTTP/1.1\r\nHost: 127.0.0.1:1\r\nAuthorization: Bearer "
+                + TOKEN + "\r\nContent-Length: 1\r\n\r\n1");
+        assertTrue(otherPort, otherPort.startsWith("HTTP/1.1 403"));
+        assertTrue(commands.isEmpty());
+    }
+
+    @Test
+    public void webSocketHandshakeRequiresToken() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(("GET /events HTTP/1.1\r\nHost: localhost:" + port
+                    + "\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            byte[] status = new byte[12];
+            new DataInputStream(socket.getInputStream()).readFully(status);
+            assertEquals("HTTP/1.1 401", new String(status, StandardCharsets.ISO_8859_1));
+        }
+        assertFalse(server.hasSubscribers());
+    }
+
+    private String headers() {
+        return "Host: 127.0.0.1:" + port + "\r\nAuthorization: Bearer " + TOKEN + "\r\n";
+    }
+
+    @Test
+    public void acceptKeyMatchesRfcExample() {
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", ControlServer.acceptKey("dGhlIHNhbXBsZSBub25jZQ=="));
+    }
+
+    @Test
+    public void webSocketRepliesToCommandsAndReceivesBroadcasts() throws Exception {
+        try (Socket socket = openWebSocket()) {
+            sendText(socket.getOutputStream(), "load https://a.com");
+            assertEquals("{\"type\":\"reply\",\"command\":\"load\",\"ok\":true,\"result\":\"https://a.com\"}",
+                    readText(socket.getInputStream()));
+
+            server.broadcast("{\"type\":\"console\"}");
+            assertEquals("{\"type\":\"console\"}", readText(socket.getInputStream()));
+        }
+    }
+
+    @Test
+    public void broadcastReachesEverySubscriber() throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 20; i++) {
+                sockets.add(openWebSocket());
+            }
+            waitForSubscribers(20);
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                large.append('x');
+            }
+            server.broadcast(large.toString());
+            for (Socket socket : sockets) {
+                assertEquals(large.toString(), readText(socket.getInputStream()));
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        waitForSubscribers(0);
+        assertFalse(server.hasSubscribers());
+    }
+
+    private void waitForSubscribers(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            String status;
+            try {
+                status = http("GET /status HTTP/1.1\r\n" + headers() + "\r\n");
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            if (status.endsWith("\"subscribers\":" + expected + "}")) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("订阅者数量没有变为 " + expected);
+    }
+
+    private String http(String request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        }
+    }
+
+    private Socket openWebSocket() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(5000);
+        socket.getOutputStream().write(("GET /events HTTP/1.1\r\n" + headers() + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                + "Sec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        // 读到握手响应结束
+        InputStream in = socket.getInputStream();
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("连接被关闭");
+            }
+            head.append((char) b);
+        }
+        assertTrue(head.toString(), head.toString().startsWith("HTTP/1.1 101"));
+        return socket;
+    }
+
+    // 客户端发出的帧必须加掩码
+    private static void sendText(OutputStream out, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        byte[] mask = {1, 2, 3, 4};
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(0x81);
+        frame.write(0x80 | payload.length);
+        frame.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.write(payload[i] ^ mask[i & 3]);
+        }
+        out.write(frame.toByteArray());
+    }
+
+    private static String readText(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        assertEquals(0x81, in.readUnsignedByte());
+        long length = in.readUnsignedByte();
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
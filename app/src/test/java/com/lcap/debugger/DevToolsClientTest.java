@@ -0,0 +1,368 @@
+package com.lcap.debugger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DevToolsClientTest {
+
+    private static final String PROFILE = "{\"nodes\":[{\"id\":1,\"callFrame\":{\"functionName\":\"(root) 主函数\"}}],"
+            + "\"startTime\":1,\"endTime\":2,\"samples\":[1],\"timeDeltas\":[1]}";
+    // 替身服务器每次 IO.read 只返回这么多字符，模拟 Chromium 返回少于请求的大小
+    private static final int SERVER_CHUNK = 1000;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private File dir;
+    private String trace;
+    // 替身服务器收到的命令，形如 "IO.read {...}"
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("devtools").toFile();
+        StringBuilder events = new StringBuilder("{\"traceEvents\":[");
+        for (int i = 0; i < 2000; i++) {
+            events.append(i > 0 ? "," : "").append("{\"name\":\"事件\\\"").append(i)
+                    .append("\",\"ph\":\"X\",\"ts\":").append(i).append('}');
+        }
+        trace = events.append("]}").toString();
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        acceptThread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    new Thread(() -> serve(socket)).start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        serverSocket.close();
+        acceptThread.join(5000);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private DevToolsClient.Channel open() throws IOException {
+        Socket socket = connect();
+        return new DevToolsClient.Channel() {
+            @Override
+            public InputStream input() throws IOException {
+                return socket.getInputStream();
+            }
+
+            @Override
+            public OutputStream output() throws IOException {
+                return socket.getOutputStream();
+            }
+
+            @Override
+            public void close() throws IOException {
+                socket.close();
+            }
+        };
+    }
+
+    private DevToolsClient connectPage() throws IOException {
+        List<DevToolsClient.Target> targets = DevToolsClient.listTargets(this::open);
+        return DevToolsClient.connect(this::open, targets.get(0));
+    }
+
+    @Test
+    public void listTargetsSkipsTargetsInUseByOtherClients() throws IOException {
+        List<DevToolsClient.Target> targets = DevToolsClient.listTargets(this::open);
+        assertEquals(1, targets.size());
+        assertEquals("page", targets.get(0).type);
+        assertEquals("https://a.com/", targets.get(0).url);
+        assertEquals("/devtools/page/A", targets.get(0).path);
+        assertTrue(targets.get(0).visible);
+    }
+
+    @Test
+    public void traceIsStreamedToFileInChunks() throws IOException {
+        List<File> files;
+        try (DevToolsClient client = connectPage()) {
+            DevToolsCapture capture = new DevToolsCapture(client,
+                    EnumSet.of(DevToolsCapture.Kind.TRACE, DevToolsCapture.Kind.CPU_PROFILE));
+            capture.start();
+            files = capture.stop(dir, "run");
+        }
+        assertEquals(2, files.size());
+        assertEquals("run-trace.json", files.get(0).getName());
+        assertEquals(trace, new String(Files.readAllBytes(files.get(0).toPath()), StandardCharsets.UTF_8));
+        assertEquals(PROFILE, new String(Files.readAllBytes(files.get(1).toPath()), StandardCharsets.UTF_8));
+
+        int reads = 0;
+        for (String command : received) {
+            if (command.startsWith("IO.read ")) {
+                reads++;
+                assertTrue(command, command.contains("\"size\":" + DevToolsCapture.CHUNK_SIZE));
+            }
+        }
+        assertEquals((trace.length() + SERVER_CHUNK - 1) / SERVER_CHUNK, reads);
+        assertTrue(received.contains("IO.close {\"handle\":\"7\"}"));
+    }
+
+    @Test
+    public void protocolErrorIsThrownAndConnectionStaysUsable() throws IOException {
+        try (DevToolsClient client = connectPage()) {
+            try {
+                client.call("Fail.me", null);
+                fail();
+            } catch (DevToolsClient.ProtocolException e) {
+                assertEquals("Fail.me: 'Fail.me' wasn't found", e.getMessage());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(client.callInto("Profiler.stop", null, "profile", out));
+            assertEquals(PROFILE, new String(out.toByteArray(), StandardCharsets.UTF_8));
+            assertFalse(client.callInto("HeapProfiler.stopSampling", null, "profile", out));
+        }
+    }
+
+    @Test
+    public void missingProfileLeavesNoEmptyFile() throws IOException {
+        try (DevToolsClient client = connectPage()) {
+            DevToolsCapture capture = new DevToolsCapture(client,
+                    EnumSet.of(DevToolsCapture.Kind.CPU_PROFILE, DevToolsCapture.Kind.HEAP_SAMPLING));
+            capture.start();
+            try {
+                capture.stop(dir, "run");
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("堆采样没有返回数据"));
+            }
+        }
+        assertTrue(new File(dir, "run-cpu.cpuprofile").exists());
+        assertFalse(new File(dir, "run-heap.heapprofile").exists());
+        assertTrue(received.contains("HeapProfiler.disable"));
+    }
+
+    @Test
+    public void pickTargetPrefersTheVisiblePage() throws IOException {
+        DevToolsClient.Target background = new DevToolsClient.Target("1", "page", "", "about:blank", "/1", false);
+        DevToolsClient.Target current = new DevToolsClient.Target("2", "page", "", "about:blank", "/2", true);
+        DevToolsClient.Target worker = new DevToolsClient.Target("3", "service_worker", "", "about:blank", "/3", true);
+        assertSame(current, DevToolsRecorder.pickTarget(Arrays.asList(worker, background, current), "about:blank"));
+
+        // 没有 description 时只能按网址唯一匹配
+        DevToolsClient.Target a = new DevToolsClient.Target("4", "page", "", "https://a.com/", "/4", false);
+        assertSame(a, DevToolsRecorder.pickTarget(Arrays.asList(background, a), "https://a.com/"));
+        try {
+            DevToolsRecorder.pickTarget(Arrays.asList(background, a), "about:blank#x");
+            fail();
+        } catch (IOException expected) {
+            // 无法区分时不猜测
+        }
+    }
+
+    @Test
+    public void kindsAreParsedFromKeywords() {
+        assertEquals(EnumSet.of(DevToolsCapture.Kind.TRACE, DevToolsCapture.Kind.HEAP_SAMPLING),
+                DevToolsCapture.Kind.parse("trace, HEAP"));
+        try {
+            DevToolsCapture.Kind.parse("memory");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 未知类型
+        }
+    }
+
+    @Test
+    public void jsonScannerReadsNestedFieldsWithoutParsingSiblings() {
+        String json = "{\"a\":\"x}\\\"y\",\"result\":{\"list\":[1,{\"b\":2}],\"value\":\"\\u4e2d\\n\"},\"id\":3}";
+        assertEquals("[1,{\"b\":2}]", JsonScanner.field(json, "result", "list"));
+        assertEquals("中\n", JsonScanner.string(JsonScanner.field(json, "result", "value")));
+        assertEquals(3, JsonScanner.number(JsonScanner.field(json, "id"), -1));
+        assertNull(JsonScanner.field(json, "result", "missing"));
+        assertEquals(2, JsonScanner.elements(JsonScanner.field(json, "result", "list")).size());
+    }
+
+    // 替身 DevTools 端口：/json/list 和一个 WebSocket 页面目标
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            String head = readHead(in);
+            if (head.startsWith("GET /json/list ")) {
+                byte[] body = ("[{\"id\":\"B\",\"type\":\"page\",\"url\":\"https://b.com/\"},"
+                        + "{\"id\":\"A\",\"type\":\"page\",\"title\":\"A\",\"url\":\"https://a.com/\","
+                        + "\"description\":\"{\\\"attached\\\":true,\\\"visible\\\":true}\","
+                        + "\"webSocketDebuggerUrl\":\"ws://localhost/devtools/page/A\"}]")
+                        .getBytes(StandardCharsets.UTF_8);
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length
+                        + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                out.write(body);
+                out.flush();
+                return;
+            }
+            String key = null;
+            for (String line : head.split("\r\n")) {
+                if (line.startsWith("Sec-WebSocket-Key:")) {
+                    key = line.substring("Sec-WebSocket-Key:".length()).trim();
+                }
+            }
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + ControlServer.acceptKey(key) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            int offset = 0;
+            while (true) {
+                String message = readClientFrame(in);
+                if (message == null) {
+                    return;
+                }
+                long id = JsonScanner.number(JsonScanner.field(message, "id"), -1);
+                String method = JsonScanner.string(JsonScanner.field(message, "method"));
+                String params = JsonScanner.field(message, "params");
+                received.add(method + (params != null ? " " + params : ""));
+                String result = "{}";
+                switch (method) {
+                    case "Tracing.end":
+                        // 事件先于响应到达，客户端要先放进队列
+                        sendText(out, "{\"method\":\"Tracing.tracingComplete\",\"params\":{\"stream\":\"7\"}}");
+                        break;
+                    case "IO.read": {
+                        int end = Math.min(trace.length(), offset + SERVER_CHUNK);
+                        result = "{\"data\":" + quote(trace.substring(offset, end)) + ",\"eof\":"
+                                + (end == trace.length()) + "}";
+                        offset = end;
+                        // 中途穿插 ping，客户端回复的 pong 由 readClientFrame 跳过
+                        out.write(ControlServer.frame(0x9, new byte[]{1}));
+                        break;
+                    }
+                    case "Profiler.stop": {
+                        // 分成两帧发送
+                        byte[] whole = ("{\"id\":" + id + ",\"result\":{\"profile\":" + PROFILE + "}}")
+                                .getBytes(StandardCharsets.UTF_8);
+                        int half = whole.length / 2;
+                        byte[] first = ControlServer.frame(0x1, Arrays.copyOfRange(whole, 0, half));
+                        first[0] &= 0x7f;
+                        out.write(first);
+                        out.write(ControlServer.frame(0x0, Arrays.copyOfRange(whole, half, whole.length)));
+                        out.flush();
+                        continue;
+                    }
+                    case "Fail.me":
+                        sendText(out, "{\"id\":" + id + ",\"error\":{\"code\":-32601,"
+                                + "\"message\":\"'Fail.me' wasn't found\"}}");
+                        continue;
+                    default:
+                        break;
+                }
+                sendText(out, "{\"id\":" + id + ",\"result\":" + result + "}");
+            }
+        } catch (IOException e) {
+            // 客户端断开
+        }
+    }
+
+    private static void sendText(OutputStream out, String text) throws IOException {
+        out.write(ControlServer.frame(0x1, text.getBytes(StandardCharsets.UTF_8)));
+        out.flush();
+    }
+
+    private static String quote(String text) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        return out.append('"').toString();
+    }
+
+    private static String readHead(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("连接被关闭");
+            }
+            head.append((char) b);
+        }
+        return head.toString();
+    }
+
+    // 读取客户端的一条文本消息（带掩码），跳过 pong，收到 close 时返回 null
+    private static String readClientFrame(InputStream in) throws IOException {
+        while (true) {
+            int first = in.read();
+            int second = in.read();
+            if (first < 0 || second < 0) {
+                return null;
+            }
+            assertTrue("客户端帧必须带掩码", (second & 0x80) != 0);
+            long length = second & 0x7f;
+            if (length == 126) {
+                length = (in.read() << 8) | in.read();
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | in.read();
+                }
+            }
+            byte[] mask = readFully(in, 4);
+            byte[] payload = readFully(in, (int) length);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+            int opcode = first & 0x0f;
+            if (opcode == 0x8) {
+                return null;
+            }
+            if (opcode == 0x1) {
+                return new String(payload, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (out.size() < length) {
+            int n = in.read(buffer, 0, Math.min(buffer.length, length - out.size()));
+            if (n < 0) {
+                throw new IOException("连接被关闭");
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,137 @@
+package com.lcap.debugger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DocumentPrefetcherTest {
+
+    private HttpServer server;
+    private String base;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> lastCookie = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/page", exchange -> {
+            requests.incrementAndGet();
+            lastCookie.set(exchange.getRequestHeaders().getFirst("Cookie"));
+            byte[] body = "<html>hello</html>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.getResponseHeaders().add("Set-Cookie", "sid=1; Path=/");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/redirect", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/page");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void handsOverFreshDocumentOnce() throws IOException {
+        DocumentPrefetcher prefetcher = new DocumentPrefetcher();
+        prefetcher.prefetch(base + "/page#top", Collections.singletonMap("User-Agent", "test"), "a=b");
+
+        DocumentPrefetcher.Document document = prefetcher.take("GET", base + "/page", System.currentTimeMillis());
+        assertNotNull(document);
+        assertEquals(200, document.status);
+        assertEquals("text/html", document.mimeType);
+        assertEquals("utf-8", document.encoding);
+        assertEquals(Collections.singletonList("sid=1; Path=/"), document.setCookies);
+        assertEquals("a=b", lastCookie.get());
+        assertEquals("<html>hello</html>", read(document.toResponse().body));
+        // Set-Cookie 由调用方写入，不随响应头交给 WebView
+        assertNull(InterceptedResponse.header(document.headers, "Set-Cookie"));
+
+        assertNull(prefetcher.take("GET", base + "/page", System.currentTimeMillis()));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void ignoresOtherRequestsAndStaleDocuments() {
+        DocumentPrefetcher prefetcher = new DocumentPrefetcher();
+        prefetcher.prefetch(base + "/page", Collections.emptyMap(), null);
+
+        assertNull(prefetcher.take("GET", base + "/other", System.currentTimeMillis()));
+        assertNull(prefetcher.take("POST", base + "/page", System.currentTimeMillis()));
+        // 不匹配的请求不会消耗预取结果，但过期的结果不再使用
+        assertNull(prefetcher.take("GET", base + "/page",
+                System.currentTimeMillis() + DocumentPrefetcher.MAX_AGE_MS + 1000));
+        assertNull(lastCookie.get());
+    }
+
+    @Test
+    public void redirectsAreLeftToWebView() {
+        DocumentPrefetcher prefetcher = new DocumentPrefetcher();
+        prefetcher.prefetch(base + "/redirect", Collections.emptyMap(), null);
+        assertNull(prefetcher.take("GET", base + "/redirect", System.currentTimeMillis()));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void slowPrefetchIsAbandonedQuickly() {
+        DocumentPrefetcher prefetcher = new DocumentPrefetcher();
+        prefetcher.prefetch(base + "/slow", Collections.emptyMap(), null);
+
+        long start = System.nanoTime();
+        assertNull(prefetcher.take("GET", base + "/slow", System.currentTimeMillis()));
+        // 不能让 WebView 的 IO 线程等到预取完成
+        assertTrue((System.nanoTime() - start) / 1_000_000 < DocumentPrefetcher.MAX_WAIT_MS + 1000);
+    }
+
+    @Test
+    public void newerCommitReplacesPendingPrefetch() {
+        DocumentPrefetcher prefetcher = new DocumentPrefetcher(Runnable::run);
+        prefetcher.prefetch(base + "/page?first", Collections.emptyMap(), null);
+        prefetcher.prefetch(base + "/page?second", Collections.emptyMap(), null);
+
+        assertNull(prefetcher.take("GET", base + "/page?first", System.currentTimeMillis()));
+        assertNotNull(prefetcher.take("GET", base + "/page?second", System.currentTimeMillis()));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
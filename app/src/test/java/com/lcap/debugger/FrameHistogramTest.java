@@ -0,0 +1,78 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class FrameHistogramTest {
+
+    @Test
+    public void percentilesAndDroppedFrames() {
+        FrameHistogram histogram = new FrameHistogram();
+        histogram.setFrameIntervalMs(1000.0 / 60);
+        for (int i = 0; i < 90; i++) {
+            histogram.record(16.7);
+        }
+        for (int i = 0; i < 9; i++) {
+            // 错过一个刷新周期
+            histogram.record(33.4);
+        }
+        // 卡了约 6 个周期
+        histogram.record(100);
+
+        assertEquals(100, histogram.count());
+        assertEquals(16.75, histogram.percentile(0.5), 0.001);
+        assertEquals(16.75, histogram.percentile(0.9), 0.001);
+        assertEquals(33.25, histogram.percentile(0.99), 0.001);
+        assertEquals(100, histogram.percentile(1), 0.001);
+        assertEquals(9 + 5, histogram.droppedFrames());
+        assertEquals(10, histogram.jankyFrames());
+    }
+
+    @Test
+    public void longFramesGoToLastBucketButKeepMax() {
+        FrameHistogram histogram = new FrameHistogram();
+        histogram.record(800);
+        assertEquals(800, histogram.percentile(0.5), 0.001);
+        assertEquals(800, histogram.maxMs(), 0.001);
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        FrameHistogram histogram = new FrameHistogram();
+        histogram.record(50);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertTrue(Double.isNaN(histogram.percentile(0.5)));
+        assertEquals(0, histogram.droppedFrames());
+    }
+
+    @Test
+    public void bridgeParsesCommaSeparatedDeltas() throws IOException {
+        FrameHistogram histogram = new FrameHistogram();
+        new FrameBridge(histogram).onMessage(new String[]{"16.67,8.33,,120.5"});
+        assertEquals(3, histogram.count());
+        assertEquals(120.5, histogram.maxMs(), 0.001);
+
+        StringWriter out = new StringWriter();
+        histogram.writeJson(new JsonStreamWriter(out));
+        assertTrue(out.toString().contains("\"buckets\":[[8,1],[16.5,1],[120.5,1]]"));
+    }
+
+    @Test
+    public void longFreezesLandInTheLastBucket() throws IOException {
+        FrameHistogram histogram = new FrameHistogram();
+        new FrameBridge(histogram).onMessage(new String[]{"16.67,2500.00"});
+        assertEquals(2, histogram.count());
+        assertEquals(2500, histogram.maxMs(), 0.001);
+        assertEquals(1, histogram.jankyFrames());
+        assertFalse(FrameBridge.SCRIPT.contains("< 1000"));
+
+        StringWriter out = new StringWriter();
+        histogram.writeJson(new JsonStreamWriter(out));
+        assertTrue(out.toString().contains("[" + (FrameHistogram.BUCKETS - 1) * FrameHistogram.BUCKET_MS + ",1]"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.lcap.debugger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 历史记录在默认容量规模下的行为：日志行数有上限、压缩按阈值触发、重新打开后内容完整。
+ *
+ * 只检查计数，不计时；插入和加载的耗时由 benchmark 模块的 HistoryStoreBenchmark 把关。
+ */
+public class HistoryStoreScaleTest {
+
+    private static final int ENTRIES = 2 * HistoryStore.DEFAULT_CAPACITY;
+
+    private File dir;
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("history-scale").toFile();
+        logFile = new File(dir, "url_history.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private HistoryStore open() {
+        return new HistoryStore(logFile, HistoryStore.DEFAULT_CAPACITY, Runnable::run, Runnable::run);
+    }
+
+    private static List<HistoryStore.Entry> entries(HistoryStore store) {
+        List<HistoryStore.Entry> result = new ArrayList<>();
+        store.loadRecent(Integer.MAX_VALUE, result::addAll);
+        return result;
+    }
+
+    private int logLines() throws IOException {
+        return Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8).size();
+    }
+
+    @Test
+    public void uniqueInsertsCompactOnceCapacityIsExceededTwice() throws IOException {
+        HistoryStore store = open();
+        for (int i = 0; i < ENTRIES - 1; i++) {
+            store.add("https://example.com/page/" + i);
+        }
+        // 淘汰掉的记录还没达到有效记录数，不压缩
+        assertEquals(ENTRIES - 1, store.logRecordCount());
+        assertEquals(ENTRIES - 1, logLines());
+
+        store.add("https://example.com/page/" + (ENTRIES - 1));
+        assertEquals(HistoryStore.DEFAULT_CAPACITY, store.logRecordCount());
+        assertEquals(HistoryStore.DEFAULT_CAPACITY, logLines());
+    }
+
+    @Test
+    public void repeatedVisitsKeepTheLogBounded() throws IOException {
+        HistoryStore store = open();
+        int urls = 100;
+        int rounds = 50;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < urls; i++) {
+                store.add("https://site" + i + ".example.com/");
+                assertTrue(store.logRecordCount() < urls + HistoryStore.COMPACT_MIN_GARBAGE);
+            }
+        }
+        assertEquals(store.logRecordCount(), logLines());
+
+        List<HistoryStore.Entry> reopened = entries(open());
+        assertEquals(urls, reopened.size());
+        for (HistoryStore.Entry entry : reopened) {
+            assertEquals(rounds, entry.visitCount);
+        }
+    }
+
+    @Test
+    public void reopenLoadsTheMostRecentCapacityEntries() {
+        HistoryStore writer = open();
+        for (int i = 0; i < ENTRIES; i++) {
+            writer.add("https://example.com/page/" + i);
+        }
+
+        List<HistoryStore.Entry> loaded = entries(open());
+        assertEquals(HistoryStore.DEFAULT_CAPACITY, loaded.size());
+        assertEquals("https://example.com/page/" + (ENTRIES - 1), loaded.get(0).url);
+        assertEquals("https://example.com/page/" + (ENTRIES - HistoryStore.DEFAULT_CAPACITY),
+                loaded.get(loaded.size() - 1).url);
+    }
+}
@@ -0,0 +1,169 @@
+package com.lcap.debugger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * HistoryStore 的本地单元测试，使用同步执行器直接在测试线程上完成读写。
+ */
+public class HistoryStoreTest {
+
+    private File dir;
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("history").toFile();
+        logFile = new File(dir, "url_history.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private HistoryStore open(int capacity) {
+        return new HistoryStore(logFile, capacity, Runnable::run, Runnable::run);
+    }
+
+    private static List<HistoryStore.Entry> entries(HistoryStore store, int limit) {
+        List<HistoryStore.Entry> result = new ArrayList<>();
+        store.loadRecent(limit, result::addAll);
+        return result;
+    }
+
+    private static List<String> urls(HistoryStore store, int limit) {
+        List<String> result = new ArrayList<>();
+        for (HistoryStore.Entry entry : entries(store, limit)) {
+            result.add(entry.url);
+        }
+        return result;
+    }
+
+    @Test
+    public void newestFirst_andDeduplicated() {
+        HistoryStore store = open(100);
+        store.add("https://a.com");
+        store.add("https://b.com");
+        store.add("https://a.com");
+
+        assertEquals(Arrays.asList("https://a.com", "https://b.com"), urls(store, 100));
+    }
+
+    @Test
+    public void visitCountAccumulates() {
+        HistoryStore store = open(100);
+        store.add("https://a.com");
+        store.add("https://a.com");
+        store.add("https://b.com");
+        store.add("https://a.com");
+
+        List<HistoryStore.Entry> entries = entries(store, 10);
+        assertEquals("https://a.com", entries.get(0).url);
+        assertEquals(3, entries.get(0).visitCount);
+        assertEquals(1, entries.get(1).visitCount);
+    }
+
+    @Test
+    public void limitReturnsMostRecent() {
+        HistoryStore store = open(100);
+        for (int i = 0; i < 10; i++) {
+            store.add("https://site" + i + ".com");
+        }
+
+        assertEquals(Arrays.asList("https://site9.com", "https://site8.com"), urls(store, 2));
+    }
+
+    @Test
+    public void persistsAcrossReopen() {
+        HistoryStore store = open(100);
+        store.add("https://a.com");
+        store.add("https://b.com");
+        store.add("https://a.com");
+
+        HistoryStore reopened = open(100);
+        assertEquals(Arrays.asList("https://a.com", "https://b.com"), urls(reopened, 100));
+        assertEquals(2, entries(reopened, 1).get(0).visitCount);
+    }
+
+    @Test
+    public void capacityEvictsLeastRecent() {
+        HistoryStore store = open(3);
+        store.add("https://1.com");
+        store.add("https://2.com");
+        store.add("https://3.com");
+        store.add("https://1.com");
+        store.add("https://4.com");
+
+        assertEquals(Arrays.asList("https://4.com", "https://1.com", "https://3.com"), urls(store, 10));
+        assertEquals(Arrays.asList("https://4.com", "https://1.com", "https://3.com"), urls(open(3), 10));
+    }
+
+    @Test
+    public void compactionRewritesLog() {
+        HistoryStore store = open(100);
+        int rounds = HistoryStore.COMPACT_MIN_GARBAGE / 3;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < 10; i++) {
+                store.add("https://site" + i + ".com");
+            }
+        }
+
+        assertTrue(store.logRecordCount() < HistoryStore.COMPACT_MIN_GARBAGE + 10);
+        List<HistoryStore.Entry> entries = entries(open(100), 100);
+        assertEquals(10, entries.size());
+        assertEquals("https://site9.com", entries.get(0).url);
+        assertEquals(rounds, entries.get(0).visitCount);
+    }
+
+    @Test
+    public void skipsCorruptRecords() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(logFile)) {
+            out.write(("1\t1\thttps://a.com\n"
+                    + "garbage\n"
+                    + "x\t1\thttps://bad.com\n"
+                    + "2\t1\thttps://b.com\n"
+                    + "3\t1").getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(Arrays.asList("https://b.com", "https://a.com"), urls(open(100), 100));
+    }
+
+    @Test
+    public void importsLegacyHistoryInOrder() {
+        HistoryStore store = open(100);
+        store.add("https://existing.com");
+        store.importLegacy(Arrays.asList("https://new.com", "https://existing.com", "https://old.com"));
+
+        assertEquals(Arrays.asList("https://new.com", "https://old.com", "https://existing.com"),
+                urls(store, 100));
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        HistoryStore store = open(100);
+        store.add("https://a.com");
+        store.clear();
+
+        assertTrue(urls(store, 100).isEmpty());
+        assertTrue(urls(open(100), 100).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.lcap.debugger;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ImageQrDecoderTest {
+
+    private static final int WHITE = 0xffffffff;
+    private static final int BLACK = 0xff000000;
+
+    // 在白色画布的 (left, top) 处画一个边长为 size 的二维码
+    private static void drawQr(int[] canvas, int canvasWidth, String text, int left, int top, int size)
+            throws WriterException {
+        BitMatrix matrix = new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                canvas[(top + y) * canvasWidth + left + x] = matrix.get(x, y) ? BLACK : WHITE;
+            }
+        }
+    }
+
+    private static int[] blank(int width, int height) {
+        int[] canvas = new int[width * height];
+        Arrays.fill(canvas, WHITE);
+        return canvas;
+    }
+
+    @Test
+    public void decodesSingleCode() throws Exception {
+        int[] image = blank(400, 400);
+        drawQr(image, 400, "https://example.com/a", 50, 50, 300);
+
+        ImageQrDecoder.Result result = new ImageQrDecoder().decode(image, 400, 400);
+        assertEquals(Arrays.asList("https://example.com/a"), result.codes);
+        assertNotNull(result.pass);
+    }
+
+    @Test
+    public void decodesMultipleCodesInOneImage() throws Exception {
+        int[] image = blank(900, 400);
+        drawQr(image, 900, "https://example.com/left", 30, 50, 300);
+        drawQr(image, 900, "https://example.com/right", 550, 50, 300);
+
+        ImageQrDecoder.Result result = new ImageQrDecoder().decode(image, 900, 400);
+        assertEquals(new HashSet<>(Arrays.asList("https://example.com/left", "https://example.com/right")),
+                new HashSet<>(result.codes));
+    }
+
+    @Test
+    public void downsamplesLargeImages() throws Exception {
+        int width = 4000;
+        int height = 3000;
+        int[] image = blank(width, height);
+        drawQr(image, width, "https://example.com/big", 1000, 1000, 1200);
+
+        ImageQrDecoder.Result result = new ImageQrDecoder().decode(image, width, height);
+        assertTrue(Math.max(result.width, result.height) <= ImageQrDecoder.MAX_DIMENSION);
+        assertEquals(Arrays.asList("https://example.com/big"), result.codes);
+    }
+
+    @Test
+    public void returnsEmptyWhenNothingFound() throws Exception {
+        ImageQrDecoder.Result result = new ImageQrDecoder().decode(blank(200, 200), 200, 200);
+        assertTrue(result.codes.isEmpty());
+        assertNull(result.pass);
+    }
+
+    @Test
+    public void rotateMapsCornersClockwise() {
+        // 2x3 的图：第一行 0 1，第二行 2 3，第三行 4 5
+        ImageQrDecoder.Luminance in = new ImageQrDecoder.Luminance(new byte[]{0, 1, 2, 3, 4, 5}, 2, 3);
+
+        ImageQrDecoder.Luminance r90 = ImageQrDecoder.rotate(in, 90);
+        assertEquals(3, r90.width);
+        assertEquals(2, r90.height);
+        assertArrayEquals(new byte[]{4, 2, 0, 5, 3, 1}, r90.pixels);
+
+        assertArrayEquals(new byte[]{5, 4, 3, 2, 1, 0}, ImageQrDecoder.rotate(in, 180).pixels);
+        assertArrayEquals(new byte[]{1, 3, 5, 0, 2, 4}, ImageQrDecoder.rotate(in, 270).pixels);
+    }
+
+    @Test
+    public void downsampleAveragesBlocks() {
+        int[] image = {BLACK, WHITE, WHITE, WHITE};
+        ImageQrDecoder.Luminance luminance = ImageQrDecoder.downsample(image, 2, 2, 1);
+        assertEquals(1, luminance.width);
+        assertEquals(255 * 3 / 4, luminance.pixels[0] & 0xff);
+    }
+}
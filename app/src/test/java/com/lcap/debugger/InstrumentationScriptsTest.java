@@ -0,0 +1,93 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class InstrumentationScriptsTest {
+
+    @Test
+    public void composeIncludesOnlyEnabledScripts() {
+        InstrumentationScripts scripts = InstrumentationScripts.createDefault();
+        String all = scripts.compose();
+        assertTrue(all.startsWith(InstrumentationScripts.TOP_FRAME_GUARD + MessageBridge.SCRIPT));
+        assertTrue(all.endsWith("}"));
+        assertTrue(all.contains(HistoryBridge.SCRIPT));
+        assertSame(all, scripts.compose());
+
+        assertTrue(scripts.setEnabled("history", false));
+        assertFalse(scripts.setEnabled("history", false));
+        String withoutHistory = scripts.compose();
+        assertFalse(withoutHistory.contains(HistoryBridge.SCRIPT));
+        assertTrue(withoutHistory.contains(MemoryBridge.SCRIPT));
+        // 停用的频道在运行时创建之前声明，页面内直接丢弃
+        assertTrue(withoutHistory.startsWith(InstrumentationScripts.TOP_FRAME_GUARD
+                + "window.__lcapDisabled={'" + HistoryBridge.CHANNEL + "':true};"));
+    }
+
+    @Test
+    public void composedScriptOnlyRunsInTopFrame() {
+        // 文档开始脚本会注入每个 iframe，守卫之外不能有任何语句
+        String composed = InstrumentationScripts.createDefault().compose();
+        assertTrue(composed.startsWith("if (window.top === window) {"));
+        assertEquals(composed.length() - 1, composed.lastIndexOf('}'));
+        int depth = 0;
+        for (int i = 0; i < composed.length(); i++) {
+            char c = composed.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                assertTrue("守卫在结尾之前就闭合了: " + i, depth > 0 || i == composed.length() - 1);
+            }
+        }
+    }
+
+    @Test
+    public void toggleScriptForLivePage() {
+        InstrumentationScripts scripts = InstrumentationScripts.createDefault();
+        String off = scripts.toggleScript("memory", false);
+        assertEquals("window.__lcap && __lcap.setDisabled('" + MemoryBridge.CHANNEL + "', true);", off);
+        String on = scripts.toggleScript("memory", true);
+        assertTrue(on.contains("setDisabled('" + MemoryBridge.CHANNEL + "', false)"));
+        assertTrue(on.endsWith(MemoryBridge.SCRIPT));
+        assertNull(scripts.toggleScript("missing", true));
+    }
+
+    @Test
+    public void originRulesFollowDocumentStartSemantics() {
+        assertTrue(InstrumentationScripts.matchesRule("*", "https://a.com/x"));
+        assertTrue(InstrumentationScripts.matchesRule("https://example.com", "https://EXAMPLE.com/path?q=1"));
+        assertTrue(InstrumentationScripts.matchesRule("https://example.com", "https://example.com:443/"));
+        assertFalse(InstrumentationScripts.matchesRule("https://example.com", "http://example.com/"));
+        assertFalse(InstrumentationScripts.matchesRule("https://example.com", "https://example.com:8443/"));
+        assertTrue(InstrumentationScripts.matchesRule("https://*.example.com", "https://m.example.com/"));
+        assertFalse(InstrumentationScripts.matchesRule("https://*.example.com", "https://example.com/"));
+        assertFalse(InstrumentationScripts.matchesRule("https://*.example.com", "https://badexample.com/"));
+        assertTrue(InstrumentationScripts.matchesRule("http://127.0.0.1:8080", "http://127.0.0.1:8080/index.html"));
+        assertFalse(InstrumentationScripts.matchesRule("http://127.0.0.1:8080", "about:blank"));
+    }
+
+    @Test
+    public void invalidRulesAreRejected() {
+        InstrumentationScripts scripts = InstrumentationScripts.createDefault();
+        for (String bad : Arrays.asList("example.com", "https://example.com/path", "https://a*.example.com", "https://x:abc")) {
+            try {
+                scripts.setOriginRules(Collections.singleton(bad));
+                fail("应当拒绝: " + bad);
+            } catch (IllegalArgumentException expected) {
+                // 预期
+            }
+        }
+        scripts.setOriginRules(new HashSet<>(Arrays.asList(" https://a.com ", "")));
+        assertEquals(Collections.singleton("https://a.com"), scripts.getOriginRules());
+        assertTrue(scripts.matchesOrigin("https://a.com/"));
+        assertFalse(scripts.matchesOrigin("https://b.com/"));
+        scripts.setOriginRules(Collections.emptySet());
+        assertTrue(scripts.matchesOrigin("https://b.com/"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LeakDetectorTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void flagsMonotonicGrowthAcrossLoads() {
+        LeakDetector detector = new LeakDetector();
+        assertNull(detector.onLoad("https://a.com", "jsHeap", 10 * MB));
+        assertNull(detector.onLoad("https://a.com", "jsHeap", 12 * MB));
+        assertNull(detector.onLoad("https://a.com", "jsHeap", 14 * MB));
+
+        LeakDetector.Suspect suspect = detector.onLoad("https://a.com", "jsHeap", 16 * MB);
+        assertNotNull(suspect);
+        // 基准加载加上 3 次增长
+        assertEquals(LeakDetector.MIN_INCREASES + 1, suspect.loads);
+        assertEquals(10 * MB, suspect.firstBytes);
+        assertEquals(16 * MB, suspect.lastBytes);
+    }
+
+    @Test
+    public void smallOrNegativeStepsResetTheRun() {
+        LeakDetector detector = new LeakDetector();
+        detector.onLoad("https://a.com", "jsHeap", 10 * MB);
+        detector.onLoad("https://a.com", "jsHeap", 12 * MB);
+        // 增长不到阈值，视为稳定
+        detector.onLoad("https://a.com", "jsHeap", 12 * MB + 1024);
+        assertNull(detector.onLoad("https://a.com", "jsHeap", 14 * MB));
+        assertNull(detector.onLoad("https://a.com", "jsHeap", 16 * MB));
+        assertNotNull(detector.onLoad("https://a.com", "jsHeap", 18 * MB));
+    }
+
+    @Test
+    public void urlsAndMetricsAreTrackedSeparately() {
+        LeakDetector detector = new LeakDetector();
+        for (int i = 0; i < 3; i++) {
+            detector.onLoad("https://a.com", "jsHeap", i * 10 * MB);
+            detector.onLoad("https://b.com", "jsHeap", i * 10 * MB);
+        }
+        // 换了指标重新计数
+        assertNull(detector.onLoad("https://a.com", "pss", 100 * MB));
+        assertNotNull(detector.onLoad("https://b.com", "jsHeap", 30 * MB));
+    }
+}
@@ -0,0 +1,83 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class LoadBenchmarkTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void warmupRunsAreExcludedFromStats() {
+        LoadBenchmark benchmark = new LoadBenchmark("https://a.com", 6, 2, true);
+        // 预热轮次明显更慢
+        benchmark.record(5000, 900, 1500, 2500);
+        benchmark.record(4000, 800, 1400, 2400);
+        benchmark.record(100, 10, 50, 80);
+        benchmark.record(200, 20, 60, 90);
+        benchmark.record(300, 30, 70, 100);
+        assertTrue(benchmark.record(400, 40, 80, 110));
+
+        LoadBenchmark.Stats load = benchmark.stats(LoadBenchmark.METRIC_PAGE_LOAD);
+        assertEquals(4, load.count);
+        assertEquals(100, load.min, DELTA);
+        assertEquals(250, load.median, DELTA);
+        assertEquals(370, load.p90, DELTA);
+        assertEquals(397, load.p99, DELTA);
+        assertEquals(250, load.mean, DELTA);
+        assertEquals(Math.sqrt(50000.0 / 3), load.stdDev, DELTA);
+    }
+
+    @Test
+    public void missingMetricsAreSkipped() {
+        LoadBenchmark benchmark = new LoadBenchmark("https://a.com", 3, 0, false);
+        benchmark.record(100, 10, Double.NaN, Double.NaN);
+        benchmark.record(120, 12, 40, Double.NaN);
+        benchmark.record(140, 14, 60, Double.NaN);
+
+        assertEquals(2, benchmark.stats(LoadBenchmark.METRIC_FCP).count);
+        assertEquals(50, benchmark.stats(LoadBenchmark.METRIC_FCP).median, DELTA);
+        LoadBenchmark.Stats lcp = benchmark.stats(LoadBenchmark.METRIC_LCP);
+        assertEquals(0, lcp.count);
+        assertTrue(Double.isNaN(lcp.median));
+        assertEquals(3, benchmark.stats(LoadBenchmark.METRIC_PAGE_LOAD).count);
+    }
+
+    @Test
+    public void parsesRemoteArgument() {
+        LoadBenchmark benchmark = LoadBenchmark.parse(" 20 3 WARM example.com/?q=a ");
+        assertEquals(20, benchmark.getIterations());
+        assertEquals(3, benchmark.getWarmup());
+        assertFalse(benchmark.isCold());
+        assertEquals("https://example.com/?q=a", benchmark.getUrl());
+
+        for (String bad : new String[]{"20 3 cold", "x 3 cold https://a.com", "20 3 hot https://a.com", "5 5 cold https://a.com"}) {
+            try {
+                LoadBenchmark.parse(bad);
+                fail("应当拒绝: " + bad);
+            } catch (IllegalArgumentException expected) {
+                // 预期
+            }
+        }
+    }
+
+    @Test
+    public void writesStatsAndRuns() throws Exception {
+        LoadBenchmark benchmark = new LoadBenchmark("https://a.com", 2, 1, true);
+        benchmark.setEnvironment("1.0", "Pixel", "FULL_COLD");
+        benchmark.record(300, 30, 60, 90);
+        benchmark.record(100, 10, 20, Double.NaN);
+        StringWriter out = new StringWriter();
+        benchmark.writeJson(new JsonStreamWriter(out));
+
+        String json = out.toString();
+        assertTrue(json, json.contains("\"mode\":\"cold\""));
+        assertTrue(json, json.contains("\"pageLoad\":{\"count\":1,\"min\":100,\"median\":100"));
+        assertTrue(json, json.contains("\"lcp\":{\"count\":0,\"min\":null"));
+        assertTrue(json, json.contains("{\"warmup\":true,\"pageLoad\":300,"));
+        assertTrue(json, json.contains("{\"warmup\":false,\"pageLoad\":100,\"ttfb\":10,\"fcp\":20,\"lcp\":null}"));
+    }
+}
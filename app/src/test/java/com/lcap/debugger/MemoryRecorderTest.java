@@ -0,0 +1,62 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MemoryRecorderTest {
+
+    @Test
+    public void ringKeepsNewestSamples() {
+        MemoryRecorder recorder = new MemoryRecorder(3);
+        for (int i = 1; i <= 5; i++) {
+            recorder.record(i * 1000, i, i * 10, i * 100);
+        }
+        assertEquals(3, recorder.size());
+        assertEquals(500, recorder.latest(MemoryRecorder.SERIES_PSS));
+
+        long[] out = new long[8];
+        assertEquals(3, recorder.copySeries(MemoryRecorder.SERIES_NATIVE, out));
+        assertArrayEquals(new long[]{30, 40, 50}, Arrays.copyOf(out, 3));
+
+        // out 比样本少时只取最新的
+        long[] small = new long[2];
+        assertEquals(2, recorder.copySeries(MemoryRecorder.SERIES_JAVA, small));
+        assertArrayEquals(new long[]{4, 5}, small);
+    }
+
+    @Test
+    public void jsHeapIsAttachedToNextSample() {
+        MemoryRecorder recorder = new MemoryRecorder(4);
+        recorder.record(0, 1, 1, 1);
+        recorder.onJsHeap(2048, false);
+        // performance.memory 的值只用于展示，泄漏检测不采用
+        assertFalse(recorder.isJsHeapPrecise());
+        recorder.record(1000, 1, 1, 1);
+        recorder.onJsHeap(2048, true);
+        assertTrue(recorder.isJsHeapPrecise());
+        recorder.resetJsHeap();
+        assertFalse(recorder.isJsHeapPrecise());
+        recorder.record(2000, 1, 1, 1);
+
+        long[] js = new long[3];
+        recorder.copySeries(MemoryRecorder.SERIES_JS, js);
+        assertArrayEquals(new long[]{MemoryRecorder.UNKNOWN, 2048, MemoryRecorder.UNKNOWN}, js);
+    }
+
+    @Test
+    public void csvLeavesUnknownValuesEmpty() throws IOException {
+        MemoryRecorder recorder = new MemoryRecorder(4);
+        recorder.record(1000, 1, 2, 3);
+        recorder.onJsHeap(4, true);
+        recorder.record(2000, 5, 6, 7);
+
+        StringWriter out = new StringWriter();
+        recorder.writeCsv(out);
+        assertEquals("timeMs,javaHeap,nativeHeap,pss,jsHeap\n1000,1,2,3,\n2000,5,6,7,4\n", out.toString());
+    }
+}
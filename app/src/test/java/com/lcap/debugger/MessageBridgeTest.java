@@ -0,0 +1,97 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageBridgeTest {
+
+    private static final String US = String.valueOf(MessageBridge.FIELD_SEPARATOR);
+    private static final String RS = String.valueOf(MessageBridge.MESSAGE_SEPARATOR);
+
+    // 直接在调用线程上分发，便于断言
+    private final MessageBridge bridge = new MessageBridge(Runnable::run);
+
+    private List<String> collect(String channel) {
+        List<String> received = new ArrayList<>();
+        bridge.subscribe(channel, fields -> received.add(Arrays.toString(fields)));
+        return received;
+    }
+
+    @Test
+    public void dispatchesBatchByChannelInOrder() {
+        List<String> timeline = collect("timeline");
+        List<String> history = collect("history");
+
+        bridge.deliver("timeline" + US + "2" + US + "first-paint" + US + "1000.5" + US + "0"
+                + RS + "history" + US + "1" + US + "3"
+                + RS + "timeline" + US + "3" + US + "lcp" + US + "1200" + US + "0");
+
+        assertEquals(Arrays.asList("[2, first-paint, 1000.5, 0]", "[3, lcp, 1200, 0]"), timeline);
+        assertEquals(Arrays.asList("[1, 3]"), history);
+    }
+
+    @Test
+    public void keepsEmptyFieldsAndIgnoresUnknownChannels() {
+        List<String> network = collect("network");
+
+        bridge.deliver("console" + US + "log" + RS + RS + "network" + US + US + "x" + US);
+
+        assertEquals(Arrays.asList("[, x, ]"), network);
+    }
+
+    @Test
+    public void malformedMessageDoesNotDropRestOfBatch() {
+        List<Integer> values = new ArrayList<>();
+        bridge.subscribe("n", fields -> values.add(Integer.parseInt(fields[0])));
+
+        bridge.deliver("n" + US + "1" + RS + "n" + US + "oops" + RS + "n" + US + "3");
+
+        assertEquals(Arrays.asList(1, 3), values);
+    }
+
+    @Test
+    public void unsubscribedReceiverIsNotCalled() {
+        List<String> received = new ArrayList<>();
+        MessageBridge.Subscriber subscriber = fields -> received.add(fields[0]);
+        bridge.subscribe("history", subscriber);
+        bridge.deliver("history" + US + "1");
+        bridge.unsubscribe("history", subscriber);
+        bridge.deliver("history" + US + "0");
+
+        assertEquals(Arrays.asList("1"), received);
+    }
+
+    @Test
+    public void historyBridgeParsesState() {
+        HistoryBridge history = new HistoryBridge();
+        bridge.subscribe(HistoryBridge.CHANNEL, history);
+
+        bridge.deliver(HistoryBridge.CHANNEL + US + "1" + US + "4");
+        assertTrue(history.shouldHandleBack());
+        assertEquals(4, history.getLength());
+
+        history.markBackRequested();
+        assertFalse(history.shouldHandleBack());
+        bridge.deliver(HistoryBridge.CHANNEL + US + "0" + US + "4");
+        assertFalse(history.shouldHandleBack());
+        assertTrue(history.getLastBackLatencyMs() >= 0);
+    }
+
+    @Test
+    public void historyBackWithUnchangedStateCompletes() {
+        HistoryBridge history = new HistoryBridge();
+        bridge.subscribe(HistoryBridge.CHANNEL, history);
+        bridge.deliver(HistoryBridge.CHANNEL + US + "1" + US + "3");
+
+        // 同一网址的 pushState 记录后退后状态不变，脚本仍在 popstate 时上报
+        assertTrue(HistoryBridge.SCRIPT.contains("addEventListener('popstate', function() { report(true); })"));
+        history.markBackRequested();
+        bridge.deliver(HistoryBridge.CHANNEL + US + "1" + US + "3");
+        assertTrue(history.shouldHandleBack());
+    }
+}
@@ -0,0 +1,124 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class NetworkRecorderTest {
+
+    private static String har(NetworkRecorder recorder) throws IOException {
+        StringWriter out = new StringWriter();
+        recorder.writeHar(out);
+        return out.toString();
+    }
+
+    @Test
+    public void mergesResourceTimingIntoLatestRequest() throws IOException {
+        NetworkRecorder recorder = new NetworkRecorder(16);
+        recorder.begin("GET", "https://a.com/app.js", 1000);
+        recorder.begin("GET", "https://a.com/app.css", 1001);
+        recorder.onResourceTiming("https://a.com/app.js", 1000.5, 3, 20, 45, 12, 5120, 200);
+
+        assertEquals(2, recorder.size());
+        String[] recent = recorder.describeRecent(10);
+        assertEquals("- GET \nhttps://a.com/app.css", recent[0]);
+        assertEquals("200 GET 80ms\nhttps://a.com/app.js", recent[1]);
+        String json = har(recorder);
+        assertTrue(json.contains("\"timings\":{\"blocked\":-1,\"dns\":3,\"connect\":20,\"send\":0,\"wait\":45,\"receive\":12,\"ssl\":-1}"));
+        assertTrue(json.contains("\"bodySize\":5120"));
+    }
+
+    @Test
+    public void unmatchedTimingIsRecordedAsNewRequest() {
+        NetworkRecorder recorder = new NetworkRecorder(16);
+        recorder.onResourceTiming("https://a.com/cached.png", 1000, -1, -1, -1, 4, -1, 0);
+
+        assertEquals(1, recorder.size());
+        assertEquals("- GET 4ms\nhttps://a.com/cached.png", recorder.describeRecent(1)[0]);
+    }
+
+    @Test
+    public void errorsAndStatusesAttachToLatestMatchingUrl() throws IOException {
+        NetworkRecorder recorder = new NetworkRecorder(16);
+        recorder.begin("GET", "https://a.com/api", 1000);
+        recorder.begin("GET", "https://a.com/api", 1100);
+        recorder.onHttpError("https://a.com/api", 500);
+        recorder.begin("GET", "https://down.example/", 1200);
+        recorder.onError("https://down.example/", "net::ERR_NAME_NOT_RESOLVED");
+
+        String[] recent = recorder.describeRecent(3);
+        assertTrue(recent[0].startsWith("ERR "));
+        assertTrue(recent[1].startsWith("500 "));
+        assertTrue(recent[2].startsWith("- "));
+        assertTrue(har(recorder).contains("\"_error\":\"net::ERR_NAME_NOT_RESOLVED\""));
+    }
+
+    @Test
+    public void ringBufferKeepsNewest() {
+        NetworkRecorder recorder = new NetworkRecorder(4);
+        for (int i = 0; i < 10; i++) {
+            recorder.begin("GET", "https://a.com/" + i, i);
+        }
+
+        assertEquals(4, recorder.size());
+        String[] recent = recorder.describeRecent(10);
+        assertEquals(4, recent.length);
+        assertTrue(recent[0].endsWith("https://a.com/9"));
+        assertTrue(recent[3].endsWith("https://a.com/6"));
+    }
+
+    @Test
+    public void staleSequenceIsIgnored() {
+        NetworkRecorder recorder = new NetworkRecorder(2);
+        long first = recorder.begin("GET", "https://a.com/0", 0);
+        recorder.begin("GET", "https://a.com/1", 1);
+        recorder.begin("GET", "https://a.com/2", 2);
+        recorder.setStatus(first, 200);
+
+        assertTrue(recorder.describeRecent(2)[1].startsWith("- "));
+    }
+
+    @Test
+    public void harHasRequiredStructure() throws IOException {
+        NetworkRecorder recorder = new NetworkRecorder(4);
+        recorder.begin("POST", "https://a.com/\"quoted\"", 0);
+        recorder.clear();
+        assertEquals(0, recorder.size());
+        recorder.begin("GET", "https://a.com/", 0);
+
+        String json = har(recorder);
+        assertTrue(json.startsWith("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"lcap-debugger\""));
+        assertTrue(json.contains("\"request\":{\"method\":\"GET\",\"url\":\"https://a.com/\""));
+        assertTrue(json.contains("\"startedDateTime\":\"1970-01-01T"));
+        assertFalse(json.contains("quoted"));
+        assertTrue(json.endsWith("]}}"));
+    }
+
+    @Test
+    public void staleUpdatesAfterClearAreDropped() {
+        NetworkRecorder recorder = new NetworkRecorder(4);
+        long stale = recorder.begin("GET", "https://a.com/old", 0);
+        recorder.clear();
+        long fresh = recorder.begin("GET", "https://a.com/new", 0);
+        assertTrue(fresh > stale);
+
+        // 清空前的请求迟到的状态码不能写到新请求上
+        recorder.setStatus(stale, 500);
+        assertTrue(recorder.describeRecent(1)[0].startsWith("- GET"));
+        recorder.setStatus(fresh, 200);
+        assertTrue(recorder.describeRecent(1)[0].startsWith("200 GET"));
+
+        // 槽位被回绕覆盖后同样丢弃
+        for (int i = 0; i < 4; i++) {
+            recorder.begin("GET", "https://a.com/" + i, 0);
+        }
+        recorder.setStatus(fresh, 404);
+        for (String line : recorder.describeRecent(4)) {
+            assertFalse(line, line.startsWith("404"));
+        }
+        assertEquals(4, recorder.size());
+    }
+}
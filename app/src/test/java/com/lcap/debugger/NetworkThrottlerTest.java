@@ -0,0 +1,165 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用虚拟时钟检查限速结果：sleep 只推进时间，不真正等待。
+ */
+public class NetworkThrottlerTest {
+
+    private static final class FakeClock implements NetworkThrottler.Clock {
+        long now;
+
+        @Override
+        public synchronized long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public synchronized void sleepNanos(long nanos) {
+            now += nanos;
+        }
+    }
+
+    private final FakeClock clock = new FakeClock();
+    // 不会被调用：测试都传入上游响应
+    private final NetworkThrottler throttler = new NetworkThrottler(null, clock);
+
+    @Test
+    public void addsRoundTripAndLimitsBandwidth() throws IOException {
+        // 80kbps = 10000 字节/秒
+        throttler.setConditions(new NetworkThrottler.Conditions(80, 300, 0, 0));
+        InterceptedResponse response = throttler.shape("GET", "https://example.com/a.js",
+                Collections.emptyMap(), false, upstream(50_000));
+        assertEquals(300, millis());
+
+        assertEquals(50_000, drain(response.body));
+        // 空闲链路有 16KB 的突发额度，其余按带宽计时
+        long expected = 300 + (50_000 - NetworkThrottler.BURST_BYTES) * 1000L / 10_000;
+        assertEquals(expected, millis(), 2);
+    }
+
+    @Test
+    public void concurrentResponsesShareTheLink() throws IOException {
+        throttler.setConditions(new NetworkThrottler.Conditions(80, 0, 0, 0));
+        InterceptedResponse first = throttler.shape("GET", "https://example.com/1", Collections.emptyMap(), false, upstream(30_000));
+        InterceptedResponse second = throttler.shape("GET", "https://example.com/2", Collections.emptyMap(), false, upstream(30_000));
+        byte[] buffer = new byte[NetworkThrottler.CHUNK_BYTES];
+        // 交替读取两个响应体，总耗时按总字节数计算
+        int total = 0;
+        boolean more = true;
+        while (more) {
+            int a = first.body.read(buffer);
+            int b = second.body.read(buffer);
+            total += Math.max(a, 0) + Math.max(b, 0);
+            more = a > 0 || b > 0;
+        }
+        assertEquals(60_000, total);
+        assertEquals((60_000 - NetworkThrottler.BURST_BYTES) / 10, millis(), 2);
+    }
+
+    @Test
+    public void errorsAndLossAreDeterministicPerUrl() throws IOException {
+        throttler.setConditions(new NetworkThrottler.Conditions(8000, 100, 30, 50));
+        int errors = 0;
+        for (int i = 0; i < 40; i++) {
+            String url = "https://example.com/r" + i;
+            long[] elapsed = new long[2];
+            int[] status = new int[2];
+            for (int run = 0; run < 2; run++) {
+                long start = clock.nanoTime();
+                InterceptedResponse response = throttler.shape("GET", url, Collections.emptyMap(), false, upstream(40_000));
+                drain(response.body);
+                status[run] = response.status;
+                // 链路空闲后再开始下一次，消除前一个请求的排队影响
+                clock.sleepNanos(10_000_000_000L);
+                elapsed[run] = clock.nanoTime() - start;
+            }
+            assertEquals(status[0], status[1]);
+            assertEquals(elapsed[0], elapsed[1]);
+            if (status[0] == 503) {
+                errors++;
+            }
+        }
+        assertTrue(errors > 5 && errors < 35);
+    }
+
+    @Test
+    public void disabledOrNonHttpRequestsPassThrough() {
+        InterceptedResponse upstream = upstream(10);
+        assertSame(upstream, throttler.shape("GET", "https://example.com/", Collections.emptyMap(), false, upstream));
+        throttler.setConditions(NetworkThrottler.Conditions.parse("400, 400"));
+        assertSame(upstream, throttler.shape("GET", "data:text/plain,hi", Collections.emptyMap(), false, upstream));
+        assertEquals(0, millis());
+        // 非 GET 无法代为请求，只加延迟
+        assertNull(throttler.shape("POST", "https://example.com/api", Collections.emptyMap(), false, null));
+        assertEquals(400, millis());
+        assertEquals("400,400,0,0", throttler.getConditions().format());
+        assertEquals("1000,50,1.5,2", NetworkThrottler.Conditions.parse("1000,50,1.5,2").format());
+    }
+
+    @Test
+    public void redirectsAreThrottledPerHop() throws IOException {
+        List<String> fetched = new ArrayList<>();
+        HttpFetcher fetcher = new HttpFetcher(null) {
+            @Override
+            public InterceptedResponse fetch(String method, String url, Map<String, String> requestHeaders) {
+                fetched.add(url);
+                if (url.endsWith("/final.js")) {
+                    return upstream(100);
+                }
+                Map<String, String> headers = new LinkedHashMap<>();
+                headers.put("Location", url.endsWith("/a.js") ? "/b.js" : "/final.js");
+                return new InterceptedResponse(302, "Found", null, null, headers, new ByteArrayInputStream(new byte[0]));
+            }
+        };
+        NetworkThrottler redirecting = new NetworkThrottler(fetcher, clock);
+        redirecting.setConditions(new NetworkThrottler.Conditions(8000, 200, 0, 0));
+
+        // 子资源在这里跟随，每一跳一个往返
+        InterceptedResponse response = redirecting.shape("GET", "https://example.com/a.js",
+                Collections.emptyMap(), false, null);
+        assertEquals(200, response.status);
+        assertEquals(Arrays.asList("https://example.com/a.js", "https://example.com/b.js",
+                "https://example.com/final.js"), fetched);
+        assertEquals(600, millis());
+
+        // 主文档返回跳转页，WebView 请求新地址时再次限速
+        InterceptedResponse page = redirecting.shape("GET", "https://example.com/a.js",
+                Collections.emptyMap(), true, null);
+        assertEquals(200, page.status);
+        assertEquals("text/html", page.mimeType);
+        assertEquals(800, millis());
+    }
+
+    private long millis() {
+        return clock.nanoTime() / 1_000_000;
+    }
+
+    private static InterceptedResponse upstream(int length) {
+        return new InterceptedResponse(200, "OK", "application/javascript", "utf-8",
+                Collections.emptyMap(), new ByteArrayInputStream(new byte[length]));
+    }
+
+    private static int drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        int total = 0;
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+}
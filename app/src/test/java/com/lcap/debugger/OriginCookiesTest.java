@@ -0,0 +1,47 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OriginCookiesTest {
+
+    @Test
+    public void coversParentDomainsAndPathPrefixes() {
+        List<String> headers = OriginCookies.expiryHeaders("https://m.shop.example.com/a/b/index.html?x=1",
+                "sid=1; theme=dark");
+        String expired = "=; Max-Age=0; Expires=Thu, 01 Jan 1970 00:00:00 GMT";
+        // 以 Domain=.example.com、Path=/a 写入的会话 Cookie 也要被覆盖
+        assertTrue(headers.contains("sid" + expired + "; Path=/a; Secure; Domain=example.com"));
+        assertTrue(headers.contains("sid" + expired + "; Path=/; Secure"));
+        assertTrue(headers.contains("theme" + expired + "; Path=/a/b/; Secure; Domain=shop.example.com"));
+        assertTrue(headers.contains("theme" + expired + "; Path=/a/b/index.html; Secure; Domain=m.shop.example.com"));
+        // 不越过两段域名
+        for (String header : headers) {
+            assertFalse(header, header.endsWith("Domain=com"));
+        }
+        // 2 个名字 × 6 个路径 × (仅主机 + 3 级域名)
+        assertEquals(2 * 6 * 4, headers.size());
+    }
+
+    @Test
+    public void domainsAndPaths() {
+        assertEquals(Arrays.asList("a.b.c", "b.c"), OriginCookies.domains("a.b.c"));
+        assertEquals(Arrays.asList("10.0.0.2"), OriginCookies.domains("10.0.0.2"));
+        assertEquals(Arrays.asList("localhost"), OriginCookies.domains("localhost"));
+        assertEquals(Arrays.asList("/"), OriginCookies.paths(""));
+        assertEquals(Arrays.asList("/", "/x", "/x/"), OriginCookies.paths("/x/"));
+    }
+
+    @Test
+    public void nothingToExpire() {
+        assertTrue(OriginCookies.expiryHeaders("https://a.com/", null).isEmpty());
+        assertTrue(OriginCookies.expiryHeaders("about:blank", "a=1").isEmpty());
+        // http 网址不加 Secure
+        assertEquals("a=; Max-Age=0; Expires=Thu, 01 Jan 1970 00:00:00 GMT; Path=/",
+                OriginCookies.expiryHeaders("http://localhost/", "a=1").get(0));
+    }
+}
@@ -0,0 +1,76 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PerceptualDiffTest {
+
+    private static final int WHITE = 0xffffffff;
+    private static final int BLACK = 0xff000000;
+
+    @Test
+    public void identicalImagesHaveNoDifference() {
+        int[] image = filled(40, 30, 0xff3366cc);
+        PerceptualDiff.Result result = PerceptualDiff.compare(image, 40, 30, image.clone(), 40, 30, 0.1, null, true);
+        assertEquals(0, result.diffPixels);
+        assertEquals(0, result.score, 0);
+        assertEquals(0, result.meanDelta, 0);
+        // 没有差异时热力图只有淡化的灰度底图
+        for (int pixel : result.heatmap) {
+            assertTrue((pixel >>> 16 & 0xff) > 0xe0);
+            assertEquals(pixel >>> 16 & 0xff, pixel & 0xff);
+        }
+    }
+
+    @Test
+    public void changedRegionIsCountedAndHighlighted() {
+        int[] baseline = filled(100, 100, WHITE);
+        int[] current = baseline.clone();
+        // 左上角 10x10 的黑块
+        for (int y = 0; y < 10; y++) {
+            Arrays.fill(current, y * 100, y * 100 + 10, BLACK);
+        }
+        PerceptualDiff.Result result = PerceptualDiff.compare(baseline, 100, 100, current, 100, 100, 0.1, null, true);
+        assertEquals(100, result.diffPixels);
+        assertEquals(0.01, result.score, 1e-9);
+        // 黑白之间接近最大色差，几乎纯红
+        assertEquals(0xff, result.heatmap[0] >>> 16 & 0xff);
+        assertTrue((result.heatmap[0] >>> 8 & 0xff) < 0x20);
+        assertEquals(0xffffffff, result.heatmap[50 * 100 + 50]);
+    }
+
+    @Test
+    public void subtleChangesBelowThresholdAreIgnored() {
+        int[] baseline = filled(20, 20, 0xff808080);
+        int[] current = filled(20, 20, 0xff838383);
+        PerceptualDiff.Result result = PerceptualDiff.compare(baseline, 20, 20, current, 20, 20, 0.1, null, false);
+        assertEquals(0, result.diffPixels);
+        assertTrue(result.meanDelta > 0);
+        assertNull(result.heatmap);
+        // 阈值为 0 时任何变化都计为不同
+        assertEquals(400, PerceptualDiff.compare(baseline, 20, 20, current, 20, 20, 0, null, false).diffPixels);
+        // 透明像素按白底混合
+        assertEquals(0, PerceptualDiff.colorDelta(0x00000000, WHITE), 1e-9);
+    }
+
+    @Test
+    public void sizeMismatchCountsExtraAreaAndReusesHeatmap() {
+        int[] baseline = filled(10, 10, WHITE);
+        int[] current = filled(10, 12, WHITE);
+        int[] reuse = new int[200];
+        PerceptualDiff.Result result = PerceptualDiff.compare(baseline, 10, 10, current, 10, 12, 0.1, reuse, true);
+        assertEquals(10, result.width);
+        assertEquals(12, result.height);
+        assertEquals(20, result.diffPixels);
+        assertSame(reuse, result.heatmap);
+    }
+
+    private static int[] filled(int width, int height, int color) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, color);
+        return pixels;
+    }
+}
@@ -0,0 +1,82 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PerfTimelineTest {
+
+    @Test
+    public void entriesAreRelativeToEarliestStart() {
+        PerfTimeline timeline = new PerfTimeline(16);
+        timeline.beginLoad("https://a.com", 1000);
+        timeline.add(PerfTimeline.TYPE_NATIVE, "onPageStarted", 1000, 0);
+        // 页面 timeOrigin 早于 onPageStarted
+        timeline.add(PerfTimeline.TYPE_NAVIGATION, "ttfb", 990, 50);
+
+        List<PerfTimeline.Entry> entries = timeline.entries();
+        assertEquals(10, entries.get(0).start, 0.001);
+        assertEquals(0, entries.get(1).start, 0.001);
+        assertEquals(50, timeline.summary().ttfb, 0.001);
+    }
+
+    @Test
+    public void ringBufferDropsOldest() {
+        PerfTimeline timeline = new PerfTimeline(3);
+        timeline.beginLoad("https://a.com", 0);
+        for (int i = 1; i <= 5; i++) {
+            timeline.add(PerfTimeline.TYPE_LONG_TASK, "task" + i, i, 1);
+        }
+
+        List<PerfTimeline.Entry> entries = timeline.entries();
+        assertEquals(3, entries.size());
+        assertEquals("task3", entries.get(0).name);
+        assertEquals("task5", entries.get(2).name);
+        assertEquals(2, timeline.getDroppedCount());
+    }
+
+    @Test
+    public void beginLoadClearsPreviousLoad() {
+        PerfTimeline timeline = new PerfTimeline(8);
+        timeline.beginLoad("https://a.com", 100);
+        timeline.add(PerfTimeline.TYPE_PAINT, "first-paint", 150, 0);
+        timeline.beginLoad("https://b.com", 200);
+
+        assertTrue(timeline.entries().isEmpty());
+        assertEquals("https://b.com", timeline.getUrl());
+    }
+
+    @Test
+    public void summaryUsesLastLcp() {
+        PerfTimeline timeline = new PerfTimeline(8);
+        timeline.beginLoad("https://a.com", 1000);
+        timeline.add(PerfTimeline.TYPE_PAINT, "first-contentful-paint", 1200, 0);
+        timeline.add(PerfTimeline.TYPE_LCP, "largest-contentful-paint", 1300, 0);
+        timeline.add(PerfTimeline.TYPE_LCP, "largest-contentful-paint", 1450, 0);
+        timeline.add(PerfTimeline.TYPE_NATIVE, "onPageFinished", 1600, 0);
+
+        PerfTimeline.Summary summary = timeline.summary();
+        assertEquals(200, summary.fcp, 0.001);
+        assertEquals(450, summary.lcp, 0.001);
+        assertEquals(600, summary.pageFinished, 0.001);
+        assertTrue(Double.isNaN(summary.ttfb));
+    }
+
+    @Test
+    public void writesJson() throws IOException {
+        PerfTimeline timeline = new PerfTimeline(8);
+        timeline.beginLoad("https://a.com/?q=\"x\"", 1000);
+        timeline.add(PerfTimeline.TYPE_PAINT, "first-contentful-paint", 1200.256, 0);
+
+        StringWriter out = new StringWriter();
+        timeline.writeJson(out);
+        assertEquals("{\"url\":\"https://a.com/?q=\\\"x\\\"\",\"loadStartEpochMs\":1000,\"dropped\":0,"
+                        + "\"summary\":{\"ttfb\":null,\"fcp\":200.26,\"lcp\":null,\"pageFinished\":null},"
+                        + "\"entries\":[{\"type\":\"paint\",\"name\":\"first-contentful-paint\",\"start\":200.26,\"duration\":0}]}",
+                out.toString());
+    }
+}
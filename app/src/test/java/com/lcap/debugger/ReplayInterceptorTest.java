@@ -0,0 +1,202 @@
+package com.lcap.debugger;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用本机 HttpServer 代替真实后端：先录制，再停掉服务器回放。
+ */
+public class ReplayInterceptorTest {
+
+    private static final byte[] LARGE_BODY = new byte[ReplayInterceptor.SPILL_BYTES * 3 + 17];
+
+    static {
+        for (int i = 0; i < LARGE_BODY.length; i++) {
+            LARGE_BODY[i] = (byte) (i * 31);
+        }
+    }
+
+    private HttpServer server;
+    private String baseUrl;
+    private File dir;
+    private final AtomicInteger hits = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("replay-interceptor").toFile();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            hits.incrementAndGet();
+            byte[] body = ("<html>hit " + hits.get() + "</html>").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/redirect", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/page");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/large", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.getResponseHeaders().add("Link", "</a.css>; rel=preload");
+            exchange.getResponseHeaders().add("Link", "</b.js>; rel=preload");
+            exchange.sendResponseHeaders(200, LARGE_BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(LARGE_BODY);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void recordThenReplayOffline() throws IOException {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+        interceptor.setMode(ReplayMode.RECORD);
+
+        InterceptedResponse recorded = interceptor.intercept("GET", baseUrl + "/page#top", null, false);
+        assertNotNull(recorded);
+        assertEquals("text/html", recorded.mimeType);
+        assertEquals("utf-8", recorded.encoding);
+        assertEquals("<html>hit 1</html>", read(recorded.body));
+
+        server.stop(0);
+        interceptor.setMode(ReplayMode.REPLAY);
+        for (int i = 0; i < 3; i++) {
+            InterceptedResponse replayed = interceptor.intercept("GET", baseUrl + "/page", null, false);
+            assertEquals(200, replayed.status);
+            assertEquals("text/html", replayed.mimeType);
+            assertEquals("<html>hit 1</html>", read(replayed.body));
+        }
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void replayMissDoesNotTouchNetwork() throws IOException {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+        interceptor.setMode(ReplayMode.REPLAY);
+
+        InterceptedResponse response = interceptor.intercept("GET", baseUrl + "/page", null, false);
+        assertEquals(404, response.status);
+        assertEquals(0, hits.get());
+    }
+
+    @Test
+    public void partiallyReadResponseIsNotRecorded() throws IOException {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+        interceptor.setMode(ReplayMode.RECORD);
+
+        InterceptedResponse response = interceptor.intercept("GET", baseUrl + "/page", null, false);
+        response.body.read(new byte[4]);
+        response.body.close();
+        InterceptedResponse large = interceptor.intercept("GET", baseUrl + "/large", null, false);
+        large.body.read(new byte[ReplayInterceptor.SPILL_BYTES * 2]);
+        large.body.close();
+
+        assertEquals(0, interceptor.recordedCount());
+    }
+
+    @Test
+    public void redirectsAreRecordedAndReplayed() throws IOException {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+        interceptor.setMode(ReplayMode.RECORD);
+
+        // 子资源在拦截器里跟随，主文档得到跳转页
+        assertEquals("<html>hit 1</html>", read(interceptor.intercept("GET", baseUrl + "/redirect", null, false).body));
+        InterceptedResponse page = interceptor.intercept("GET", baseUrl + "/redirect", null, true);
+        assertEquals(200, page.status);
+        assertTrue(read(page.body).contains("location.replace(\"" + baseUrl + "/page\")"));
+        assertEquals(2, interceptor.recordedCount());
+
+        server.stop(0);
+        interceptor.setMode(ReplayMode.REPLAY);
+        assertEquals("<html>hit 1</html>", read(interceptor.intercept("GET", baseUrl + "/redirect", null, false).body));
+        assertTrue(read(interceptor.intercept("GET", baseUrl + "/redirect", null, true).body)
+                .contains(baseUrl + "/page"));
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void largeBodiesAndRepeatedHeadersAreRecorded() throws IOException {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+        interceptor.setMode(ReplayMode.RECORD);
+
+        InterceptedResponse recorded = interceptor.intercept("GET", baseUrl + "/large", null, false);
+        // JDK 的 HttpURLConnection 会把同名头部倒序返回，只检查两个值都在
+        String link = InterceptedResponse.header(recorded.headers, "Link");
+        assertTrue(link, link.contains("</a.css>; rel=preload") && link.contains(", ") && link.contains("</b.js>; rel=preload"));
+        assertArrayEquals(LARGE_BODY, readBytes(recorded.body));
+        // 转存的临时文件写入存储后删除
+        assertEquals(0, dir.listFiles((parent, name) -> name.endsWith(".tmp")).length);
+
+        server.stop(0);
+        interceptor.setMode(ReplayMode.REPLAY);
+        InterceptedResponse replayed = interceptor.intercept("GET", baseUrl + "/large", null, false);
+        assertEquals(link, InterceptedResponse.header(replayed.headers, "Link"));
+        assertArrayEquals(LARGE_BODY, readBytes(replayed.body));
+    }
+
+    @Test
+    public void nonGetAndNonHttpAreLeftToWebView() throws IOException {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+        interceptor.setMode(ReplayMode.RECORD);
+
+        assertNull(interceptor.intercept("POST", baseUrl + "/page", null, false));
+        assertNull(interceptor.intercept("GET", "data:text/html,hi", null, false));
+        assertEquals(0, interceptor.recordedCount());
+        assertEquals(0, dir.listFiles((parent, name) -> name.endsWith(".tmp")).length);
+    }
+
+    @Test
+    public void offModePassesThrough() {
+        ReplayInterceptor interceptor = new ReplayInterceptor(dir, new HttpFetcher(null));
+
+        assertNull(interceptor.intercept("GET", baseUrl + "/page", null, false));
+        assertEquals(0, hits.get());
+    }
+}
@@ -0,0 +1,149 @@
+package com.lcap.debugger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReplayStoreTest {
+
+    private File dir;
+    private ReplayStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("replay").toFile();
+        store = new ReplayStore(dir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static Map<String, String> headers(String contentType) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", contentType);
+        headers.put("X-Test", "1");
+        return headers;
+    }
+
+    private void put(ReplayStore target, String key, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        target.put(key, 200, "OK", headers("text/html"), bytes, bytes.length);
+    }
+
+    private static String read(ReplayStore.Entry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = entry.openBody()) {
+            byte[] buffer = new byte[7];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void putAndGet() throws IOException {
+        put(store, "GET https://a.com/", "<html>a</html>");
+
+        ReplayStore.Entry entry = store.get("GET https://a.com/");
+        assertNotNull(entry);
+        assertEquals(200, entry.status);
+        assertEquals("text/html", entry.headers.get("Content-Type"));
+        assertEquals("1", entry.headers.get("X-Test"));
+        assertEquals("<html>a</html>", read(entry));
+        assertNull(store.get("GET https://b.com/"));
+    }
+
+    @Test
+    public void latestWriteWins() throws IOException {
+        put(store, "GET https://a.com/", "old");
+        put(store, "GET https://a.com/", "new");
+
+        assertEquals(1, store.size());
+        assertEquals("new", read(store.get("GET https://a.com/")));
+    }
+
+    @Test
+    public void growsBeyondInitialSlots() throws IOException {
+        int count = ReplayStore.INITIAL_SLOTS * 2;
+        for (int i = 0; i < count; i++) {
+            put(store, "GET https://a.com/" + i, "body" + i);
+        }
+
+        assertEquals(count, store.size());
+        for (int i = 0; i < count; i += 97) {
+            assertEquals("body" + i, read(store.get("GET https://a.com/" + i)));
+        }
+    }
+
+    @Test
+    public void persistsAcrossReopen() throws IOException {
+        put(store, "GET https://a.com/", "a");
+        put(store, "GET https://b.com/", "b");
+        store.close();
+
+        store = new ReplayStore(dir);
+        assertEquals(2, store.size());
+        assertEquals("b", read(store.get("GET https://b.com/")));
+    }
+
+    @Test
+    public void rebuildsMissingIndex() throws IOException {
+        put(store, "GET https://a.com/", "a");
+        put(store, "GET https://b.com/", "b");
+        store.close();
+        assertTrue(new File(dir, "responses.idx").delete());
+
+        store = new ReplayStore(dir);
+        assertEquals(2, store.size());
+        assertEquals("a", read(store.get("GET https://a.com/")));
+    }
+
+    @Test
+    public void truncatesPartialRecordOnRebuild() throws IOException {
+        put(store, "GET https://a.com/", "a");
+        put(store, "GET https://b.com/", "bbbbbbbbbb");
+        store.close();
+        new File(dir, "responses.idx").delete();
+        File data = new File(dir, "responses.dat");
+        try (RandomAccessFile raf = new RandomAccessFile(data, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        store = new ReplayStore(dir);
+        assertEquals(1, store.size());
+        assertNull(store.get("GET https://b.com/"));
+        assertEquals("a", read(store.get("GET https://a.com/")));
+    }
+
+    @Test
+    public void clearRemovesEverything() throws IOException {
+        put(store, "GET https://a.com/", "a");
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertNull(store.get("GET https://a.com/"));
+    }
+}
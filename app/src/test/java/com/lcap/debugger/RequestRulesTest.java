@@ -0,0 +1,165 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class RequestRulesTest {
+
+    private static final String RULES = String.join("\n",
+            "# 第三方统计",
+            "||Tracker.example.com",
+            "stub ||cdn.example.com/sdk/ application/javascript",
+            "/collect",
+            "file ||ads.example.net banner.html",
+            "stub utm_source=",
+            "0.0.0.0 hosts.example.org",
+            "block ||bad.example.com extra",
+            "file ||missing.example.com",
+            "unknown-action ||x.com a b");
+
+    @Test
+    public void matchesDomainPrefixAndSubstringRules() throws IOException {
+        RequestRules rules = parse(RULES, null);
+        assertEquals(6, rules.size());
+        assertEquals(3, rules.getErrors().size());
+        assertTrue(rules.getErrors().get(0).startsWith("8: "));
+
+        assertEquals("||Tracker.example.com", pattern(rules, "https://tracker.example.com/t.js"));
+        assertEquals("||Tracker.example.com", pattern(rules, "https://a.b.TRACKER.example.com:8443/"));
+        // 只匹配完整的标签，不匹配 eviltracker.example.com
+        assertNull(pattern(rules, "https://eviltracker.example.com/"));
+        assertEquals("||cdn.example.com/sdk/", pattern(rules, "https://cdn.example.com/sdk/v2.js?x=1"));
+        assertNull(pattern(rules, "https://cdn.example.com/app/main.js"));
+        assertEquals("/collect", pattern(rules, "http://any.host/collect?v=1"));
+        assertNull(pattern(rules, "http://any.host/api/collect"));
+        assertEquals("utm_source=", pattern(rules, "https://shop.example.com/p?UTM_SOURCE=mail"));
+        assertEquals("||hosts.example.org", pattern(rules, "https://hosts.example.org/"));
+        assertNull(pattern(rules, "https://example.com/index.html"));
+    }
+
+    @Test
+    public void hostsLinesBlockEveryNameExceptLocalOnes() throws IOException {
+        RequestRules rules = parse(String.join("\n",
+                "127.0.0.1 localhost localhost.localdomain",
+                "255.255.255.255 broadcasthost",
+                "::1 localhost ip6-localhost ip6-loopback",
+                "ff02::1 ip6-allnodes",
+                "0.0.0.0 a.example.org B.example.org # 广告",
+                "0.0.0.0 c.example.org bad/path"), null);
+        assertEquals(1, rules.getErrors().size());
+        assertTrue(rules.getErrors().get(0).startsWith("6: "));
+        assertEquals(3, rules.size());
+        assertEquals("||a.example.org", pattern(rules, "https://a.example.org/"));
+        assertEquals("||b.example.org", pattern(rules, "https://b.example.org/x.js"));
+        assertEquals("||c.example.org", pattern(rules, "https://c.example.org/"));
+        assertNull(pattern(rules, "http://localhost:8080/"));
+        assertNull(pattern(rules, "http://ip6-localhost/"));
+    }
+
+    @Test
+    public void earlierRuleWinsAndHitsAreCounted() throws IOException {
+        RequestRules rules = parse("stub ||example.com\nblock /a\nsdk.js\n", null);
+        // 三条都命中时取文件中靠前的
+        assertEquals(RequestRules.Action.STUB, rules.match("https://example.com/a/sdk.js").action);
+        assertEquals("/a", rules.match("https://other.com/a/sdk.js").pattern);
+        assertEquals("sdk.js", rules.match("https://other.com/b/sdk.js").pattern);
+        assertNull(rules.match("https://other.com/"));
+        assertEquals(1, rules.getRules().get(0).getHits());
+        assertEquals(1, rules.getRules().get(1).getHits());
+        assertEquals(1, rules.getRules().get(2).getHits());
+    }
+
+    @Test
+    public void substringsOverlappingViaFailLinks() throws IOException {
+        // 扫描 "abcabd" 时需要沿 fail 指针从 "abca" 退到 "a" 才能找到 "abd"
+        RequestRules rules = parse("abcx\nabd\nbc\n", null);
+        assertEquals("abd", rules.match("https://h/abcabd").pattern);
+        assertEquals("bc", rules.match("https://h/zabcz").pattern);
+        assertNull(rules.match("https://h/acbd"));
+    }
+
+    @Test
+    public void respondsPerAction() throws IOException {
+        File dir = Files.createTempDirectory("request-rules").toFile();
+        File banner = new File(dir, "banner.html");
+        Files.write(banner.toPath(), "<p>local</p>".getBytes(StandardCharsets.UTF_8));
+        RequestRules rules = parse(RULES + "\nstub ||img.example.com", dir);
+        try {
+            InterceptedResponse blocked = respond(rules, "https://tracker.example.com/t.js");
+            assertEquals(403, blocked.status);
+
+            InterceptedResponse stub = respond(rules, "https://cdn.example.com/sdk/a.js");
+            assertEquals(200, stub.status);
+            assertEquals("application/javascript", stub.mimeType);
+            assertEquals("", read(stub.body));
+
+            InterceptedResponse image = respond(rules, "https://img.example.com/pixel.png?id=1");
+            assertEquals("image/gif", image.mimeType);
+            assertTrue(read(image.body).startsWith("GIF89a"));
+
+            InterceptedResponse file = respond(rules, "https://ads.example.net/slot");
+            assertEquals("text/html", file.mimeType);
+            assertEquals("<p>local</p>", read(file.body));
+
+            banner.delete();
+            assertEquals(404, respond(rules, "https://ads.example.net/slot").status);
+        } finally {
+            banner.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void blockerLoadsInBackgroundAndCanBeDisabled() throws IOException {
+        File file = Files.createTempFile("rules", ".txt").toFile();
+        Files.write(file.toPath(), "||example.com\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            RequestBlocker blocker = new RequestBlocker(file, Runnable::run);
+            assertNull(blocker.intercept("https://example.com/"));
+            blocker.reload(null);
+            assertEquals(403, blocker.intercept("https://example.com/").status);
+            blocker.setEnabled(false);
+            assertNull(blocker.intercept("https://example.com/"));
+
+            file.delete();
+            blocker.reload((rules, error) -> assertNull(error));
+            assertEquals(0, blocker.getRules().size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static RequestRules parse(String text, File dir) throws IOException {
+        return RequestRules.parse(new BufferedReader(new StringReader(text)), dir);
+    }
+
+    private static String pattern(RequestRules rules, String url) {
+        RequestRules.Rule rule = rules.match(url);
+        return rule != null ? rule.pattern : null;
+    }
+
+    private static InterceptedResponse respond(RequestRules rules, String url) {
+        return rules.respond(rules.match(url), url);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+}
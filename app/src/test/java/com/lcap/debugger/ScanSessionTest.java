@@ -0,0 +1,37 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ScanSessionTest {
+
+    @Test
+    public void duplicatesAreCountedButNotKept() {
+        ScanSession session = new ScanSession(0);
+        assertTrue(session.onResult("https://a.com", 100, 110));
+        assertFalse(session.onResult("https://a.com", 200, 205));
+        assertTrue(session.onResult(" https://b.com ", 300, 320));
+        assertFalse(session.onResult("  ", 400, 400));
+
+        assertEquals(Arrays.asList("https://a.com", "https://b.com"), session.codes());
+        assertEquals(1, session.duplicates());
+    }
+
+    @Test
+    public void metricsAverageOverNewCodes() {
+        ScanSession session = new ScanSession(1000);
+        for (int i = 0; i < 30; i++) {
+            session.onFrame();
+        }
+        assertTrue(Double.isNaN(session.averageIntervalMs()));
+        session.onResult("a", 1400, 1410);
+        session.onResult("b", 1790, 1810);
+
+        assertEquals(15, session.framesPerSecond(3000), 0.001);
+        assertEquals(15, session.averageHandoffMs(), 0.001);
+        assertEquals(405, session.averageIntervalMs(), 0.001);
+    }
+}
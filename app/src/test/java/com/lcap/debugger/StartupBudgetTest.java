@@ -0,0 +1,81 @@
+package com.lcap.debugger;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * 启动阶段预算。Robolectric 中的耗时和真机不同，预算放得比较宽，
+ * 只用来发现某个阶段被塞进了明显的重活（例如同步 IO 或提前初始化扫码）。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class StartupBudgetTest {
+
+    private static final Map<String, Long> BUDGETS_MS = new LinkedHashMap<>();
+
+    static {
+        BUDGETS_MS.put("MainActivity.onCreate", 3000L);
+        BUDGETS_MS.put("MainActivity.inflate", 1500L);
+        BUDGETS_MS.put("MainActivity.navigation", 1000L);
+        BUDGETS_MS.put("FirstFragment.inflate", 1000L);
+        BUDGETS_MS.put("FirstFragment.onViewCreated", 1000L);
+        BUDGETS_MS.put("WebViewPool.create", 1000L);
+        BUDGETS_MS.put("FirstFragment.attachWebView", 500L);
+    }
+
+    private final StartupTrace trace = StartupTrace.get();
+
+    @Before
+    public void setUp() {
+        trace.reset();
+    }
+
+    @Test
+    public void startupPhasesStayWithinBudget() {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        try {
+            // 执行 IdleHandler：预创建 WebView 并挂到 FirstFragment 上
+            shadowOf(Looper.getMainLooper()).idle();
+
+            for (Map.Entry<String, Long> budget : BUDGETS_MS.entrySet()) {
+                StartupTrace.Phase phase = trace.phase(budget.getKey());
+                assertNotNull("没有记录阶段 " + budget.getKey(), phase);
+                assertTrue(budget.getKey() + " 耗时 " + phase.durationMs + " ms，预算 " + budget.getValue() + " ms",
+                        phase.durationMs <= budget.getValue());
+            }
+            assertFalse(Double.isNaN(trace.milestone(StartupTrace.MILESTONE_FIRST_FRAME)));
+            // 扫码只在用户点击时初始化
+            assertNull(trace.phase(LazyScanContract.PHASE));
+        } finally {
+            controller.pause().stop().destroy();
+        }
+    }
+
+    @Test
+    public void reportContainsPhasesAndColdStart() throws IOException {
+        trace.begin("MainActivity.onCreate");
+        trace.end("MainActivity.onCreate");
+        trace.mark(StartupTrace.MILESTONE_FIRST_FRAME);
+
+        StringWriter out = new StringWriter();
+        StartupTrace.writeJson(out, "1.0", trace.phases(), Map.of(StartupTrace.MILESTONE_FIRST_FRAME, 123.456));
+        String json = out.toString();
+        assertTrue(json, json.startsWith("{\"versionName\":\"1.0\",\"coldStartMs\":123.46,"));
+        assertTrue(json, json.contains("\"phases\":[{\"name\":\"MainActivity.onCreate\""));
+    }
+}
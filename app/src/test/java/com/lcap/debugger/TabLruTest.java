@@ -0,0 +1,68 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TabLruTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    private static Set<Integer> ids(Integer... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFirst() {
+        TabLru lru = new TabLru();
+        lru.touch(0);
+        lru.touch(1);
+        lru.touch(2);
+        lru.touch(0);
+
+        // 使用顺序 1, 2, 0；保留两个时淘汰 1
+        assertEquals(Collections.singletonList(1), lru.evictionCandidates(ids(0, 1, 2), 2, 0));
+        assertEquals(Arrays.asList(1, 2), lru.evictionCandidates(ids(0, 1, 2), 1, 0));
+        assertEquals(0, lru.mostRecent());
+    }
+
+    @Test
+    public void currentTabIsNeverEvicted() {
+        TabLru lru = new TabLru();
+        lru.touch(0);
+        lru.touch(1);
+
+        // 当前标签页是最久未使用的那个
+        assertEquals(Collections.singletonList(1), lru.evictionCandidates(ids(0, 1), 1, 0));
+        assertEquals(Collections.singletonList(1), lru.evictionCandidates(ids(0, 1), 0, 0));
+    }
+
+    @Test
+    public void skipsTabsThatAreAlreadyEvicted() {
+        TabLru lru = new TabLru();
+        lru.touch(0);
+        lru.touch(1);
+        lru.touch(2);
+        lru.touch(3);
+
+        assertEquals(Collections.singletonList(2), lru.evictionCandidates(ids(2, 3), 1, 3));
+        assertTrue(lru.evictionCandidates(ids(2, 3), 2, 3).isEmpty());
+        lru.remove(3);
+        assertEquals(2, lru.mostRecent());
+    }
+
+    @Test
+    public void liveTabLimitFollowsDeviceMemory() {
+        assertEquals(1, TabLru.maxLiveTabs(3 * GB, true));
+        assertEquals(1, TabLru.maxLiveTabs(GB + GB / 2, false));
+        assertEquals(2, TabLru.maxLiveTabs(2 * GB, false));
+        assertEquals(2, TabLru.maxLiveTabs(3 * GB, false));
+        assertEquals(3, TabLru.maxLiveTabs(4 * GB, false));
+        assertEquals(4, TabLru.maxLiveTabs(8 * GB, false));
+    }
+}
@@ -0,0 +1,79 @@
+package com.lcap.debugger;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UrlIndexTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static HistoryStore.Entry entry(String url, long ageDays, int visits) {
+        return new HistoryStore.Entry(url, NOW - ageDays * DAY, visits);
+    }
+
+    @Test
+    public void matchesHostPathAndQueryKeyPrefixes() {
+        List<HistoryStore.Entry> entries = new ArrayList<>();
+        entries.add(entry("https://www.example.com/orders/detail?orderId=1", 0, 1));
+        entries.add(entry("https://news.baidu.com/", 0, 1));
+        UrlIndex index = new UrlIndex(entries, NOW);
+
+        assertEquals(List.of("https://www.example.com/orders/detail?orderId=1"), index.query("exa", 5));
+        assertEquals(List.of("https://www.example.com/orders/detail?orderId=1"), index.query("www.example.com/ord", 5));
+        assertEquals(List.of("https://www.example.com/orders/detail?orderId=1"), index.query("example det", 5));
+        assertEquals(List.of("https://www.example.com/orders/detail?orderId=1"), index.query("orderid", 5));
+        assertEquals(List.of("https://news.baidu.com/"), index.query("baidu.com", 5));
+        assertEquals(List.of("https://news.baidu.com/"), index.query("HTTPS://news", 5));
+        assertTrue(index.query("xyz", 5).isEmpty());
+        assertTrue(index.query("  ", 5).isEmpty());
+    }
+
+    @Test
+    public void ranksByVisitCountTimesRecency() {
+        List<HistoryStore.Entry> entries = new ArrayList<>();
+        // 最近访问的在前，与 HistoryStore.loadRecent 的顺序一致
+        entries.add(entry("https://a.com/recent-once", 0, 1));
+        entries.add(entry("https://a.com/week-often", 7, 5));
+        entries.add(entry("https://a.com/old-very-often", 200, 20));
+        entries.add(entry("https://a.com/month-twice", 20, 2));
+        UrlIndex index = new UrlIndex(entries, NOW);
+
+        // 5×70=350，20×10=200，1×100=100，2×50=100（同分时更近访问的在前）
+        assertEquals(List.of("https://a.com/week-often", "https://a.com/old-very-often",
+                "https://a.com/recent-once", "https://a.com/month-twice"), index.query("a.com", 10));
+        assertEquals(List.of("https://a.com/week-often", "https://a.com/old-very-often"), index.query("a", 2));
+    }
+
+    @Test
+    public void queryStaysUnderOneFrameAtSeveralThousandEntries() {
+        List<HistoryStore.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            entries.add(entry("https://site" + (i % 300) + ".example.com/app/page" + i + "?id=" + i + "&tab=x",
+                    i % 120, 1 + i % 7));
+        }
+        UrlIndex index = new UrlIndex(entries, NOW);
+        String[] inputs = {"s", "si", "site1", "site12.example.com/app", "app p", "tab", "e"};
+
+        // 预热
+        for (int i = 0; i < 50; i++) {
+            for (String input : inputs) {
+                index.query(input, 8);
+            }
+        }
+        int rounds = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (String input : inputs) {
+                index.query(input, 8);
+            }
+        }
+        long average = (System.nanoTime() - start) / (rounds * inputs.length);
+        // 桌面 JVM 上应远低于一帧（16ms）；阈值给低端设备留出约 8 倍余量
+        assertTrue("平均每次查询 " + average / 1000 + " µs", average < 2_000_000);
+    }
+}
@@ -0,0 +1,51 @@
+package com.lcap.debugger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 注入脚本的原生侧开销。各段脚本都是编译期常量，拼接没有运行时成本，
+ * 真正的热点是页面批量上报后 MessageBridge 的拆帧与分发，这里按一帧内的典型批次测量。
+ */
+@State(Scope.Benchmark)
+public class BridgeBenchmark {
+
+    private static final char US = MessageBridge.FIELD_SEPARATOR;
+    private static final char RS = MessageBridge.MESSAGE_SEPARATOR;
+
+    private final MessageBridge bridge = new MessageBridge(Runnable::run);
+    private String batch;
+
+    @Setup
+    public void setUp() {
+        bridge.subscribe(TimelineBridge.CHANNEL, new TimelineBridge(new PerfTimeline(256)));
+        bridge.subscribe(NetworkBridge.CHANNEL, new NetworkBridge(new NetworkRecorder(2048)));
+        bridge.subscribe(ConsoleBridge.CHANNEL, new ConsoleBridge(new ConsoleBuffer(4096)));
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            if (builder.length() > 0) {
+                builder.append(RS);
+            }
+            builder.append(NetworkBridge.CHANNEL).append(US).append("https://cdn.example.com/chunk-").append(i)
+                    .append(".js").append(US).append(1700000000000.25 + i).append(US).append("1.5").append(US)
+                    .append("12.25").append(US).append("40.5").append(US).append("3.75").append(US)
+                    .append("2048").append(US).append("200");
+        }
+        for (int i = 0; i < 10; i++) {
+            builder.append(RS).append(TimelineBridge.CHANNEL).append(US).append(PerfTimeline.TYPE_LONG_TASK)
+                    .append(US).append("longtask").append(US).append(1700000000100.5 + i).append(US).append("64");
+        }
+        builder.append(RS).append(ConsoleBridge.CHANNEL).append(US).append(ConsoleBuffer.LEVEL_ERROR).append(US)
+                .append("[onerror] TypeError: x is undefined").append(US).append("https://a.com/app.js")
+                .append(US).append("42").append(US).append("1700000000200");
+        batch = builder.toString();
+    }
+
+    @Benchmark
+    public void dispatchFrameBatch() {
+        bridge.deliver(batch);
+    }
+}
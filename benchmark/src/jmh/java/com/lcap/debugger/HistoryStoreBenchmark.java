@@ -0,0 +1,66 @@
+package com.lcap.debugger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// 历史记录：追加新URL、重复URL去重，以及冷启动时读取日志
+@State(Scope.Benchmark)
+public class HistoryStoreBenchmark {
+
+    @Param({"1000", "10000"})
+    public int entries;
+
+    private File dir;
+    private File logFile;
+    private HistoryStore store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("history-bench").toFile();
+        logFile = new File(dir, "url_history.log");
+        store = new HistoryStore(logFile, HistoryStore.DEFAULT_CAPACITY, Runnable::run, Runnable::run);
+        for (int i = 0; i < entries; i++) {
+            store.add("https://example.com/page/" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.clear();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public void addNew() {
+        store.add("https://example.com/new/" + next++);
+    }
+
+    @Benchmark
+    public void addDuplicate() {
+        store.add("https://example.com/page/" + (next++ % entries));
+    }
+
+    // 新实例读取同一份日志，相当于应用冷启动后第一次打开历史页面
+    @Benchmark
+    public void loadRecent(Blackhole blackhole) {
+        HistoryStore cold = new HistoryStore(logFile, HistoryStore.DEFAULT_CAPACITY, Runnable::run, Runnable::run);
+        cold.loadRecent(1000, blackhole::consume);
+    }
+}
@@ -0,0 +1,46 @@
+package com.lcap.debugger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+// 视觉截图对比：一次比较在后台线程上的耗时，截图宽度与 VisualCapture.MAX_WIDTH 一致
+@State(Scope.Benchmark)
+public class PerceptualDiffBenchmark {
+
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+
+    // 与基线不同的像素占比（%）
+    @Param({"0", "5"})
+    public int changedPercent;
+
+    private int[] baseline;
+    private int[] current;
+    private final int[] heatmap = new int[WIDTH * HEIGHT];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        baseline = new int[WIDTH * HEIGHT];
+        // 横条纹加噪点，接近文字页面的颜色分布
+        for (int i = 0; i < baseline.length; i++) {
+            int row = i / WIDTH;
+            int shade = row % 24 < 16 ? 0xf4 : 0x30 + random.nextInt(32);
+            baseline[i] = 0xff000000 | shade << 16 | shade << 8 | shade;
+        }
+        current = baseline.clone();
+        for (int i = 0; i < current.length * changedPercent / 100; i++) {
+            current[random.nextInt(current.length)] = 0xffcc3333;
+        }
+    }
+
+    @Benchmark
+    public PerceptualDiff.Result compare() {
+        return PerceptualDiff.compare(baseline, WIDTH, HEIGHT, current, WIDTH, HEIGHT, 0.1, heatmap, true);
+    }
+}
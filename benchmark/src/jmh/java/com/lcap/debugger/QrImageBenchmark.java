@@ -0,0 +1,90 @@
+package com.lcap.debugger;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+// 从图片识别二维码：默认使用生成的手机截图尺寸图片，-PqrCorpus=<目录> 时改用目录中的 PNG
+@State(Scope.Benchmark)
+public class QrImageBenchmark {
+
+    private static final class Image {
+        final int[] argb;
+        final int width;
+        final int height;
+
+        Image(int[] argb, int width, int height) {
+            this.argb = argb;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final ImageQrDecoder decoder = new ImageQrDecoder();
+    private final List<Image> images = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException, WriterException {
+        String corpus = System.getProperty("qr.corpus");
+        if (corpus != null) {
+            File[] files = new File(corpus).listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    BufferedImage image = ImageIO.read(file);
+                    int width = image.getWidth();
+                    int height = image.getHeight();
+                    images.add(new Image(image.getRGB(0, 0, width, height, null, 0, width), width, height));
+                }
+            }
+        }
+        if (images.isEmpty()) {
+            images.add(screenshot(1080, 2340, "https://example.com/app/#/orders?id=1", 240, 900, 600));
+            images.add(screenshot(1440, 3200, "https://example.com/app/#/home", 320, 1200, 400));
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws InterruptedException {
+        for (Image image : images) {
+            blackhole.consume(decoder.decode(image.argb, image.width, image.height));
+        }
+    }
+
+    // 白底截图中间画一个二维码，四周加一些灰色的文字块干扰
+    private static Image screenshot(int width, int height, String text, int left, int top, int size)
+            throws WriterException {
+        int[] argb = new int[width * height];
+        Arrays.fill(argb, 0xffffffff);
+        for (int y = 40; y < height - 40; y += 60) {
+            for (int x = 40; x < width - 40; x++) {
+                if (y < top - 40 || y > top + size + 40) {
+                    argb[y * width + x] = (x / 23) % 3 == 0 ? 0xffffffff : 0xff808080;
+                }
+            }
+        }
+        BitMatrix matrix = new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                argb[(top + y) * width + left + x] = matrix.get(x, y) ? 0xff000000 : 0xffffffff;
+            }
+        }
+        return new Image(argb, width, height);
+    }
+}
@@ -0,0 +1,58 @@
+package com.lcap.debugger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+// 页面加载期间持续写入的环形缓冲区，以及导出
+@State(Scope.Benchmark)
+public class RecorderBenchmark {
+
+    private final NetworkRecorder network = new NetworkRecorder(2048);
+    private final PerfTimeline timeline = new PerfTimeline(256);
+    private final ConsoleBuffer console = new ConsoleBuffer(4096);
+    private final String[] urls = new String[64];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = "https://cdn.example.com/static/chunk-" + i + ".js";
+        }
+        for (int i = 0; i < 2048; i++) {
+            String url = urls[i % urls.length];
+            network.begin("GET", url, 1000 + i);
+            network.onResourceTiming(url, 1000 + i, 1, 2, 30, 4, 1024, 200);
+        }
+    }
+
+    // 一次请求的完整记录：拦截时登记，再合并页面内的 Resource Timing
+    @Benchmark
+    public void networkRequest() {
+        String url = urls[next++ & (urls.length - 1)];
+        network.begin("GET", url, next);
+        network.onResourceTiming(url, next, 1, 2, 30, 4, 1024, 200);
+    }
+
+    @Benchmark
+    public void timelineEntry() {
+        timeline.add(PerfTimeline.TYPE_LONG_TASK, "longtask", next++, 55);
+    }
+
+    @Benchmark
+    public void consoleMessage() {
+        console.add(ConsoleBuffer.LEVEL_LOG, "render item", "https://a.com/app.js", next++, 0);
+    }
+
+    @Benchmark
+    public Writer exportHar() throws IOException {
+        StringWriter out = new StringWriter(1 << 20);
+        network.writeHar(out);
+        return out;
+    }
+}
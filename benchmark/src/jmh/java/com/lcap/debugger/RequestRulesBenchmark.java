@@ -0,0 +1,60 @@
+package com.lcap.debugger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+// 请求拦截规则：每个 WebView 请求都要查询一次，目标是在几万条规则下仍低于 1 微秒
+@State(Scope.Benchmark)
+public class RequestRulesBenchmark {
+
+    // 命中域名、路径前缀、子串各一个，其余不命中，接近真实页面中第三方请求的比例
+    private static final String[] URLS = {
+            "https://static.site42.example.com/js/app.8f3a2c.js",
+            "https://cdn.example.com/assets/img/banner@2x.png?v=20240101",
+            "https://api.example.com/v1/orders?id=123&tab=detail",
+            "https://stats.tracker17.net/collect?v=2&tid=UA-1&cid=555",
+            "https://img.example.com/pixel.gif?utm_source=push&k3=1",
+            "https://fonts.example.org/css2?family=Noto+Sans+SC:wght@400;700",
+            "https://m.example.com/track/v3/beacon?e=click",
+            "https://www.example.com/",
+    };
+
+    @Param({"1000", "20000"})
+    public int rules;
+
+    private RequestRules compiled;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < rules; i++) {
+            switch (i % 4) {
+                case 0:
+                case 1:
+                    text.append("||stats.tracker").append(i).append(".net\n");
+                    break;
+                case 2:
+                    text.append("/track/v").append(i).append("/\n");
+                    break;
+                default:
+                    text.append("stub k").append(i).append("=\n");
+            }
+        }
+        compiled = RequestRules.parse(new BufferedReader(new StringReader(text.toString())), null);
+    }
+
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        for (String url : URLS) {
+            blackhole.consume(compiled.find(url));
+        }
+    }
+}
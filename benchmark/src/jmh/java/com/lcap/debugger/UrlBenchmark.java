@@ -0,0 +1,53 @@
+package com.lcap.debugger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 地址栏：输入规范化与自动补全查询
+@State(Scope.Benchmark)
+public class UrlBenchmark {
+
+    private static final String[] INPUTS = {
+            "  example.com/orders?id=1 ", "https://news.baidu.com/", "http://192.168.1.10:8080/app/#/home",
+    };
+    // 与 UrlAutocomplete.MAX_SUGGESTIONS 一致
+    private static final int MAX_SUGGESTIONS = 8;
+    private static final String[] QUERIES = {"s", "site1", "site12.example.com/app", "app p", "tab"};
+
+    @Param({"1000", "5000"})
+    public int entries;
+
+    private UrlIndex index;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        List<HistoryStore.Entry> history = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            history.add(new HistoryStore.Entry("https://site" + (i % 300) + ".example.com/app/page" + i
+                    + "?id=" + i + "&tab=x", now - (i % 120) * 86_400_000L, 1 + i % 7));
+        }
+        index = new UrlIndex(history, now);
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        for (String input : INPUTS) {
+            blackhole.consume(UrlNormalizer.normalize(input));
+        }
+    }
+
+    @Benchmark
+    public void suggest(Blackhole blackhole) {
+        for (String query : QUERIES) {
+            blackhole.consume(index.query(query, MAX_SUGGESTIONS));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package android.content;
+
+import java.io.File;
+
+// 基准用的 Android 桩：只有被测类引用到的声明，基准路径不会调用
+public abstract class Context {
+
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract Context getApplicationContext();
+
+    public abstract File getFilesDir();
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+}
@@ -0,0 +1,15 @@
+package android.content;
+
+// 基准用的 Android 桩：只有被测类引用到的声明
+public interface SharedPreferences {
+
+    interface Editor {
+        Editor remove(String key);
+
+        void apply();
+    }
+
+    String getString(String key, String defValue);
+
+    Editor edit();
+}
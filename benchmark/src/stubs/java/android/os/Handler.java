@@ -0,0 +1,13 @@
+package android.os;
+
+// 基准用的 Android 桩：被测类在基准中通过构造参数传入执行器，不会用到 Handler
+public class Handler {
+
+    public Handler(Looper looper) {
+        throw new UnsupportedOperationException("基准中没有 Handler");
+    }
+
+    public final boolean post(Runnable r) {
+        throw new UnsupportedOperationException("基准中没有 Handler");
+    }
+}
@@ -0,0 +1,12 @@
+package android.os;
+
+// 基准用的 Android 桩：JVM 上没有主线程消息循环
+public final class Looper {
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        throw new UnsupportedOperationException("基准中没有主线程 Looper");
+    }
+}
@@ -0,0 +1,12 @@
+package android.os;
+
+// 基准用的 Android 桩：用 JVM 的单调时钟代替开机时间
+public final class SystemClock {
+
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1_000_000;
+    }
+}
@@ -0,0 +1,12 @@
+package android.webkit;
+
+import java.io.InputStream;
+import java.util.Map;
+
+// 基准用的 Android 桩：只有 InterceptedResponse 转换时用到的构造方法
+public class WebResourceResponse {
+
+    public WebResourceResponse(String mimeType, String encoding, int statusCode, String reasonPhrase,
+                               Map<String, String> responseHeaders, InputStream data) {
+    }
+}